@@ -0,0 +1,138 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.inject.Provider;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.auth.modules.AuthenticationCache;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+
+/**
+ * Router filter invalidating the {@link AuthenticationCache} when the resources the cached security contexts were
+ * resolved from change.
+ * <p>
+ * A change of a user, or of anything below it such as its role relationships, invalidates the security contexts of
+ * that user. A change of a role invalidates all cached security contexts, as any of them may have been granted
+ * the role.
+ */
+class AuthenticationCacheFilter implements Filter {
+
+    /** The repository prefix, stripped to match the writes of the managed objects to the repository. */
+    private static final String REPO_PREFIX = "repo/";
+
+    /** Collections of roles whose change may affect any cached security context. */
+    private static final List<String> ROLE_COLLECTIONS = Arrays.asList("managed/role", "internal/role");
+
+    private final Provider<AuthenticationCache> cacheProvider;
+
+    /**
+     * Constructs the filter.
+     *
+     * @param cacheProvider provider of the current cache, which may return null if the cache is disabled
+     */
+    AuthenticationCacheFilter(Provider<AuthenticationCache> cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    /**
+     * Invalidates the security contexts affected by a change of the request resource.
+     *
+     * @param request the request changing the resource
+     */
+    void invalidate(Request request) {
+        final AuthenticationCache cache = cacheProvider.get();
+        if (cache == null) {
+            return;
+        }
+        String path = request.getResourcePath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.startsWith(REPO_PREFIX)) {
+            path = path.substring(REPO_PREFIX.length());
+        }
+        final String[] segments = path.split("/");
+        if (segments.length < 2) {
+            return;
+        }
+        final String collection = segments[0] + "/" + segments[1];
+        if (ROLE_COLLECTIONS.contains(collection)) {
+            cache.invalidateAll();
+        } else if (segments.length > 2) {
+            cache.invalidate(collection, segments[2]);
+        }
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+            RequestHandler next) {
+        return next.handleAction(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterCreate(final Context context,
+            final CreateRequest request, RequestHandler next) {
+        return next.handleCreate(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterDelete(Context context, final DeleteRequest request,
+            RequestHandler next) {
+        return next.handleDelete(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterPatch(Context context, final PatchRequest request,
+            RequestHandler next) {
+        return next.handlePatch(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler, RequestHandler next) {
+        return next.handleQuery(context, request, handler);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+            RequestHandler next) {
+        return next.handleRead(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, final UpdateRequest request,
+            RequestHandler next) {
+        return next.handleUpdate(context, request).thenOnResult(response -> invalidate(request));
+    }
+}
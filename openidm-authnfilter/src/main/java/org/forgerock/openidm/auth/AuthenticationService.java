@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 package org.forgerock.openidm.auth;
@@ -87,6 +87,7 @@ import org.forgerock.openidm.auth.api.GetAuthTokenActionRequest;
 import org.forgerock.openidm.auth.api.GetAuthTokenActionResponse;
 import org.forgerock.openidm.auth.api.LogoutActionResponse;
 import org.forgerock.openidm.auth.api.ReauthenticateActionResponse;
+import org.forgerock.openidm.auth.modules.AuthenticationCache;
 import org.forgerock.openidm.auth.modules.IDMAuthModule;
 import org.forgerock.openidm.auth.modules.IDMAuthModuleWrapper;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
@@ -102,6 +103,7 @@ import org.forgerock.openidm.idp.impl.ProviderConfigMapper;
 import org.forgerock.openidm.idp.impl.api.IdentityProviderServiceResourceWithNoSecret;
 import org.forgerock.openidm.keystore.SharedKeyService;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.openidm.util.HeaderUtil;
 import org.forgerock.openidm.util.ConfigPropertyUtil;
 import org.forgerock.script.ScriptRegistry;
@@ -205,6 +207,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
     public static final String AUTH_MODULE_CONFIG_ENABLED = "enabled";
     /** The resolvers key within an auth module stanza in the authentication config. */
     public static final String AUTH_MODULE_RESOLVERS_KEY = "resolvers";
+    /** The authenticationCache key in the authentication config. */
+    public static final String AUTHENTICATION_CACHE_KEY = "authenticationCache";
 
     private static final String SOCIAL_PROVIDERS = "SOCIAL_PROVIDERS";
     private static final String MANAGED = "managed";
@@ -226,6 +230,18 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
     /** The authenticators to delegate to.*/
     private List<Authenticator> authenticators = new ArrayList<>();
 
+    /** The cache of resolved security contexts, null if not enabled. */
+    private volatile AuthenticationCache authenticationCache;
+
+    /** The router filter invalidating the cached security contexts. */
+    private final AuthenticationCacheFilter authenticationCacheFilter =
+            new AuthenticationCacheFilter(new Provider<AuthenticationCache>() {
+                @Override
+                public AuthenticationCache get() {
+                    return authenticationCache;
+                }
+            });
+
     // ----- Declarative Service Implementation
 
     @Reference
@@ -263,6 +279,16 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         identityProviderService = null;
     }
 
+    @Reference(policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.OPTIONAL,
+            unbind = "unbindRouterFilterRegistration")
+    void bindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.addFilter(authenticationCacheFilter);
+    }
+
+    void unbindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.removeFilter(authenticationCacheFilter);
+    }
+
     /** An on-demand Provider for the ConnectionFactory */
     private final Provider<ConnectionFactory> connectionFactoryProvider =
             new Provider<ConnectionFactory>() {
@@ -542,6 +568,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         logger.debug("OpenIDM Config for Authentication {} is deactivated.", config.get(Constants.SERVICE_PID));
         config = null;
         authenticators.clear();
+        authenticationCache = null;
 
         // remove CAF filter from CHF filter wrapper
         if (authFilterWrapper != null) {
@@ -572,6 +599,9 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         final JsonValue sessionConfig = serverAuthContext.get(AuthenticationService.SESSION_MODULE_KEY);
         final JsonValue authModulesConfig = serverAuthContext.get(AuthenticationService.AUTH_MODULES_KEY);
 
+        // a new cache for the new configuration, the cached security contexts may no longer apply
+        authenticationCache = AuthenticationCache.fromConfig(moduleConfig.get(AUTHENTICATION_CACHE_KEY));
+
         if (sessionConfig.get(AUTH_MODULE_PROPERTIES_KEY).get(JwtSessionModule.HMAC_SIGNING_KEY).isNull()) {
             try {
                 // amend session config to include the hmac key stored in the keystore
@@ -642,7 +672,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         }
 
         // wrap all auth modules in our wrapper to apply the IDM business logic
-        return configureModule(new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry))
+        return configureModule(new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry,
+                authenticationCache))
                 .withSettings(moduleProperties.asMap());
     }
 
@@ -0,0 +1,263 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth.modules;
+
+import static org.forgerock.services.context.SecurityContext.AUTHZID_COMPONENT;
+import static org.forgerock.services.context.SecurityContext.AUTHZID_ID;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.json.JsonValue;
+
+/**
+ * Bounded, short lived cache of the security contexts resolved for credential based authentication.
+ * <p>
+ * Entries are keyed by the auth module and a fingerprint of the credentials presented with the request. The
+ * fingerprint is a HMAC with a random key generated for each cache instance, so the cache never holds the
+ * credentials themselves nor a value that could be used to recover them offline. A cache hit skips the
+ * credential query, the password hash comparison, the role calculation and the augmentation script.
+ * <p>
+ * Configured in authentication.json as:
+ *
+ * <pre>
+ *     <code>
+ * "authenticationCache" : {
+ *     "enabled" : true,
+ *     "maxSize" : 1000,
+ *     "ttl" : 5000
+ * }
+ *     </code>
+ * </pre>
+ *
+ * Entries are invalidated when the authenticated resource changes on this node. Changes made through other nodes of
+ * a cluster are picked up once the entries expire, so the time to live should stay short.
+ */
+public class AuthenticationCache {
+
+    /** Config key to enable the cache. */
+    public static final String CONFIG_ENABLED = "enabled";
+    /** Config key of the maximum number of cached security contexts. */
+    public static final String CONFIG_MAX_SIZE = "maxSize";
+    /** Config key of the time to live of the cached security contexts in milliseconds. */
+    public static final String CONFIG_TTL = "ttl";
+
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final long DEFAULT_TTL = 5000L;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Cached security context.
+     */
+    static final class Entry {
+        private final String authenticationId;
+        private final Map<String, Object> authorization;
+        private final String resource;
+        private final long expires;
+
+        private Entry(String authenticationId, Map<String, Object> authorization, long expires) {
+            this.authenticationId = authenticationId;
+            this.authorization = authorization;
+            this.resource = resource(authorization.get(AUTHZID_COMPONENT), authorization.get(AUTHZID_ID));
+            this.expires = expires;
+        }
+
+        /**
+         * Get the authentication id.
+         *
+         * @return the authentication id
+         */
+        String getAuthenticationId() {
+            return authenticationId;
+        }
+
+        /**
+         * Get a copy of the authorization context.
+         *
+         * @return the authorization context
+         */
+        Map<String, Object> getAuthorization() {
+            return new JsonValue(authorization).copy().asMap();
+        }
+    }
+
+    private final long ttl;
+    private final SecretKeySpec fingerprintKey;
+    private final Map<String, Entry> entries;
+
+    /** Cache keys by the resource the security context was resolved from. */
+    private final Map<String, Set<String>> keysByResource = new HashMap<>();
+
+    /**
+     * Create the cache with the given configuration.
+     *
+     * @param config the authenticationCache configuration
+     * @return the cache or {@code null} if it is not enabled
+     */
+    public static AuthenticationCache fromConfig(JsonValue config) {
+        if (config.isNull() || !config.get(CONFIG_ENABLED).defaultTo(true).asBoolean()) {
+            return null;
+        }
+        return new AuthenticationCache(config.get(CONFIG_MAX_SIZE).defaultTo(DEFAULT_MAX_SIZE).asInteger(),
+                config.get(CONFIG_TTL).defaultTo(DEFAULT_TTL).asLong());
+    }
+
+    /**
+     * Create the cache.
+     *
+     * @param maxSize the maximum number of cached security contexts
+     * @param ttl the time to live of the cached security contexts in milliseconds
+     */
+    public AuthenticationCache(final int maxSize, long ttl) {
+        this.ttl = ttl;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static String resource(Object component, Object id) {
+        return component != null && id != null ? component + "/" + id : null;
+    }
+
+    private void index(String key, Entry entry) {
+        if (entry.resource != null) {
+            keysByResource.computeIfAbsent(entry.resource, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void unindex(String key, Entry entry) {
+        if (entry.resource != null) {
+            Set<String> keys = keysByResource.get(entry.resource);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByResource.remove(entry.resource);
+            }
+        }
+    }
+
+    /**
+     * Compute the cache key of the credentials presented to the auth module.
+     *
+     * @param moduleId the auth module id
+     * @param credentials the credentials presented with the request, some may be null
+     * @return the cache key
+     */
+    String key(String moduleId, String... credentials) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(fingerprintKey);
+            for (String credential : credentials) {
+                if (credential != null) {
+                    mac.update(credential.getBytes(StandardCharsets.UTF_8));
+                }
+                mac.update((byte) 0);
+            }
+            StringBuilder key = new StringBuilder().append(moduleId).append(':');
+            for (byte b : mac.doFinal()) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute credential fingerprint", e);
+        }
+    }
+
+    /**
+     * Get the cached security context.
+     *
+     * @param key the cache key
+     * @return the cached security context or {@code null}
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires <= System.currentTimeMillis()) {
+            entries.remove(key);
+            unindex(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache the resolved security context.
+     *
+     * @param key the cache key
+     * @param authenticationId the authentication id
+     * @param authorization the authorization context
+     */
+    void put(String key, String authenticationId, Map<String, Object> authorization) {
+        Entry entry = new Entry(authenticationId, new JsonValue(authorization).copy().asMap(),
+                System.currentTimeMillis() + ttl);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            index(key, entry);
+        }
+    }
+
+    /**
+     * Remove the security contexts of the given resource.
+     *
+     * @param component the resource collection, e.g. {@code managed/user}
+     * @param id the resource id
+     */
+    public synchronized void invalidate(String component, String id) {
+        Set<String> keys = keysByResource.remove(resource(component, id));
+        if (keys != null) {
+            for (String key : keys) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all cached security contexts.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        keysByResource.clear();
+    }
+
+    /**
+     * Get the number of cached security contexts.
+     *
+     * @return the cache size
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+}
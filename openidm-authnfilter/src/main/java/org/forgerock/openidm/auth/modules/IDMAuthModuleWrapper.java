@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
- * Portions Copyright 2018-2020 Wren Security
+ * Portions Copyright 2018-2026 Wren Security
  */
 package org.forgerock.openidm.auth.modules;
 
@@ -26,6 +26,7 @@ import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.json.resource.ResourceResponse.*;
 import static org.forgerock.openidm.auth.modules.MappingRoleCalculator.GroupComparison;
 import static org.forgerock.openidm.servletregistration.ServletRegistration.SERVLET_FILTER_AUGMENT_SECURITY_CONTEXT;
+import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import javax.script.ScriptException;
 import javax.security.auth.Subject;
@@ -37,6 +38,7 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -99,11 +101,17 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     /** Key in Messages Map for the cached resource detail */
     public static final String AUTHENTICATED_RESOURCE = "org.forgerock.openidm.authentication.resource";
 
+    /** Key in the auth context map of the client IP address, which is specific to each request. */
+    private static final String CLIENT_IP_ADDRESS = "ipAddress";
+
     private final ConnectionFactory connectionFactory;
     private final CryptoService cryptoService;
     private final ScriptRegistry scriptRegistry;
     private final AugmentationScriptExecutor augmentationScriptExecutor;
 
+    /** the cache of resolved security contexts, null if not enabled */
+    private final AuthenticationCache authenticationCache;
+
     /** an security context augmentation script, if configured */
     private ScriptEntry augmentScript = null;
 
@@ -128,8 +136,24 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
      */
     public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, null);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper caching the security contexts resolved by credential
+     * based auth modules.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param connectionFactory
+     * @param cryptoService
+     * @param scriptRegistry
+     * @param authenticationCache The cache of resolved security contexts, or null to disable caching.
+     */
+    public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            AuthenticationCache authenticationCache) {
         this(authModule, connectionFactory, cryptoService, scriptRegistry,
-                new RoleCalculatorFactory(), new AugmentationScriptExecutor());
+                new RoleCalculatorFactory(), new AugmentationScriptExecutor(), authenticationCache);
     }
 
     /**
@@ -144,12 +168,31 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
             RoleCalculatorFactory roleCalculatorFactory,
             AugmentationScriptExecutor augmentationScriptExecutor) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, roleCalculatorFactory,
+                augmentationScriptExecutor, null);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper with the provided parameters, for test use.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param roleCalculatorFactory An instance of the RoleCalculatorFactory.
+     * @param augmentationScriptExecutor An instance of the AugmentationScriptExecutor.
+     * @param authenticationCache The cache of resolved security contexts, or null to disable caching.
+     */
+    IDMAuthModuleWrapper(
+            AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            RoleCalculatorFactory roleCalculatorFactory,
+            AugmentationScriptExecutor augmentationScriptExecutor,
+            AuthenticationCache authenticationCache) {
         this.authModule = authModule;
         this.connectionFactory = connectionFactory;
         this.cryptoService = cryptoService;
         this.scriptRegistry = scriptRegistry;
         this.roleCalculatorFactory = roleCalculatorFactory;
         this.augmentationScriptExecutor = augmentationScriptExecutor;
+        this.authenticationCache = authenticationCache;
     }
 
     /**
@@ -293,6 +336,9 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
      * and then calls the underlying auth module's validateRequest method. If the auth module returns
      * SUCCESS, based on the authentication configuration will perform role calculation and, if present, will run the
      * augment security context script.
+     * <p>
+     * If the authentication cache is enabled and the request presents the same credentials as a recent successful
+     * request, the cached security context is used without calling the underlying auth module.
      *
      * @param messageInfo {@inheritDoc}
      * @param clientSubject {@inheritDoc}
@@ -306,6 +352,23 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         // Add this properties so the AuditLogger knows whether to log the client IP in the header.
         setClientIPAddress(messageInfo);
 
+        final String cacheKey = getCacheKey(messageInfo.getRequest());
+        if (cacheKey != null) {
+            final AuthenticationCache.Entry cached = authenticationCache.get(cacheKey);
+            if (cached != null) {
+                final String authenticationId = cached.getAuthenticationId();
+                SecurityContextMapper.fromMessageInfo(messageInfo).setAuthenticationId(authenticationId);
+                getContextMap(messageInfo).putAll(cached.getAuthorization());
+                clientSubject.getPrincipals().add(new Principal() {
+                    @Override
+                    public String getName() {
+                        return authenticationId;
+                    }
+                });
+                return newResultPromise(AuthStatus.SUCCESS);
+            }
+        }
+
         return authModule.validateRequest(messageInfo, clientSubject, serviceSubject)
                 .then(new Function<AuthStatus, AuthStatus, AuthenticationException>() {
                     @Override
@@ -378,6 +441,12 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                             return SEND_FAILURE;
                         }
 
+                        if (cacheKey != null) {
+                            final Map<String, Object> authorization = new HashMap<>(getContextMap(messageInfo));
+                            authorization.remove(CLIENT_IP_ADDRESS);
+                            authenticationCache.put(cacheKey, principalName, authorization);
+                        }
+
                         return authStatus;
                     }
                 });
@@ -413,6 +482,27 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         return queryExecutor.apply(request);
     }
 
+    /**
+     * Gets the authentication cache key of the credentials presented with the request. Only the security contexts
+     * of the credential based auth modules are cached.
+     *
+     * @param request the request
+     * @return the cache key, null if the security context of the request cannot be cached
+     */
+    private String getCacheKey(Request request) {
+        if (authenticationCache == null || !(authModule instanceof DelegatedAuthModule)) {
+            return null;
+        }
+        final Credential header = HEADER_AUTH_CRED_HELPER.getCredential(request);
+        final Credential basic = BASIC_AUTH_CRED_HELPER.getCredential(request);
+        if (!header.isComplete() && !basic.isComplete()) {
+            return null;
+        }
+        // both credentials are part of the key as the module tries one after the other
+        return authenticationCache.key(getModuleId(),
+                header.username, header.password, basic.username, basic.password);
+    }
+
     private void setClientIPAddress(MessageInfoContext messageInfo) {
         Request request = messageInfo.getRequest();
         String ipAddress;
@@ -424,7 +514,7 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                 ipAddress = messageInfo.asContext(ClientContext.class).getRemoteAddress();
             }
         }
-        getContextMap(messageInfo).put("ipAddress", ipAddress);
+        getContextMap(messageInfo).put(CLIENT_IP_ADDRESS, ipAddress);
     }
 
     @SuppressWarnings("unchecked")
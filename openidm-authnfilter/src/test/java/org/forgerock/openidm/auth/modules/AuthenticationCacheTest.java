@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth.modules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class AuthenticationCacheTest {
+
+    private static Map<String, Object> authorization(String component, String id) {
+        return json(object(field("component", component), field("id", id))).asMap();
+    }
+
+    @Test
+    public void testFromConfig() {
+        assertThat(AuthenticationCache.fromConfig(json(null))).isNull();
+        assertThat(AuthenticationCache.fromConfig(json(object(field("enabled", false))))).isNull();
+        assertThat(AuthenticationCache.fromConfig(json(object(field("ttl", 1000))))).isNotNull();
+    }
+
+    @Test
+    public void testKeyDependsOnAllCredentials() {
+        AuthenticationCache cache = new AuthenticationCache(10, 60000L);
+
+        String key = cache.key("MANAGED_USER", "bjensen", "secret", null, null);
+
+        assertThat(cache.key("MANAGED_USER", "bjensen", "secret", null, null)).isEqualTo(key);
+        assertThat(key).startsWith("MANAGED_USER:").doesNotContain("secret");
+        assertThat(cache.key("MANAGED_USER", "bjensen", "other", null, null)).isNotEqualTo(key);
+        assertThat(cache.key("MANAGED_USER", "bjensen", "secret", "bjensen", "other")).isNotEqualTo(key);
+        assertThat(cache.key("INTERNAL_USER", "bjensen", "secret", null, null)).isNotEqualTo(key);
+        assertThat(new AuthenticationCache(10, 60000L).key("MANAGED_USER", "bjensen", "secret", null, null))
+                .isNotEqualTo(key);
+    }
+
+    @Test
+    public void testInvalidateResource() {
+        AuthenticationCache cache = new AuthenticationCache(10, 60000L);
+        cache.put("a", "bjensen", authorization("managed/user", "1"));
+        cache.put("b", "bjensen", authorization("managed/user", "1"));
+        cache.put("c", "scarter", authorization("managed/user", "2"));
+
+        cache.invalidate("managed/user", "1");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c").getAuthenticationId()).isEqualTo("scarter");
+    }
+
+    @Test
+    public void testExpiredAndEvicted() throws Exception {
+        AuthenticationCache cache = new AuthenticationCache(1, 50L);
+        cache.put("a", "bjensen", authorization("managed/user", "1"));
+        cache.put("b", "scarter", authorization("managed/user", "2"));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+
+        Thread.sleep(100);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCachedAuthorizationIsCopied() {
+        AuthenticationCache cache = new AuthenticationCache(10, 60000L);
+        cache.put("a", "bjensen", authorization("managed/user", "1"));
+
+        cache.get("a").getAuthorization().put("id", "2");
+
+        assertThat(cache.get("a").getAuthorization().get("id")).isEqualTo("1");
+    }
+}
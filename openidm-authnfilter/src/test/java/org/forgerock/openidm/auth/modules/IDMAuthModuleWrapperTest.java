@@ -23,6 +23,7 @@ import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -287,6 +288,64 @@ public class IDMAuthModuleWrapperTest {
         verify(authModule).validateRequest(messageInfo, clientSubject, serviceSubject);
     }
 
+    @Test
+    public void shouldUseCachedSecurityContextForSameCredentials() throws AuthException {
+
+        //Given
+        MessagePolicy messagePolicy = mock(MessagePolicy.class);
+        CallbackHandler handler = mock(CallbackHandler.class);
+        AsyncServerAuthModule delegatedModule = mock(DelegatedAuthModule.class);
+        given(delegatedModule.validateRequest(any(MessageInfoContext.class), any(Subject.class), any(Subject.class)))
+                .willReturn(Promises.<AuthStatus, AuthenticationException>newResultPromise(AuthStatus.SUCCESS));
+        AuthenticationCache cache = new AuthenticationCache(10, 60000L);
+
+        IDMAuthModuleWrapper wrapper = new IDMAuthModuleWrapper(delegatedModule,
+                connectionFactory, mock(CryptoService.class), mock(ScriptRegistry.class),
+                roleCalculatorFactory, scriptExecutor, cache);
+        wrapper.initialize(messagePolicy, messagePolicy, handler, options);
+
+        //When
+        Subject firstSubject = new Subject();
+        Principal principal = mock(Principal.class);
+        given(principal.getName()).willReturn("USERNAME");
+        firstSubject.getPrincipals().add(principal);
+        AuthStatus first = wrapper.validateRequest(mockCredentialMessageInfo("password"), firstSubject, new Subject())
+                .getOrThrowUninterruptibly();
+
+        Subject secondSubject = new Subject();
+        MessageInfoContext secondMessageInfo = mockCredentialMessageInfo("password");
+        AuthStatus second = wrapper.validateRequest(secondMessageInfo, secondSubject, new Subject())
+                .getOrThrowUninterruptibly();
+
+        Subject otherSubject = new Subject();
+        otherSubject.getPrincipals().add(principal);
+        wrapper.validateRequest(mockCredentialMessageInfo("other"), otherSubject, new Subject())
+                .getOrThrowUninterruptibly();
+
+        //Then
+        assertEquals(first, AuthStatus.SUCCESS);
+        assertEquals(second, AuthStatus.SUCCESS);
+        assertEquals(secondSubject.getPrincipals().iterator().next().getName(), "USERNAME");
+        Map<String, Object> contextMap = (Map<String, Object>) secondMessageInfo.getRequestContextMap()
+                .get(ATTRIBUTE_AUTH_CONTEXT);
+        assertEquals(contextMap.get("component"), "foo/user");
+        verify(delegatedModule, times(2))
+                .validateRequest(any(MessageInfoContext.class), any(Subject.class), any(Subject.class));
+    }
+
+    private MessageInfoContext mockCredentialMessageInfo(String password) {
+        MessageInfoContext messageInfo = mockMessageInfoContext();
+        Map<String, Object> messageInfoMap = new HashMap<>();
+        messageInfoMap.put(ATTRIBUTE_AUTH_CONTEXT, new HashMap<String, Object>());
+        Request request = new Request();
+        request.setUri(URI.create("REQUEST_URL"));
+        request.getHeaders().put("X-OpenIDM-Username", "USERNAME");
+        request.getHeaders().put("X-OpenIDM-Password", password);
+        given(messageInfo.getRequest()).willReturn(request);
+        given(messageInfo.getRequestContextMap()).willReturn(messageInfoMap);
+        return messageInfo;
+    }
+
     @Test
     public void shouldSecureResponse() throws AuthException {
 
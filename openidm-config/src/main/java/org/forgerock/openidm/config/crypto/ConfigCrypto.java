@@ -21,9 +21,11 @@
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
  *
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.config.crypto;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Dictionary;
@@ -162,6 +164,8 @@ public class ConfigCrypto {
         }
         if (props != null && !props.isEmpty()) {
             CryptoService crypto = getCryptoService(context);
+            List<JsonPointer> pointersToEncrypt = new ArrayList<>(props.size());
+            List<JsonValue> valuesToEncrypt = new ArrayList<>(props.size());
             for (JsonPointer pointer : props) {
                 logger.trace("Handling property to encrypt {}", pointer);
 
@@ -172,17 +176,23 @@ public class ConfigCrypto {
                         logger.trace("Encrypting {} with cipher {} and alias {}",
                                 pointer, ServerConstants.SECURITY_CRYPTOGRAPHY_DEFAULT_CIPHER, alias);
                     }
+                    pointersToEncrypt.add(pointer);
+                    valuesToEncrypt.add(valueToEncrypt);
+                }
+            }
 
-                    // Encrypt and replace value
-                    try {
-                        JsonValue encryptedValue = crypto.encrypt(valueToEncrypt,
-                                ServerConstants.SECURITY_CRYPTOGRAPHY_DEFAULT_CIPHER, alias);
-                        newConfig.put(pointer, encryptedValue.getObject());
-                    } catch (JsonCryptoException ex) {
-                        throw new InternalErrorException("Failure during encryption of configuration "
-                                + pidOrFactory + "-" + instanceAlias + " for property " + pointer.toString()
-                                + " : " + ex.getMessage(), ex);
+            // Encrypt all the values with the same key and replace them
+            if (!valuesToEncrypt.isEmpty()) {
+                try {
+                    List<JsonValue> encryptedValues = crypto.encryptAll(valuesToEncrypt,
+                            ServerConstants.SECURITY_CRYPTOGRAPHY_DEFAULT_CIPHER, alias);
+                    for (int i = 0; i < pointersToEncrypt.size(); i++) {
+                        newConfig.put(pointersToEncrypt.get(i), encryptedValues.get(i).getObject());
                     }
+                } catch (JsonCryptoException ex) {
+                    throw new InternalErrorException("Failure during encryption of configuration "
+                            + pidOrFactory + "-" + instanceAlias + " for properties " + pointersToEncrypt
+                            + " : " + ex.getMessage(), ex);
                 }
             }
         }
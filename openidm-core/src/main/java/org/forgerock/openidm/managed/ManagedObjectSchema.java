@@ -2,6 +2,7 @@
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright (c) 2015 ForgeRock AS. All Rights Reserved
+ * Portions Copyright 2026 Wren Security.
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -62,6 +63,11 @@ public class ManagedObjectSchema {
      * The schema to use to validate the structure and content of the managed object. 
      */
     private final Map<JsonPointer, SchemaField> hiddenByDefaultFields;
+
+    /**
+     * The fields whose unique policy is enforced by a unique index of the repository.
+     */
+    private final List<JsonPointer> repoUniqueFields;
     
     public ManagedObjectSchema(JsonValue schema, ScriptRegistry scriptRegistry, CryptoService cryptoService) 
             throws JsonValueException, ScriptException {
@@ -69,6 +75,7 @@ public class ManagedObjectSchema {
         fields = new LinkedHashMap<>();
         relationshipFields = new ArrayList<>();
         hiddenByDefaultFields = new LinkedHashMap<>();
+        repoUniqueFields = new ArrayList<>();
         if (!schemaProperties.isNull()) {
             for (String propertyKey : schemaProperties.keys()) {
                 SchemaField schemaField = new SchemaField(propertyKey, schemaProperties.get(propertyKey), 
@@ -81,6 +88,9 @@ public class ManagedObjectSchema {
                 if (schemaField.isRelationship()) {
                     relationshipFields.add(new JsonPointer(propertyKey));
                 }
+                if (schemaField.isUniqueEnforcedByRepo()) {
+                    repoUniqueFields.add(new JsonPointer(propertyKey));
+                }
             }
         }
     }
@@ -132,6 +142,16 @@ public class ManagedObjectSchema {
         return hiddenByDefaultFields;
     }
 
+    /**
+     * Returns a {@link List} of the fields whose unique policy is enforced by a unique index of the repository, in
+     * place of a query before the object is written.
+     *
+     * @return a list of the repository enforced unique fields
+     */
+    public List<JsonPointer> getRepoUniqueFields() {
+        return repoUniqueFields;
+    }
+
     /**
      * Determines if the supplied {@link JsonPointer} represents a resource expanded field name or a relationship 
      * field, and if so, returns a {@link Pair} representing the relationship field's name on the left and the 
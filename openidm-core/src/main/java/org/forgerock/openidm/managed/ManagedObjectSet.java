@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2025 Wren Security.
+ * Portions Copyright 2025-2026 Wren Security.
  */
 package org.forgerock.openidm.managed;
 
@@ -26,12 +26,15 @@ import static org.forgerock.openidm.util.ResourceUtil.isEqual;
 import static org.forgerock.util.crypto.CryptoConstants.*;
 import static org.forgerock.util.promise.Promises.*;
 
+import javax.script.Bindings;
 import javax.script.ScriptException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,12 +51,14 @@ import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
 import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.CollectionResourceProvider;
+import org.forgerock.json.resource.ConflictException;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.ForbiddenException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.NotSupportedException;
 import org.forgerock.json.resource.PatchOperation;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.PreconditionFailedException;
@@ -84,9 +89,11 @@ import org.forgerock.openidm.smartevent.Name;
 import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.openidm.sync.SyncContext;
 import org.forgerock.openidm.sync.impl.SynchronizationService;
+import org.forgerock.openidm.util.BindingsPool;
 import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.openidm.util.RequestUtil;
+import org.forgerock.openidm.util.ScriptMetrics;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
 import org.forgerock.script.ScriptEvent;
@@ -97,6 +104,7 @@ import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
 import org.forgerock.util.Pair;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.forgerock.util.promise.ExceptionHandler;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.ResultHandler;
@@ -187,6 +195,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     /** Map of scripts to execute on specific actions. */
     private final Map<String, ScriptEntry> actionScripts = new HashMap<>();
 
+    /** Script bindings reused by the hook executions on the same thread */
+    private final BindingsPool bindingsPool = new BindingsPool();
+
     /** reference to the sync service route; used to decided whether or not to perform a sync action */
     private final AtomicReference<RouteService> syncRoute;
 
@@ -198,6 +209,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
 
     private final JsonValue config;
 
+    /** The repository enforced unique fields without a unique index, null until the indexes are looked up */
+    private volatile Set<JsonPointer> unindexedUniqueFields;
+
     /**
      * Constructs a new managed object set.
      *
@@ -303,6 +317,153 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         return ResourcePath.valueOf("repo").concat(managedId(resourceId)).toString();
     }
 
+    /**
+     * Returns the repository enforced unique fields which no unique index of the repository enforces. The unique
+     * indexes are looked up on the first write, the repository not being available when the managed objects are
+     * activated, and a missing index is logged as an error since the policy skips the field.
+     *
+     * @param context the current context
+     * @return the repository enforced unique fields which must be checked before the object is written
+     */
+    private Set<JsonPointer> getUnindexedUniqueFields(Context context) {
+        final Set<JsonPointer> cached = unindexedUniqueFields;
+        if (cached != null) {
+            return cached;
+        }
+        final List<Object> properties = new ArrayList<>();
+        for (JsonPointer uniqueField : schema.getRepoUniqueFields()) {
+            properties.add(uniqueField.toString());
+        }
+        final Set<JsonPointer> unindexed = new LinkedHashSet<>(schema.getRepoUniqueFields());
+        if (!properties.isEmpty()) {
+            try {
+                final JsonValue indexes = connectionFactory.getConnection().action(context,
+                        newActionRequest(repoId(null), "uniqueIndexes")
+                                .setContent(json(object(field("properties", properties)))))
+                        .getJsonContent();
+                for (JsonPointer uniqueField : schema.getRepoUniqueFields()) {
+                    if (indexes.get(uniqueField.toString()).isNotNull()) {
+                        unindexed.remove(uniqueField);
+                    }
+                }
+            } catch (NotSupportedException e) {
+                logger.debug("The repository of {} does not report its unique indexes", name, e);
+            } catch (ResourceException e) {
+                logger.warn("Failed to look up the unique indexes of {}, checking the unique values before writes",
+                        name, e);
+                return unindexed;
+            }
+            for (JsonPointer uniqueField : unindexed) {
+                logger.error("The unique policy of {}{} is repository enforced but no unique index of the "
+                        + "repository enforces it, the value is queried before the object is written. A generic "
+                        + "table has to declare the index as the uniqueIndex of the property in its mapping",
+                        managedObjectPath, uniqueField);
+            }
+        }
+        unindexedUniqueFields = Collections.unmodifiableSet(unindexed);
+        return unindexedUniqueFields;
+    }
+
+    /**
+     * Checks the values of the repository enforced unique fields which no unique index of the repository enforces
+     * before the object is written, as the skipped unique policy would have.
+     *
+     * @param context the current context
+     * @param resourceId the local identifier of the written object, or null if it is created without one
+     * @param value the written value
+     * @throws ResourceException if a unique value is taken, or the unique values could not be looked up
+     */
+    private void checkUnindexedUniqueFields(Context context, String resourceId, JsonValue value)
+            throws ResourceException {
+        if (!enforcePolicies) {
+            return;
+        }
+        final Set<JsonPointer> unindexed = getUnindexedUniqueFields(context);
+        if (unindexed.isEmpty()) {
+            return;
+        }
+        final JsonValue failedPolicyRequirements = findTakenUniqueValues(context, resourceId, value, unindexed);
+        if (failedPolicyRequirements.size() > 0) {
+            logger.debug("Write rejected as unique values are taken: {}", failedPolicyRequirements);
+            throw failedPolicyValidation(failedPolicyRequirements, null);
+        }
+    }
+
+    /**
+     * Translates the rejection of a write by a unique index of the repository into the failed policy validation the
+     * unique policy reports. The unique values are only looked up once a write failed, the policy leaving them to the
+     * repository.
+     *
+     * @param context the current context
+     * @param resourceId the local identifier of the written object, or null if it is created without one
+     * @param value the written value
+     * @param conflict the exception rejecting the write
+     * @return the failed policy validation, or the rejecting exception if no taken unique value is found
+     * @throws ResourceException if the unique values could not be looked up
+     */
+    @VisibleForTesting
+    ResourceException failedUniquePolicy(Context context, String resourceId, JsonValue value,
+            ConflictException conflict) throws ResourceException {
+        final JsonValue failedPolicyRequirements =
+                findTakenUniqueValues(context, resourceId, value, schema.getRepoUniqueFields());
+        if (failedPolicyRequirements.size() == 0) {
+            return conflict;
+        }
+        logger.debug("Write rejected by a unique index of the repository: {}", failedPolicyRequirements);
+        return failedPolicyValidation(failedPolicyRequirements, conflict);
+    }
+
+    /**
+     * Looks up the unique values of an object which another object of the set already holds.
+     *
+     * @param context the current context
+     * @param resourceId the local identifier of the written object, or null if it is created without one
+     * @param value the written value
+     * @param uniqueFields the unique fields to look up
+     * @return the failed unique policy requirement of each taken value
+     * @throws ResourceException if the unique values could not be looked up
+     */
+    private JsonValue findTakenUniqueValues(Context context, final String resourceId, JsonValue value,
+            Collection<JsonPointer> uniqueFields) throws ResourceException {
+        final JsonValue failedPolicyRequirements = json(array());
+        for (JsonPointer uniqueField : uniqueFields) {
+            final JsonValue fieldValue = value.get(uniqueField);
+            if (fieldValue == null || !fieldValue.isString() || fieldValue.asString().isEmpty()) {
+                continue;
+            }
+            final QueryRequest queryRequest = Requests.newQueryRequest(repoId(null))
+                    .setQueryFilter(QueryFilter.equalTo(uniqueField, fieldValue.asString()))
+                    .addField(FIELD_CONTENT_ID);
+            final boolean[] taken = { false };
+            connectionFactory.getConnection().query(context, queryRequest, new QueryResourceHandler() {
+                @Override
+                public boolean handleResource(ResourceResponse resource) {
+                    taken[0] = resourceId == null || !resourceId.equals(resource.getId());
+                    return !taken[0];
+                }
+            });
+            if (taken[0]) {
+                failedPolicyRequirements.add(object(
+                        field("policyRequirements", array(object(field("policyRequirement", "UNIQUE")))),
+                        field("property", uniqueField.toString().substring(1))));
+            }
+        }
+        return failedPolicyRequirements;
+    }
+
+    /**
+     * Reports failed unique policy requirements the way the policy service does.
+     *
+     * @param failedPolicyRequirements the failed policy requirements
+     * @param cause the exception rejecting the write, or null if it was not attempted
+     * @return the failed policy validation
+     */
+    private ResourceException failedPolicyValidation(JsonValue failedPolicyRequirements, Throwable cause) {
+        return new ForbiddenException("Failed policy validation", cause).setDetail(json(object(
+                field("result", false),
+                field("failedPolicyRequirements", failedPolicyRequirements.getObject()))));
+    }
+
     private Object execScriptHook(final Context context, ScriptHook hook, JsonValue value, JsonValue additionalProps)
             throws ResourceException {
         return execScript(context, hook.name(), scriptHooks.get(hook), value, additionalProps);
@@ -340,23 +501,31 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                 return null;
             }
 
+            ScriptMetrics.Measure scriptMeasure = ScriptMetrics.start(scriptEntry, scriptName);
             Script script = scriptEntry.getScript(context);
-            script.put("object", value);
-            if (additionalProps != null && !additionalProps.isNull()) {
-                for (String key : additionalProps.keys()) {
-                    script.put(key, additionalProps.get(key));
-                }
-            }
+            Bindings bindings = bindingsPool.acquire(scriptEntry, script);
             try {
+                script.setBindings(bindings);
+                script.put("object", value);
+                if (additionalProps != null && !additionalProps.isNull()) {
+                    for (String key : additionalProps.keys()) {
+                        script.put(key, additionalProps.get(key));
+                    }
+                }
                 return script.eval(); // allows direct modification to the object
             } catch (ScriptThrownException ste) {
+                scriptMeasure.failed();
                 // Allow for scripts to set their own exception
                 throw ste.toResourceException(ResourceException.INTERNAL_ERROR,
                         scriptName + " script encountered exception");
             } catch (ScriptException se) {
+                scriptMeasure.failed();
                 String msg = scriptName + " script encountered exception";
                 logger.debug(msg, se);
                 throw new InternalServerErrorException(msg, se);
+            } finally {
+                bindingsPool.release(scriptEntry, bindings);
+                scriptMeasure.end();
             }
         } finally {
             measure.end();
@@ -584,7 +753,13 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // Perform update
         UpdateRequest updateRequest = Requests.newUpdateRequest(repoId(resourceId), decryptedNew);
         updateRequest.setRevision(rev);
-        ResourceResponse response = connectionFactory.getConnection().update(context, updateRequest);
+        ResourceResponse response;
+        checkUnindexedUniqueFields(context, resourceId, decryptedNew);
+        try {
+            response = connectionFactory.getConnection().update(context, updateRequest);
+        } catch (ConflictException e) {
+            throw failedUniquePolicy(context, resourceId, decryptedNew, e);
+        }
         JsonValue responseContent = response.getContent();
 
         // Put relationships back in before we respond
@@ -817,7 +992,13 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
 
             // Persist the managed object in the repository
             CreateRequest createRequest = Requests.newCreateRequest(repoId(null), resourceId, value);
-            ResourceResponse createResponse = connectionFactory.getConnection().create(managedContext, createRequest);
+            ResourceResponse createResponse;
+            checkUnindexedUniqueFields(managedContext, resourceId, value);
+            try {
+                createResponse = connectionFactory.getConnection().create(managedContext, createRequest);
+            } catch (ConflictException e) {
+                throw failedUniquePolicy(managedContext, resourceId, value, e);
+            }
             content = createResponse.getContent();
             resourceId = createResponse.getId();
 
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.managed;
@@ -19,6 +20,7 @@ package org.forgerock.openidm.managed;
 import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.util.crypto.CryptoConstants.*;
 
+import javax.script.Bindings;
 import javax.script.ScriptException;
 
 import org.forgerock.json.JsonException;
@@ -31,7 +33,9 @@ import org.forgerock.json.crypto.JsonEncryptor;
 import org.forgerock.json.resource.ForbiddenException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.util.BindingsPool;
 import org.forgerock.openidm.util.RelationshipUtil;
+import org.forgerock.openidm.util.ScriptMetrics;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
 import org.forgerock.script.ScriptRegistry;
@@ -103,6 +107,9 @@ public class SchemaField {
 
     /** Indicates if the field will be validated before saving or updating the object */
     private boolean validationRequired = false;
+
+    /** Indicates if a unique index of the repository enforces the unique policy of the field */
+    private final boolean uniqueEnforcedByRepo;
     
     /** The CryptoService implementation */
     private CryptoService cryptoService;
@@ -119,6 +126,9 @@ public class SchemaField {
     /** Script to execute when an property is about to be stored in the repository. */
     private final ScriptEntry onStore;
 
+    /** Script bindings reused by the executions on the same thread. */
+    private final BindingsPool bindingsPool = new BindingsPool();
+
     /** The encryptor to use for encrypting JSON values */
     private final JsonEncryptor encryptor;
 
@@ -152,6 +162,9 @@ public class SchemaField {
                 ? scriptRegistry.takeScript(schema.get("onValidate"))
                 : null;
 
+        // Check if the unique policy of the field is left to a unique index of the repository
+        this.uniqueEnforcedByRepo = isUniqueEnforcedByRepo(schema.get("policies"));
+
         // Check if the field is a virtual field
         this.virtual = schema.get("isVirtual").defaultTo(false).asBoolean();
         // Set the returnByDefault value for non-core fields
@@ -184,6 +197,24 @@ public class SchemaField {
         }
     }
     
+    /**
+     * Tests whether the policies of a field declare a unique policy with the {@code repoEnforced} parameter set.
+     *
+     * @param policies the policies of the field.
+     * @return true if the unique policy is enforced by the repository.
+     */
+    private static boolean isUniqueEnforcedByRepo(JsonValue policies) {
+        if (policies.isList()) {
+            for (JsonValue policy : policies) {
+                if (policy.isMap() && "unique".equals(policy.get("policyId").asString())
+                        && policy.get("params").get("repoEnforced").defaultTo(false).asBoolean()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Initializes the schema field's type. Recursively calls itself on the "items" schema if the base type is an array.
      * 
@@ -322,6 +353,15 @@ public class SchemaField {
     public boolean isValidationRequired() {
         return validationRequired;
     }
+
+    /**
+     * Returns true if the unique policy of the field is enforced by a unique index of the repository.
+     *
+     * @return True if the unique policy of the field is enforced by the repository.
+     */
+    public boolean isUniqueEnforcedByRepo() {
+        return uniqueEnforcedByRepo;
+    }
     
     /**
      * Returns a boolean indicating if the property is private.
@@ -346,17 +386,24 @@ public class SchemaField {
             throws InternalServerErrorException {
         if (script != null) {
             Object result = null;
+            ScriptMetrics.Measure measure = ScriptMetrics.start(script, type);
             Script scope = script.getScript(context);
-            scope.put("property", managedObject.get(name).getObject());
-            scope.put("propertyName", name);
-            scope.put("object", managedObject.getObject());
-            scope.put("context", context);
+            Bindings bindings = bindingsPool.acquire(script, scope);
             try {
+                scope.setBindings(bindings);
+                scope.put("property", managedObject.get(name).getObject());
+                scope.put("propertyName", name);
+                scope.put("object", managedObject.getObject());
+                scope.put("context", context);
                 result = scope.eval();
             } catch (ScriptException se) {
+                measure.failed();
                 String msg = name + " " + type + " script encountered exception";
                 logger.debug(msg, se);
                 throw new InternalServerErrorException(msg, se);
+            } finally {
+                bindingsPool.release(script, bindings);
+                measure.end();
             }
 
             logger.debug("Script {} result: {}", context, result);
@@ -373,17 +420,25 @@ public class SchemaField {
      */
     void onValidate(Context context, JsonValue value) throws ForbiddenException, InternalServerErrorException {
         if (onValidate != null) {
+            ScriptMetrics.Measure measure = ScriptMetrics.start(onValidate, "onValidate");
             Script scope = onValidate.getScript(context);
-            scope.put("property", value.get(name).getObject());
+            Bindings bindings = bindingsPool.acquire(onValidate, scope);
             try {
+                scope.setBindings(bindings);
+                scope.put("property", value.get(name).getObject());
                 scope.eval();
             } catch (ScriptThrownException ste) {
+                measure.failed();
                 // validation failed
                 throw new ForbiddenException(ste.getValue().toString());
             } catch (ScriptException se) {
+                measure.failed();
                 String msg = name + " onValidate script encountered exception";
                 logger.debug(msg, se);
                 throw new InternalServerErrorException(msg, se);
+            } finally {
+                bindingsPool.release(onValidate, bindings);
+                measure.end();
             }
         }
     }
@@ -12,7 +12,7 @@
  * own identifying information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2024 Wren Security.
+ * Portions Copyright 2024-2026 Wren Security.
  */
 package org.forgerock.openidm.sync;
 
@@ -25,6 +25,7 @@ import static org.forgerock.json.JsonValueFunctions.pointer;
 // Java SE
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -48,24 +49,37 @@ import org.forgerock.openidm.condition.Condition;
 /**
  * This class contains the necessary logic to map an attribute from the source object to an attribute
  * on the target object.  It optionally contains a condition and transform scripts..
+ * <p>
+ * The mapping is compiled once from its configuration: the pointers are split into their tokens, a missing condition
+ * is not evaluated and the common transform scripts are computed in Java, see {@link PropertyTransforms}. A mapping
+ * without a condition and transform script thus moves the source value, or the default one, to the target directly.
  */
 public class PropertyMapping {
 
     /** Logger */
     private final static Logger LOGGER = LoggerFactory.getLogger(PropertyMapping.class);
 
-    /** A condition script */
+    /** A condition script, or null if the mapping applies unconditionally */
     private final Condition condition;
 
     /** A transform script */
     private final Script transform;
 
+    /** The transform script compiled to Java, or null if the script must always be run */
+    private final PropertyTransforms.Transform compiledTransform;
+
     /** A {@link JsonPointer} for the target */
     private final JsonPointer targetPointer;
 
     /** A {@link JsonPointer} for the source */
     private final JsonPointer sourcePointer;
 
+    /** The tokens of the target pointer */
+    private final String[] targetTokens;
+
+    /** The tokens of the source pointer, or null if there is no source */
+    private final String[] sourceTokens;
+
     /** A default value */
     private final Object defaultValue;
 
@@ -76,11 +90,14 @@ public class PropertyMapping {
      * @throws JsonValueException if any errors are encountered when processing the configuration.
      */
     public PropertyMapping(JsonValue config) throws JsonValueException {
-        condition = Conditions.newCondition(config.get("condition"));
+        condition = config.get("condition").isNull() ? null : Conditions.newCondition(config.get("condition"));
         targetPointer = config.get("target").required().as(pointer());
         sourcePointer = config.get("source").as(pointer()); // optional
         transform = Scripts.newScript(config.get("transform"));
+        compiledTransform = PropertyTransforms.compile(config.get("transform"));
         defaultValue = config.get("default").getObject();
+        targetTokens = targetPointer.toArray();
+        sourceTokens = sourcePointer != null ? sourcePointer.toArray() : null;
     }
 
     /**
@@ -92,7 +109,18 @@ public class PropertyMapping {
      * @throws SynchronizationException if errors are encountered.
      */
     protected static void put(JsonValue targetObject, JsonPointer pointer, Object value) throws SynchronizationException {
-        String[] tokens = pointer.toArray();
+        put(targetObject, pointer.toArray(), value);
+    }
+
+    /**
+     * Puts the value on the target object attribute.
+     *
+     * @param targetObject the target object.
+     * @param tokens the tokens of the target attribute pointer.
+     * @param value the target attribute's value.
+     * @throws SynchronizationException if errors are encountered.
+     */
+    private static void put(JsonValue targetObject, String[] tokens, Object value) throws SynchronizationException {
         if (tokens.length == 0) {
             throw new SynchronizationException("cannot replace root object");
         }
@@ -137,10 +165,14 @@ public class PropertyMapping {
             return;
         }
         Object result = null;
-        if (sourcePointer != null) { // optional source property
-            JsonValue jv = sourceObject.get(sourcePointer);
-            if (jv != null) { // null indicates no value
-                result = jv.getObject();
+        if (sourceTokens != null) { // optional source property
+            result = get(sourceObject.getObject(), sourceTokens);
+        }
+        if (compiledTransform != null) { // common transform computed without running the script
+            Object transformed = compiledTransform.apply(result);
+            if (transformed != PropertyTransforms.NOT_COMPILED) {
+                put(targetObject, targetTokens, transformed != null ? transformed : defaultValue);
+                return;
             }
         }
         if (transform != null) { // optional property mapping script
@@ -160,7 +192,45 @@ public class PropertyMapping {
         if (result == null) {
             result = defaultValue; // remains null if default not specified
         }
-        put(targetObject, targetPointer, result);
+        put(targetObject, targetTokens, result);
+    }
+
+    /**
+     * Gets the value of the source object attribute, walking the maps and lists as {@link JsonValue#get(JsonPointer)}.
+     *
+     * @param object the source object.
+     * @param tokens the tokens of the source attribute pointer.
+     * @return the value of the attribute, or null if there is no value.
+     */
+    private static Object get(Object object, String[] tokens) {
+        Object value = object;
+        for (String token : tokens) {
+            if (value instanceof JsonValue) {
+                value = ((JsonValue) value).getObject();
+            }
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get(token);
+            } else if (value instanceof List) {
+                final List<?> list = (List<?>) value;
+                final int index = toIndex(token);
+                value = index >= 0 && index < list.size() ? list.get(index) : null;
+            } else {
+                return null;
+            }
+        }
+        return value instanceof JsonValue ? ((JsonValue) value).getObject() : value;
+    }
+
+    private static int toIndex(String token) {
+        if (token.isEmpty() || token.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(token);
     }
 
     /**
@@ -177,6 +247,9 @@ public class PropertyMapping {
      */
     public boolean evaluateCondition(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget,
             String linkQualifier, Context context) throws SynchronizationException {
+        if (condition == null) {
+            return true;
+        }
         JsonValue params = json(object(field("object", sourceObject), field("target", targetObject), field("linkQualifier", linkQualifier)));
         if (oldSource != null) {
             params.put("oldSource", oldSource);
@@ -195,4 +268,13 @@ public class PropertyMapping {
     public boolean hasTransformScript() {
         return transform != null;
     }
+
+    /**
+     * Determines if the transform-script of {@code PropertyMapping} is computed in Java when its source is a string.
+     *
+     * @return {@code true} if the transform-script is compiled and {@code false} otherwise
+     */
+    public boolean hasCompiledTransform() {
+        return compiledTransform != null;
+    }
 }
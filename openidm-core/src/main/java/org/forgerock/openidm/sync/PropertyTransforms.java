@@ -0,0 +1,213 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance
+ * with the License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for
+ * the specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file
+ * and include the License file at legal/CDDLv1.0.txt. If applicable, add the following
+ * below the CDDL Header, with the fields enclosed by brackets [] replaced by your
+ * own identifying information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.forgerock.json.JsonValue;
+
+/**
+ * Compiles the common inline transform scripts of property mappings to Java functions.
+ * <p>
+ * The following {@code text/javascript} and {@code groovy} sources are recognized:
+ * <ul>
+ *     <li>{@code source}, the source value,</li>
+ *     <li>{@code source.toLowerCase()} and {@code source.toUpperCase()},</li>
+ *     <li>concatenations of properties of the source object and string literals, such as
+ *     {@code source.givenName + ' ' + source.sn}, or of string literals only.</li>
+ * </ul>
+ * The functions only compute string values, which both languages handle alike. Whenever a value is not a string, the
+ * function returns {@link #NOT_COMPILED} and the transform script is run instead, so that its result, or failure, is
+ * unchanged.
+ */
+final class PropertyTransforms {
+
+    /** The result of a compiled transform which requires the transform script to be run. */
+    static final Object NOT_COMPILED = new Object();
+
+    /** A transform script compiled to a Java function. */
+    interface Transform {
+        /**
+         * Transforms the source value.
+         *
+         * @param source the source value
+         * @return the transformed value, or {@link PropertyTransforms#NOT_COMPILED} if the transform script must be run instead
+         */
+        Object apply(Object source);
+    }
+
+    private static final Pattern PROPERTY = Pattern.compile("source\\.([A-Za-z_][A-Za-z0-9_]*)");
+
+    private static final Pattern LITERAL = Pattern.compile("'([^'\\\\]*)'|\"([^\"\\\\$]*)\"");
+
+    private static final Transform IDENTITY = new Transform() {
+        @Override
+        public Object apply(Object source) {
+            return source instanceof String ? source : NOT_COMPILED;
+        }
+    };
+
+    private static final Transform LOWER_CASE = new Transform() {
+        @Override
+        public Object apply(Object source) {
+            return source instanceof String ? ((String) source).toLowerCase(Locale.ROOT) : NOT_COMPILED;
+        }
+    };
+
+    private static final Transform UPPER_CASE = new Transform() {
+        @Override
+        public Object apply(Object source) {
+            return source instanceof String ? ((String) source).toUpperCase(Locale.ROOT) : NOT_COMPILED;
+        }
+    };
+
+    private PropertyTransforms() {
+        // prevent instantiation
+    }
+
+    /**
+     * Compiles a transform script configuration.
+     *
+     * @param config the transform script configuration
+     * @return the compiled transform, or null if the script is not one of the recognized sources
+     */
+    static Transform compile(JsonValue config) {
+        if (!config.isMap() || !config.get("source").isString() || config.isDefined("file")) {
+            return null;
+        }
+        final JsonValue globals = config.get("globals");
+        if (!globals.isNull() && !(globals.isMap() && globals.asMap().isEmpty())) {
+            return null;
+        }
+        final String type = config.get("type").asString();
+        if (!"text/javascript".equals(type) && !"groovy".equals(type)) {
+            return null;
+        }
+        String source = config.get("source").asString().trim();
+        if (source.endsWith(";")) {
+            source = source.substring(0, source.length() - 1).trim();
+        }
+        switch (source) {
+        case "source":
+            return IDENTITY;
+        case "source.toLowerCase()":
+            return LOWER_CASE;
+        case "source.toUpperCase()":
+            return UPPER_CASE;
+        default:
+            return compileConcatenation(source);
+        }
+    }
+
+    /**
+     * Compiles a concatenation of source properties and string literals.
+     *
+     * @param source the script source
+     * @return the compiled concatenation, or null if the source is not such a concatenation
+     */
+    private static Transform compileConcatenation(String source) {
+        final List<String> properties = new ArrayList<>();
+        final List<String> literals = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            position = skipSpaces(source, position);
+            final Matcher property = PROPERTY.matcher(source).region(position, source.length());
+            final Matcher literal = LITERAL.matcher(source).region(position, source.length());
+            if (property.lookingAt()) {
+                properties.add(property.group(1));
+                literals.add(null);
+                position = property.end();
+            } else if (literal.lookingAt()) {
+                properties.add(null);
+                literals.add(literal.group(1) != null ? literal.group(1) : literal.group(2));
+                position = literal.end();
+            } else {
+                return null;
+            }
+            position = skipSpaces(source, position);
+            if (position == source.length()) {
+                break;
+            } else if (source.charAt(position) != '+') {
+                return null;
+            }
+            position++;
+        }
+        if (Collections.frequency(properties, null) == properties.size()) {
+            return newConstant(String.join("", literals));
+        }
+        return newConcatenation(properties, literals);
+    }
+
+    /**
+     * Creates a constant, a concatenation of literals only, which does not depend on the source value.
+     *
+     * @param value the constant value
+     * @return the compiled constant
+     */
+    private static Transform newConstant(final String value) {
+        return new Transform() {
+            @Override
+            public Object apply(Object source) {
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Creates the concatenation of the source properties and literals. As every term must be a string, + concatenates
+     * them whatever their order.
+     *
+     * @param properties the source property of each term, null for a literal
+     * @param literals the literal of each term, null for a source property
+     * @return the compiled concatenation
+     */
+    private static Transform newConcatenation(final List<String> properties, final List<String> literals) {
+        return new Transform() {
+            @Override
+            public Object apply(Object source) {
+                if (!(source instanceof Map)) {
+                    return NOT_COMPILED;
+                }
+                final StringBuilder result = new StringBuilder();
+                for (int i = 0; i < properties.size(); i++) {
+                    if (properties.get(i) == null) {
+                        result.append(literals.get(i));
+                        continue;
+                    }
+                    final Object value = ((Map<?, ?>) source).get(properties.get(i));
+                    if (!(value instanceof String)) {
+                        return NOT_COMPILED;
+                    }
+                    result.append((String) value);
+                }
+                return result.toString();
+            }
+        };
+    }
+
+    private static int skipSpaces(String source, int position) {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
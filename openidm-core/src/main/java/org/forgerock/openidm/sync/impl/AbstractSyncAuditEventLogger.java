@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -20,10 +21,12 @@ import java.util.Collections;
 import org.forgerock.audit.events.AuditEvent;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.sync.ReconAction;
 import org.forgerock.services.context.Context;
 import org.forgerock.services.context.SecurityContext;
 
@@ -137,6 +140,42 @@ public abstract class AbstractSyncAuditEventLogger<T extends AbstractSyncAuditEv
         this.status = status;
     }
 
+    /**
+     * Returns the status that was previously set.
+     *
+     * @return the status
+     */
+    Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the situation assessed by the operation.
+     *
+     * @return the situation, or null if there is no operation
+     */
+    Situation getSituation() {
+        return null != syncOperation ? syncOperation.situation : null;
+    }
+
+    /**
+     * Returns the action determined by the operation.
+     *
+     * @return the action, or null if there is no operation
+     */
+    ReconAction getAction() {
+        return null != syncOperation ? syncOperation.action : null;
+    }
+
+    /**
+     * Returns the context the event is logged in.
+     *
+     * @return the context
+     */
+    Context getContext() {
+        return context;
+    }
+
     /**
      * Simpler setter.
      *
@@ -182,7 +221,16 @@ public abstract class AbstractSyncAuditEventLogger<T extends AbstractSyncAuditEv
      * @throws ResourceException
      */
     public final void log(ConnectionFactory connectionFactory) throws ResourceException {
+        connectionFactory.getConnection().create(context, toCreateRequest());
+    }
 
+    /**
+     * Builds the audit event and the request creating it on the audit path.
+     *
+     * @return the request creating the audit event
+     * @throws ResourceException if the audit event could not be built
+     */
+    final CreateRequest toCreateRequest() throws ResourceException {
         try {
             T eventBuilder = getEventBuilder()
                     .transactionIdFromContext(context)
@@ -203,10 +251,7 @@ public abstract class AbstractSyncAuditEventLogger<T extends AbstractSyncAuditEv
 
             AuditEvent auditEvent = applyCustomFields(eventBuilder).toEvent();
 
-            connectionFactory.getConnection().create(context,
-                    Requests.newCreateRequest(getAuditPath(), auditEvent.getValue()));
-        } catch (ResourceException e) {
-            throw e;
+            return Requests.newCreateRequest(getAuditPath(), auditEvent.getValue());
         } catch (Exception e) {
             throw new InternalServerErrorException(e.getMessage(), e);
         }
@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2018-2024 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -25,6 +25,7 @@ import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,6 +38,7 @@ import java.util.Set;
 import javax.script.ScriptException;
 
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.openidm.sync.PropertyMapping;
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.DurationStatistics;
 import org.forgerock.services.context.Context;
@@ -173,12 +175,27 @@ class ObjectMapping {
     /** The number of initial tasks the ReconFeeder should submit to executors */
     private int feedSize;
 
+    /**
+     * The number of source entries whose linked targets are read with one query during the source phase,
+     * 0 to read each target on demand
+     */
+    private final int targetReadAheadSize;
+
+    /** Which reconciliation entries are audited, and how they are written */
+    private final ReconAuditPolicy reconAuditPolicy;
+
     /** a reference to the {@link ConnectionFactory} */
     private final ConnectionFactory connectionFactory;
 
     /** Whether synchronization (automatic propagation of changes as they are detected) is enabled on that mapping */
     private final boolean syncEnabled;
 
+    /** The property mappings, compiled once for all the synchronized objects */
+    private final List<PropertyMapping> propertyMappings = new ArrayList<>();
+
+    /** The names of the preceding mappings whose synchronization of a change must complete before this one's */
+    private final List<String> syncAfter;
+
     /**
      * Reconcile a given source ID
      */
@@ -223,7 +240,14 @@ class ObjectMapping {
         prefetchLinks = config.get("prefetchLinks").defaultTo(true).asBoolean();
         taskThreads = config.get("taskThreads").defaultTo(DEFAULT_TASK_THREADS).asInteger();
         feedSize = config.get("feedSize").defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
+        targetReadAheadSize = config.get("targetReadAheadSize")
+                .defaultTo(TargetReadAhead.DEFAULT_READ_AHEAD_SIZE).asInteger();
+        reconAuditPolicy = new ReconAuditPolicy(config.get("reconAudit"));
         syncEnabled = config.get("enableSync").defaultTo(true).asBoolean();
+        syncAfter = config.get("syncAfter").defaultTo(Collections.emptyList()).asList(String.class);
+        for (JsonValue jv : config.get("properties").expect(List.class)) {
+            propertyMappings.add(new PropertyMapping(jv));
+        }
         linkingEnabled = config.get("enableLinking").defaultTo(true).asBoolean();
         reconSourceQueryPaging = config.get("reconSourceQueryPaging").defaultTo(false).asBoolean();
         reconSourceQueryPageSize = config.get("reconSourceQueryPageSize")
@@ -241,6 +265,25 @@ class ObjectMapping {
         return syncEnabled;
     }
 
+    /**
+     * Return the property mappings applied to the synchronized objects.
+     *
+     * @return the property mappings, in their configured order
+     */
+    List<PropertyMapping> getPropertyMappings() {
+        return propertyMappings;
+    }
+
+    /**
+     * Return the names of the mappings which must have synchronized a change before this mapping synchronizes it,
+     * when the mappings of a change are synchronized in parallel.
+     *
+     * @return the names of the mappings this mapping synchronizes after
+     */
+    public List<String> getSyncAfter() {
+        return syncAfter;
+    }
+
     /**
      * Return whether linking is enabled for this mapping.
      *
@@ -710,6 +753,8 @@ class ObjectMapping {
             context = new TriggerContext(context, "recon");
             ObjectSetContext.push(context);
             logReconStart(reconContext, context);
+            reconContext.setAuditWriter(new ReconAuditWriter(reconAuditPolicy, connectionFactory, name, reconId,
+                    context));
 
             // Get the relevant source (and optionally target) identifiers before we assess the situations
             stats.sourceQueryStart();
@@ -785,11 +830,23 @@ class ObjectMapping {
                     sourceIter = sourceQueryResult.getIterator();
                     stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
                 }
+                // Read ahead the linked targets unless the target query already provided them
+                Iterator<ResultEntry> sourceEntries = sourceIter;
+                if (targetReadAheadSize > 0 && allLinks != null && !reconContext.hasTargetsValues()) {
+                    TargetReadAhead readAhead = new TargetReadAhead(sourceIter, ObjectMapping.this, reconContext,
+                            context, allLinks, targetReadAheadSize, feedSize);
+                    reconContext.setTargetReadAhead(readAhead);
+                    sourceEntries = readAhead;
+                }
                 // Perform source recon phase on current set of source ids
-                ReconPhase sourcePhase =
-                        new ReconPhase(sourceIter, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
+                ReconPhase sourcePhase = new ReconPhase(
+                        sourceEntries, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
                 sourcePhase.setFeedSize(feedSize);
-                sourcePhase.execute();
+                try {
+                    sourcePhase.execute();
+                } finally {
+                    reconContext.setTargetReadAhead(null);
+                }
                 queryNextPage = true;
             } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
 
@@ -852,6 +909,7 @@ class ObjectMapping {
             if (!stats.hasEnded()) {
                 stats.reconEnd();
             }
+            closeAuditWriter(reconContext);
         }
 
 // TODO: cleanup orphan link objects (no matching source or target) here
@@ -936,6 +994,44 @@ class ObjectMapping {
         }
     }
 
+    /**
+     * Creates the audit entry of a reconciled object, through the audit writer of the reconciliation if any.
+     *
+     * @param entry the entry to create
+     * @param reconContext Recon context
+     * @throws SynchronizationException
+     */
+    void logReconEntry(ReconAuditEventLogger entry, ReconciliationContext reconContext)
+            throws SynchronizationException {
+        final ReconAuditWriter auditWriter = reconContext.getAuditWriter();
+        if (auditWriter == null) {
+            logEntry(entry, reconContext);
+            return;
+        }
+        final long startNanoTime = startNanoTime(reconContext);
+        try {
+            auditWriter.write(entry);
+        } finally {
+            addDuration(reconContext, DurationMetric.auditLog, startNanoTime);
+        }
+    }
+
+    /**
+     * Writes the pending audit entries of the reconciled objects, so that they precede the summary entry.
+     *
+     * @param reconContext Recon context
+     */
+    private void closeAuditWriter(ReconciliationContext reconContext) {
+        final ReconAuditWriter auditWriter = reconContext.getAuditWriter();
+        if (auditWriter != null) {
+            try {
+                auditWriter.close();
+            } catch (SynchronizationException e) {
+                LOGGER.warn("Failed to write the recon audit entries of {}", reconContext.getReconId(), e);
+            }
+        }
+    }
+
     /**
      * Record the start of a new reconciliation.
      *
@@ -991,6 +1087,7 @@ class ObjectMapping {
     private void logReconEnd(ReconciliationContext reconContext, Context rootContext, Status status,
             String loggerMessage) throws SynchronizationException {
 
+        closeAuditWriter(reconContext);
         ReconAuditEventLogger reconAuditEvent = new ReconAuditEventLogger(null, name, rootContext);
         reconAuditEvent.setEntryType(ReconAuditEventLogger.RECON_LOG_ENTRY_TYPE_RECON_END);
         reconAuditEvent.setReconciliationServiceReconAction(reconContext.getReconAction());
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -41,6 +42,10 @@ class ReconAuditEventLogger extends AbstractSyncAuditEventLogger<ReconAuditEvent
      * entryType for an "entry" recon audit log entry
      */
     public static final String RECON_LOG_ENTRY_TYPE_RECON_ENTRY = "entry";
+    /**
+     * entryType for an "aggregate" recon audit log entry, counting the entries of a time window
+     */
+    public static final String RECON_LOG_ENTRY_TYPE_RECON_AGGREGATE = "aggregate";
 
     private String reconId;
     private String entryType = RECON_LOG_ENTRY_TYPE_RECON_ENTRY;
@@ -100,6 +105,15 @@ class ReconAuditEventLogger extends AbstractSyncAuditEventLogger<ReconAuditEvent
         this.reconciling = reconciling;
     }
 
+    /**
+     * Returns the reconciliation phase that was previously set.
+     *
+     * @return "source" or "target"
+     */
+    String getReconciling() {
+        return reconciling;
+    }
+
     /**
      * Sets the reconAction value from the ReconciliationService: recon, reconByQuery, reconById.
      *
@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValueFunctions.enumConstant;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+
+/**
+ * Which reconciliation entries of a mapping are audited, and how they are written.
+ * <p>
+ * Configured in the mapping as:
+ *
+ * <pre><code>
+ * "reconAudit" : {
+ *     "mode" : "all",
+ *     "trivialSituations" : [ "CONFIRMED", "SOURCE_IGNORED" ],
+ *     "sampleRate" : 100,
+ *     "aggregateInterval" : 60000,
+ *     "async" : true,
+ *     "batchSize" : 100,
+ *     "queueSize" : 10000
+ * }
+ * </code></pre>
+ *
+ * The {@code mode} selects the entries written to the recon audit log:
+ * <ul>
+ *     <li>{@code all} writes every entry,</li>
+ *     <li>{@code nonTrivial} skips the entries assessed to one of the {@code trivialSituations},</li>
+ *     <li>{@code sample} writes one in {@code sampleRate} entries,</li>
+ *     <li>{@code aggregate} writes an {@code aggregate} entry counting the entries by situation, action and status
+ *     every {@code aggregateInterval} milliseconds.</li>
+ * </ul>
+ * Failed entries are always written. Unless {@code async} is false, the entries are queued by the reconciliation
+ * tasks and written in batches of up to {@code batchSize} by a dedicated writer thread. The tasks block when
+ * {@code queueSize} entries are waiting to be written.
+ */
+class ReconAuditPolicy {
+
+    /** Selection of the audited reconciliation entries. */
+    enum Mode {
+        all,
+        nonTrivial,
+        sample,
+        aggregate
+    }
+
+    static final String CONFIG_MODE = "mode";
+    static final String CONFIG_TRIVIAL_SITUATIONS = "trivialSituations";
+    static final String CONFIG_SAMPLE_RATE = "sampleRate";
+    static final String CONFIG_AGGREGATE_INTERVAL = "aggregateInterval";
+    static final String CONFIG_ASYNC = "async";
+    static final String CONFIG_BATCH_SIZE = "batchSize";
+    static final String CONFIG_QUEUE_SIZE = "queueSize";
+
+    private static final List<Object> DEFAULT_TRIVIAL_SITUATIONS =
+            Arrays.<Object>asList(Situation.CONFIRMED.name(), Situation.SOURCE_IGNORED.name());
+    private static final int DEFAULT_SAMPLE_RATE = 100;
+    private static final long DEFAULT_AGGREGATE_INTERVAL = 60000L;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private final Mode mode;
+    private final Set<Situation> trivialSituations = EnumSet.noneOf(Situation.class);
+    private final int sampleRate;
+    private final long aggregateInterval;
+    private final boolean async;
+    private final int batchSize;
+    private final int queueSize;
+
+    /**
+     * Parses the policy from the mapping configuration.
+     *
+     * @param config the reconAudit configuration of the mapping, null to audit all the entries
+     * @throws JsonValueException if the configuration is invalid
+     */
+    ReconAuditPolicy(JsonValue config) throws JsonValueException {
+        mode = config.get(CONFIG_MODE).defaultTo(Mode.all.name()).as(enumConstant(Mode.class));
+        for (JsonValue situation : config.get(CONFIG_TRIVIAL_SITUATIONS).defaultTo(DEFAULT_TRIVIAL_SITUATIONS)) {
+            trivialSituations.add(situation.as(enumConstant(Situation.class)));
+        }
+        sampleRate = config.get(CONFIG_SAMPLE_RATE).defaultTo(DEFAULT_SAMPLE_RATE).asInteger();
+        aggregateInterval = config.get(CONFIG_AGGREGATE_INTERVAL).defaultTo(DEFAULT_AGGREGATE_INTERVAL).asLong();
+        async = config.get(CONFIG_ASYNC).defaultTo(true).asBoolean();
+        batchSize = config.get(CONFIG_BATCH_SIZE).defaultTo(DEFAULT_BATCH_SIZE).asInteger();
+        queueSize = config.get(CONFIG_QUEUE_SIZE).defaultTo(DEFAULT_QUEUE_SIZE).asInteger();
+        if (sampleRate < 1) {
+            throw new JsonValueException(config.get(CONFIG_SAMPLE_RATE), "Sample rate must be at least 1");
+        }
+        if (aggregateInterval < 1) {
+            throw new JsonValueException(config.get(CONFIG_AGGREGATE_INTERVAL), "Aggregate interval must be positive");
+        }
+        if (batchSize < 1 || queueSize < batchSize) {
+            throw new JsonValueException(config, "Queue size must be at least the batch size, which must be positive");
+        }
+    }
+
+    /**
+     * @return the selection of the audited entries
+     */
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param situation the assessed situation, or null
+     * @return whether the entries assessed to the situation are skipped in the {@code nonTrivial} mode
+     */
+    boolean isTrivial(Situation situation) {
+        return situation != null && trivialSituations.contains(situation);
+    }
+
+    /**
+     * @return one in how many entries are written in the {@code sample} mode
+     */
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the time window of the aggregates in milliseconds
+     */
+    long getAggregateInterval() {
+        return aggregateInterval;
+    }
+
+    /**
+     * @return whether the entries are written by a dedicated writer thread
+     */
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return the maximum number of entries taken from the queue at once
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the maximum number of entries waiting to be written
+     */
+    int getQueueSize() {
+        return queueSize;
+    }
+}
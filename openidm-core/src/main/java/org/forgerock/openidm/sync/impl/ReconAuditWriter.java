@@ -0,0 +1,298 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.DateUtil;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the audit entries of the reconciliation of a mapping according to its {@link ReconAuditPolicy}.
+ * <p>
+ * The entries selected by the policy are either written on the calling task thread, or queued and written by a
+ * dedicated thread, so that the reconciliation tasks do not wait for the audit log. A failure to write a queued entry
+ * is logged and does not fail the reconciliation. {@link #close()} must be called once the reconciliation tasks are
+ * done, to write the last aggregate and wait for the queued entries to be written.
+ */
+class ReconAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconAuditWriter.class);
+
+    /** A request queued to be written. */
+    private static final class Pending {
+        private final Context context;
+        private final CreateRequest request;
+
+        private Pending(Context context, CreateRequest request) {
+            this.context = context;
+            this.request = request;
+        }
+    }
+
+    /** Queue marker stopping the writer thread. */
+    private static final Pending STOP = new Pending(null, null);
+
+    private final ReconAuditPolicy policy;
+    private final ConnectionFactory connectionFactory;
+    private final String mapping;
+    private final String reconId;
+    private final Context context;
+
+    private final BlockingQueue<Pending> queue;
+    private final Thread writerThread;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /** Entry counts of the current aggregate window, by reconciling, situation, action and status. */
+    private Map<List<String>, Long> aggregates = new HashMap<>();
+    private long windowStart;
+
+    /**
+     * Creates the writer of a reconciliation, starting its writer thread if the policy is asynchronous.
+     *
+     * @param policy the audit policy of the mapping
+     * @param connectionFactory the connection factory to create the audit entries with
+     * @param mapping the mapping name
+     * @param reconId the reconciliation id
+     * @param context the context to write the aggregate entries in
+     */
+    ReconAuditWriter(ReconAuditPolicy policy, ConnectionFactory connectionFactory, String mapping, String reconId,
+            Context context) {
+        this.policy = policy;
+        this.connectionFactory = connectionFactory;
+        this.mapping = mapping;
+        this.reconId = reconId;
+        this.context = context;
+        this.windowStart = System.currentTimeMillis();
+        if (policy.isAsync()) {
+            queue = new ArrayBlockingQueue<>(policy.getQueueSize());
+            writerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "recon-audit-" + reconId);
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            queue = null;
+            writerThread = null;
+        }
+    }
+
+    /**
+     * Writes the entry of a reconciled object, unless the policy skips it.
+     *
+     * @param entry the entry of a reconciled object
+     * @throws SynchronizationException if the entry could not be built, or written synchronously
+     */
+    void write(ReconAuditEventLogger entry) throws SynchronizationException {
+        final boolean failure = entry.getStatus() == Status.FAILURE;
+        switch (policy.getMode()) {
+        case nonTrivial:
+            if (!failure && policy.isTrivial(entry.getSituation())) {
+                return;
+            }
+            break;
+        case sample:
+            if (sampled.getAndIncrement() % policy.getSampleRate() != 0 && !failure) {
+                return;
+            }
+            break;
+        case aggregate:
+            aggregate(entry);
+            if (!failure) {
+                return;
+            }
+            break;
+        default:
+            break;
+        }
+        submit(entry);
+    }
+
+    /**
+     * Writes the last aggregate and waits for the queued entries to be written. Subsequent calls do nothing.
+     *
+     * @throws SynchronizationException if the last aggregate could not be written synchronously
+     */
+    void close() throws SynchronizationException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (policy.getMode() == ReconAuditPolicy.Mode.aggregate) {
+                final ReconAuditEventLogger entry;
+                synchronized (this) {
+                    entry = flushAggregates(System.currentTimeMillis());
+                }
+                if (entry != null) {
+                    submit(entry);
+                }
+            }
+        } finally {
+            if (writerThread != null) {
+                try {
+                    queue.put(STOP);
+                    writerThread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while writing the queued audit entries of reconciliation {}", reconId);
+                }
+            }
+            if (failed.get() > 0) {
+                logger.warn("{} audit entries of reconciliation {} could not be written", failed.get(), reconId);
+            }
+        }
+    }
+
+    private void aggregate(ReconAuditEventLogger entry) throws SynchronizationException {
+        final List<String> key = Arrays.asList(entry.getReconciling(), name(entry.getSituation()),
+                name(entry.getAction()), name(entry.getStatus()));
+        final long now = System.currentTimeMillis();
+        ReconAuditEventLogger aggregateEntry = null;
+        synchronized (this) {
+            if (now - windowStart >= policy.getAggregateInterval()) {
+                aggregateEntry = flushAggregates(now);
+            }
+            final Long count = aggregates.get(key);
+            aggregates.put(key, count != null ? count + 1 : 1L);
+        }
+        if (aggregateEntry != null) {
+            submit(aggregateEntry);
+        }
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    /**
+     * Builds the aggregate entry of the current window and starts a new window. Must hold the lock.
+     *
+     * @param now the end of the current window
+     * @return the aggregate entry, or null if no entry was counted in the window
+     */
+    private ReconAuditEventLogger flushAggregates(long now) {
+        final Map<List<String>, Long> counts = aggregates;
+        final long start = windowStart;
+        aggregates = new HashMap<>();
+        windowStart = now;
+        if (counts.isEmpty()) {
+            return null;
+        }
+
+        final List<Object> countList = new ArrayList<>(counts.size());
+        long total = 0;
+        for (Map.Entry<List<String>, Long> count : counts.entrySet()) {
+            final List<String> key = count.getKey();
+            countList.add(object(
+                    field("reconciling", key.get(0)),
+                    field("situation", key.get(1)),
+                    field("action", key.get(2)),
+                    field("status", key.get(3)),
+                    field("count", count.getValue())));
+            total += count.getValue();
+        }
+        final DateUtil dateUtil = DateUtil.getDateUtil();
+        final ReconAuditEventLogger entry = new ReconAuditEventLogger(null, mapping, context);
+        entry.setEntryType(ReconAuditEventLogger.RECON_LOG_ENTRY_TYPE_RECON_AGGREGATE);
+        entry.setReconId(reconId);
+        entry.setMessage(total + " entries reconciled");
+        entry.setMessageDetail(json(object(
+                field("windowStart", dateUtil.formatDateTime(new Date(start))),
+                field("windowEnd", dateUtil.formatDateTime(new Date(now))),
+                field("counts", countList))));
+        return entry;
+    }
+
+    private void submit(ReconAuditEventLogger entry) throws SynchronizationException {
+        final CreateRequest request;
+        try {
+            request = entry.toCreateRequest();
+        } catch (ResourceException e) {
+            throw new SynchronizationException(e);
+        }
+        if (writerThread == null || closed.get()) {
+            try {
+                connectionFactory.getConnection().create(entry.getContext(), request);
+            } catch (ResourceException e) {
+                throw new SynchronizationException(e);
+            }
+            return;
+        }
+        try {
+            queue.put(new Pending(entry.getContext(), request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted while queuing a recon audit entry", e);
+        }
+    }
+
+    /**
+     * Writes the queued entries in batches until the stop marker is taken.
+     */
+    private void drain() {
+        final List<Pending> batch = new ArrayList<>(policy.getBatchSize());
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Recon audit writer of reconciliation {} interrupted, {} entries not written",
+                        reconId, queue.size());
+                return;
+            }
+            queue.drainTo(batch, policy.getBatchSize() - 1);
+            for (Pending pending : batch) {
+                if (pending == STOP) {
+                    stopped = true;
+                    continue;
+                }
+                try {
+                    connectionFactory.getConnection().create(pending.context, pending.request);
+                } catch (ResourceException e) {
+                    failed.incrementAndGet();
+                    logger.warn("Failed to write recon audit entry of reconciliation {}", reconId, e);
+                }
+            }
+            batch.clear();
+        }
+    }
+}
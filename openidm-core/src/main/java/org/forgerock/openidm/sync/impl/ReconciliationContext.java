@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -63,6 +64,10 @@ public class ReconciliationContext {
     private Map<String, JsonValue> targets;
     // Whether the targets map contains preloaded values
     private boolean hasTargetsValues;
+    // If set, the read ahead of the targets linked to the source entries of the current source phase
+    private volatile TargetReadAhead targetReadAhead;
+    // If set, the writer of the audit entries of the reconciled objects
+    private volatile ReconAuditWriter auditWriter;
     
     private Integer totalSourceEntries;
     private Integer totalTargetEntries;
@@ -355,6 +360,37 @@ public class ReconciliationContext {
         return hasTargetsValues;
     }
 
+    /**
+     * @param targetReadAhead the read ahead of the targets linked to the source entries of the current source
+     * phase, or null if the targets are read on demand
+     */
+    void setTargetReadAhead(TargetReadAhead targetReadAhead) {
+        this.targetReadAhead = targetReadAhead;
+    }
+
+    /**
+     * @param auditWriter the writer of the audit entries of the reconciled objects
+     */
+    void setAuditWriter(ReconAuditWriter auditWriter) {
+        this.auditWriter = auditWriter;
+    }
+
+    /**
+     * @return the writer of the audit entries of the reconciled objects, or null if they are written directly
+     */
+    ReconAuditWriter getAuditWriter() {
+        return auditWriter;
+    }
+
+    /**
+     * @param targetId the normalized target id
+     * @return the target value read ahead for the source phase, or null if it was not read ahead
+     */
+    JsonValue takeReadAheadTarget(String targetId) {
+        final TargetReadAhead readAhead = targetReadAhead;
+        return readAhead != null ? readAhead.take(targetId) : null;
+    }
+
     /**
      * @param newStage Sets the current state and stage in the reconciliation process
      */
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -58,6 +59,7 @@ public class ReconciliationStatistic {
         onUpdateScript,
         postMappingScript,
         propertyMappingScript,
+        propertyMappings,
         resultScript,
         sourceLinkQuery,
         sourceObjectQuery,
@@ -67,6 +69,7 @@ public class ReconciliationStatistic {
         targetObjectQuery,
         targetPhase,
         targetQuery,
+        targetReadAhead,
         updateTargetObject,
         validSourceScript,
         validTargetScript
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -108,7 +109,7 @@ class SourceRecon implements Recon {
                 auditEvent.setStatus(status);
                 auditEvent.setAmbiguousTargetIds(op.getAmbiguousTargetIds());
                 auditEvent.setReconId(reconContext.getReconId());
-                objectMapping.logEntry(auditEvent, reconContext);
+                objectMapping.logReconEntry(auditEvent, reconContext);
             }
         }
     }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -170,9 +170,11 @@ class SourceSyncOperation extends SyncOperation {
         if (linkObject._id != null) {
             JsonValue preloaded = null;
             if (reconContext != null) {
-                // If there is a pre-loaded target value, use it
+                // If there is a pre-loaded or read ahead target value, use it
                 if (reconContext.hasTargetsValues()) {
                     preloaded = reconContext.getTargets().get(linkObject.targetId);
+                } else {
+                    preloaded = reconContext.takeReadAheadTarget(linkObject.targetId);
                 }
             }
             if (preloaded != null) {
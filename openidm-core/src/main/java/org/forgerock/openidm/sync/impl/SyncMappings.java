@@ -12,13 +12,15 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.sync.impl;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
@@ -99,8 +101,19 @@ public class SyncMappings implements Mappings {
 
     private List<ObjectMapping> initMappings(JsonValue config) {
         final List<ObjectMapping> mappingList = new ArrayList<>();
+        final Set<String> precedingNames = new HashSet<>();
         for (JsonValue jv : config.get("mappings").expect(List.class)) {
-            mappingList.add(new ObjectMapping(connectionFactory, jv)); // throws JsonValueException
+            ObjectMapping mapping = new ObjectMapping(connectionFactory, jv); // throws JsonValueException
+            // mappings may only sync after preceding ones, which keeps the sync order free of cycles
+            for (String syncAfter : mapping.getSyncAfter()) {
+                if (!precedingNames.contains(syncAfter)) {
+                    throw new JsonValueException(jv.get("syncAfter"),
+                            "Mapping " + mapping.getName() + " can only sync after a preceding mapping, not "
+                            + syncAfter);
+                }
+            }
+            precedingNames.add(mapping.getName());
+            mappingList.add(mapping);
         }
         for (ObjectMapping mapping : mappingList) {
             mapping.initRelationships(mappingList);
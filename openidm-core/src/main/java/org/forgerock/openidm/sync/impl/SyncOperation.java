@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -87,9 +88,6 @@ abstract class SyncOperation {
     /** an additional set of key-value conditions to be met for a source object to be valid to be mapped */
     private final Condition sourceCondition;
 
-    /** an array of property-mapping objects */
-    private final List<PropertyMapping> properties = new ArrayList<>();
-
     /** a map of {@link Policy} objects */
     private Map<String, List<Policy>> policies = new HashMap<>();
 
@@ -177,10 +175,6 @@ abstract class SyncOperation {
                 json(object(field(SourceUnit.ATTR_TYPE, "groovy"),
                         field(SourceUnit.ATTR_NAME, "roles/defaultPostMapping.groovy")))));
 
-        for (JsonValue jv : config.get("properties").expect(List.class)) {
-            properties.add(new PropertyMapping(jv));
-        }
-
         for (JsonValue jv : config.get("policies").expect(List.class)) {
             String situation = jv.get("situation").asString();
             if (policies.containsKey(situation)) {
@@ -914,11 +908,15 @@ abstract class SyncOperation {
             JsonValue existingTarget, String linkQualifier, ReconciliationContext reconContext) throws SynchronizationException {
         EventEntry measure = Publisher.start(objectMapping.getObjectMappingEventName(), source, null);
         try {
-            for (PropertyMapping property : properties) {
-                final long startNanoTime = ObjectMapping.startNanoTime(reconContext, property.hasTransformScript());
+            final long propertiesStartNanoTime = ObjectMapping.startNanoTime(reconContext);
+            for (PropertyMapping property : objectMapping.getPropertyMappings()) {
+                final long startNanoTime = ObjectMapping.startNanoTime(reconContext,
+                        property.hasTransformScript() && !property.hasCompiledTransform());
                 property.apply(source, oldSource, target, existingTarget, linkQualifier, context);
                 ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.propertyMappingScript, startNanoTime);
             }
+            ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.propertyMappings,
+                    propertiesStartNanoTime);
             // Apply default mapping, if configured
             applyDefaultMappings(context, source, oldSource, target, existingTarget, linkQualifier, reconContext);
 
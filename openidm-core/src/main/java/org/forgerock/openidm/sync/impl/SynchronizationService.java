@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -29,8 +29,14 @@ import static org.forgerock.openidm.util.ResourceUtil.notSupported;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.audit.events.AuditEvent;
 import org.wrensecurity.guava.common.base.Function;
@@ -54,6 +60,7 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.SingletonResourceProvider;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.quartz.impl.ExecutionException;
 import org.forgerock.openidm.quartz.impl.ScheduledService;
@@ -111,6 +118,20 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
     /** The resource name action parameter. */
     public static final String ACTION_PARAM_RESOURCE_NAME = "resourceName";
 
+    /** The property setting the number of threads syncing the mappings of a change in parallel. */
+    static final String IMPLICIT_SYNC_THREADS_PROPERTY = "openidm.sync.implicit.threads";
+
+    /** Whether the current thread syncs a mapping on behalf of the {@link #implicitSyncExecutor}. */
+    private static final ThreadLocal<Boolean> inParallelSync = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
+
+    /** Syncs the mappings of a change in parallel, or null to sync them one after another on the request thread. */
+    ExecutorService implicitSyncExecutor;
+
     /** The Connection Factory */
     @Reference(policy = ReferencePolicy.STATIC)
     protected IDMConnectionFactory connectionFactory;
@@ -140,10 +161,21 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
 
     @Activate
     protected void activate(ComponentContext context) {
+        // Until we have a sync service config, allow enabling the parallel sync via (unsupported) properties
+        int implicitSyncThreads = Integer.parseInt(
+                IdentityServer.getInstance().getProperty(IMPLICIT_SYNC_THREADS_PROPERTY, "0"));
+        if (implicitSyncThreads > 0) {
+            implicitSyncExecutor = Executors.newFixedThreadPool(implicitSyncThreads);
+            logger.info("Syncing the mappings of a change with up to {} threads", implicitSyncThreads);
+        }
     }
 
     @Deactivate
     protected void deactivate(ComponentContext context) {
+        if (implicitSyncExecutor != null) {
+            implicitSyncExecutor.shutdown();
+            implicitSyncExecutor = null;
+        }
     }
 
     @Modified
@@ -157,6 +189,28 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
         SUCCESSFUL, SKIPPED, FAILED
     }
 
+    /**
+     * The result of synchronizing a source object to a given mapping.
+     */
+    private static final class MappingSync {
+        private final ObjectMapping mapping;
+        private final MappingSyncResult result;
+        private final JsonValue mappingResults;
+        private final SynchronizationException exception;
+
+        private MappingSync(ObjectMapping mapping, MappingSyncResult result, JsonValue mappingResults,
+                SynchronizationException exception) {
+            this.mapping = mapping;
+            this.result = result;
+            this.mappingResults = mappingResults;
+            this.exception = exception;
+        }
+
+        private static MappingSync skipped(ObjectMapping mapping) {
+            return new MappingSync(mapping, MappingSyncResult.SKIPPED, json(array()), null);
+        }
+    }
+
     /**
      * Local interface to encapsulate the notifyCreate/notifyUpdate/notifyDelete ObjectMapping synchronization
      * across all mappings.
@@ -196,35 +250,32 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
             }
         };
 
-        for (final ObjectMapping mapping : FluentIterable.from(mappings).filter(thatMatchSource)) {
-            JsonValue mappingResults = json(array());
-            MappingSyncResult result = MappingSyncResult.SUCCESSFUL;
-            try {
-                if (exceptionPending == null) {
-                    // No failures yet, perform sync
-                    // This operation returns a list which will contain more than one result if
-                    // there are multiple targets to sync the source to
-                    mappingResults = action.sync(context, mapping);
-                } else {
-                    // we've already failed, skip the sync attempt
-                    result = MappingSyncResult.SKIPPED;
-                }
-            } catch (SynchronizationException e) {
-                // failed to sync; store the exception and mark as failed
-                exceptionPending = new SynchronizationException(e.getMessage(), e.getCause());
-                // the exception detail contains the mapping result
-                JsonValue failedResult = e.getDetail();
-                failedResult.put("cause", exceptionPending.toJsonValue().getObject());
-                mappingResults.add(failedResult);
-                result = MappingSyncResult.FAILED;
-            } finally {
-                // Loop over each result, setting result fields and adding to syncDetails list
-                for (JsonValue mappingResult : mappingResults) {
-                    mappingResult.put("result", result.name());
-                    mappingResult.put("mapping", mapping.getName());
-                    mappingResult.put("targetObjectSet", mapping.getTargetObjectSet());
-                    syncDetails.add(mappingResult);
-                }
+        final List<ObjectMapping> matchingMappings = FluentIterable.from(mappings).filter(thatMatchSource).toList();
+        final ExecutorService executor = implicitSyncExecutor;
+        final List<MappingSync> mappingSyncs;
+        if (executor != null && matchingMappings.size() > 1 && !inParallelSync.get()) {
+            mappingSyncs = syncMappingsInParallel(context, action, matchingMappings, executor);
+        } else {
+            mappingSyncs = new ArrayList<>(matchingMappings.size());
+            boolean failed = false;
+            for (ObjectMapping mapping : matchingMappings) {
+                // once a mapping failed, skip the sync attempt of the following ones
+                MappingSync mappingSync = failed ? MappingSync.skipped(mapping) : syncMapping(context, action, mapping);
+                failed |= mappingSync.result == MappingSyncResult.FAILED;
+                mappingSyncs.add(mappingSync);
+            }
+        }
+
+        for (MappingSync mappingSync : mappingSyncs) {
+            if (exceptionPending == null) {
+                exceptionPending = mappingSync.exception;
+            }
+            // Loop over each result, setting result fields and adding to syncDetails list
+            for (JsonValue mappingResult : mappingSync.mappingResults) {
+                mappingResult.put("result", mappingSync.result.name());
+                mappingResult.put("mapping", mappingSync.mapping.getName());
+                mappingResult.put("targetObjectSet", mappingSync.mapping.getTargetObjectSet());
+                syncDetails.add(mappingResult);
             }
         }
 
@@ -238,6 +289,103 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
         return syncDetails;
     }
 
+    /**
+     * Synchronize a mapping, capturing the failure to sync it.
+     *
+     * @param action the {@code SyncAction} to perform
+     * @param mapping the mapping to synchronize
+     * @return the result of the sync
+     */
+    private MappingSync syncMapping(Context context, SyncAction action, ObjectMapping mapping) {
+        try {
+            // This operation returns a list which will contain more than one result if
+            // there are multiple targets to sync the source to
+            return new MappingSync(mapping, MappingSyncResult.SUCCESSFUL, action.sync(context, mapping), null);
+        } catch (SynchronizationException e) {
+            // failed to sync; store the exception and mark as failed
+            SynchronizationException exception = new SynchronizationException(e.getMessage(), e.getCause());
+            // the exception detail contains the mapping result
+            JsonValue failedResult = e.getDetail();
+            failedResult.put("cause", exception.toJsonValue().getObject());
+            JsonValue mappingResults = json(array());
+            mappingResults.add(failedResult);
+            return new MappingSync(mapping, MappingSyncResult.FAILED, mappingResults, exception);
+        }
+    }
+
+    /**
+     * Synchronize the mappings in parallel on the executor.
+     * <p>
+     * A mapping is synced once the mappings it syncs after have been synced, and is skipped if one of them was not
+     * synced successfully. As in the sequential sync, a mapping is skipped once the sync of another mapping failed,
+     * unless its sync had already started.
+     *
+     * @param action the {@code SyncAction} to perform
+     * @param matchingMappings the mappings to sync, in their configured order
+     * @param executor the executor to sync the mappings on
+     * @return the results of the sync, in the order of the mappings
+     * @throws SynchronizationException if interrupted while waiting for the results
+     */
+    private List<MappingSync> syncMappingsInParallel(final Context context, final SyncAction action,
+            List<ObjectMapping> matchingMappings, ExecutorService executor) throws SynchronizationException {
+        final Context objectSetContext = ObjectSetContext.get();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Map<String, Future<MappingSync>> futures = new LinkedHashMap<>();
+        for (final ObjectMapping mapping : matchingMappings) {
+            // the mappings synced after were submitted before, so they are taken from the queue first
+            final List<Future<MappingSync>> syncedAfter = new ArrayList<>();
+            for (String name : mapping.getSyncAfter()) {
+                if (futures.containsKey(name)) {
+                    syncedAfter.add(futures.get(name));
+                }
+            }
+            futures.put(mapping.getName(), executor.submit(new Callable<MappingSync>() {
+                @Override
+                public MappingSync call() throws Exception {
+                    for (Future<MappingSync> future : syncedAfter) {
+                        if (future.get().result != MappingSyncResult.SUCCESSFUL) {
+                            return MappingSync.skipped(mapping);
+                        }
+                    }
+                    if (failed.get()) {
+                        return MappingSync.skipped(mapping);
+                    }
+                    // changes made by this sync are synced on this thread, rather than waiting for the executor
+                    inParallelSync.set(Boolean.TRUE);
+                    ObjectSetContext.push(objectSetContext);
+                    try {
+                        MappingSync mappingSync = syncMapping(context, action, mapping);
+                        if (mappingSync.result == MappingSyncResult.FAILED) {
+                            failed.set(true);
+                        }
+                        return mappingSync;
+                    } finally {
+                        ObjectSetContext.pop();
+                        inParallelSync.set(Boolean.FALSE);
+                    }
+                }
+            }));
+        }
+
+        final List<MappingSync> mappingSyncs = new ArrayList<>(futures.size());
+        for (Future<MappingSync> future : futures.values()) {
+            try {
+                mappingSyncs.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SynchronizationException("Interrupted while synchronizing mappings", e);
+            } catch (java.util.concurrent.ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new SynchronizationException(e.getCause());
+            }
+        }
+        return mappingSyncs;
+    }
+
     private JsonValue notifyCreate(Context context, final String resourceContainer, final String resourceId, final JsonValue object)
             throws SynchronizationException {
         // Handle pending link action if present
@@ -0,0 +1,204 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ahead the linked targets of the source entries of a reconciliation.
+ * <p>
+ * When the target query returns ids only, each linked target would otherwise be read on its own by the
+ * {@link LazyObjectAccessor} of the source sync operation. This iterator pulls the source entries in batches, queries
+ * the targets linked to a batch with a single query filter matching any of their ids and keeps the results until
+ * {@link #take(String)} hands them over to the sync operation.
+ * <p>
+ * The values of the batches older than the feed size of the reconciliation are discarded, so that the values of
+ * entries which never claimed them do not accumulate. A target that was not read ahead, or whose value was already
+ * discarded, is read on demand as before. A failed read ahead query disables the read ahead for the rest of the
+ * phase.
+ * <p>
+ * The iterator is not thread safe, it is meant to be consumed by the {@link ReconFeeder} only, while {@link #take}
+ * may be called concurrently by the reconciliation tasks.
+ */
+class TargetReadAhead implements Iterator<ResultEntry> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TargetReadAhead.class);
+
+    /** The default number of source entries whose linked targets are read with one query. */
+    static final int DEFAULT_READ_AHEAD_SIZE = 100;
+
+    private static final JsonPointer ID_POINTER = new JsonPointer(ResourceResponse.FIELD_CONTENT_ID);
+
+    private final Iterator<ResultEntry> entries;
+    private final ObjectMapping mapping;
+    private final ReconciliationContext reconContext;
+    private final Context context;
+    private final Map<String, Map<String, Link>> allLinks;
+    private final int readAheadSize;
+    private final int retainedBatches;
+
+    /** The source entries pulled from the source iterator and not handed to the feeder yet. */
+    private final Deque<ResultEntry> buffer = new ArrayDeque<>();
+
+    /** The target ids read ahead for each retained batch, oldest first. */
+    private final Deque<Collection<String>> batches = new ArrayDeque<>();
+
+    /** The target values read ahead by normalized target id. */
+    private final Map<String, JsonValue> targets = new ConcurrentHashMap<>();
+
+    private boolean enabled = true;
+
+    /**
+     * Constructs the read ahead of the source entries.
+     *
+     * @param entries the source entries of the reconciliation phase
+     * @param mapping the mapping being reconciled
+     * @param reconContext the reconciliation context
+     * @param context the context to query the targets with
+     * @param allLinks the links of the mapping by link qualifier and normalized source id
+     * @param readAheadSize the number of source entries whose linked targets are read with one query
+     * @param feedSize the number of tasks the {@link ReconFeeder} keeps submitted
+     */
+    TargetReadAhead(Iterator<ResultEntry> entries, ObjectMapping mapping, ReconciliationContext reconContext,
+            Context context, Map<String, Map<String, Link>> allLinks, int readAheadSize, int feedSize) {
+        this.entries = entries;
+        this.mapping = mapping;
+        this.reconContext = reconContext;
+        this.context = context;
+        this.allLinks = allLinks;
+        this.readAheadSize = readAheadSize;
+        this.retainedBatches = feedSize / readAheadSize + 2;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !buffer.isEmpty() || entries.hasNext();
+    }
+
+    @Override
+    public ResultEntry next() {
+        if (buffer.isEmpty()) {
+            while (buffer.size() < readAheadSize && entries.hasNext()) {
+                buffer.add(entries.next());
+            }
+            if (enabled && !buffer.isEmpty()) {
+                readAhead(buffer);
+            }
+        }
+        if (buffer.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return buffer.poll();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Hands over the value of a target read ahead, which is then no longer retained.
+     *
+     * @param targetId the normalized target id
+     * @return the target value, or null if the target was not read ahead
+     */
+    JsonValue take(String targetId) {
+        return targetId != null ? targets.remove(targetId) : null;
+    }
+
+    /**
+     * Reads the targets linked to the source entries with a single query.
+     *
+     * @param sourceEntries the source entries of the batch
+     */
+    private void readAhead(Collection<ResultEntry> sourceEntries) {
+        final Set<String> targetIds = new LinkedHashSet<>();
+        for (ResultEntry entry : sourceEntries) {
+            final String normalizedSourceId = mapping.getLinkType().normalizeSourceId(entry.getId());
+            for (Map<String, Link> links : allLinks.values()) {
+                final Link link = links.get(normalizedSourceId);
+                if (link != null && link.targetId != null) {
+                    targetIds.add(link.targetId);
+                }
+            }
+        }
+
+        // Retain the values of the batches which may still be claimed by submitted tasks only
+        batches.add(targetIds);
+        while (batches.size() > retainedBatches) {
+            for (String targetId : batches.poll()) {
+                targets.remove(targetId);
+            }
+        }
+
+        if (targetIds.isEmpty()) {
+            return;
+        }
+        final List<QueryFilter<JsonPointer>> filters = new ArrayList<>(targetIds.size());
+        for (String targetId : targetIds) {
+            filters.add(QueryFilter.equalTo(ID_POINTER, targetId));
+        }
+        final QueryRequest request = Requests.newQueryRequest(mapping.getTargetObjectSet())
+                .setQueryFilter(QueryFilter.or(filters));
+
+        final long readAheadStart = ObjectMapping.startNanoTime(reconContext);
+        try {
+            mapping.getConnectionFactory().getConnection().query(context, request, new QueryResourceHandler() {
+                @Override
+                public boolean handleResource(ResourceResponse resource) {
+                    if (resource.getId() != null) {
+                        // only keep the requested targets, in case the filter was not applied in full
+                        final String targetId = mapping.getLinkType().normalizeTargetId(resource.getId());
+                        if (targetIds.contains(targetId)) {
+                            targets.put(targetId, resource.getContent());
+                        }
+                    }
+                    return true;
+                }
+            });
+        } catch (ResourceException e) {
+            enabled = false;
+            logger.warn("Failed to read ahead targets of mapping {}, reading them on demand instead",
+                    mapping.getName(), e);
+        } finally {
+            ObjectMapping.addDuration(reconContext, DurationMetric.targetReadAhead, readAheadStart);
+        }
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -84,7 +85,7 @@ class TargetRecon implements Recon {
                 }
                 event.setStatus(status);
                 event.setReconId(reconContext.getReconId());
-                objectMapping.logEntry(event, reconContext);
+                objectMapping.logReconEntry(event, reconContext);
             }
         }
     }
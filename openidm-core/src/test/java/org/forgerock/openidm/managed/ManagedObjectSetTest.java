@@ -12,12 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
- * Portions Copyright 2018-2020 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 
 package org.forgerock.openidm.managed;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
@@ -59,7 +60,9 @@ import org.forgerock.json.crypto.simple.SimpleKeySelector;
 import org.forgerock.json.crypto.simple.SimpleKeyStoreSelector;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.ConflictException;
 import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ForbiddenException;
 import org.forgerock.json.resource.MemoryBackend;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourceException;
@@ -105,6 +108,7 @@ public class ManagedObjectSetTest {
     private static final String CONF_MANAGED_USER_USING_ALIAS1 = "/conf/managed-user-alias1.json";
     private static final String CONF_MANAGED_USER_USING_NO_ENCRYPTION = "/conf/managed-user-no-encryption.json";
     private static final String CONF_MANAGED_USER_WITH_ACTION = "/conf/managed-user-action.json";
+    private static final String CONF_MANAGED_USER_WITH_UNIQUE = "/conf/managed-user-unique.json";
     private static final String RESOURCE_ID = "user1";
     private static final String KEYSTORE_PASSWORD = "Password1";
     private static final int NUMBER_OF_USERS = 5;
@@ -402,6 +406,48 @@ public class ManagedObjectSetTest {
         assertThat(updatedUser.isEqualTo(createdUser)).isFalse();
     }
 
+    @Test
+    public void testFailedUniquePolicyReportsTakenValue() throws Exception {
+        // given
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ManagedObjectSet managedObjectSet = createManagedObjectSet(CONF_MANAGED_USER_WITH_UNIQUE,
+                createCryptoService(), connectionObjects.getConnectionFactory());
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        createUser(RESOURCE_ID, json(object(field("userName", "bjensen"))), managedObjectSet);
+        final ConflictException conflict = new ConflictException("Duplicate key");
+
+        // when
+        final ResourceException taken = managedObjectSet.failedUniquePolicy(new RootContext(), "user2",
+                json(object(field("userName", "bjensen"))), conflict);
+        final ResourceException own = managedObjectSet.failedUniquePolicy(new RootContext(), RESOURCE_ID,
+                json(object(field("userName", "bjensen"))), conflict);
+
+        // then
+        assertThat(taken).isInstanceOf(ForbiddenException.class).hasCause(conflict);
+        assertThat(taken.getDetail().get("failedPolicyRequirements").get(0).get("property").asString())
+                .isEqualTo("userName");
+        assertThat(own).isSameAs(conflict);
+    }
+
+    @Test
+    public void testCreateChecksUniqueValueWithoutUniqueIndex() throws Exception {
+        // given a repository without unique indexes
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ManagedObjectSet managedObjectSet = createManagedObjectSet(CONF_MANAGED_USER_WITH_UNIQUE,
+                createCryptoService(), connectionObjects.getConnectionFactory());
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        createUser(RESOURCE_ID, json(object(field("userName", "bjensen"))), managedObjectSet);
+
+        // when
+        final Throwable thrown = catchThrowable(() ->
+                createUser("user2", json(object(field("userName", "bjensen"))), managedObjectSet));
+
+        // then
+        assertThat(thrown).isInstanceOf(ForbiddenException.class);
+        assertThat(((ResourceException) thrown).getDetail().get("failedPolicyRequirements").get(0)
+                .get("policyRequirements").get(0).get("policyRequirement").asString()).isEqualTo("UNIQUE");
+    }
+
     /**
      * Create a number of users with generated random content.
      *
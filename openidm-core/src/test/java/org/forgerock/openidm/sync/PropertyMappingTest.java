@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Mockito.mock;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.util.Scripts;
+import org.forgerock.script.ScriptRegistry;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class PropertyMappingTest {
+
+    @BeforeClass
+    public void init() {
+        Scripts.init(mock(ScriptRegistry.class));
+    }
+
+    private static JsonValue script(String type, String source) {
+        return json(object(field("type", type), field("source", source)));
+    }
+
+    private static JsonValue apply(JsonValue config, JsonValue source) throws Exception {
+        JsonValue target = json(object());
+        new PropertyMapping(config).apply(source, null, target, json(object()), "default", new RootContext());
+        return target;
+    }
+
+    @Test
+    public void testCopiesNestedSourceValue() throws Exception {
+        JsonValue source = json(object(field("emails", array(object(field("value", "bjensen@example.com"))))));
+
+        JsonValue target = apply(json(object(field("source", "/emails/0/value"), field("target", "/contact/mail"))),
+                source);
+
+        assertThat(target.get("contact").get("mail").asString()).isEqualTo("bjensen@example.com");
+    }
+
+    @Test
+    public void testAppliesDefaultToMissingSourceValue() throws Exception {
+        JsonValue target = apply(json(object(field("source", "/emails/3/value"), field("target", "/mail"),
+                field("default", "none"))), json(object(field("emails", array()))));
+
+        assertThat(target.get("mail").asString()).isEqualTo("none");
+    }
+
+    @Test
+    public void testComputesCompiledTransformWithoutScript() throws Exception {
+        JsonValue config = json(object(field("source", ""), field("target", "/cn"),
+                field("transform", script("text/javascript", "source.givenName + ' ' + source.sn;").getObject())));
+
+        PropertyMapping mapping = new PropertyMapping(config);
+        JsonValue target = json(object());
+        mapping.apply(json(object(field("givenName", "Barbara"), field("sn", "Jensen"))), null, target,
+                json(object()), "default", new RootContext());
+
+        assertThat(mapping.hasCompiledTransform()).isTrue();
+        assertThat(target.get("cn").asString()).isEqualTo("Barbara Jensen");
+    }
+
+    @Test
+    public void testCompilesCommonTransforms() {
+        assertThat(PropertyTransforms.compile(script("groovy", "source.toLowerCase()")).apply("BJensen"))
+                .isEqualTo("bjensen");
+        assertThat(PropertyTransforms.compile(script("text/javascript", "source.toUpperCase();")).apply("bjensen"))
+                .isEqualTo("BJENSEN");
+        assertThat(PropertyTransforms.compile(script("text/javascript", "source")).apply("bjensen"))
+                .isEqualTo("bjensen");
+        assertThat(PropertyTransforms.compile(script("groovy", "\"uid=\" + source.uid + \",ou=people\""))
+                .apply(object(field("uid", "bjensen")))).isEqualTo("uid=bjensen,ou=people");
+    }
+
+    @Test
+    public void testCompilesConstants() {
+        assertThat(PropertyTransforms.compile(script("text/javascript", "'constant'")).apply(null))
+                .isEqualTo("constant");
+        assertThat(PropertyTransforms.compile(script("groovy", "\"ou=people\" + ',' + \"dc=example\""))
+                .apply(object(field("uid", "bjensen")))).isEqualTo("ou=people,dc=example");
+    }
+
+    @Test
+    public void testRunsScriptForNonStringValues() {
+        assertThat(PropertyTransforms.compile(script("groovy", "source.toLowerCase()")).apply(42))
+                .isSameAs(PropertyTransforms.NOT_COMPILED);
+        assertThat(PropertyTransforms.compile(script("text/javascript", "source.a + '-' + source.b"))
+                .apply(object(field("a", "x"), field("b", 1)))).isSameAs(PropertyTransforms.NOT_COMPILED);
+    }
+
+    @Test
+    public void testDoesNotCompileOtherScripts() {
+        assertThat(PropertyTransforms.compile(script("text/javascript", "source.substring(1)"))).isNull();
+        assertThat(PropertyTransforms.compile(script("text/javascript", "source.a + \"\\n\""))).isNull();
+        assertThat(PropertyTransforms.compile(script("groovy", "\"${source.uid}\""))).isNull();
+        assertThat(PropertyTransforms.compile(json(object(field("type", "text/javascript"),
+                field("file", "script/transform.js"))))).isNull();
+    }
+}
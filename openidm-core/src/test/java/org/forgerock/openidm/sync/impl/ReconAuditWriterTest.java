@@ -0,0 +1,148 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.sync.ReconAction;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.services.context.SecurityContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconAuditWriterTest {
+
+    private static final String TEST_MAPPING = "testMapping";
+
+    private Context context;
+    private ConnectionFactory connectionFactory;
+    private List<CreateRequest> requests;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        context = new SecurityContext(new RootContext(), "principal", null);
+        requests = Collections.synchronizedList(new ArrayList<CreateRequest>());
+        Connection connection = mock(Connection.class);
+        when(connection.create(any(Context.class), any(CreateRequest.class))).then(invocation -> {
+            requests.add(invocation.getArgument(1));
+            return newResourceResponse("id", "0", null);
+        });
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+    }
+
+    private ReconAuditWriter newWriter(JsonValue config) {
+        return new ReconAuditWriter(new ReconAuditPolicy(config), connectionFactory, TEST_MAPPING, "reconId", context);
+    }
+
+    private ReconAuditEventLogger entry(Situation situation, Status status) {
+        SourceSyncOperation syncOperation = mock(SourceSyncOperation.class);
+        syncOperation.situation = situation;
+        syncOperation.action = ReconAction.UPDATE;
+        ReconAuditEventLogger entry = new ReconAuditEventLogger(syncOperation, TEST_MAPPING, context);
+        entry.setReconciling("source");
+        entry.setStatus(status);
+        return entry;
+    }
+
+    @Test
+    public void testNonTrivialSkipsTrivialSituations() throws Exception {
+        ReconAuditWriter writer = newWriter(json(object(field("mode", "nonTrivial"), field("async", false))));
+
+        writer.write(entry(Situation.CONFIRMED, Status.SUCCESS));
+        writer.write(entry(Situation.FOUND, Status.SUCCESS));
+        writer.write(entry(Situation.CONFIRMED, Status.FAILURE));
+        writer.close();
+
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0).getContent().get("situation").asString()).isEqualTo("FOUND");
+        assertThat(requests.get(1).getContent().get("status").asString()).isEqualTo("FAILURE");
+    }
+
+    @Test
+    public void testSampleWritesOneInRate() throws Exception {
+        ReconAuditWriter writer = newWriter(json(object(field("mode", "sample"), field("sampleRate", 3))));
+
+        for (int i = 0; i < 7; i++) {
+            writer.write(entry(Situation.CONFIRMED, Status.SUCCESS));
+        }
+        writer.write(entry(Situation.CONFIRMED, Status.FAILURE));
+        writer.close();
+
+        // entries 0, 3 and 6 are sampled, the failure is always written
+        assertThat(requests).hasSize(4);
+    }
+
+    @Test
+    public void testAggregateCountsEntries() throws Exception {
+        ReconAuditWriter writer = newWriter(json(object(field("mode", "aggregate"), field("async", false))));
+
+        writer.write(entry(Situation.CONFIRMED, Status.SUCCESS));
+        writer.write(entry(Situation.CONFIRMED, Status.SUCCESS));
+        writer.write(entry(Situation.FOUND, Status.SUCCESS));
+        assertThat(requests).isEmpty();
+        writer.close();
+        writer.close();
+
+        assertThat(requests).hasSize(1);
+        JsonValue content = requests.get(0).getContent();
+        assertThat(content.get("entryType").asString())
+                .isEqualTo(ReconAuditEventLogger.RECON_LOG_ENTRY_TYPE_RECON_AGGREGATE);
+        assertThat(content.get("reconId").asString()).isEqualTo("reconId");
+        JsonValue counts = content.get("messageDetail").get("counts");
+        assertThat(counts.size()).isEqualTo(2);
+        long total = 0;
+        for (JsonValue count : counts) {
+            total += count.get("count").asLong();
+        }
+        assertThat(total).isEqualTo(3);
+    }
+
+    @Test
+    public void testAsyncWritesQueuedEntriesOnClose() throws Exception {
+        ReconAuditWriter writer = newWriter(json(object(field("batchSize", 2), field("queueSize", 4))));
+
+        for (int i = 0; i < 10; i++) {
+            writer.write(entry(Situation.FOUND, Status.SUCCESS));
+        }
+        writer.close();
+
+        assertThat(requests).hasSize(10);
+    }
+
+    @Test(expectedExceptions = JsonValueException.class)
+    public void testInvalidSampleRate() {
+        new ReconAuditPolicy(json(object(field("sampleRate", 0))));
+    }
+}
@@ -12,11 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.sync.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
@@ -27,12 +29,19 @@ import static org.forgerock.json.test.assertj.AssertJJsonValueAssert.assertThat;
 import static org.forgerock.openidm.sync.impl.SynchronizationService.ACTION_PARAM_RESOURCE_NAME;
 import static org.forgerock.util.test.assertj.AssertJPromiseAssert.assertThatPromise;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 import org.forgerock.audit.events.AuditEvent;
 import org.forgerock.json.JsonValue;
@@ -49,9 +58,11 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.Scripts;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
 import org.forgerock.util.promise.Promise;
 import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
@@ -163,4 +174,87 @@ public class SynchronizationServiceTest {
         assertThat(resource).stringAt("linkQualifier").isEqualTo("default");
         assertThat(resource).stringAt("linkType").isEqualTo("testMapping");
     }
+
+    private static ObjectMapping mockMapping(String name, String... syncAfter) {
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getName()).thenReturn(name);
+        when(mapping.getTargetObjectSet()).thenReturn("system/" + name + "/account");
+        when(mapping.isSyncEnabled()).thenReturn(true);
+        when(mapping.isSourceObject(anyString(), anyString())).thenReturn(true);
+        when(mapping.getSyncAfter()).thenReturn(Arrays.asList(syncAfter));
+        return mapping;
+    }
+
+    private static SynchronizationService newParallelSyncService(final ObjectMapping... mappings) {
+        final Mappings allMappings = mock(Mappings.class);
+        when(allMappings.iterator()).then(invocation -> Arrays.asList(mappings).iterator());
+        final SynchronizationService synchronizationService = new SynchronizationService();
+        synchronizationService.bindMappings(allMappings);
+        synchronizationService.implicitSyncExecutor = Executors.newFixedThreadPool(2);
+        return synchronizationService;
+    }
+
+    private static ActionRequest newNotifyUpdateRequest() {
+        return newActionRequest("", "notifyUpdate")
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_CONTAINER, "managed/user")
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_ID, "bjensen")
+                .setContent(json(object(field("newValue", object(field("userName", "bjensen"))))));
+    }
+
+    @Test
+    public void testParallelSyncHonoursSyncAfterAndMappingOrder() throws Exception {
+        final ObjectMapping first = mockMapping("first");
+        final ObjectMapping second = mockMapping("second", "first");
+        final ObjectMapping third = mockMapping("third");
+        final List<String> synced = Collections.synchronizedList(new ArrayList<String>());
+        for (final ObjectMapping mapping : Arrays.asList(first, second, third)) {
+            when(mapping.notifyUpdate(any(Context.class), anyString(), anyString(), any(JsonValue.class),
+                    any(JsonValue.class))).then(invocation -> {
+                        if (mapping == first) {
+                            Thread.sleep(100);
+                        }
+                        synced.add(mapping.getName());
+                        return json(array(object(field("situation", "FOUND"))));
+                    });
+        }
+        final SynchronizationService synchronizationService = newParallelSyncService(first, second, third);
+
+        Promise<ActionResponse, ResourceException> promise =
+                synchronizationService.actionInstance(new RootContext(), newNotifyUpdateRequest());
+
+        assertThatPromise(promise).succeeded();
+        assertThat(synced.indexOf("second")).isGreaterThan(synced.indexOf("first"));
+        JsonValue syncDetails = promise.get().getJsonContent();
+        assertThat(syncDetails.size()).isEqualTo(3);
+        assertThat(syncDetails.get(0)).stringAt("mapping").isEqualTo("first");
+        assertThat(syncDetails.get(1)).stringAt("mapping").isEqualTo("second");
+        assertThat(syncDetails.get(2)).stringAt("mapping").isEqualTo("third");
+        assertThat(syncDetails.get(2)).stringAt("result").isEqualTo("SUCCESSFUL");
+    }
+
+    @Test
+    public void testParallelSyncSkipsMappingsSyncedAfterFailedMapping() throws Exception {
+        final ObjectMapping first = mockMapping("first");
+        final ObjectMapping second = mockMapping("second", "first");
+        final SynchronizationException failure = new SynchronizationException("Unable to sync");
+        failure.setDetail(json(object(field("situation", "FOUND"))));
+        when(first.notifyUpdate(any(Context.class), anyString(), anyString(), any(JsonValue.class),
+                any(JsonValue.class))).thenThrow(failure);
+        final SynchronizationService synchronizationService = newParallelSyncService(first, second);
+
+        Promise<ActionResponse, ResourceException> promise =
+                synchronizationService.actionInstance(new RootContext(), newNotifyUpdateRequest());
+
+        assertThatPromise(promise).failedWithException().isInstanceOf(SynchronizationException.class);
+        verify(second, never()).notifyUpdate(any(Context.class), anyString(), anyString(), any(JsonValue.class),
+                any(JsonValue.class));
+        try {
+            promise.getOrThrow();
+        } catch (SynchronizationException e) {
+            JsonValue syncDetails = e.getDetail();
+            assertThat(syncDetails.size()).isEqualTo(1);
+            assertThat(syncDetails.get(0)).stringAt("mapping").isEqualTo("first");
+            assertThat(syncDetails.get(0)).stringAt("result").isEqualTo("FAILED");
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TargetReadAheadTest {
+
+    private ObjectMapping mapping;
+    private Connection connection;
+    private Map<String, Map<String, Link>> allLinks;
+    private List<QueryRequest> requests;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        LinkType linkType = mock(LinkType.class);
+        when(linkType.normalizeSourceId(anyString())).then(returnsFirstArg());
+        when(linkType.normalizeTargetId(anyString())).then(returnsFirstArg());
+
+        connection = mock(Connection.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(linkType);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+        when(mapping.getTargetObjectSet()).thenReturn("system/ldap/account");
+
+        Map<String, Link> links = new HashMap<>();
+        for (String sourceId : Arrays.asList("s1", "s2", "s3")) {
+            Link link = new Link(mapping);
+            link.sourceId = sourceId;
+            link.targetId = "t" + sourceId.substring(1);
+            links.put(sourceId, link);
+        }
+        allLinks = new HashMap<>();
+        allLinks.put(Link.DEFAULT_LINK_QUALIFIER, links);
+
+        requests = new ArrayList<>();
+        when(connection.query(any(), any(QueryRequest.class), any(QueryResourceHandler.class))).then(invocation -> {
+            requests.add(invocation.getArgument(1));
+            QueryResourceHandler handler = invocation.getArgument(2);
+            for (String targetId : Arrays.asList("t1", "t2", "t3", "other")) {
+                handler.handleResource(newResourceResponse(targetId, "0",
+                        json(object(field("_id", targetId), field("name", targetId)))));
+            }
+            return newQueryResponse();
+        });
+    }
+
+    private static List<ResultEntry> entries(String... ids) {
+        List<ResultEntry> entries = new ArrayList<>();
+        for (String id : ids) {
+            entries.add(new ResultEntry(id, null));
+        }
+        return entries;
+    }
+
+    @Test
+    public void testReadsLinkedTargetsOfBatch() throws Exception {
+        TargetReadAhead readAhead = new TargetReadAhead(entries("s1", "s2", "s3", "unlinked").iterator(),
+                mapping, null, new RootContext(), allLinks, 3, 3);
+
+        List<String> ids = new ArrayList<>();
+        while (readAhead.hasNext()) {
+            ids.add(readAhead.next().getId());
+        }
+
+        assertThat(ids).containsExactly("s1", "s2", "s3", "unlinked");
+        // The second batch has no linked target, so only the first one is queried
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).getQueryFilter().toString()).contains("t1", "t2", "t3");
+        assertThat(readAhead.take("t2").get("name").asString()).isEqualTo("t2");
+        assertThat(readAhead.take("t2")).isNull();
+        assertThat(readAhead.take("other")).isNull();
+    }
+
+    @Test
+    public void testOldBatchesAreDiscarded() throws Exception {
+        TargetReadAhead readAhead = new TargetReadAhead(entries("s1", "s2", "s3").iterator(),
+                mapping, null, new RootContext(), allLinks, 1, 0);
+
+        while (readAhead.hasNext()) {
+            readAhead.next();
+        }
+
+        assertThat(readAhead.take("t1")).isNull();
+        assertThat(readAhead.take("t2")).isNotNull();
+        assertThat(readAhead.take("t3")).isNotNull();
+    }
+
+    @Test
+    public void testFailureDisablesReadAhead() throws Exception {
+        doThrow(new InternalServerErrorException("unavailable"))
+                .when(connection).query(any(), any(QueryRequest.class), any(QueryResourceHandler.class));
+        TargetReadAhead readAhead = new TargetReadAhead(entries("s1", "s2", "s3").iterator(),
+                mapping, null, new RootContext(), allLinks, 1, 0);
+
+        while (readAhead.hasNext()) {
+            readAhead.next();
+        }
+
+        verify(connection, times(1)).query(any(), any(QueryRequest.class), any(QueryResourceHandler.class));
+        assertThat(readAhead.take("t1")).isNull();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto.impl;
+
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.forgerock.json.crypto.simple.SimpleKeySelector;
+
+/**
+ * {@link SimpleKeySelector} remembering the keys selected by the wrapped selector.
+ * <p>
+ * Recovering a key from a keystore decrypts the protected entry on every call, which the encryption and decryption
+ * of each field would otherwise repeat. Keys that are not found are not remembered, so a key added to the keystore
+ * later is still found. The selected keys must be discarded with {@link #invalidate()} when the keystore changes.
+ */
+class CachingKeySelector implements SimpleKeySelector {
+
+    private final SimpleKeySelector keySelector;
+
+    /** The selected keys by alias. */
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the selector.
+     *
+     * @param keySelector the selector looking up the keys
+     */
+    CachingKeySelector(SimpleKeySelector keySelector) {
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public Key select(String alias) throws JsonCryptoException {
+        if (alias == null) {
+            return keySelector.select(alias);
+        }
+        Key key = keys.get(alias);
+        if (key == null) {
+            key = keySelector.select(alias);
+            if (key != null) {
+                keys.put(alias, key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Discards the selected keys.
+     */
+    void invalidate() {
+        keys.clear();
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 // TODO: Expose as a set of resource actions.
@@ -25,6 +25,10 @@ import static org.forgerock.json.JsonValueFunctions.identity;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.forgerock.json.JsonException;
 import org.forgerock.json.JsonValue;
@@ -46,6 +50,7 @@ import org.forgerock.openidm.crypto.SaltedSHA1FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA256FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA384FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA512FieldStorageScheme;
+import org.forgerock.openidm.keystore.KeyStoreListener;
 import org.forgerock.openidm.keystore.KeyStoreService;
 import org.forgerock.openidm.util.JsonUtil;
 import org.forgerock.util.Function;
@@ -70,7 +75,22 @@ public class CryptoServiceImpl implements CryptoService {
 
     private final static Logger logger = LoggerFactory.getLogger(CryptoServiceImpl.class);
     private Function<JsonValue, JsonValue, JsonValueException> decryptionFunction = identity();
-    private SimpleKeySelector keySelector;
+    private CachingKeySelector keySelector;
+
+    /** The encryptors by key alias and cipher, discarded with the selected keys when the keystore changes. */
+    private final Map<String, JsonEncryptor> encryptors = new ConcurrentHashMap<>();
+
+    /** Discards the selected keys and the encryptors built with them when the keystore is stored or reloaded. */
+    private final KeyStoreListener keyStoreListener = new KeyStoreListener() {
+        @Override
+        public void keyStoreChanged(KeyStoreService keyStoreService) {
+            logger.debug("Keystore changed, discarding cached keys");
+            invalidateKeys();
+        }
+    };
+
+    /** The field storage schemes by algorithm, shared as they are thread safe. */
+    private final Map<String, FieldStorageScheme> fieldStorageSchemes = new ConcurrentHashMap<>();
 
     @Reference(target="(service.pid=org.forgerock.openidm.keystore)")
     private KeyStoreService keyStoreService;
@@ -90,7 +110,7 @@ public class CryptoServiceImpl implements CryptoService {
      */
     public CryptoServiceImpl(final SimpleKeySelector keySelector,
             final Function<JsonValue, JsonValue, JsonValueException> decryptionFunction) {
-        this.keySelector = keySelector;
+        this.keySelector = new CachingKeySelector(keySelector);
         this.decryptionFunction = decryptionFunction;
     }
 
@@ -102,11 +122,12 @@ public class CryptoServiceImpl implements CryptoService {
     public void activate(@SuppressWarnings("unused") BundleContext context) {
         logger.debug("Activating cryptography service");
         try {
-            keySelector =
+            keySelector = new CachingKeySelector(
                     new SimpleKeyStoreSelector(
                             keyStoreService.getKeyStore(),
-                            keyStoreService.getKeyStoreDetails().getPassword());
+                            keyStoreService.getKeyStoreDetails().getPassword()));
             decryptionFunction = new JsonDecryptFunction(new SimpleDecryptor(keySelector));
+            keyStoreService.addKeyStoreListener(keyStoreListener);
         } catch (final JsonValueException jve) {
             logger.error("Exception when loading CryptoService configuration", jve);
             throw jve;
@@ -114,13 +135,49 @@ public class CryptoServiceImpl implements CryptoService {
     }
 
     public void deactivate(@SuppressWarnings("unused") BundleContext context) {
+        keyStoreService.removeKeyStoreListener(keyStoreListener);
         decryptionFunction = identity();
         keySelector = null;
+        encryptors.clear();
         logger.info("CryptoService stopped.");
     }
 
+    /**
+     * Discards the selected keys and the encryptors built with them, so that they are looked up again in the
+     * keystore.
+     */
+    void invalidateKeys() {
+        encryptors.clear();
+        final CachingKeySelector selector = keySelector;
+        if (selector != null) {
+            selector.invalidate();
+        }
+    }
+
     @Override
     public JsonEncryptor getEncryptor(String cipher, String alias) throws JsonCryptoException {
+        if (cipher == null || alias == null) {
+            return newEncryptor(cipher, alias);
+        }
+        // the cipher transformation never contains a colon, so the key is unique
+        final String encryptorKey = alias + ":" + cipher;
+        JsonEncryptor encryptor = encryptors.get(encryptorKey);
+        if (encryptor == null) {
+            encryptor = newEncryptor(cipher, alias);
+            encryptors.put(encryptorKey, encryptor);
+        }
+        return encryptor;
+    }
+
+    /**
+     * Builds a new encryptor with the key of the supplied alias.
+     *
+     * @param cipher the cipher with which to encrypt the values
+     * @param alias the key alias in the key store with which to encrypt the values
+     * @return the encryptor
+     * @throws JsonCryptoException if the key is not found
+     */
+    private JsonEncryptor newEncryptor(String cipher, String alias) throws JsonCryptoException {
         Key key = keySelector.select(alias);
         if (key == null) {
             String msg = "Encryption key " + alias + " not found";
@@ -146,6 +203,29 @@ public class CryptoServiceImpl implements CryptoService {
         return result;
     }
 
+    @Override
+    public List<JsonValue> encryptAll(List<JsonValue> values, String cipher, String alias)
+            throws JsonCryptoException, JsonException {
+        final JsonEncryptor encryptor = getEncryptor(cipher, alias);
+        final List<JsonValue> results = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            results.add(value != null
+                    ? new JsonCrypto(encryptor.getType(), encryptor.encrypt(value)).toJsonValue()
+                    : null);
+        }
+        return results;
+    }
+
+    @Override
+    public List<JsonValue> decryptAll(List<JsonValue> values) throws JsonException {
+        final Function<JsonValue, JsonValue, JsonValueException> function = decryptionFunction;
+        final List<JsonValue> results = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            results.add(value != null ? function.apply(value) : null);
+        }
+        return results;
+    }
+
     @Override
     public JsonValue decrypt(JsonValue value) throws JsonValueException {
         return value != null
@@ -224,13 +304,32 @@ public class CryptoServiceImpl implements CryptoService {
     }
 
     /**
-     * Returns a {@link FieldStorageScheme} instance based on the supplied algorithm.
+     * Returns the shared {@link FieldStorageScheme} instance of the supplied algorithm.
      *
      * @param algorithm a string representing a storage scheme algorithm
      * @return a field storage scheme implementation.
      * @throws JsonCryptoException
      */
     private FieldStorageScheme getFieldStorageScheme(String algorithm) throws JsonCryptoException {
+        FieldStorageScheme fieldStorageScheme = fieldStorageSchemes.get(algorithm);
+        if (fieldStorageScheme == null) {
+            fieldStorageScheme = newFieldStorageScheme(algorithm);
+            FieldStorageScheme existing = fieldStorageSchemes.putIfAbsent(algorithm, fieldStorageScheme);
+            if (existing != null) {
+                fieldStorageScheme = existing;
+            }
+        }
+        return fieldStorageScheme;
+    }
+
+    /**
+     * Returns a new {@link FieldStorageScheme} instance based on the supplied algorithm.
+     *
+     * @param algorithm a string representing a storage scheme algorithm
+     * @return a field storage scheme implementation.
+     * @throws JsonCryptoException
+     */
+    private FieldStorageScheme newFieldStorageScheme(String algorithm) throws JsonCryptoException {
         try {
             if (algorithm.equals(CryptoConstants.ALGORITHM_MD5)) {
                 return new SaltedMD5FieldStorageScheme();
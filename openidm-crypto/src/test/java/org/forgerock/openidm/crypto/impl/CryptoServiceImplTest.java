@@ -12,16 +12,26 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.crypto.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.forgerock.json.JsonValue.*;
+import static org.forgerock.json.JsonValueFunctions.identity;
 import static org.forgerock.openidm.util.JsonUtil.writeValueAsString;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.spec.SecretKeySpec;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.forgerock.json.JsonValue;
+import org.forgerock.json.crypto.JsonCrypto;
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.forgerock.json.crypto.simple.SimpleKeySelector;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -29,6 +39,7 @@ public class CryptoServiceImplTest {
 
     private final static JsonValue JSON_OBJECT = json(object(field("password", "myPassw0rd")));
     private final static JsonValue JSON_ARRAY = json(array("v1", "v2"));
+    private final static String CIPHER = "AES/CBC/PKCS5Padding";
 
     @DataProvider
     public Object[][] normalizeValueBeforeHashData() throws JsonProcessingException {
@@ -54,4 +65,54 @@ public class CryptoServiceImplTest {
         assertThat(actualOutput).isEqualTo(expectedOutput);
     }
 
+    @Test
+    public void keysAreSelectedOnceUntilInvalidated() throws JsonCryptoException {
+        // given
+        final AtomicInteger selections = new AtomicInteger();
+        final SimpleKeySelector keySelector = alias -> {
+            selections.incrementAndGet();
+            return "openidm-sym-default".equals(alias) ? new SecretKeySpec(new byte[16], "AES") : null;
+        };
+        final CryptoServiceImpl cryptoService = new CryptoServiceImpl(keySelector, identity());
+
+        // when
+        cryptoService.encrypt(json("first"), CIPHER, "openidm-sym-default");
+        cryptoService.encrypt(json("second"), CIPHER, "openidm-sym-default");
+
+        // then
+        assertThat(selections.get()).isEqualTo(1);
+
+        // when
+        cryptoService.invalidateKeys();
+        cryptoService.encrypt(json("third"), CIPHER, "openidm-sym-default");
+
+        // then
+        assertThat(selections.get()).isEqualTo(2);
+    }
+
+    @Test(expectedExceptions = JsonCryptoException.class)
+    public void missingKeyFailsEncryption() throws JsonCryptoException {
+        final CryptoServiceImpl cryptoService = new CryptoServiceImpl(alias -> null, identity());
+        cryptoService.encrypt(json("value"), CIPHER, "missing");
+    }
+
+    @Test
+    public void encryptAllKeepsOrderAndNulls() throws JsonCryptoException {
+        // given
+        final CryptoServiceImpl cryptoService =
+                new CryptoServiceImpl(alias -> new SecretKeySpec(new byte[16], "AES"), identity());
+
+        // when
+        final List<JsonValue> encrypted = cryptoService.encryptAll(
+                Arrays.asList(json("first"), null, JSON_OBJECT), CIPHER, "openidm-sym-default");
+
+        // then
+        assertThat(encrypted).hasSize(3);
+        assertThat(JsonCrypto.isJsonCrypto(encrypted.get(0))).isTrue();
+        assertThat(encrypted.get(1)).isNull();
+        assertThat(JsonCrypto.isJsonCrypto(encrypted.get(2))).isTrue();
+        assertThat(encrypted.get(0).get("$crypto").get("value").get("data").asString())
+                .isNotEqualTo(encrypted.get(2).get("$crypto").get("value").get("data").asString());
+    }
+
 }
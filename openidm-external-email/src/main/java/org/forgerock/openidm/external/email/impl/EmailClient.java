@@ -39,7 +39,6 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.Multipart;
 import jakarta.mail.Part;
 import jakarta.mail.Session;
-import jakarta.mail.Transport;
 import jakarta.mail.internet.AddressException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeBodyPart;
@@ -60,6 +59,7 @@ public class EmailClient {
     private boolean smtpAuth = false;
     private Properties props = new Properties();
     private Session session;
+    private SmtpTransportPool pool;
 
     // Keys in the JSON configuration
     public static final String CONFIG_MAIL_SMTP_HOST = "host";
@@ -72,6 +72,7 @@ public class EmailClient {
     public static final String CONFIG_MAIL_SMTP_STARTTLS_ENABLE = "enable";
     public static final String CONFIG_MAIL_FROM = "from";
     public static final String CONFIG_MAIL_DEBUG = "debug";
+    public static final String CONFIG_MAIL_POOL = "pool";
 
     public EmailClient(JsonValue config) throws RuntimeException {
 
@@ -104,28 +105,13 @@ public class EmailClient {
 
         fromAddr = config.get(CONFIG_MAIL_FROM).asString();
         session = Session.getInstance(props);
+        pool = new SmtpTransportPool(session, smtpAuth ? username : null, password, config.get(CONFIG_MAIL_POOL));
     }
 
     public void send(JsonValue params) throws BadRequestException {
-        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        ClassLoader tccl = useMailClassLoader();
         try {
-            // In OSGi, MailcapCommandMap scans META-INF/mailcap resources using the thread context
-            // classloader (TCCL). The TCCL on Felix HTTP threads does not have visibility into the
-            // angus-mail bundle, so the multipart/* DataContentHandler is never registered and
-            // Transport.sendMessage() fails with UnsupportedDataTypeException. Switching TCCL to
-            // the angus-mail bundle classloader (via class SMTPTransport) lets MailcapCommandMap
-            // find the mailcap file and register the handlers before the message is written.
-            // See https://github.com/eclipse-ee4j/angus-mail/issues/148
-            Thread.currentThread().setContextClassLoader(SMTPTransport.class.getClassLoader());
-            MimeMessage message = buildMessage(applyLegacyParams(params));
-            Transport transport = session.getTransport("smtp");
-            if (smtpAuth) {
-                transport.connect(username, password);
-            } else {
-                transport.connect();
-            }
-            transport.sendMessage(message, message.getAllRecipients());
-            transport.close();
+            pool.send(buildMessage(applyLegacyParams(params)));
         } catch (MessagingException e) {
             throw new BadRequestException(e);
         } finally {
@@ -133,6 +119,64 @@ public class EmailClient {
         }
     }
 
+    /**
+     * Build the message to send according to the parameters in <em>params</em>, including the legacy ones.
+     *
+     * @param params the message parameters
+     * @return the message
+     * @throws BadRequestException if required fields are absent or malformed.
+     */
+    MimeMessage prepare(JsonValue params) throws BadRequestException {
+        ClassLoader tccl = useMailClassLoader();
+        try {
+            return buildMessage(applyLegacyParams(params));
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+    }
+
+    /**
+     * Send a message on a pooled SMTP transport.
+     *
+     * @param message the message to send
+     * @throws MessagingException if the message could not be sent
+     */
+    void send(MimeMessage message) throws MessagingException {
+        ClassLoader tccl = useMailClassLoader();
+        try {
+            pool.send(message);
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+    }
+
+    /**
+     * Switch the thread context classloader to the angus-mail bundle classloader, for the message to be built and
+     * written. The caller restores the returned classloader once done.
+     *
+     * @return the previous thread context classloader
+     */
+    private ClassLoader useMailClassLoader() {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        // In OSGi, MailcapCommandMap scans META-INF/mailcap resources using the thread context
+        // classloader (TCCL). The TCCL on Felix HTTP threads does not have visibility into the
+        // angus-mail bundle, so the multipart/* DataContentHandler is never registered and
+        // MimeMessage.saveChanges() or Transport.sendMessage() fails with UnsupportedDataTypeException.
+        // Switching TCCL to the angus-mail bundle classloader (via class SMTPTransport) lets
+        // MailcapCommandMap find the mailcap file and register the handlers before the message is
+        // built and written.
+        // See https://github.com/eclipse-ee4j/angus-mail/issues/148
+        Thread.currentThread().setContextClassLoader(SMTPTransport.class.getClassLoader());
+        return tccl;
+    }
+
+    /**
+     * Close the pooled SMTP transports.
+     */
+    public void close() {
+        pool.close();
+    }
+
     /**
      * Build MimeMessage instance according to the parameters in <em>params</em>.
      *
@@ -0,0 +1,203 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.forgerock.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded queue of messages sent in the background by a fixed number of workers, at no more than a configured rate.
+ * <p>
+ * Configured in external.email.json as:
+ *
+ * <pre>
+ *     <code>
+ * "queue" : {
+ *     "enabled" : true,
+ *     "workers" : 2,
+ *     "capacity" : 10000,
+ *     "rateLimit" : 10
+ * }
+ *     </code>
+ * </pre>
+ *
+ * The {@code rateLimit} is the maximum number of messages sent per second by all workers, 0 for no limit. A message
+ * offered to a full queue is rejected rather than blocking the caller. A queued message which fails to send is
+ * logged and counted, its sender has already been answered. The queue is disabled unless configured.
+ */
+class EmailQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailQueue.class);
+
+    /** Config key to enable the queue. */
+    static final String CONFIG_ENABLED = "enabled";
+    /** Config key of the number of worker threads. */
+    static final String CONFIG_WORKERS = "workers";
+    /** Config key of the maximum number of queued messages. */
+    static final String CONFIG_CAPACITY = "capacity";
+    /** Config key of the maximum number of messages sent per second. */
+    static final String CONFIG_RATE_LIMIT = "rateLimit";
+
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    /** Time given to the workers to send the queued messages when the queue is closed. */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30L;
+
+    private final EmailClient emailClient;
+    private final ThreadPoolExecutor executor;
+
+    /** The minimum interval between two sends in nanoseconds, 0 for no limit. */
+    private final long sendInterval;
+    /** The earliest time the next message may be sent, by {@link System#nanoTime()}. */
+    private long nextSend;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Create the queue with the given configuration.
+     *
+     * @param emailClient the client sending the messages
+     * @param config the queue configuration
+     * @return the queue or {@code null} if it is not enabled
+     */
+    static EmailQueue fromConfig(EmailClient emailClient, JsonValue config) {
+        if (config.isNull() || !config.get(CONFIG_ENABLED).defaultTo(true).asBoolean()) {
+            return null;
+        }
+        return new EmailQueue(emailClient,
+                config.get(CONFIG_WORKERS).defaultTo(DEFAULT_WORKERS).asInteger(),
+                config.get(CONFIG_CAPACITY).defaultTo(DEFAULT_CAPACITY).asInteger(),
+                config.get(CONFIG_RATE_LIMIT).defaultTo(0).asDouble());
+    }
+
+    EmailQueue(EmailClient emailClient, int workers, int capacity, double rateLimit) {
+        this.emailClient = emailClient;
+        this.sendInterval = rateLimit > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rateLimit) : 0L;
+        this.nextSend = System.nanoTime();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(capacity), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "email-sender-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Queues a message to be sent.
+     *
+     * @param message the message
+     * @return false if the queue is full or closed and the message was rejected
+     */
+    boolean offer(final MimeMessage message) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    send(message);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void send(MimeMessage message) {
+        try {
+            awaitRate();
+            emailClient.send(message);
+            sent.incrementAndGet();
+        } catch (MessagingException e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to send queued email", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until the next message may be sent without exceeding the rate limit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitRate() throws InterruptedException {
+        if (sendInterval == 0) {
+            return;
+        }
+        final long wait;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            final long slot = Math.max(now, nextSend);
+            nextSend = slot + sendInterval;
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Get the counters of the queue.
+     *
+     * @return the number of queued, sent, failed and rejected messages
+     */
+    JsonValue getStatistics() {
+        return json(object(
+                field("queued", executor.getQueue().size()),
+                field("sent", sent.get()),
+                field("failed", failed.get()),
+                field("rejected", rejected.get())));
+    }
+
+    /**
+     * Stops accepting messages and waits for a while for the queued messages to be sent.
+     */
+    void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("{} queued emails not sent", executor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("{} queued emails not sent", executor.shutdownNow().size());
+        }
+    }
+}
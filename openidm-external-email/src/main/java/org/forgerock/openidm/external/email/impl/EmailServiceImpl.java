@@ -2,7 +2,7 @@
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright © 2011-2015 ForgeRock AS. All rights reserved.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -25,10 +25,19 @@
 
 package org.forgerock.openidm.external.email.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import org.forgerock.api.annotations.Action;
+import org.forgerock.api.annotations.Actions;
 import org.forgerock.api.annotations.ApiError;
 import org.forgerock.api.annotations.Handler;
 import org.forgerock.api.annotations.Operation;
@@ -37,12 +46,14 @@ import org.forgerock.api.annotations.SingletonProvider;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.ForbiddenException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
+import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.json.resource.SingletonResourceProvider;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
@@ -83,38 +94,113 @@ public class EmailServiceImpl implements SingletonResourceProvider {
     final static Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
     public static final String PID = "org.forgerock.openidm.external.email";
 
+    /** The action sending an array of messages. */
+    public static final String ACTION_SEND_BULK = "sendBulk";
+    /** The parameter of the send action queuing the message instead of sending it. */
+    public static final String PARAM_ASYNC = "async";
+    /** The queue key in the email configuration. */
+    public static final String CONFIG_QUEUE = "queue";
+
     /** Enhanced configuration service. */
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
 
     EmailClient emailClient;
 
-    @Action(operationDescription =
-    @Operation(
-            description = "Send email",
-            errors = {
-                    @ApiError(
-                            code = 400,
-                            description = "Indicates that the request could not be understood by "
-                                    + "the resource due to malformed syntax.")
-            }),
-            name = "send",
-            request = @Schema(schemaResource = "sendActionRequest.json"),
-            response = @Schema(schemaResource = "sendActionResponse.json"))
+    /** The queue of the messages sent in the background, null if not enabled. */
+    EmailQueue emailQueue;
+
+    @Actions({
+            @Action(operationDescription =
+            @Operation(
+                    description = "Send email, or queue it to be sent in the background with the async parameter",
+                    errors = {
+                            @ApiError(
+                                    code = 400,
+                                    description = "Indicates that the request could not be understood by "
+                                            + "the resource due to malformed syntax."),
+                            @ApiError(
+                                    code = 503,
+                                    description = "Indicates that the email queue is full.")
+                    }),
+                    name = "send",
+                    request = @Schema(schemaResource = "sendActionRequest.json"),
+                    response = @Schema(schemaResource = "sendActionResponse.json")),
+            @Action(operationDescription =
+            @Operation(
+                    description = "Send an array of emails, or queue them if the email queue is enabled",
+                    errors = {
+                            @ApiError(
+                                    code = 400,
+                                    description = "Indicates that the request content is not an array.")
+                    }),
+                    name = ACTION_SEND_BULK,
+                    request = @Schema(schemaResource = "sendBulkActionRequest.json"),
+                    response = @Schema(schemaResource = "sendBulkActionResponse.json"))
+    })
     @Override
     public Promise<ActionResponse, ResourceException> actionInstance(Context context, ActionRequest request) {
         Map<String, Object> result = new HashMap<>();
         logger.debug("External Email service action called for {} with {}",
                 request.getResourcePath(), request.getContent());
         try {
-            emailClient.send(request.getContent());
+            if (ACTION_SEND_BULK.equals(request.getAction())) {
+                return Promises.newResultPromise(Responses.newActionResponse(sendBulk(request.getContent())));
+            } else if (Boolean.parseBoolean(request.getAdditionalParameter(PARAM_ASYNC))) {
+                queue(emailClient.prepare(request.getContent()));
+                result.put("status", "QUEUED");
+            } else {
+                emailClient.send(request.getContent());
+                result.put("status", "OK");
+            }
         } catch (ResourceException e) {
             return e.asPromise();
         }
-        result.put("status", "OK");
         return Promises.newResultPromise(Responses.newActionResponse(new JsonValue(result)));
     }
 
+    private void queue(MimeMessage message) throws ResourceException {
+        if (emailQueue == null) {
+            throw new BadRequestException("The email queue is not enabled");
+        }
+        if (!emailQueue.offer(message)) {
+            throw new ServiceUnavailableException("The email queue is full");
+        }
+    }
+
+    /**
+     * Sends, or queues if the queue is enabled, an array of messages. A message which cannot be sent or queued is
+     * reported by its index and does not prevent the others from being sent.
+     *
+     * @param messages the messages
+     * @return the number of messages sent or queued, and the failures
+     * @throws BadRequestException if the messages are not an array
+     */
+    private JsonValue sendBulk(JsonValue messages) throws BadRequestException {
+        if (!messages.isList()) {
+            throw new BadRequestException("The " + ACTION_SEND_BULK + " action requires an array of messages");
+        }
+        final List<Object> failures = new ArrayList<>();
+        int accepted = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                final MimeMessage message = emailClient.prepare(messages.get(i));
+                if (emailQueue != null) {
+                    queue(message);
+                } else {
+                    emailClient.send(message);
+                }
+                accepted++;
+            } catch (ResourceException | MessagingException e) {
+                failures.add(object(field("index", i), field("message", e.getMessage())));
+            }
+        }
+        return json(object(
+                field("status", emailQueue != null ? "QUEUED" : "OK"),
+                field(emailQueue != null ? "queued" : "sent", accepted),
+                field("failed", failures)));
+    }
+
     @Override
     public Promise<ResourceResponse, ResourceException> patchInstance(Context context, PatchRequest request) {
         return new ForbiddenException("Operation is not implemented").asPromise();
@@ -134,7 +220,9 @@ public class EmailServiceImpl implements SingletonResourceProvider {
     void activate(ComponentContext compContext) {
         logger.debug("Activating Service with configuration {}", compContext.getProperties());
         try {
-            emailClient = new EmailClient(enhancedConfig.getConfigurationAsJson(compContext));
+            JsonValue config = enhancedConfig.getConfigurationAsJson(compContext);
+            emailClient = new EmailClient(config);
+            emailQueue = EmailQueue.fromConfig(emailClient, config.get(CONFIG_QUEUE));
             logger.debug("external email client enabled");
         } catch (RuntimeException ex) {
             logger.warn("Configuration invalid, can not start external email client service.", ex);
@@ -146,6 +234,14 @@ public class EmailServiceImpl implements SingletonResourceProvider {
     @Deactivate
     void deactivate(ComponentContext compContext) {
         logger.debug("Deactivating Service {}", compContext.getProperties());
+        if (emailQueue != null) {
+            emailQueue.close();
+            logger.info("Email queue closed: {}", emailQueue.getStatistics());
+            emailQueue = null;
+        }
+        if (emailClient != null) {
+            emailClient.close();
+        }
         logger.info("Notification service stopped.");
     }
 }
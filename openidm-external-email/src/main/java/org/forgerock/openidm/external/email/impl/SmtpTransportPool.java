@@ -0,0 +1,248 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.forgerock.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of connected and authenticated SMTP transports, so that consecutive messages do not each pay for the TCP and
+ * TLS handshakes and the authentication.
+ * <p>
+ * Configured in external.email.json as:
+ *
+ * <pre>
+ *     <code>
+ * "pool" : {
+ *     "enabled" : true,
+ *     "maxConnections" : 4,
+ *     "maxIdleTime" : 30000,
+ *     "maxMessagesPerConnection" : 100
+ * }
+ *     </code>
+ * </pre>
+ *
+ * At most {@code maxConnections} transports are open at once, the senders beyond that wait for a transport to be
+ * released. A transport idle for longer than {@code maxIdleTime} milliseconds, or which has sent
+ * {@code maxMessagesPerConnection} messages, is closed rather than reused. The server may still have dropped an idle
+ * connection, so an idle transport is checked with a NOOP before it is reused, and a message whose sender a reused
+ * transport failed to announce is sent again once on a new one. A message is never sent again once the server may
+ * have accepted its content, so that it is not delivered twice. When disabled, every message is sent on a new
+ * transport, as before.
+ */
+class SmtpTransportPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    /** Config key to enable the pool. */
+    static final String CONFIG_ENABLED = "enabled";
+    /** Config key of the maximum number of open transports. */
+    static final String CONFIG_MAX_CONNECTIONS = "maxConnections";
+    /** Config key of the time in milliseconds after which an idle transport is closed. */
+    static final String CONFIG_MAX_IDLE_TIME = "maxIdleTime";
+    /** Config key of the number of messages after which a transport is closed. */
+    static final String CONFIG_MAX_MESSAGES_PER_CONNECTION = "maxMessagesPerConnection";
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 4;
+    private static final long DEFAULT_MAX_IDLE_TIME = 30000L;
+    private static final int DEFAULT_MAX_MESSAGES_PER_CONNECTION = 100;
+
+    /**
+     * A transport of the pool.
+     */
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long released;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    private final Session session;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final long maxIdleTime;
+    private final int maxMessagesPerConnection;
+    private final Semaphore permits;
+
+    /** The idle transports, the most recently released first. */
+    private final Deque<PooledTransport> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    /**
+     * Creates the pool.
+     *
+     * @param session the mail session to create the transports with
+     * @param username the user to authenticate as, or null if no authentication is required
+     * @param password the password of the user
+     * @param config the pool configuration
+     */
+    SmtpTransportPool(Session session, String username, String password, JsonValue config) {
+        this.session = session;
+        this.username = username;
+        this.password = password;
+        this.enabled = config.get(CONFIG_ENABLED).defaultTo(true).asBoolean();
+        this.maxIdleTime = config.get(CONFIG_MAX_IDLE_TIME).defaultTo(DEFAULT_MAX_IDLE_TIME).asLong();
+        this.maxMessagesPerConnection = config.get(CONFIG_MAX_MESSAGES_PER_CONNECTION)
+                .defaultTo(DEFAULT_MAX_MESSAGES_PER_CONNECTION).asInteger();
+        this.permits = new Semaphore(
+                config.get(CONFIG_MAX_CONNECTIONS).defaultTo(DEFAULT_MAX_CONNECTIONS).asInteger(), true);
+    }
+
+    /**
+     * Sends a message on a transport of the pool.
+     *
+     * @param message the message to send
+     * @throws MessagingException if the message could not be sent
+     */
+    void send(MimeMessage message) throws MessagingException {
+        final PooledTransport pooled = borrow(true);
+        final boolean reused = pooled.sent > 0;
+        try {
+            sendOn(pooled, message);
+        } catch (SMTPSendFailedException e) {
+            if (!reused || !isSenderFailure(e)) {
+                throw e;
+            }
+            logger.debug("Sending on a reused SMTP transport failed, sending on a new transport", e);
+            sendOn(borrow(false), message);
+        }
+    }
+
+    /**
+     * Tests whether sending a message failed on the MAIL command announcing its sender, before the server was given
+     * its recipients and its content. A failure on a later command or while writing the content may come after the
+     * server accepted the message, and sending it again could deliver it twice.
+     *
+     * @param e the failure
+     * @return true if the message failed on the MAIL command
+     */
+    private static boolean isSenderFailure(SMTPSendFailedException e) {
+        return e.getCommand() != null && e.getCommand().regionMatches(true, 0, "MAIL ", 0, 5);
+    }
+
+    private void sendOn(PooledTransport pooled, MimeMessage message) throws MessagingException {
+        boolean reusable = false;
+        try {
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            reusable = true;
+        } finally {
+            release(pooled, reusable);
+        }
+    }
+
+    /**
+     * Takes an idle transport, or connects a new one, once fewer than the maximum number of transports are in use.
+     *
+     * @param reuse whether an idle transport may be taken
+     * @return the transport
+     * @throws MessagingException if a new transport could not be connected
+     */
+    private PooledTransport borrow(boolean reuse) throws MessagingException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP transport", e);
+        }
+        try {
+            if (reuse) {
+                final long now = System.currentTimeMillis();
+                PooledTransport pooled;
+                while ((pooled = pollIdle()) != null) {
+                    // the NOOP sent by isConnected() tells a connection dropped by the server
+                    if (now - pooled.released < maxIdleTime && pooled.transport.isConnected()) {
+                        return pooled;
+                    }
+                    close(pooled);
+                }
+            }
+            final Transport transport = session.getTransport("smtp");
+            if (username != null) {
+                transport.connect(username, password);
+            } else {
+                transport.connect();
+            }
+            return new PooledTransport(transport);
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private synchronized PooledTransport pollIdle() {
+        return idle.pollFirst();
+    }
+
+    /**
+     * Returns a transport to the pool, or closes it if it may not be reused.
+     *
+     * @param pooled the transport
+     * @param reusable whether the last message was sent successfully
+     */
+    private void release(PooledTransport pooled, boolean reusable) {
+        try {
+            pooled.sent++;
+            pooled.released = System.currentTimeMillis();
+            if (enabled && reusable && pooled.sent < maxMessagesPerConnection) {
+                synchronized (this) {
+                    if (!closed) {
+                        idle.addFirst(pooled);
+                        return;
+                    }
+                }
+            }
+            close(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Failed to close SMTP transport", e);
+        }
+    }
+
+    /**
+     * Closes the idle transports. The transports in use are closed when released.
+     */
+    void close() {
+        final PooledTransport[] transports;
+        synchronized (this) {
+            closed = true;
+            transports = idle.toArray(new PooledTransport[0]);
+            idle.clear();
+        }
+        for (PooledTransport pooled : transports) {
+            close(pooled);
+        }
+    }
+}
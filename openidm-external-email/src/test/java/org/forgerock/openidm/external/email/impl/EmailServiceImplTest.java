@@ -12,19 +12,25 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.external.email.impl;
 
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.util.test.assertj.AssertJPromiseAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import jakarta.mail.internet.MimeMessage;
 import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
@@ -89,6 +95,52 @@ public class EmailServiceImplTest {
         assertThat(promise).failedWithException().isInstanceOf(BadRequestException.class);
     }
 
+    @Test
+    public void testSendBulkReportsFailedMessages() throws Exception {
+        // given
+        final EmailClient emailClient = mock(EmailClient.class);
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+
+        emailService.emailClient = emailClient;
+        when(emailClient.prepare(any(JsonValue.class))).thenReturn(mock(MimeMessage.class));
+        when(emailClient.prepare(argThat(message -> message != null && message.isDefined("to"))))
+                .thenThrow(new BadRequestException("invalid"));
+        when(actionRequest.getAction()).thenReturn(EmailServiceImpl.ACTION_SEND_BULK);
+        when(actionRequest.getContent()).thenReturn(json(array(object(), object(field("to", "nobody")), object())));
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        ActionResponse expectedResponse = Responses.newActionResponse(JsonValue.json(object(
+                field(STATUS, OK),
+                field("sent", 2),
+                field("failed", array(object(field("index", 1), field("message", "invalid"))))
+        )));
+        assertThat(promise).succeeded().isEqualTo(expectedResponse);
+        verify(emailClient, times(2)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    public void testAsyncSendWithoutQueue() throws Exception {
+        // given
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+
+        emailService.emailClient = mock(EmailClient.class);
+        when(actionRequest.getAdditionalParameter(EmailServiceImpl.PARAM_ASYNC)).thenReturn("true");
+        when(actionRequest.getContent()).thenReturn(json(object()));
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        assertThat(promise).failedWithException().isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     public void testPatchInstanceForbidden() throws Exception {
         // given
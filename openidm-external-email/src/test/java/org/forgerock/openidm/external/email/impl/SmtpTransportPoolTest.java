@@ -0,0 +1,216 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.forgerock.json.JsonValue;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SmtpTransportPoolTest {
+
+    private ServerSocket serverSocket;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    /** The reply of the server to the second message of a connection, null to accept it. */
+    private volatile String secondMailReply;
+    /** The reply of the server to the content of the second message of a connection, null to accept it. */
+    private volatile String secondDataReply;
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        connections.set(0);
+        messages.set(0);
+        secondMailReply = null;
+        secondDataReply = null;
+        serverSocket = new ServerSocket(0);
+        final Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    final Thread handler = new Thread(() -> serve(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterMethod
+    public void stopServer() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Answers the commands of a minimal SMTP session.
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost");
+            int received = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                final String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+                if ("MAIL".equals(command) && received == 1 && secondMailReply != null) {
+                    reply(out, secondMailReply);
+                    return;
+                } else if ("DATA".equals(command)) {
+                    reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !".".equals(line)) {
+                        // discard the message content
+                    }
+                    messages.incrementAndGet();
+                    if (++received == 2 && secondDataReply != null) {
+                        reply(out, secondDataReply);
+                        return;
+                    }
+                    reply(out, "250 OK");
+                } else if ("QUIT".equals(command)) {
+                    reply(out, "221 bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // connection closed by the client
+        }
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+
+    private SmtpTransportPool newPool(JsonValue config) {
+        final Properties props = new Properties();
+        props.put("mail.smtp.host", "localhost");
+        props.put("mail.smtp.port", String.valueOf(serverSocket.getLocalPort()));
+        return new SmtpTransportPool(Session.getInstance(props), null, null, config);
+    }
+
+    private static MimeMessage newMessage(Session session) throws Exception {
+        final MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("sender@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("recipient@example.com"));
+        message.setSubject("test");
+        message.setText("test");
+        message.saveChanges();
+        return message;
+    }
+
+    @Test
+    public void testReusesConnection() throws Exception {
+        final SmtpTransportPool pool = newPool(json(object()));
+        final Session session = Session.getInstance(new Properties());
+        try {
+            for (int i = 0; i < 5; i++) {
+                pool.send(newMessage(session));
+            }
+        } finally {
+            pool.close();
+        }
+        assertThat(messages.get()).isEqualTo(5);
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testClosesConnectionAfterMaxMessages() throws Exception {
+        final SmtpTransportPool pool = newPool(json(object(field("maxMessagesPerConnection", 2))));
+        final Session session = Session.getInstance(new Properties());
+        try {
+            for (int i = 0; i < 5; i++) {
+                pool.send(newMessage(session));
+            }
+        } finally {
+            pool.close();
+        }
+        assertThat(messages.get()).isEqualTo(5);
+        assertThat(connections.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testResendsMessageRejectedBeforeData() throws Exception {
+        secondMailReply = "421 closing connection";
+        final SmtpTransportPool pool = newPool(json(object()));
+        final Session session = Session.getInstance(new Properties());
+        try {
+            pool.send(newMessage(session));
+            pool.send(newMessage(session));
+        } finally {
+            pool.close();
+        }
+        assertThat(messages.get()).isEqualTo(2);
+        assertThat(connections.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoesNotResendMessageFailingAfterData() throws Exception {
+        secondDataReply = "451 local error in processing";
+        final SmtpTransportPool pool = newPool(json(object()));
+        final Session session = Session.getInstance(new Properties());
+        try {
+            pool.send(newMessage(session));
+            assertThat(catchThrowable(() -> pool.send(newMessage(session))))
+                    .isInstanceOf(MessagingException.class);
+        } finally {
+            pool.close();
+        }
+        // the server received the content of the second message only once
+        assertThat(messages.get()).isEqualTo(2);
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabledPoolConnectsPerMessage() throws Exception {
+        final SmtpTransportPool pool = newPool(json(object(field("enabled", false))));
+        final Session session = Session.getInstance(new Properties());
+        for (int i = 0; i < 3; i++) {
+            pool.send(newMessage(session));
+        }
+        assertThat(messages.get()).isEqualTo(3);
+        assertThat(connections.get()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.rest;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.forgerock.json.JsonValue;
+
+/**
+ * Counters of the calls made to each external host, keyed by the host and port of the called URL.
+ */
+class RestClientMetrics {
+
+    /**
+     * Counters of the calls made to a host.
+     */
+    static final class HostMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LongAdder totalLatency = new LongAdder();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        /**
+         * Records the start of a call.
+         *
+         * @return the start time to pass to {@link #requestEnded(long, boolean)}
+         */
+        long requestStarted() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * Records the end of a call.
+         *
+         * @param started the start time returned by {@link #requestStarted()}
+         * @param successful whether the call returned a successful status
+         */
+        void requestEnded(long started, boolean successful) {
+            final long latency = System.nanoTime() - started;
+            inFlight.decrementAndGet();
+            requests.increment();
+            if (!successful) {
+                errors.increment();
+            }
+            totalLatency.add(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+        }
+
+        /**
+         * Records a call answered from the response cache.
+         */
+        void cacheHit() {
+            cacheHits.increment();
+        }
+
+        private JsonValue toJson() {
+            final long count = requests.sum();
+            return json(object(
+                    field("requests", count),
+                    field("errors", errors.sum()),
+                    field("inFlight", inFlight.get()),
+                    field("cacheHits", cacheHits.sum()),
+                    field("meanLatency", count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLatency.sum() / count) : 0L),
+                    field("maxLatency", TimeUnit.NANOSECONDS.toMillis(maxLatency.get()))));
+        }
+    }
+
+    private final ConcurrentMap<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Get the counters of a host, creating them on first use.
+     *
+     * @param host the host and port
+     * @return the counters
+     */
+    HostMetrics forHost(String host) {
+        return hosts.computeIfAbsent(host, key -> new HostMetrics());
+    }
+
+    /**
+     * Get the counters of all called hosts, latencies in milliseconds.
+     *
+     * @return the counters keyed by host and port
+     */
+    JsonValue toJson() {
+        final Map<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, HostMetrics> entry : hosts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toJson().getObject());
+        }
+        return json(result);
+    }
+}
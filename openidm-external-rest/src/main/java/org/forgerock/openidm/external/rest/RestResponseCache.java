@@ -0,0 +1,240 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.rest;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.http.protocol.Header;
+import org.forgerock.http.protocol.Headers;
+import org.forgerock.json.JsonValue;
+
+/**
+ * Bounded cache of the responses of external {@code GET} calls, honouring the {@code Cache-Control} headers.
+ * <p>
+ * Configured in external.rest.json as:
+ *
+ * <pre>
+ *     <code>
+ * "cache" : {
+ *     "enabled" : true,
+ *     "maxEntries" : 1000
+ * }
+ *     </code>
+ * </pre>
+ *
+ * Only the successful responses with an explicit {@code s-maxage} or {@code max-age} are cached, for that long minus
+ * their {@code Age}. The responses marked {@code no-store}, {@code no-cache} or {@code private} are not cached, as
+ * the cache is shared by all the callers. The entries are keyed by URL and request headers, including the
+ * credentials, so a response is only served again for an identical call. A call sending {@code Cache-Control:
+ * no-cache} bypasses the cache, one sending {@code no-store} is neither served from nor stored in it. The cache is
+ * disabled unless configured.
+ */
+class RestResponseCache {
+
+    /** Config key to enable the cache. */
+    static final String CONFIG_ENABLED = "enabled";
+    /** Config key of the maximum number of cached responses. */
+    static final String CONFIG_MAX_ENTRIES = "maxEntries";
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String AGE = "Age";
+
+    /**
+     * A cached response.
+     */
+    private static final class Entry {
+        private final JsonValue content;
+        private final long expires;
+
+        private Entry(JsonValue content, long expires) {
+            this.content = content;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Create the cache with the given configuration.
+     *
+     * @param config the cache configuration
+     * @return the cache or {@code null} if it is not enabled
+     */
+    static RestResponseCache fromConfig(JsonValue config) {
+        if (config.isNull() || !config.get(CONFIG_ENABLED).defaultTo(true).asBoolean()) {
+            return null;
+        }
+        return new RestResponseCache(config.get(CONFIG_MAX_ENTRIES).defaultTo(DEFAULT_MAX_ENTRIES).asInteger());
+    }
+
+    RestResponseCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Computes the key of a call, or {@code null} if the call may not be served from the cache.
+     *
+     * @param method the method of the call
+     * @param url the URL of the call
+     * @param headers the headers of the call
+     * @param forceWrap whether the response is wrapped regardless of its type
+     * @return the key or {@code null}
+     */
+    static String key(String method, String url, Headers headers, boolean forceWrap) {
+        if (!"GET".equalsIgnoreCase(method) || hasDirective(headers.get(CACHE_CONTROL), "no-store")) {
+            return null;
+        }
+        final Map<String, List<String>> sorted = new TreeMap<>();
+        for (Map.Entry<String, List<String>> header : headers.copyAsMultiMapOfStrings().entrySet()) {
+            sorted.put(header.getKey().toLowerCase(), header.getValue());
+        }
+        return url + (forceWrap ? " wrapped " : " ") + sorted;
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * @param key the key of the call
+     * @param headers the headers of the call
+     * @return a copy of the cached response, or {@code null} if it is not cached, has expired or is bypassed
+     */
+    synchronized JsonValue get(String key, Headers headers) {
+        final Entry entry = hasDirective(headers.get(CACHE_CONTROL), "no-cache") ? null : entries.get(key);
+        if (entry == null || entry.expires <= System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.content.copy();
+    }
+
+    /**
+     * Caches a successful response, if its headers allow it.
+     *
+     * @param key the key of the call
+     * @param responseHeaders the headers of the response
+     * @param content the response returned to the caller
+     */
+    void put(String key, Headers responseHeaders, JsonValue content) {
+        final long ttl = freshness(responseHeaders);
+        if (ttl <= 0) {
+            return;
+        }
+        final Entry entry = new Entry(content.copy(), System.currentTimeMillis() + ttl);
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Computes how long a response may be cached.
+     *
+     * @param headers the headers of the response
+     * @return the time in milliseconds, 0 or less if the response may not be cached
+     */
+    static long freshness(Headers headers) {
+        final Header cacheControl = headers.get(CACHE_CONTROL);
+        if (cacheControl == null || hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache")
+                || hasDirective(cacheControl, "private")) {
+            return 0;
+        }
+        long maxAge = directiveSeconds(cacheControl, "s-maxage");
+        if (maxAge < 0) {
+            maxAge = directiveSeconds(cacheControl, "max-age");
+        }
+        if (maxAge <= 0) {
+            return 0;
+        }
+        final Header age = headers.get(AGE);
+        if (age != null) {
+            try {
+                maxAge -= Long.parseLong(age.getFirstValue().trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return TimeUnit.SECONDS.toMillis(maxAge);
+    }
+
+    private static boolean hasDirective(Header cacheControl, String directive) {
+        if (cacheControl != null) {
+            for (String value : cacheControl.getValues()) {
+                for (String token : value.split(",")) {
+                    final String name = token.split("=", 2)[0].trim();
+                    if (name.equalsIgnoreCase(directive)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the value in seconds of a directive.
+     *
+     * @return the value, or -1 if the directive is missing or invalid
+     */
+    private static long directiveSeconds(Header cacheControl, String directive) {
+        for (String value : cacheControl.getValues()) {
+            for (String token : value.split(",")) {
+                final String[] pair = token.split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase(directive)) {
+                    try {
+                        return Long.parseLong(pair[1].trim().replace("\"", ""));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the counters of the cache.
+     *
+     * @return the number of cached responses, hits and misses
+     */
+    synchronized JsonValue getStatistics() {
+        return json(object(
+                field("size", entries.size()),
+                field("hits", hits),
+                field("misses", misses)));
+    }
+}
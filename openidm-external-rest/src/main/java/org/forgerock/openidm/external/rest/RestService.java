@@ -12,21 +12,26 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.external.rest;
 
 import static org.forgerock.http.handler.HttpClientHandler.OPTION_LOADER;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.resource.ResourceException.newResourceException;
 import static org.forgerock.util.Utils.closeSilently;
+import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import org.forgerock.api.annotations.ApiError;
@@ -59,6 +64,7 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
 import org.forgerock.json.resource.SingletonResourceProvider;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.external.ExternalException;
@@ -71,12 +77,14 @@ import org.forgerock.util.Options;
 import org.forgerock.util.annotations.VisibleForTesting;
 import org.forgerock.util.encode.Base64;
 import org.forgerock.util.promise.Promise;
+import org.forgerock.util.time.Duration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 import org.osgi.service.component.propertytypes.ServiceVendor;
 import org.slf4j.Logger;
@@ -84,6 +92,33 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Service that acts as a HTTP client proxy to external REST services.
+ * <p>
+ * The connections are tuned in the optional external.rest.json as:
+ *
+ * <pre>
+ *     <code>
+ * {
+ *     "connections" : {
+ *         "maxConnections" : 64,
+ *         "connectTimeout" : 10000,
+ *         "soTimeout" : 30000,
+ *         "reuseConnections" : true,
+ *         "retryRequests" : true
+ *     },
+ *     "hosts" : {
+ *         "scim.example.com" : { "maxConnections" : 16, "soTimeout" : 60000 },
+ *         "hr.example.com:8443" : { "reuseConnections" : false }
+ *     },
+ *     "cache" : { "enabled" : true, "maxEntries" : 1000 }
+ * }
+ *     </code>
+ * </pre>
+ *
+ * The {@code connections} settings, timeouts in milliseconds, apply to the calls to any host. Each host listed in
+ * {@code hosts}, with or without a port, gets its own connection pool with the {@code connections} settings overridden
+ * by its own, so that a slow or busy host does not exhaust the connections of the others. The optional
+ * {@link RestResponseCache response cache} serves repeated {@code GET} calls. The {@code _action=metrics} action
+ * returns the calls, errors, calls in flight and latencies per host.
  */
 @SingletonProvider(@Handler(
         id = "restService:0",
@@ -93,7 +128,7 @@ import org.slf4j.LoggerFactory;
 @Component(
         name = RestService.PID,
         immediate = true,
-        configurationPolicy = ConfigurationPolicy.IGNORE,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
         property = {
                 ServerConstants.ROUTER_PREFIX + "=/external/rest"
         })
@@ -109,6 +144,26 @@ public class RestService implements SingletonResourceProvider {
 
     private static final String CALL_ACTION_NAME = "call";
 
+    private static final String METRICS_ACTION_NAME = "metrics";
+
+    /** Config key of the connection settings applying to all hosts. */
+    static final String CONFIG_CONNECTIONS = "connections";
+    /** Config key of the connection settings of specific hosts. */
+    static final String CONFIG_HOSTS = "hosts";
+    /** Config key of the response cache settings. */
+    static final String CONFIG_CACHE = "cache";
+
+    /** Connection config key of the maximum number of connections. */
+    static final String CONFIG_MAX_CONNECTIONS = "maxConnections";
+    /** Connection config key of the connect timeout in milliseconds. */
+    static final String CONFIG_CONNECT_TIMEOUT = "connectTimeout";
+    /** Connection config key of the socket read timeout in milliseconds. */
+    static final String CONFIG_SO_TIMEOUT = "soTimeout";
+    /** Connection config key to keep connections alive and reuse them. */
+    static final String CONFIG_REUSE_CONNECTIONS = "reuseConnections";
+    /** Connection config key to retry requests failing on a reused connection. */
+    static final String CONFIG_RETRY_REQUESTS = "retryRequests";
+
     /**
      * <em>Required</em> {@code _action=call} JSON key for URL to request. The corresponding JSON value is type
      * {@code string}.
@@ -176,34 +231,59 @@ public class RestService implements SingletonResourceProvider {
 
     private static final String JSON_UTF_8_CONTENT_TYPE = MediaType.JSON_UTF_8.toString();
 
-    private HttpClientHandler httpClientHandler;
+    private final List<HttpClientHandler> httpClientHandlers = new ArrayList<>();
 
+    /** The client of the hosts without connection settings of their own. */
     @VisibleForTesting
     Client client;
 
+    /** The clients of the configured hosts, keyed by host or host and port. */
+    @VisibleForTesting
+    Map<String, Client> hostClients = Collections.emptyMap();
+
+    /** The response cache, null if not enabled. */
+    @VisibleForTesting
+    RestResponseCache responseCache;
+
+    private final RestClientMetrics metrics = new RestClientMetrics();
+
     /**
      * Not directly used but needed to ensure the keys and certs are generated and the ssl context is reloaded.
      */
     @Reference
     KeyStoreManagementService keyStoreManagementService;
 
+    @Reference(policy = ReferencePolicy.DYNAMIC)
+    private volatile EnhancedConfig enhancedConfig;
+
     @Activate
     void activate(ComponentContext compContext) throws Exception {
-        httpClientHandler = newHttpClientHandler(
-                IdentityServer.getInstance().getProperty("openidm.external.rest.tls.version", "TLSv1.2"));
-        client = new Client(httpClientHandler);
+        final JsonValue config = enhancedConfig.getConfigurationAsJson(compContext);
+        final String tlsVersion =
+                IdentityServer.getInstance().getProperty("openidm.external.rest.tls.version", "TLSv1.2");
+        final JsonValue connections = config.get(CONFIG_CONNECTIONS).defaultTo(object());
+        client = new Client(newHttpClientHandler(tlsVersion, connections));
+        final Map<String, Client> clients = new HashMap<>();
+        for (String host : config.get(CONFIG_HOSTS).defaultTo(object()).keys()) {
+            final JsonValue hostConnections = connections.copy();
+            hostConnections.asMap().putAll(config.get(CONFIG_HOSTS).get(host).expect(Map.class).asMap());
+            clients.put(host.toLowerCase(), new Client(newHttpClientHandler(tlsVersion, hostConnections)));
+        }
+        hostClients = clients;
+        responseCache = RestResponseCache.fromConfig(config.get(CONFIG_CACHE));
         logger.info("External REST connectivity started.");
     }
 
     @Deactivate
     void deactivate(ComponentContext compContext) {
-        if (httpClientHandler != null) {
+        for (HttpClientHandler httpClientHandler : httpClientHandlers) {
             try {
                 httpClientHandler.close();
             } catch (IOException e) {
-                logger.error("An error occurred while closing the default HTTP client handler", e);
+                logger.error("An error occurred while closing an HTTP client handler", e);
             }
         }
+        httpClientHandlers.clear();
         logger.info("External REST connectivity stopped.");
     }
 
@@ -277,6 +357,12 @@ public class RestService implements SingletonResourceProvider {
 
         logger.debug("Action invoked on {} with {}", actionRequest.getAction(), actionRequest);
 
+        if (METRICS_ACTION_NAME.equalsIgnoreCase(actionRequest.getAction())) {
+            return newResultPromise(Responses.newActionResponse(json(object(
+                    field("hosts", metrics.toJson().getObject()),
+                    field("cache", responseCache != null ? responseCache.getStatistics().getObject() : null)))));
+        }
+
         if (!CALL_ACTION_NAME.equalsIgnoreCase(actionRequest.getAction())) {
             return new BadRequestException("Invalid action call on "
                     + actionRequest.getResourcePath() + "/" + actionRequest.getAction()
@@ -343,10 +429,26 @@ public class RestService implements SingletonResourceProvider {
                     + " : invalid or missing JSON field: " + e.getMessage()).asPromise();
         }
 
-        return client.send(request).then(
+        final String host = hostOf(request);
+        final RestClientMetrics.HostMetrics hostMetrics = metrics.forHost(host);
+        final String cacheKey = responseCache != null
+                ? RestResponseCache.key(
+                        request.getMethod(), request.getUri().toString(), request.getHeaders(), forceWrap)
+                : null;
+        if (cacheKey != null) {
+            final JsonValue cached = responseCache.get(cacheKey, request.getHeaders());
+            if (cached != null) {
+                hostMetrics.cacheHit();
+                return newResultPromise(Responses.newActionResponse(cached));
+            }
+        }
+
+        final long started = hostMetrics.requestStarted();
+        return clientFor(host).send(request).then(
                 new Function<Response, ActionResponse, ResourceException>() {
                     @Override
                     public ActionResponse apply(final Response response) throws ResourceException {
+                        hostMetrics.requestEnded(started, response.getStatus().isSuccessful());
                         try {
                             if (!response.getStatus().isSuccessful()) {
                                 throw new ExternalException(
@@ -381,6 +483,9 @@ public class RestService implements SingletonResourceProvider {
                                         content.put(ARG_BASE_64, true);
                                     }
                                 }
+                                if (cacheKey != null) {
+                                    responseCache.put(cacheKey, response.getHeaders(), content);
+                                }
                                 return Responses.newActionResponse(content);
                             } catch (IOException e) {
                                 throw new InternalServerErrorException(e.getMessage(), e);
@@ -410,21 +515,67 @@ public class RestService implements SingletonResourceProvider {
     }
 
     /**
-     * Builds an {@link AsyncHttpClientProvider} instance, which must be closed on shutdown/de-activation.
+     * Get the host of a request, with its port if the URL has one.
+     *
+     * @param request the request
+     * @return the lower case host
+     */
+    private static String hostOf(final Request request) {
+        final String host = String.valueOf(request.getUri().getHost()).toLowerCase();
+        return request.getUri().getPort() != -1 ? host + ":" + request.getUri().getPort() : host;
+    }
+
+    /**
+     * Get the client of a host, the client of the host and port being preferred over the client of the host.
+     *
+     * @param host the host, with its port if the URL has one
+     * @return the client of the host, or the default client if the host has no connection settings of its own
+     */
+    private Client clientFor(final String host) {
+        Client hostClient = hostClients.get(host);
+        if (hostClient == null && host.indexOf(':') != -1) {
+            hostClient = hostClients.get(host.substring(0, host.indexOf(':')));
+        }
+        return hostClient != null ? hostClient : client;
+    }
+
+    /**
+     * Builds an {@link AsyncHttpClientProvider} instance, which is closed on shutdown/de-activation.
      * @param tlsVersionSpecification the specification of the TLS version to use for this client
+     * @param connections the connection settings of this client
      * @return {@link AsyncHttpClientProvider} instance
      */
-    private HttpClientHandler newHttpClientHandler(String tlsVersionSpecification) {
+    private HttpClientHandler newHttpClientHandler(String tlsVersionSpecification, JsonValue connections) {
+        final Options options = Options.defaultOptions()
+                .set(OPTION_LOADER, new Loader() {
+                    @Override
+                    public <S> S load(Class<S> service, Options options) {
+                        return service.cast(new AsyncHttpClientProvider());
+                    }
+                })
+                .set(HttpClientHandler.OPTION_SSLCONTEXT_ALGORITHM, tlsVersionSpecification);
+        if (connections.isDefined(CONFIG_MAX_CONNECTIONS)) {
+            options.set(HttpClientHandler.OPTION_MAX_CONNECTIONS, connections.get(CONFIG_MAX_CONNECTIONS).asInteger());
+        }
+        if (connections.isDefined(CONFIG_CONNECT_TIMEOUT)) {
+            options.set(HttpClientHandler.OPTION_CONNECT_TIMEOUT,
+                    Duration.duration(connections.get(CONFIG_CONNECT_TIMEOUT).asLong(), TimeUnit.MILLISECONDS));
+        }
+        if (connections.isDefined(CONFIG_SO_TIMEOUT)) {
+            options.set(HttpClientHandler.OPTION_SO_TIMEOUT,
+                    Duration.duration(connections.get(CONFIG_SO_TIMEOUT).asLong(), TimeUnit.MILLISECONDS));
+        }
+        if (connections.isDefined(CONFIG_REUSE_CONNECTIONS)) {
+            options.set(HttpClientHandler.OPTION_REUSE_CONNECTIONS,
+                    connections.get(CONFIG_REUSE_CONNECTIONS).asBoolean());
+        }
+        if (connections.isDefined(CONFIG_RETRY_REQUESTS)) {
+            options.set(HttpClientHandler.OPTION_RETRY_REQUESTS, connections.get(CONFIG_RETRY_REQUESTS).asBoolean());
+        }
         try {
-            return new HttpClientHandler(
-                    Options.defaultOptions()
-                            .set(OPTION_LOADER, new Loader() {
-                                @Override
-                                public <S> S load(Class<S> service, Options options) {
-                                    return service.cast(new AsyncHttpClientProvider());
-                                }
-                            })
-                            .set(HttpClientHandler.OPTION_SSLCONTEXT_ALGORITHM, tlsVersionSpecification));
+            final HttpClientHandler httpClientHandler = new HttpClientHandler(options);
+            httpClientHandlers.add(httpClientHandler);
+            return httpClientHandler;
         } catch (HttpApplicationException e) {
             throw new RuntimeException("Error while building HTTP Client Handler", e);
         }
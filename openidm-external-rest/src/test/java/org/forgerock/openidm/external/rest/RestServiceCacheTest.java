@@ -0,0 +1,172 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.http.handler.HttpClientHandler.OPTION_LOADER;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.external.rest.RestService.ARG_HEADERS;
+import static org.forgerock.openidm.external.rest.RestService.ARG_METHOD;
+import static org.forgerock.openidm.external.rest.RestService.ARG_URL;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.http.Client;
+import org.forgerock.http.apache.async.AsyncHttpClientProvider;
+import org.forgerock.http.handler.HttpClientHandler;
+import org.forgerock.http.spi.Loader;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.Options;
+import org.forgerock.util.promise.Promise;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class RestServiceCacheTest {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private HttpClientHandler httpClientHandler;
+    private RestService restService;
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub("/cached", 200, "max-age=60");
+        stub("/private", 200, "private, max-age=60");
+        stub("/nostore", 200, "no-store");
+        stub("/error", 500, "max-age=60");
+        server.start();
+        httpClientHandler = new HttpClientHandler(Options.defaultOptions()
+                .set(OPTION_LOADER, new Loader() {
+                    @Override
+                    public <S> S load(Class<S> service, Options options) {
+                        return service.cast(new AsyncHttpClientProvider());
+                    }
+                }));
+    }
+
+    @AfterClass
+    public void stopServer() throws IOException {
+        httpClientHandler.close();
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        calls.clear();
+        restService = new RestService();
+        restService.client = new Client(httpClientHandler);
+        restService.responseCache = new RestResponseCache(10);
+    }
+
+    /**
+     * Answers the calls to a path with a JSON body counting them, and the given status and cache control.
+     */
+    private void stub(final String path, final int status, final String cacheControl) {
+        server.createContext(path, exchange -> {
+            final int count = calls.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            final byte[] body = ("{\"count\":" + count + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private Promise<ActionResponse, ResourceException> call(String action, JsonValue content) {
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+        when(actionRequest.getAction()).thenReturn(action);
+        when(actionRequest.getResourcePath()).thenReturn("");
+        when(actionRequest.getContent()).thenReturn(content);
+        return restService.actionInstance(mock(Context.class), actionRequest);
+    }
+
+    private JsonValue get(String path, String authorization) throws Exception {
+        return call("call", json(object(
+                field(ARG_URL, "http://localhost:" + server.getAddress().getPort() + path),
+                field(ARG_METHOD, "GET"),
+                field(ARG_HEADERS, object(field("Authorization", authorization)))))).getOrThrow().getJsonContent();
+    }
+
+    private JsonValue hostMetrics() throws Exception {
+        return call("metrics", json(object())).getOrThrow().getJsonContent()
+                .get("hosts").get("localhost:" + server.getAddress().getPort());
+    }
+
+    @Test
+    public void testServesCachedResponse() throws Exception {
+        assertThat(get("/cached", "Bearer a").get("count").asInteger()).isEqualTo(1);
+        assertThat(get("/cached", "Bearer a").get("count").asInteger()).isEqualTo(1);
+        assertThat(calls.get("/cached").get()).isEqualTo(1);
+
+        final JsonValue metrics = hostMetrics();
+        assertThat(metrics.get("requests").asLong()).isEqualTo(1L);
+        assertThat(metrics.get("cacheHits").asLong()).isEqualTo(1L);
+        assertThat(metrics.get("inFlight").asLong()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testKeysResponsesByCredentials() throws Exception {
+        get("/cached", "Bearer a");
+        assertThat(get("/cached", "Bearer b").get("count").asInteger()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHonoursCacheControl() throws Exception {
+        get("/nostore", "Bearer a");
+        get("/nostore", "Bearer a");
+        assertThat(calls.get("/nostore").get()).isEqualTo(2);
+
+        get("/private", "Bearer a");
+        get("/private", "Bearer a");
+        assertThat(calls.get("/private").get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCountsErrors() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                get("/error", "Bearer a");
+                fail();
+            } catch (ResourceException e) {
+                assertThat(e.getCode()).isEqualTo(500);
+            }
+        }
+        assertThat(calls.get("/error").get()).isEqualTo(2);
+        assertThat(hostMetrics().get("errors").asLong()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.info.health;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.api.annotations.Handler;
+import org.forgerock.api.annotations.Operation;
+import org.forgerock.api.annotations.Read;
+import org.forgerock.api.annotations.Schema;
+import org.forgerock.api.annotations.SingletonProvider;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.info.health.api.ScriptInfoResource;
+import org.forgerock.openidm.util.ScriptMetrics;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+
+/**
+ * Gets the per script, per hook execution statistics recorded by {@link ScriptMetrics}.
+ */
+@SingletonProvider(@Handler(
+        id = "scriptInfoResourceProvider:0",
+        title = "Health - Script execution statistics",
+        description = "Returns the execution statistics of each script hook, most expensive first.",
+        mvccSupported = false,
+        resourceSchema = @Schema(fromType = ScriptInfoResource.class)))
+public class ScriptInfoResourceProvider extends AbstractInfoResourceProvider {
+
+    @Read(operationDescription = @Operation(description = "Read script execution statistics."))
+    @Override
+    @SuppressWarnings("unchecked")
+    public Promise<ResourceResponse, ResourceException> readInstance(Context context, ReadRequest request) {
+        final List<Object> hooks = new ArrayList<>(ScriptMetrics.getStatistics().values());
+        hooks.sort((a, b) -> Long.compare(
+                (Long) ((Map<String, Object>) b).get("totalMillis"),
+                (Long) ((Map<String, Object>) a).get("totalMillis")));
+
+        final JsonValue result = json(object(field("hooks", hooks)));
+        return newResourceResponse("", "", result).asPromise();
+    }
+}
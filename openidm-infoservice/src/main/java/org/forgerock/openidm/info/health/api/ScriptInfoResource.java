@@ -0,0 +1,101 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.info.health.api;
+
+import java.util.List;
+
+import org.forgerock.api.annotations.Description;
+import org.forgerock.api.annotations.ReadOnly;
+
+/**
+ * Api pojo for {@link org.forgerock.openidm.info.health.ScriptInfoResourceProvider}
+ */
+public class ScriptInfoResource {
+    private List<ScriptHook> hooks;
+
+    /**
+     * Returns the statistics of each executed script hook.
+     *
+     * @return statistics of each executed script hook, most expensive first.
+     */
+    @Description("Statistics of each executed script hook, sorted by total execution time")
+    @ReadOnly
+    public List<ScriptHook> getHooks() {
+        return hooks;
+    }
+
+    /**
+     * Execution statistics of a single script hook.
+     */
+    public static class ScriptHook {
+        private String script;
+        private String hook;
+        private long count;
+        private long failures;
+        private long totalMillis;
+        private long meanMillis;
+        private long maxMillis;
+        private long allocatedBytes;
+
+        @Description("Name of the script")
+        @ReadOnly
+        public String getScript() {
+            return script;
+        }
+
+        @Description("Hook or operation the script was executed for, e.g. onCreate or transform")
+        @ReadOnly
+        public String getHook() {
+            return hook;
+        }
+
+        @Description("Number of executions")
+        @ReadOnly
+        public long getCount() {
+            return count;
+        }
+
+        @Description("Number of executions which failed")
+        @ReadOnly
+        public long getFailures() {
+            return failures;
+        }
+
+        @Description("Total execution time in milliseconds")
+        @ReadOnly
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        @Description("Mean execution time in milliseconds")
+        @ReadOnly
+        public long getMeanMillis() {
+            return meanMillis;
+        }
+
+        @Description("Maximum execution time in milliseconds")
+        @ReadOnly
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        @Description("Bytes allocated by the executing threads, including nested script executions")
+        @ReadOnly
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
- * Portions Copyright 2020-2023 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.info.impl;
 
@@ -54,6 +54,7 @@ import org.forgerock.openidm.info.health.DatabaseInfoResourceProvider;
 import org.forgerock.openidm.info.health.MemoryInfoResourceProvider;
 import org.forgerock.openidm.info.health.OsInfoResourceProvider;
 import org.forgerock.openidm.info.health.ReconInfoResourceProvider;
+import org.forgerock.openidm.info.health.ScriptInfoResourceProvider;
 import org.forgerock.openidm.osgi.ServiceTrackerListener;
 import org.forgerock.openidm.osgi.ServiceTrackerNotifier;
 import org.forgerock.services.context.Context;
@@ -389,6 +390,7 @@ public class HealthService
         router.addRoute(uriTemplate("memory"), new MemoryInfoResourceProvider());
         router.addRoute(uriTemplate("recon"), new ReconInfoResourceProvider());
         router.addRoute(uriTemplate("jdbc"), new DatabaseInfoResourceProvider());
+        router.addRoute(uriTemplate("scripts"), new ScriptInfoResourceProvider());
 
         // Check if the framework has already started.  If so, schedule the start up
         // thread that checks the state of OpenIDM.
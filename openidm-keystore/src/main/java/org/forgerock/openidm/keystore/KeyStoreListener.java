@@ -0,0 +1,30 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.keystore;
+
+/**
+ * Listener notified when the entries of a {@link java.security.KeyStore} managed by a {@link KeyStoreService} may
+ * have changed, so that key material derived from them can be discarded.
+ */
+public interface KeyStoreListener {
+
+    /**
+     * Called after the keystore has been loaded or stored.
+     *
+     * @param keyStoreService the {@link KeyStoreService} managing the changed keystore.
+     */
+    void keyStoreChanged(KeyStoreService keyStoreService);
+}
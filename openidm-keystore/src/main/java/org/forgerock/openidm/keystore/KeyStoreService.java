@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.keystore;
 
@@ -40,4 +41,16 @@ public interface KeyStoreService {
      * @throws GeneralSecurityException if unable to store the {@link KeyStore}.
      */
     void store() throws GeneralSecurityException;
+
+    /**
+     * Registers a {@link KeyStoreListener} notified when the managed {@link KeyStore} is loaded or stored.
+     * @param listener the {@link KeyStoreListener} to register.
+     */
+    void addKeyStoreListener(KeyStoreListener listener);
+
+    /**
+     * Unregisters a previously registered {@link KeyStoreListener}.
+     * @param listener the {@link KeyStoreListener} to unregister.
+     */
+    void removeKeyStoreListener(KeyStoreListener listener);
 }
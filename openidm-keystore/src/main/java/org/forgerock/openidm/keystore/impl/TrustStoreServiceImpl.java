@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
- * Portions Copyright 2020-2021 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.keystore.impl;
 
@@ -86,6 +86,7 @@ public class TrustStoreServiceImpl extends AbstractKeyStoreService {
     public void activate(@SuppressWarnings("unused") ComponentContext context) throws GeneralSecurityException {
         logger.debug("Activating trust store service");
         this.store = keyStoreInitializer.initializeTrustStore(keyStore, keyStoreDetails);
+        notifyKeyStoreListeners();
     }
 
     @Deactivate
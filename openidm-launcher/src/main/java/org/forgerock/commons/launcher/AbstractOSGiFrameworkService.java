@@ -12,27 +12,37 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012 ForgeRock AS.
- * Portions Copyright 2020 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.commons.launcher;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
 import org.osgi.framework.FrameworkEvent;
 import org.osgi.framework.FrameworkListener;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
 import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 /**
  * An AbstractOSGiContainerService is a prototype of how to start an OSGi
@@ -42,6 +52,11 @@ import org.osgi.framework.startlevel.BundleStartLevel;
  */
 public abstract class AbstractOSGiFrameworkService implements OSGiFramework {
 
+    /**
+     * Default time in milliseconds the deferred bundles wait for their service.
+     */
+    protected static final long DEFAULT_DEFERRED_START_TIMEOUT = 300000L;
+
     private final AtomicReference<Framework> framework = new AtomicReference<Framework>();
 
     private final AtomicBoolean started = new AtomicBoolean(Boolean.FALSE);
@@ -69,6 +84,47 @@ public abstract class AbstractOSGiFrameworkService implements OSGiFramework {
 
     protected abstract void registerServices(BundleContext bundleContext) throws Exception;
 
+    /**
+     * @return number of threads used to install the bundles, 1 installs
+     *         them sequentially.
+     */
+    protected int getInstallThreads() {
+        return 1;
+    }
+
+    /**
+     * @return LDAP filter of the service which releases the deferred bundles
+     *         or {@code null} to start them once the framework is started.
+     */
+    protected String getDeferredStartFilter() {
+        return null;
+    }
+
+    /**
+     * @return time in milliseconds after the framework is started after which
+     *         the deferred bundles are started even though the service
+     *         matching {@link #getDeferredStartFilter()} is not registered.
+     */
+    protected long getDeferredStartTimeout() {
+        return DEFAULT_DEFERRED_START_TIMEOUT;
+    }
+
+    /**
+     * @return the startup timeline recorder or {@code null} if the startup is
+     *         not profiled.
+     */
+    protected StartupTimeline getStartupTimeline() {
+        return null;
+    }
+
+    /**
+     * Called once all bundles, including the deferred ones, were started.
+     *
+     * @param timeline the recorded startup timeline
+     */
+    protected void startupCompleted(StartupTimeline timeline) {
+    }
+
     @Override
     public void start() throws Exception {
         // Create an instance of the framework.
@@ -157,40 +213,223 @@ public abstract class AbstractOSGiFrameworkService implements OSGiFramework {
 
     protected void process(BundleContext context, List<BundleHandler> bundleHandlers)
             throws Exception {
+        final StartupTimeline timeline = getStartupTimeline();
+        if (null != timeline) {
+            context.addBundleListener(timeline);
+            context.addServiceListener(timeline);
+            context.addFrameworkListener(timeline);
+        }
+
         // Get list of already installed bundles as a map.
         Map<String, Bundle> installedBundle = new HashMap<String, Bundle>();
         for (Bundle bundle : context.getBundles()) {
             installedBundle.put(bundle.getLocation(), bundle);
         }
 
+        // Install the new bundles first, they do not depend on each other
+        Map<BundleHandler, Bundle> newBundles = install(context, bundleHandlers, installedBundle);
+
+        List<Bundle> startedBundles = new ArrayList<Bundle>();
+        List<Bundle> deferredBundles = new ArrayList<Bundle>();
         for (BundleHandler handler : bundleHandlers) {
-            Bundle currentBundle = installedBundle.get(handler.getBundleUrl().toString());
+            Bundle currentBundle = newBundles.get(handler);
 
-            if (currentBundle == null
-                    && ((handler.getActions().contains(BundleHandler.Action.update) || (handler
-                            .getActions().contains(BundleHandler.Action.install))))) {
-                currentBundle = context.installBundle(handler.getBundleUrl().toString());
+            if (currentBundle != null) {
                 if (null != handler.getStartLevel()) {
                     currentBundle.adapt(BundleStartLevel.class).setStartLevel(
                             handler.getStartLevel());
                 }
-
-            } else if (handler.getActions().contains(BundleHandler.Action.update)) {
-                currentBundle.update();
-            } else if (handler.getActions().contains(BundleHandler.Action.uninstall)
-                    && null != currentBundle) {
-                currentBundle.uninstall();
-                continue;
+            } else {
+                currentBundle = installedBundle.get(handler.getBundleUrl().toString());
+                if (handler.getActions().contains(BundleHandler.Action.update)) {
+                    currentBundle.update();
+                } else if (handler.getActions().contains(BundleHandler.Action.uninstall)
+                        && null != currentBundle) {
+                    currentBundle.uninstall();
+                    continue;
+                }
             }
             if (handler.getActions().contains(BundleHandler.Action.start) && null != currentBundle
                     && BundleHandler.isNotFragment(currentBundle)) {
-                currentBundle.start();
+                if (handler.isDeferred()) {
+                    deferredBundles.add(currentBundle);
+                } else {
+                    startedBundles.add(currentBundle);
+                }
             }
         }
 
+        if (getInstallThreads() > 1 && !newBundles.isEmpty()) {
+            // Resolve the whole set at once instead of bundle by bundle during the start
+            context.getBundle(0).adapt(FrameworkWiring.class).resolveBundles(newBundles.values());
+        }
+        for (Bundle bundle : startedBundles) {
+            bundle.start();
+        }
+
+        deferStart(context, deferredBundles, timeline);
+
         FrameworkListener listener = getFrameworkListener();
         if (null != listener) {
             context.addFrameworkListener(listener);
         }
     }
+
+    /**
+     * Install the bundles which are not installed yet, in parallel when more
+     * than one install thread is configured.
+     */
+    private Map<BundleHandler, Bundle> install(final BundleContext context,
+            List<BundleHandler> bundleHandlers, Map<String, Bundle> installedBundle)
+            throws Exception {
+        final StartupTimeline timeline = getStartupTimeline();
+        Map<BundleHandler, Callable<Bundle>> tasks = new LinkedHashMap<BundleHandler, Callable<Bundle>>();
+        for (final BundleHandler handler : bundleHandlers) {
+            if (!installedBundle.containsKey(handler.getBundleUrl().toString())
+                    && (handler.getActions().contains(BundleHandler.Action.update)
+                            || handler.getActions().contains(BundleHandler.Action.install))) {
+                tasks.put(handler, new Callable<Bundle>() {
+                    @Override
+                    public Bundle call() throws Exception {
+                        long start = System.nanoTime();
+                        Bundle bundle = context.installBundle(handler.getBundleUrl().toString());
+                        if (null != timeline) {
+                            timeline.installed(bundle, System.nanoTime() - start);
+                        }
+                        return bundle;
+                    }
+                });
+            }
+        }
+
+        Map<BundleHandler, Bundle> result = new HashMap<BundleHandler, Bundle>(tasks.size());
+        int threads = Math.min(getInstallThreads(), tasks.size());
+        if (threads <= 1) {
+            for (Map.Entry<BundleHandler, Callable<Bundle>> task : tasks.entrySet()) {
+                result.put(task.getKey(), task.getValue().call());
+            }
+            return result;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<BundleHandler, Future<Bundle>> futures = new LinkedHashMap<BundleHandler, Future<Bundle>>();
+            for (Map.Entry<BundleHandler, Callable<Bundle>> task : tasks.entrySet()) {
+                futures.put(task.getKey(), executor.submit(task.getValue()));
+            }
+            for (Map.Entry<BundleHandler, Future<Bundle>> future : futures.entrySet()) {
+                try {
+                    result.put(future.getKey(), future.getValue().get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Start the deferred bundles when the service matching
+     * {@link #getDeferredStartFilter()} is registered, or when the framework
+     * reaches its final start level.
+     */
+    private void deferStart(final BundleContext context, final List<Bundle> deferredBundles,
+            final StartupTimeline timeline) throws Exception {
+        // Completed once the framework is started and the deferred bundles are released
+        final AtomicInteger pending = new AtomicInteger(2);
+        final Runnable completed = new Runnable() {
+            @Override
+            public void run() {
+                if (pending.decrementAndGet() == 0 && null != timeline) {
+                    startupCompleted(timeline);
+                }
+            }
+        };
+        final AtomicBoolean released = new AtomicBoolean(Boolean.FALSE);
+        final Runnable release = new Runnable() {
+            @Override
+            public void run() {
+                if (!released.compareAndSet(Boolean.FALSE, Boolean.TRUE)) {
+                    return;
+                }
+                if (null != timeline) {
+                    timeline.deferredStarted();
+                }
+                for (Bundle bundle : deferredBundles) {
+                    try {
+                        bundle.start();
+                    } catch (BundleException | IllegalStateException e) {
+                        System.err.println("Failed to start deferred bundle "
+                                + bundle.getLocation() + ": " + e.getMessage());
+                    }
+                }
+                completed.run();
+            }
+        };
+
+        String filter = getDeferredStartFilter();
+        if (!deferredBundles.isEmpty() && null != filter) {
+            context.addServiceListener(new ServiceListener() {
+                @Override
+                public void serviceChanged(ServiceEvent event) {
+                    if (event.getType() == ServiceEvent.REGISTERED) {
+                        context.removeServiceListener(this);
+                        // Do not hold the registering thread
+                        Thread thread = new Thread(release, "Deferred bundle start");
+                        thread.setDaemon(true);
+                        thread.start();
+                    }
+                }
+            }, filter);
+        }
+
+        context.addFrameworkListener(new FrameworkListener() {
+            @Override
+            public void frameworkEvent(FrameworkEvent event) {
+                if (event.getType() == FrameworkEvent.STARTED) {
+                    context.removeFrameworkListener(this);
+                    if (deferredBundles.isEmpty() || null == getDeferredStartFilter()) {
+                        release.run();
+                    } else {
+                        releaseAfterTimeout(release, released);
+                    }
+                    completed.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Start the deferred bundles anyway if the service releasing them is not
+     * registered in time, so that the startup does not silently hang.
+     */
+    private void releaseAfterTimeout(final Runnable release, final AtomicBoolean released) {
+        final long timeout = getDeferredStartTimeout();
+        if (timeout <= 0) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(timeout);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (!released.get()) {
+                    System.err.println("Service " + getDeferredStartFilter() + " not registered after "
+                            + timeout + " ms, starting the deferred bundles");
+                    release.run();
+                }
+            }
+        }, "Deferred bundle start timeout");
+        thread.setDaemon(true);
+        thread.start();
+    }
 }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012 ForgeRock AS.
- * Portions Copyright 2020 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.commons.launcher;
 
@@ -52,11 +52,18 @@ public class BundleHandler {
     private URL bundleUrl;
     private EnumSet<Action> actions;
     private Integer startLevel;
+    private boolean deferred;
 
     public BundleHandler(URL bundleUrl, EnumSet<Action> actions, Integer startLevel) {
+        this(bundleUrl, actions, startLevel, false);
+    }
+
+    public BundleHandler(URL bundleUrl, EnumSet<Action> actions, Integer startLevel,
+            boolean deferred) {
         this.bundleUrl = bundleUrl;
         this.actions = actions;
         this.startLevel = startLevel;
+        this.deferred = deferred;
     }
 
     public static boolean isNotFragment(Bundle bundle) {
@@ -80,6 +87,16 @@ public class BundleHandler {
         return actions;
     }
 
+    /**
+     * Check whether the start of the bundle should be postponed until the
+     * framework signals that the critical services are available.
+     *
+     * @return true if the bundle is installed eagerly but started late.
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("BundleHandler[");
@@ -90,6 +107,9 @@ public class BundleHandler {
         if (null != startLevel) {
             sb.append(" startLevel: ").append(startLevel);
         }
+        if (deferred) {
+            sb.append(" deferred");
+        }
         sb.append("]");
         return sb.toString();
     }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012 ForgeRock AS.
- * Portions Copyright 2020 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.commons.launcher;
 
@@ -33,19 +33,32 @@ public class BundleHandlerBuilder {
 
     private final EnumSet<BundleHandler.Action> actions;
     private final Integer startLevel;
+    private final boolean deferred;
 
     public BundleHandlerBuilder(EnumSet<BundleHandler.Action> actions, Integer startLevel) {
+        this(actions, startLevel, false);
+    }
+
+    public BundleHandlerBuilder(EnumSet<BundleHandler.Action> actions, Integer startLevel,
+            boolean deferred) {
         this.actions = actions;
         this.startLevel = startLevel;
+        this.deferred = deferred;
     }
 
     public static BundleHandlerBuilder newBuilder(JsonValue configuration,
             BundleHandlerBuilder defaultTo) {
+        BundleHandlerBuilder builder;
         if (configuration.isDefined("start-level") || configuration.isDefined("action")) {
-            return newBuilder(configuration.get("start-level").asInteger(), configuration.get(
+            builder = newBuilder(configuration.get("start-level").asInteger(), configuration.get(
                     "action").asString());
+        } else {
+            builder = null != defaultTo ? defaultTo : newBuilder((Integer) null);
+        }
+        if (configuration.get("deferred").defaultTo(Boolean.FALSE).asBoolean()) {
+            return new BundleHandlerBuilder(builder.actions, builder.startLevel, true);
         }
-        return null != defaultTo ? defaultTo : newBuilder((Integer) null);
+        return builder;
     }
 
     public static BundleHandlerBuilder newBuilder(JsonValue configuration) {
@@ -71,7 +84,7 @@ public class BundleHandlerBuilder {
     }
 
     public BundleHandler build(URL bundleURL) {
-        return new BundleHandler(bundleURL, actions, startLevel);
+        return new BundleHandler(bundleURL, actions, startLevel, deferred);
     }
 
     public BundleHandler build(String bundleURL) throws MalformedURLException {
@@ -82,7 +95,8 @@ public class BundleHandlerBuilder {
         if (this == that)
             return true;
         if ((that == null)
-                || (!actions.equals(that.actions) || !startLevel.equals(that.startLevel)))
+                || (!actions.equals(that.actions) || !startLevel.equals(that.startLevel))
+                || deferred != that.deferred)
             return false;
         return true;
     }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2013 ForgeRock AS.
- * Portions Copyright 2020-2024 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.commons.launcher;
 
@@ -94,6 +94,28 @@ public class OSGiFrameworkService extends AbstractOSGiFrameworkService {
      */
     public static final String BOOT_PROPERTIES_FILE_VALUE = "conf/boot/boot.properties";
 
+    /**
+     * The name of the launcher configuration block which tunes the startup.
+     */
+    public static final String STARTUP_PROP = "startup";
+    /**
+     * The number of threads used to install the bundles.
+     */
+    public static final String STARTUP_INSTALL_THREADS = "installThreads";
+    /**
+     * The LDAP filter of the service which releases the deferred bundles.
+     */
+    public static final String STARTUP_DEFER_UNTIL = "deferUntil";
+    /**
+     * The time in milliseconds after which the deferred bundles are started
+     * without their service, 0 to wait forever.
+     */
+    public static final String STARTUP_DEFER_TIMEOUT = "deferTimeout";
+    /**
+     * The file the startup timeline report is written to.
+     */
+    public static final String STARTUP_TIMELINE = "timeline";
+
     private String installDir;
 
     private String projectDir;
@@ -126,6 +148,8 @@ public class OSGiFrameworkService extends AbstractOSGiFrameworkService {
      */
     private JsonValue launcherConfiguration = null;
 
+    private StartupTimeline startupTimeline = null;
+
     private final JsonValueTraverseFunction transformer;
 
     private final PropertyAccessor propertyAccessor;
@@ -408,6 +432,53 @@ public class OSGiFrameworkService extends AbstractOSGiFrameworkService {
         bundleContext.registerService(OSGiFramework.class, this, frameworkProps);
     }
 
+    @Override
+    protected int getInstallThreads() {
+        JsonValue threads = getLauncherConfiguration().get(STARTUP_PROP).get(STARTUP_INSTALL_THREADS);
+        if (threads.isString()) {
+            return Integer.parseInt(threads.asString());
+        }
+        return threads.defaultTo(1).asInteger();
+    }
+
+    @Override
+    protected String getDeferredStartFilter() {
+        return getLauncherConfiguration().get(STARTUP_PROP).get(STARTUP_DEFER_UNTIL).asString();
+    }
+
+    @Override
+    protected long getDeferredStartTimeout() {
+        JsonValue timeout = getLauncherConfiguration().get(STARTUP_PROP).get(STARTUP_DEFER_TIMEOUT);
+        if (timeout.isString()) {
+            return Long.parseLong(timeout.asString());
+        }
+        return timeout.defaultTo(DEFAULT_DEFERRED_START_TIMEOUT).asLong();
+    }
+
+    @Override
+    protected synchronized StartupTimeline getStartupTimeline() {
+        if (null == startupTimeline
+                && getLauncherConfiguration().get(STARTUP_PROP).isDefined(STARTUP_TIMELINE)) {
+            startupTimeline = new StartupTimeline();
+        }
+        return startupTimeline;
+    }
+
+    @Override
+    protected void startupCompleted(StartupTimeline timeline) {
+        File report = getFileForPath(getLauncherConfiguration().get(STARTUP_PROP)
+                .get(STARTUP_TIMELINE).asString(), getWorkingURI());
+        try {
+            timeline.write(report);
+            if (isVerbose()) {
+                System.out.append("Startup timeline written to ").println(report);
+            }
+        } catch (IOException e) {
+            System.err.append("Main: Error writing startup timeline to ").println(report);
+            System.err.println("Main: " + e);
+        }
+    }
+
     @Override
     protected Map<String, String> getConfigurationProperties() {
         if (null == configurationProperties) {
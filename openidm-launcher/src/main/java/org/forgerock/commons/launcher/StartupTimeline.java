@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.commons.launcher;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.json.simple.JSONValue;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.FrameworkListener;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * A StartupTimeline records how long each bundle took to install and to start
+ * and when each Declarative Services component published its service.
+ * <p>
+ * SCR registers the services of a component on the extender thread while the
+ * bundle is started, so the offset of the registration relative to the bundle
+ * STARTED event is the best approximation of the component activation time
+ * that is visible from outside of SCR.
+ */
+public class StartupTimeline implements SynchronousBundleListener, ServiceListener,
+        FrameworkListener {
+
+    /**
+     * Service property set by SCR on every service registered for a component.
+     */
+    static final String COMPONENT_NAME = "component.name";
+
+    private final long origin = System.nanoTime();
+
+    private final Map<String, BundleEntry> bundles = new ConcurrentHashMap<>();
+
+    private final List<Map<String, Object>> components = new ArrayList<>();
+
+    private volatile long frameworkStarted = -1;
+
+    private volatile long deferredStarted = -1;
+
+    private static class BundleEntry {
+        private final String location;
+        private String symbolicName;
+        private long installMs = -1;
+        private long startingAt = -1;
+        private long startedAt = -1;
+
+        private BundleEntry(String location) {
+            this.location = location;
+        }
+    }
+
+    private BundleEntry entry(String location) {
+        return bundles.computeIfAbsent(location, BundleEntry::new);
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origin);
+    }
+
+    /**
+     * Record the time spent in {@code BundleContext#installBundle}.
+     *
+     * @param bundle the installed bundle
+     * @param nanos the install duration in nanoseconds
+     */
+    public void installed(Bundle bundle, long nanos) {
+        BundleEntry entry = entry(bundle.getLocation());
+        synchronized (entry) {
+            entry.symbolicName = bundle.getSymbolicName();
+            entry.installMs = TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    /**
+     * Mark the moment the deferred bundles were released.
+     */
+    public void deferredStarted() {
+        deferredStarted = now();
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        BundleEntry entry = entry(event.getBundle().getLocation());
+        synchronized (entry) {
+            entry.symbolicName = event.getBundle().getSymbolicName();
+            if (event.getType() == BundleEvent.STARTING) {
+                entry.startingAt = now();
+            } else if (event.getType() == BundleEvent.STARTED) {
+                entry.startedAt = now();
+            }
+        }
+    }
+
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        if (event.getType() != ServiceEvent.REGISTERED) {
+            return;
+        }
+        ServiceReference<?> reference = event.getServiceReference();
+        Object name = reference.getProperty(COMPONENT_NAME);
+        if (null == name) {
+            return;
+        }
+        Map<String, Object> component = new LinkedHashMap<>();
+        component.put("name", String.valueOf(name));
+        component.put("bundle", reference.getBundle().getSymbolicName());
+        component.put("registeredAt", now());
+        BundleEntry entry = bundles.get(reference.getBundle().getLocation());
+        if (null != entry) {
+            synchronized (entry) {
+                if (entry.startedAt >= 0) {
+                    component.put("activationMs", now() - entry.startedAt);
+                }
+            }
+        }
+        synchronized (components) {
+            components.add(component);
+        }
+    }
+
+    @Override
+    public void frameworkEvent(FrameworkEvent event) {
+        if (event.getType() == FrameworkEvent.STARTED) {
+            frameworkStarted = now();
+        }
+    }
+
+    /**
+     * Build the report as a JSON compatible map.
+     *
+     * @return the startup timeline report.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("frameworkStartedAt", frameworkStarted);
+        report.put("deferredStartedAt", deferredStarted);
+        report.put("totalMs", now());
+
+        List<Map<String, Object>> bundleList = new ArrayList<>(bundles.size());
+        for (BundleEntry entry : bundles.values()) {
+            Map<String, Object> bundle = new LinkedHashMap<>();
+            synchronized (entry) {
+                bundle.put("symbolicName", entry.symbolicName);
+                bundle.put("location", entry.location);
+                bundle.put("installMs", entry.installMs);
+                bundle.put("startedAt", entry.startedAt);
+                bundle.put("startMs", entry.startingAt >= 0 && entry.startedAt >= 0
+                        ? entry.startedAt - entry.startingAt
+                        : -1L);
+            }
+            bundleList.add(bundle);
+        }
+        bundleList.sort((a, b) -> Long.compare((Long) a.get("startedAt"), (Long) b.get("startedAt")));
+        report.put("bundles", bundleList);
+        synchronized (components) {
+            report.put("components", new ArrayList<>(components));
+        }
+        return report;
+    }
+
+    /**
+     * Write the report as JSON to the given file.
+     *
+     * @param file target file, parent directories are created when missing.
+     * @throws IOException when the report can not be written.
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (null != parent && !parent.isDirectory()) {
+            parent.mkdirs();
+        }
+        try (Writer writer = new FileWriter(file)) {
+            JSONValue.writeJSONString(toMap(), writer);
+        }
+    }
+}
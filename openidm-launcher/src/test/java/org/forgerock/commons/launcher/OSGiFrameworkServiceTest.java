@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2013 ForgeRock AS.
- * Portions Copyright 2020-2024 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.commons.launcher;
 
@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.hasEntry;
 
 import java.io.File;
 import java.net.URLDecoder;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import org.hamcrest.MatcherAssert;
 import org.kohsuke.args4j.CmdLineException;
@@ -130,6 +131,22 @@ public class OSGiFrameworkServiceTest {
         }
     }
 
+    @Test
+    public void testStartupTimeline() throws Exception {
+        File report = service.getFileForPath("logs/startup-timeline.json", service.getWorkingURI());
+        if ("test1".equals(testName)) {
+            Assert.assertNull(service.getStartupTimeline());
+        }
+        if ("test2".equals(testName)) {
+            Assert.assertEquals(service.getInstallThreads(), 2);
+            Assert.assertEquals(service.getDeferredStartTimeout(),
+                    AbstractOSGiFrameworkService.DEFAULT_DEFERRED_START_TIMEOUT);
+            Assert.assertTrue(report.isFile(), "Startup timeline should be written");
+            List<?> bundles = (List<?>) service.getStartupTimeline().toMap().get("bundles");
+            Assert.assertTrue(bundles.size() >= 5, "All installed bundles should be recorded");
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void parserTestOk() throws Exception {
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
- * Portions Copyright 2018-2020 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 
 package org.forgerock.openidm.messaging;
@@ -61,8 +61,9 @@ import org.slf4j.LoggerFactory;
  * new Handler implementations will need to be added to this enum.
  *
  * <p>Each individual instance of a Subscriber is expected to manage a single connection between IDM
- * and the Messaging event channel. Increase the instanceCount in the configuration to increase
- * message consumption throughput.
+ * and the Messaging event channel. Increase the instanceCount in the configuration to open more
+ * connections, or the concurrentConsumers subscriber property to consume with more sessions on
+ * each connection, to increase message consumption throughput.
  *
  * <p>Each subscriber has an instance of a message handler. The handler is expected to process
  * the message and take all actions that the message represents.
@@ -87,6 +88,11 @@ import org.slf4j.LoggerFactory;
  *             },
  *             "properties": {
  *                 "sessionMode": "CLIENT",
+ *                 "concurrentConsumers": 4,
+ *                 "acknowledgeBatch": {
+ *                     "size": 100,
+ *                     "intervalMillis": 1000
+ *                 },
  *                 "jndi": {
  *                     "contextProperties": {
  *                         "java.naming.factory.initial": "org.apache.activemq.jndi.ActiveMQInitialContextFactory",
@@ -12,9 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.messaging.jms;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import jakarta.jms.Connection;
 import jakarta.jms.ExceptionListener;
 import jakarta.jms.JMSException;
@@ -37,15 +48,43 @@ import org.slf4j.LoggerFactory;
 /**
  * A MessageSubscriber that subscribes to JMS destinations.  JMS messages are acknowledged only if the handler doesn't
  * throw an exception.
+ * <p>
+ * The subscriber opens {@code concurrentConsumers} sessions on its connection, each with its own consumer, so that
+ * up to that many messages are handled in parallel.  In {@code CLIENT} session mode the acknowledgements can be
+ * batched with the {@code acknowledgeBatch} setting: a session acknowledges once {@code size} messages were handled
+ * or {@code intervalMillis} elapsed since the first unacknowledged one.  As mandated by JMS, an acknowledgement
+ * covers every message consumed by the session so far, including the ones the handler failed on.
+ * <pre>
+ * "properties" : {
+ *     "sessionMode" : "CLIENT",
+ *     "concurrentConsumers" : 4,
+ *     "acknowledgeBatch" : {
+ *         "size" : 100,
+ *         "intervalMillis" : 1000
+ *     },
+ *     "jndi" : { ... }
+ * }
+ * </pre>
+ * Consumption statistics are published as the {@code org.forgerock.openidm.messaging:type=Subscriber} MBean.
  */
 public class JmsMessageSubscriber extends MessageSubscriber<Message> {
     private static final Logger logger = LoggerFactory.getLogger(JmsMessageSubscriber.class);
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.messaging:type=Subscriber,name=";
+
     private final SessionModeConfig sessionMode;
     private final JndiConfiguration jndiConfiguration;
     private final String messageSelector;
+    private final int concurrentConsumers;
+    private final int batchSize;
+    private final long batchIntervalMillis;
 
-    private Session session;
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<BatchingListener> listeners = new ArrayList<>();
     private Connection connection;
+    private ScheduledExecutorService flushScheduler;
+    private JmsSubscriberStatistics statistics;
+    private ObjectName mbeanName;
 
     /**
      * Constructs a JMS Subscriber using the provided instance name and configuration.  The configuration is grabbed,
@@ -59,11 +98,32 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
         sessionMode = SessionModeConfig.valueOf(propertiesConfig.get("sessionMode").required().asString());
         messageSelector = propertiesConfig.get("messageSelector").asString();
         jndiConfiguration = new JndiConfiguration(propertiesConfig.get("jndi").required());
+        concurrentConsumers = propertiesConfig.get("concurrentConsumers").defaultTo(1).asInteger();
+        if (concurrentConsumers < 1) {
+            throw new InvalidException("concurrentConsumers must be at least 1 for subscriber " + name);
+        }
+        final JsonValue batch = propertiesConfig.get("acknowledgeBatch");
+        if (!batch.isNull() && SessionModeConfig.CLIENT != sessionMode) {
+            logger.warn("acknowledgeBatch of subscriber {} is ignored, it requires the CLIENT session mode", name);
+        }
+        batchSize = SessionModeConfig.CLIENT == sessionMode
+                ? Math.max(1, batch.get("size").defaultTo(1).asInteger())
+                : 1;
+        batchIntervalMillis = batch.get("intervalMillis").defaultTo(1000L).asLong();
+    }
+
+    /**
+     * Returns the consumption statistics of the current subscription.
+     *
+     * @return the statistics, or {@code null} when not subscribed.
+     */
+    public JmsSubscriberStatistics getStatistics() {
+        return statistics;
     }
 
     /**
      * Implemented to subscribe on the JNDI configured JMS destination (queue or topic).  Implemented to use a single
-     * connection and session.
+     * connection with {@code concurrentConsumers} sessions.
      *
      * @param messageHandler an instance of a JMS message handler.
      */
@@ -76,42 +136,35 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
             throw new InternalServerErrorException("Failure loading JNDI JMS Context configurations.", e);
         }
 
-
-
         try {
-            if (null != connection || null != session) {
+            if (null != connection || !sessions.isEmpty()) {
                 // in case there exists an old connection or session, lets unsubscribe those before creating new ones.
                 unsubscribe();
             }
 
+            statistics = new JmsSubscriberStatistics(concurrentConsumers);
             connection = contextManager.getConnectionFactory().createConnection();
             connection.setClientID(getName());
             connection.setExceptionListener(new SubscriptionExceptionListener(messageHandler));
-            session = connection.createSession(false, sessionMode.getMode());
-            session.createConsumer(contextManager.getDestination(), messageSelector)
-                    .setMessageListener(new MessageListener() {
-                        @Override
-                        public void onMessage(Message message) {
-                            String jmsMessageID = getMessageID(message);
-                            try {
-                                messageHandler.handleMessage(message);
-                                try {
-                                    logger.trace("JMS Message {} handled by {}", jmsMessageID, getName());
-                                    message.acknowledge();
-                                    logger.trace("JMS Message {} acknowledged by {}", jmsMessageID, getName());
-                                } catch (JMSException e) {
-                                    throw new InternalServerErrorException("Failure to acknowledge JMS message " +
-                                            jmsMessageID, e);
-                                }
-                            } catch (Exception e) {
-                                // if the handler throws an exception, the message won't be acknowledged.  This
-                                // leaves the message available to pick up later, by this or another subscriber.
-                                logger.error("Failure handling the JMS message {}.", jmsMessageID, e);
-                            }
-                        }
-                    });
+            for (int i = 0; i < concurrentConsumers; i++) {
+                final Session session = connection.createSession(false, sessionMode.getMode());
+                sessions.add(session);
+                final BatchingListener listener = new BatchingListener(messageHandler);
+                listeners.add(listener);
+                session.createConsumer(contextManager.getDestination(), messageSelector).setMessageListener(listener);
+            }
+            if (batchSize > 1 && batchIntervalMillis > 0) {
+                flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "JMS acknowledge " + getName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                flushScheduler.scheduleWithFixedDelay(this::flushExpired,
+                        batchIntervalMillis, batchIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+            registerMBean();
             connection.start();
-            logger.debug("JMSMessageSubscriber {} is subscribed", getName());
+            logger.debug("JMSMessageSubscriber {} is subscribed with {} consumers", getName(), concurrentConsumers);
         } catch (Exception e) {
             logger.error("Failure to create JMS subscription", e);
             unsubscribe();
@@ -129,19 +182,52 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
         return jmsMessageID;
     }
 
+    private long getTimestamp(Message message) {
+        try {
+            return message.getJMSTimestamp();
+        } catch (JMSException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Acknowledges the batches whose interval elapsed without reaching the batch size.
+     */
+    private void flushExpired() {
+        final List<BatchingListener> current;
+        synchronized (this) {
+            current = new ArrayList<>(listeners);
+        }
+        final long now = System.currentTimeMillis();
+        for (BatchingListener listener : current) {
+            listener.flush(now);
+        }
+    }
+
     /**
-     * Implemented to close the JMS session and connection associated with this instance.
+     * Implemented to close the JMS sessions and connection associated with this instance.  Pending batched
+     * acknowledgements are flushed first.
      */
     @Override
     public void unsubscribe() {
-        if (null != session) {
+        if (null != flushScheduler) {
+            flushScheduler.shutdownNow();
+            flushScheduler = null;
+        }
+        synchronized (this) {
+            for (BatchingListener listener : listeners) {
+                listener.flush(Long.MAX_VALUE);
+            }
+            listeners.clear();
+        }
+        for (Session session : sessions) {
             try {
                 session.close();
-                session = null;
             } catch (JMSException e) {
                 logger.error("Failure to close JMS session", e);
             }
         }
+        sessions.clear();
         if (null != connection) {
             try {
                 connection.close();
@@ -150,6 +236,99 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
                 logger.error("Failure to close JMS connection", e);
             }
         }
+        unregisterMBean();
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mbeanName = new ObjectName(MBEAN_NAME + ObjectName.quote(getName()));
+            if (mBeanServer.isRegistered(mbeanName)) {
+                mBeanServer.unregisterMBean(mbeanName);
+            }
+            mBeanServer.registerMBean(statistics, mbeanName);
+        } catch (Exception e) {
+            // statistics are informational, the subscription works without them
+            logger.warn("Failed to register JMS subscriber MBean for {}", getName(), e);
+            mbeanName = null;
+        }
+    }
+
+    private void unregisterMBean() {
+        if (null != mbeanName) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (Exception e) {
+                logger.warn("Failed to unregister JMS subscriber MBean for {}", getName(), e);
+            }
+            mbeanName = null;
+        }
+    }
+
+    /**
+     * Listener of a single session.  The JMS session delivers messages serially, the lock only guards against the
+     * interval flush running concurrently on the scheduler thread.
+     */
+    private class BatchingListener implements MessageListener {
+        private final MessageHandler<Message> messageHandler;
+        private Message lastHandled;
+        private int pending;
+        private long firstPendingAt;
+
+        BatchingListener(MessageHandler<Message> messageHandler) {
+            this.messageHandler = messageHandler;
+        }
+
+        @Override
+        public synchronized void onMessage(Message message) {
+            String jmsMessageID = getMessageID(message);
+            statistics.received(getTimestamp(message));
+            try {
+                messageHandler.handleMessage(message);
+                logger.trace("JMS Message {} handled by {}", jmsMessageID, getName());
+                statistics.handled();
+                if (pending++ == 0) {
+                    firstPendingAt = System.currentTimeMillis();
+                }
+                lastHandled = message;
+                if (pending >= batchSize) {
+                    acknowledge();
+                }
+            } catch (Exception e) {
+                // if the handler throws an exception, the message won't be acknowledged.  This
+                // leaves the message available to pick up later, by this or another subscriber.
+                statistics.failed();
+                logger.error("Failure handling the JMS message {}.", jmsMessageID, e);
+            }
+        }
+
+        /**
+         * Acknowledges the pending messages when the oldest one is due at the given time.
+         *
+         * @param now the current time in milliseconds, {@link Long#MAX_VALUE} to flush unconditionally.
+         */
+        synchronized void flush(long now) {
+            if (pending > 0 && now - firstPendingAt >= batchIntervalMillis) {
+                try {
+                    acknowledge();
+                } catch (InternalServerErrorException e) {
+                    logger.error("Failure to acknowledge JMS messages of {}", getName(), e);
+                }
+            }
+        }
+
+        private void acknowledge() throws InternalServerErrorException {
+            String jmsMessageID = getMessageID(lastHandled);
+            try {
+                lastHandled.acknowledge();
+                logger.trace("JMS Message {} acknowledged by {} with {} pending", jmsMessageID, getName(), pending);
+                statistics.acknowledged(pending);
+                pending = 0;
+                lastHandled = null;
+            } catch (JMSException e) {
+                throw new InternalServerErrorException("Failure to acknowledge JMS message " + jmsMessageID, e);
+            }
+        }
     }
 
     /**
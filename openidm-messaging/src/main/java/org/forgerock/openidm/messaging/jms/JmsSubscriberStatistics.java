@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.messaging.jms;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumption statistics of a {@link JmsMessageSubscriber}, shared by all of its consumers.
+ */
+public class JmsSubscriberStatistics implements JmsSubscriberStatisticsMBean {
+
+    private final int consumers;
+    private final long startNanoTime = System.nanoTime();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong acknowledgements = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    JmsSubscriberStatistics(int consumers) {
+        this.consumers = consumers;
+    }
+
+    /**
+     * Records the delivery of a message.
+     *
+     * @param jmsTimestamp the JMSTimestamp header of the message, or 0 when the producer disabled it.
+     */
+    void received(long jmsTimestamp) {
+        received.incrementAndGet();
+        if (jmsTimestamp > 0) {
+            final long lag = Math.max(0, System.currentTimeMillis() - jmsTimestamp);
+            lastLag.set(lag);
+            long max;
+            while (lag > (max = maxLag.get())) {
+                if (maxLag.compareAndSet(max, lag)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    void handled() {
+        handled.incrementAndGet();
+        pending.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void acknowledged(int messages) {
+        acknowledgements.incrementAndGet();
+        pending.addAndGet(-messages);
+    }
+
+    @Override
+    public int getConsumers() {
+        return consumers;
+    }
+
+    @Override
+    public long getReceived() {
+        return received.get();
+    }
+
+    @Override
+    public long getHandled() {
+        return handled.get();
+    }
+
+    @Override
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Override
+    public long getAcknowledgements() {
+        return acknowledgements.get();
+    }
+
+    @Override
+    public long getPendingAcknowledgements() {
+        return pending.get();
+    }
+
+    @Override
+    public long getLastLagMillis() {
+        return lastLag.get();
+    }
+
+    @Override
+    public long getMaxLagMillis() {
+        return maxLag.get();
+    }
+
+    @Override
+    public double getMessagesPerSecond() {
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanoTime);
+        return elapsed > 0 ? handled.get() * 1000d / elapsed : 0d;
+    }
+}
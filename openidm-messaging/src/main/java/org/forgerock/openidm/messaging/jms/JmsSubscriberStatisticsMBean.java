@@ -0,0 +1,76 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.messaging.jms;
+
+/**
+ * Provide JMX / MBean access to the consumption statistics of a JMS subscriber.
+ */
+public interface JmsSubscriberStatisticsMBean {
+
+    /**
+     * Gets the number of consumers (sessions) of the subscriber.
+     * @return the number of concurrent consumers.
+     */
+    int getConsumers();
+
+    /**
+     * Gets the number of messages delivered to the subscriber.
+     * @return the number of received messages.
+     */
+    long getReceived();
+
+    /**
+     * Gets the number of messages successfully processed by the handler.
+     * @return the number of handled messages.
+     */
+    long getHandled();
+
+    /**
+     * Gets the number of messages the handler failed to process.
+     * @return the number of failed messages.
+     */
+    long getFailed();
+
+    /**
+     * Gets the number of acknowledge calls issued; with batch acknowledgement each call covers several messages.
+     * @return the number of acknowledgements.
+     */
+    long getAcknowledgements();
+
+    /**
+     * Gets the number of handled messages which are not acknowledged yet.
+     * @return the number of pending acknowledgements.
+     */
+    long getPendingAcknowledgements();
+
+    /**
+     * Gets the delay between the message being sent and being received by the last delivered message.
+     * @return the consumer lag in milliseconds of the last message.
+     */
+    long getLastLagMillis();
+
+    /**
+     * Gets the largest delay between a message being sent and being received.
+     * @return the maximum consumer lag in milliseconds.
+     */
+    long getMaxLagMillis();
+
+    /**
+     * Gets the mean number of handled messages per second since the subscription started.
+     * @return the throughput in messages per second.
+     */
+    double getMessagesPerSecond();
+}
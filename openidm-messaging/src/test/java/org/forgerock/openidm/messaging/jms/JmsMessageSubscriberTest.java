@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.messaging.jms;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Destination;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageListener;
+import jakarta.jms.Session;
+import javax.naming.NamingException;
+import javax.naming.spi.InitialContextFactory;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.messaging.MessageHandler;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JmsMessageSubscriberTest {
+
+    private static ConnectionFactory connectionFactory;
+    private static Destination destination;
+
+    private Connection connection;
+    private List<MessageConsumer> consumers;
+
+    @SuppressWarnings("unchecked")
+    private final MessageHandler<Message> handler = mock(MessageHandler.class);
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connectionFactory = mock(ConnectionFactory.class);
+        destination = mock(Destination.class);
+        connection = mock(Connection.class);
+        consumers = new ArrayList<>();
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(anyBoolean(), anyInt())).thenAnswer(invocation -> {
+            Session session = mock(Session.class);
+            MessageConsumer consumer = mock(MessageConsumer.class);
+            consumers.add(consumer);
+            when(session.createConsumer(any(Destination.class), ArgumentMatchers.<String>any())).thenReturn(consumer);
+            return session;
+        });
+    }
+
+    private JsonValue config(Object... properties) {
+        JsonValue config = json(object(
+                field("sessionMode", "CLIENT"),
+                field("jndi", object(
+                        field("contextProperties", object(
+                                field("java.naming.factory.initial", TestContextFactory.class.getName()))),
+                        field("destinationName", "testQ"),
+                        field("connectionFactoryName", "TestFactory")))));
+        for (int i = 0; i < properties.length; i += 2) {
+            config.put((String) properties[i], properties[i + 1]);
+        }
+        return config;
+    }
+
+    private MessageListener listener(int index) throws Exception {
+        ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(consumers.get(index)).setMessageListener(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void testConcurrentConsumers() throws Exception {
+        JmsMessageSubscriber subscriber = new JmsMessageSubscriber("concurrent", config("concurrentConsumers", 3));
+        subscriber.subscribe(handler);
+        try {
+            verify(connection, times(3)).createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            assertThat(consumers).hasSize(3);
+            for (int i = 0; i < 3; i++) {
+                Message message = mock(Message.class);
+                listener(i).onMessage(message);
+                verify(message).acknowledge();
+            }
+            assertThat(subscriber.getStatistics().getHandled()).isEqualTo(3);
+            assertThat(subscriber.getStatistics().getAcknowledgements()).isEqualTo(3);
+        } finally {
+            subscriber.unsubscribe();
+        }
+    }
+
+    @Test
+    public void testBatchAcknowledgement() throws Exception {
+        JmsMessageSubscriber subscriber = new JmsMessageSubscriber("batch",
+                config("acknowledgeBatch", object(field("size", 3), field("intervalMillis", 60000))));
+        subscriber.subscribe(handler);
+        MessageListener listener = listener(0);
+        Message[] messages = new Message[5];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = mock(Message.class);
+            when(messages[i].getJMSTimestamp()).thenReturn(System.currentTimeMillis());
+            listener.onMessage(messages[i]);
+        }
+
+        verify(messages[0], never()).acknowledge();
+        verify(messages[2]).acknowledge();
+        verify(messages[4], never()).acknowledge();
+        assertThat(subscriber.getStatistics().getReceived()).isEqualTo(5);
+        assertThat(subscriber.getStatistics().getPendingAcknowledgements()).isEqualTo(2);
+
+        // the remaining messages are acknowledged when unsubscribing
+        subscriber.unsubscribe();
+        verify(messages[4]).acknowledge();
+    }
+
+    @Test
+    public void testBatchAcknowledgementInterval() throws Exception {
+        JmsMessageSubscriber subscriber = new JmsMessageSubscriber("interval",
+                config("acknowledgeBatch", object(field("size", 100), field("intervalMillis", 50))));
+        subscriber.subscribe(handler);
+        try {
+            Message message = mock(Message.class);
+            listener(0).onMessage(message);
+            verify(message, timeout(5000)).acknowledge();
+        } finally {
+            subscriber.unsubscribe();
+        }
+    }
+
+    /**
+     * A context factory returning the mocked connection factory and destination.
+     */
+    public static class TestContextFactory implements InitialContextFactory {
+
+        @Override
+        public javax.naming.Context getInitialContext(Hashtable<?, ?> environment) throws NamingException {
+            javax.naming.Context context = mock(javax.naming.Context.class);
+            when(context.lookup(matches("TestFactory"))).thenReturn(connectionFactory);
+            when(context.lookup(matches("testQ"))).thenReturn(destination);
+            return context;
+        }
+    }
+}
@@ -0,0 +1,627 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.policy;
+
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.openidm.policy.PolicyEvaluation.UNDEFINED;
+import static org.forgerock.openidm.policy.PolicyEvaluation.getProperty;
+import static org.forgerock.openidm.policy.PolicyEvaluation.isNonEmptyString;
+import static org.forgerock.openidm.policy.PolicyEvaluation.isRequired;
+import static org.forgerock.openidm.policy.PolicyEvaluation.typeOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+
+/**
+ * The built-in policies of the policy script, evaluated natively with the same results.
+ * <p>
+ * Each policy reproduces the JavaScript semantics of its script function for the values it is commonly given. For
+ * any other value, or parameter, it throws a {@link ScriptRequiredException} so that the script evaluates the
+ * request instead.
+ */
+enum BuiltInPolicy {
+
+    REQUIRED("required", false) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            return value == UNDEFINED ? failure("REQUIRED") : PASSED;
+        }
+    },
+
+    NOT_EMPTY("not-empty", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            if (value instanceof Map) {
+                throw new ScriptRequiredException("Length of an object");
+            }
+            final boolean hasLength = (value instanceof String && !((String) value).isEmpty())
+                    || (value instanceof List && !((List<?>) value).isEmpty());
+            return value != UNDEFINED && !hasLength ? failure("REQUIRED") : PASSED;
+        }
+    },
+
+    MAX_ATTEMPTS_TRIGGERS_LOCK_COOLDOWN("max-attempts-triggers-lock-cooldown", false) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            if (!params.get("max").isNumber() || !params.get("numMinutes").isNumber()
+                    || !params.get("dateTimeField").isString()) {
+                throw new ScriptRequiredException("Lock cooldown parameters");
+            }
+            return null;
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            if (value == UNDEFINED) {
+                return PASSED;
+            } else if (!(value instanceof Number)) {
+                throw new ScriptRequiredException("Attempts are not a number");
+            } else if (((Number) value).doubleValue() <= params.get("max").asDouble()) {
+                return PASSED;
+            }
+            final Object lastFailed =
+                    getProperty(evaluation.getFullObject(), params.get("dateTimeField").asString());
+            final long lastFailedTime;
+            if (lastFailed == UNDEFINED) {
+                // an invalid date never locks
+                return PASSED;
+            } else if (lastFailed instanceof String) {
+                lastFailedTime = PolicyEvaluation.parseIsoDate((String) lastFailed);
+            } else if (lastFailed instanceof Number) {
+                lastFailedTime = ((Number) lastFailed).longValue();
+            } else {
+                throw new ScriptRequiredException("Last failed date is not a date");
+            }
+            if (lastFailedTime + 60000 * params.get("numMinutes").asDouble() > System.currentTimeMillis()) {
+                final Map<String, Object> requirementParams = new LinkedHashMap<>();
+                requirementParams.put("max", params.get("max").getObject());
+                requirementParams.put("numMinutes", params.get("numMinutes").getObject());
+                return failure("NO_MORE_THAN_X_ATTEMPTS_WITHIN_Y_MINUTES", requirementParams);
+            }
+            return PASSED;
+        }
+    },
+
+    UNIQUE("unique", false) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed)
+                throws ResourceException, ScriptRequiredException {
+            if (!hasLength(value) || params.get("repoEnforced").defaultTo(false).asBoolean()) {
+                // a unique index of the repository rejects the taken values as the object is written
+                return PASSED;
+            }
+            final ResourcePath resourcePath = evaluation.getRequest().getResourcePathObject();
+            if (resourcePath.isEmpty()) {
+                throw new ScriptRequiredException("Unique value of an empty path");
+            }
+            final String filter = property + " eq \"" + ((String) value).replace("\"", "\\\"") + "\"";
+            final QueryRequest request;
+            try {
+                request = newQueryRequest(resourcePath.parent()).setQueryFilter(QueryFilters.parse(filter));
+            } catch (IllegalArgumentException e) {
+                throw new ScriptRequiredException("Unique query filter not parsed");
+            }
+            return isTaken(evaluation, request, resourcePath.leaf()) ? failure("UNIQUE") : PASSED;
+        }
+    },
+
+    NO_INTERNAL_USER_CONFLICT("no-internal-user-conflict", false) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed)
+                throws ResourceException, ScriptRequiredException {
+            if (!hasLength(value)) {
+                return PASSED;
+            }
+            final ResourcePath resourcePath = evaluation.getRequest().getResourcePathObject();
+            final QueryRequest request = newQueryRequest("repo/internal/user")
+                    .setQueryId("credential-internaluser-query")
+                    .setAdditionalParameter("username", (String) value);
+            return isTaken(evaluation, request, resourcePath.isEmpty() ? null : resourcePath.leaf())
+                    ? failure("UNIQUE")
+                    : PASSED;
+        }
+    },
+
+    REGEXP_MATCHES("regexpMatches", false) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            final JsonValue flags = params.get("flags");
+            if (!params.get("regexp").isString() || !(flags.isNull() || flags.isString())) {
+                throw new ScriptRequiredException("Regular expression parameters");
+            }
+            return compileRegExp(params.get("regexp").asString(), flags.asString());
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            if (value instanceof Number) {
+                value = PolicyEvaluation.numberToString((Number) value);
+            }
+            final boolean nonEmptyString = isNonEmptyString(value);
+            if ((isRequired(failed) || nonEmptyString)
+                    && !(nonEmptyString && ((JsRegExp) compiled).test((String) value))) {
+                final Map<String, Object> requirement = requirement("MATCH_REGEXP");
+                requirement.put("regexp", params.get("regexp").getObject());
+                requirement.put("params", params.getObject());
+                if (params.isDefined("flags")) {
+                    requirement.put("flags", params.get("flags").getObject());
+                }
+                return Collections.singletonList(requirement);
+            }
+            return PASSED;
+        }
+    },
+
+    VALID_TYPE("valid-type", false) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            if (!params.get("types").isList()) {
+                throw new ScriptRequiredException("Valid types are not an array");
+            }
+            return null;
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            final String type = typeOf(value);
+            if (value != UNDEFINED && !params.get("types").asList().contains(type)) {
+                final Map<String, Object> requirementParams = new LinkedHashMap<>();
+                requirementParams.put("invalidType", type);
+                requirementParams.put("validTypes", params.get("types").getObject());
+                return failure("VALID_TYPE", requirementParams);
+            }
+            return PASSED;
+        }
+    },
+
+    VALID_DATE("valid-date", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            final boolean nonEmptyString = isNonEmptyString(value);
+            if ((isRequired(failed) || nonEmptyString)
+                    && !(nonEmptyString && PolicyEvaluation.isValidDate((String) value))) {
+                return failure("VALID_DATE");
+            }
+            return PASSED;
+        }
+    },
+
+    VALID_EMAIL_ADDRESS_FORMAT("valid-email-address-format", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            return matchFormat(EMAIL_FORMAT, value, failed, "VALID_EMAIL_ADDRESS_FORMAT");
+        }
+    },
+
+    VALID_NAME_FORMAT("valid-name-format", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            return matchFormat(NAME_FORMAT, value, failed, "VALID_NAME_FORMAT");
+        }
+    },
+
+    VALID_PHONE_FORMAT("valid-phone-format", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            return matchFormat(PHONE_FORMAT, value, failed, "VALID_PHONE_FORMAT");
+        }
+    },
+
+    AT_LEAST_X_CAPITALS("at-least-X-capitals", true) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            return numberParam(params, "numCaps");
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            // the script counts the characters of the class [(A-Z)]
+            return countCharacters(value, failed, params, "numCaps", "()", 'A', 'Z',
+                    "AT_LEAST_X_CAPITAL_LETTERS");
+        }
+    },
+
+    AT_LEAST_X_NUMBERS("at-least-X-numbers", true) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            return numberParam(params, "numNums");
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            return countCharacters(value, failed, params, "numNums", "", '0', '9', "AT_LEAST_X_NUMBERS");
+        }
+    },
+
+    MINIMUM_LENGTH("minimum-length", true) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            return numberParam(params, "minLength");
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            final boolean nonEmptyString = isNonEmptyString(value);
+            if ((isRequired(failed) || nonEmptyString)
+                    && !(nonEmptyString && ((String) value).length() >= (Double) compiled)) {
+                return failure("MIN_LENGTH", singletonParams("minLength", params.get("minLength").getObject()));
+            }
+            return PASSED;
+        }
+    },
+
+    CANNOT_CONTAIN_OTHERS("cannot-contain-others", true) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            final JsonValue disallowedFields = params.get("disallowedFields");
+            if (disallowedFields.isString()) {
+                // legacy csv support
+                return Arrays.asList(disallowedFields.asString().split(",", -1));
+            }
+            return stringsParam(params, "disallowedFields");
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed)
+                throws ResourceException, ScriptRequiredException {
+            final Object serverObject = evaluation.getServerObject();
+            if (!isNonEmptyString(value)) {
+                return PASSED;
+            }
+            final Object fullObject = evaluation.getFullObject();
+            if (!(fullObject instanceof Map)) {
+                throw new ScriptRequiredException("Validated object is not an object");
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> fullMap = (Map<String, Object>) fullObject;
+            @SuppressWarnings("unchecked")
+            final List<String> disallowedFields = (List<String>) compiled;
+            for (String field : disallowedFields) {
+                if (getProperty(fullMap, field) == UNDEFINED) {
+                    final Object serverValue = getProperty(serverObject, field);
+                    if (serverValue != UNDEFINED) {
+                        fullMap.put(field, serverValue);
+                    }
+                }
+                final Object other = fullMap.get(field);
+                if (other instanceof String && compileRegExp((String) other, null).test((String) value)) {
+                    return failure("CANNOT_CONTAIN_OTHERS", singletonParams("disallowedFields", field));
+                }
+            }
+            return PASSED;
+        }
+    },
+
+    CANNOT_CONTAIN_CHARACTERS("cannot-contain-characters", true) {
+        @Override
+        Object compile(JsonValue params) throws ScriptRequiredException {
+            return stringsParam(params, "forbiddenChars");
+        }
+
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) {
+            if (isNonEmptyString(value)) {
+                @SuppressWarnings("unchecked")
+                final List<String> forbiddenChars = (List<String>) compiled;
+                for (String forbiddenChar : forbiddenChars) {
+                    if (((String) value).contains(forbiddenChar)) {
+                        final StringBuilder joined = new StringBuilder();
+                        for (String c : forbiddenChars) {
+                            joined.append(joined.length() > 0 ? ", " : "").append(c);
+                        }
+                        return failure("CANNOT_CONTAIN_CHARACTERS",
+                                singletonParams("forbiddenChars", joined.toString()));
+                    }
+                }
+            }
+            return PASSED;
+        }
+    },
+
+    CANNOT_CONTAIN_DUPLICATES("cannot-contain-duplicates", true) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed) throws ScriptRequiredException {
+            final List<Object> values = new ArrayList<>();
+            if (value instanceof String) {
+                for (char c : ((String) value).toCharArray()) {
+                    values.add(String.valueOf(c));
+                }
+            } else if (value instanceof List) {
+                values.addAll((List<?>) value);
+            } else if (value instanceof Map) {
+                throw new ScriptRequiredException("Duplicates of an object");
+            }
+            final Set<Object> checked = new HashSet<>();
+            for (Object element : values) {
+                if (!(element instanceof String)) {
+                    throw new ScriptRequiredException("Duplicates of values other than strings");
+                } else if (!checked.add(element)) {
+                    return failure("CANNOT_CONTAIN_DUPLICATES", singletonParams("duplicateValue", element));
+                }
+            }
+            return PASSED;
+        }
+    },
+
+    MAPPING_EXISTS("mapping-exists", false) {
+        @Override
+        List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+                Object compiled, String property, List<Map<String, Object>> failed)
+                throws ResourceException, ScriptRequiredException {
+            final Object syncConfig = evaluation.getSyncConfig();
+            if (syncConfig != null) {
+                final Object mappings = getProperty(syncConfig, "mappings");
+                if (!(mappings instanceof List)) {
+                    throw new ScriptRequiredException("Mappings are not an array");
+                }
+                for (Object mapping : (List<?>) mappings) {
+                    if (value instanceof String && value.equals(getProperty(mapping, "name"))) {
+                        return PASSED;
+                    }
+                }
+            }
+            return failure("MAPPING_EXISTS");
+        }
+    };
+
+    private static final List<Map<String, Object>> PASSED = Collections.emptyList();
+
+    private static final JsRegExp EMAIL_FORMAT = JsRegExp.compile(".+@.+\\..+", "i");
+
+    private static final JsRegExp NAME_FORMAT = JsRegExp.compile("^([A-Za'-\\u0105\\u0107\\u0119\\u0142\\u00F3"
+            + "\\u015B\\u017C\\u017A\\u0104\\u0106\\u0118\\u0141\\u00D3\\u015A\\u017B\\u0179\\u00C0\\u00C8\\u00CC"
+            + "\\u00D2\\u00D9\\u00E0\\u00E8\\u00EC\\u00F2\\u00F9\\u00C1\\u00C9\\u00CD\\u00D3\\u00DA\\u00DD\\u00E1"
+            + "\\u00E9\\u00ED\\u00F3\\u00FA\\u00FD\\u00C2\\u00CA\\u00CE\\u00D4\\u00DB\\u00E2\\u00EA\\u00EE\\u00F4"
+            + "\\u00FB\\u00C3\\u00D1\\u00D5\\u00E3\\u00F1\\u00F5\\u00C4\\u00CB\\u00CF\\u00D6\\u00DC\\u0178\\u00E4"
+            + "\\u00EB\\u00EF\\u00F6\\u00FC\\u0178\\u00A1\\u00BF\\u00E7\\u00C7\\u0152\\u0153\\u00DF\\u00D8\\u00F8"
+            + "\\u00C5\\u00E5\\u00C6\\u00E6\\u00DE\\u00FE\\u00D0\\u00F0\\-\\s])+$", null);
+
+    private static final JsRegExp PHONE_FORMAT = JsRegExp.compile("^\\+?([0-9\\- \\(\\)])*$", null);
+
+    /** The compiled regular expressions of the cannot-contain-others policy, which change with the values. */
+    private static final Map<String, JsRegExp> DYNAMIC_REGEXPS = new ConcurrentHashMap<>();
+
+    private static final int MAX_DYNAMIC_REGEXPS = 1000;
+
+    private static final Map<String, BuiltInPolicy> POLICIES = new HashMap<>();
+
+    static {
+        for (BuiltInPolicy policy : values()) {
+            POLICIES.put(policy.policyId, policy);
+        }
+    }
+
+    private final String policyId;
+    private final boolean validateOnlyIfPresent;
+
+    BuiltInPolicy(String policyId, boolean validateOnlyIfPresent) {
+        this.policyId = policyId;
+        this.validateOnlyIfPresent = validateOnlyIfPresent;
+    }
+
+    /**
+     * @param policyId a policy id
+     * @return the built-in policy of the id, or null if the policy is not built-in
+     */
+    static BuiltInPolicy forId(String policyId) {
+        return POLICIES.get(policyId);
+    }
+
+    /**
+     * @return the id of the policy
+     */
+    String getPolicyId() {
+        return policyId;
+    }
+
+    /**
+     * @return whether the policy is not validated if the property is missing
+     */
+    boolean isValidateOnlyIfPresent() {
+        return validateOnlyIfPresent;
+    }
+
+    /**
+     * Checks the parameters of the policy and precomputes what the validation needs.
+     *
+     * @param params the parameters of the policy
+     * @return what the validation needs, or null
+     * @throws ScriptRequiredException if the parameters are not supported natively
+     */
+    Object compile(JsonValue params) throws ScriptRequiredException {
+        return null;
+    }
+
+    /**
+     * Validates a value of a property.
+     *
+     * @param evaluation the evaluation of the request
+     * @param value the value, {@link PolicyEvaluation#UNDEFINED} if the property is missing
+     * @param params the parameters of the policy
+     * @param compiled what {@link #compile(JsonValue)} returned
+     * @param property the property name
+     * @param failed the requirements the property failed so far
+     * @return the failed requirements, empty if the value passes
+     * @throws ResourceException if a resource could not be read or queried
+     * @throws ScriptRequiredException if the value is not supported natively
+     */
+    abstract List<Map<String, Object>> validate(PolicyEvaluation evaluation, Object value, JsonValue params,
+            Object compiled, String property, List<Map<String, Object>> failed)
+            throws ResourceException, ScriptRequiredException;
+
+    private static Map<String, Object> requirement(String policyRequirement) {
+        final Map<String, Object> requirement = new LinkedHashMap<>();
+        requirement.put("policyRequirement", policyRequirement);
+        return requirement;
+    }
+
+    private static List<Map<String, Object>> failure(String policyRequirement) {
+        return Collections.singletonList(requirement(policyRequirement));
+    }
+
+    private static List<Map<String, Object>> failure(String policyRequirement, Map<String, Object> params) {
+        final Map<String, Object> requirement = requirement(policyRequirement);
+        requirement.put("params", params);
+        return Collections.singletonList(requirement);
+    }
+
+    private static Map<String, Object> singletonParams(String name, Object value) {
+        final Map<String, Object> params = new LinkedHashMap<>();
+        params.put(name, value);
+        return params;
+    }
+
+    /**
+     * Tests the JavaScript condition {@code value && value.length} of the unique policies.
+     *
+     * @param value a value
+     * @return true if the value is a non empty string, false if the value is falsy or has no length
+     * @throws ScriptRequiredException if the value has a length but is not a string
+     */
+    private static boolean hasLength(Object value) throws ScriptRequiredException {
+        if (value instanceof Map || (value instanceof List && !((List<?>) value).isEmpty())) {
+            throw new ScriptRequiredException("Unique value is not a string");
+        }
+        return isNonEmptyString(value);
+    }
+
+    /**
+     * Queries whether another resource than the requested one has the value.
+     *
+     * @param evaluation the evaluation of the request
+     * @param request the query of the resources with the value
+     * @param requestId the id of the requested resource, or null
+     * @return whether the first resource found is another resource
+     * @throws ResourceException if the query failed
+     */
+    private static boolean isTaken(PolicyEvaluation evaluation, QueryRequest request, String requestId)
+            throws ResourceException {
+        final List<String> existing = new ArrayList<>(1);
+        evaluation.getConnectionFactory().getConnection().query(evaluation.getContext(), request,
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse resource) {
+                        existing.add(resource.getId() != null ? resource.getId()
+                                : resource.getContent().get("_id").asString());
+                        return false;
+                    }
+                });
+        return !existing.isEmpty() && (requestId == null || requestId.isEmpty() || !requestId.equals(existing.get(0)));
+    }
+
+    private static List<Map<String, Object>> matchFormat(JsRegExp format, Object value,
+            List<Map<String, Object>> failed, String policyRequirement) throws ScriptRequiredException {
+        final boolean nonEmptyString = isNonEmptyString(value);
+        if ((isRequired(failed) || nonEmptyString) && !(nonEmptyString && format.test((String) value))) {
+            return failure(policyRequirement);
+        }
+        return PASSED;
+    }
+
+    private static List<Map<String, Object>> countCharacters(Object value, List<Map<String, Object>> failed,
+            JsonValue params, String param, String others, char from, char to, String policyRequirement) {
+        final boolean nonEmptyString = isNonEmptyString(value);
+        int count = 0;
+        if (nonEmptyString) {
+            for (char c : ((String) value).toCharArray()) {
+                if ((c >= from && c <= to) || others.indexOf(c) != -1) {
+                    count++;
+                }
+            }
+        }
+        if ((isRequired(failed) || nonEmptyString)
+                && !(count > 0 && count >= params.get(param).asDouble())) {
+            return failure(policyRequirement, singletonParams(param, params.get(param).getObject()));
+        }
+        return PASSED;
+    }
+
+    private static Object numberParam(JsonValue params, String param) throws ScriptRequiredException {
+        if (!params.get(param).isNumber()) {
+            throw new ScriptRequiredException("Parameter " + param + " is not a number");
+        }
+        return params.get(param).asDouble();
+    }
+
+    private static List<String> stringsParam(JsonValue params, String param) throws ScriptRequiredException {
+        if (!params.get(param).isList()) {
+            throw new ScriptRequiredException("Parameter " + param + " is not an array");
+        }
+        final List<String> strings = new ArrayList<>();
+        for (JsonValue string : params.get(param)) {
+            if (!string.isString()) {
+                throw new ScriptRequiredException("Parameter " + param + " has values other than strings");
+            }
+            strings.add(string.asString());
+        }
+        return strings;
+    }
+
+    /**
+     * Compiles a JavaScript regular expression, caching the expressions of the values of other properties.
+     *
+     * @param source the source of the expression
+     * @param flags the flags of the expression, or null
+     * @return the compiled expression
+     * @throws ScriptRequiredException if the expression cannot be translated
+     */
+    private static JsRegExp compileRegExp(String source, String flags) throws ScriptRequiredException {
+        JsRegExp regExp = flags == null ? DYNAMIC_REGEXPS.get(source) : null;
+        if (regExp == null) {
+            regExp = JsRegExp.compile(source, flags);
+            if (regExp == null) {
+                throw new ScriptRequiredException("Regular expression not translated");
+            }
+            if (flags == null && DYNAMIC_REGEXPS.size() < MAX_DYNAMIC_REGEXPS) {
+                DYNAMIC_REGEXPS.put(source, regExp);
+            }
+        }
+        return regExp;
+    }
+}
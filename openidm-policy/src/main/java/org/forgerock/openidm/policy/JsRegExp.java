@@ -0,0 +1,211 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.policy;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A JavaScript regular expression compiled to a Java {@link Pattern} matching the same strings.
+ * <p>
+ * Only the syntax both engines share is translated. Where the engines may still disagree, on line terminators and
+ * on the case or word boundaries of non-ASCII characters, {@link #test(String)} requires the script to be run.
+ */
+final class JsRegExp {
+
+    /** The characters matched by the JavaScript {@code \s} class. */
+    static final String JS_SPACES = "\\t\\n\\x0B\\f\\r \\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F"
+            + "\\u3000\\uFEFF";
+
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+    private final Pattern pattern;
+    private final boolean asciiOnly;
+
+    private JsRegExp(Pattern pattern, boolean asciiOnly) {
+        this.pattern = pattern;
+        this.asciiOnly = asciiOnly;
+    }
+
+    /**
+     * Compiles a JavaScript regular expression.
+     *
+     * @param source the source of the expression
+     * @param flags the flags of the expression, or null
+     * @return the compiled expression, or null if it uses a syntax or flag which is not translated
+     */
+    static JsRegExp compile(String source, String flags) {
+        int javaFlags = 0;
+        boolean asciiOnly = false;
+        if (flags != null) {
+            for (int i = 0; i < flags.length(); i++) {
+                final char flag = flags.charAt(i);
+                if (flags.indexOf(flag) != i) {
+                    return null;
+                } else if (flag == 'i') {
+                    javaFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                    asciiOnly = true;
+                } else if (flag == 'm') {
+                    javaFlags |= Pattern.MULTILINE;
+                } else if (flag != 'g') {
+                    // a test starts from the beginning with or without the g flag
+                    return null;
+                }
+            }
+        }
+
+        final StringBuilder java = new StringBuilder(source.length() + 16);
+        boolean inClass = false;
+        boolean quantified = false;
+        for (int i = 0; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if (c == '\\') {
+                if (++i == source.length()) {
+                    return null;
+                }
+                final char escaped = source.charAt(i);
+                switch (escaped) {
+                case 's':
+                    java.append(inClass ? JS_SPACES : "[" + JS_SPACES + "]");
+                    break;
+                case 'S':
+                    if (inClass) {
+                        return null;
+                    }
+                    java.append("[^").append(JS_SPACES).append(']');
+                    break;
+                case 'b':
+                case 'B':
+                    if (inClass) {
+                        // a backspace in a JavaScript class
+                        return null;
+                    }
+                    java.append('\\').append(escaped);
+                    asciiOnly = true;
+                    break;
+                case 'v':
+                    java.append("\\x0B");
+                    break;
+                case '0':
+                    if (i + 1 < source.length() && Character.isDigit(source.charAt(i + 1))) {
+                        return null;
+                    }
+                    java.append("\\x00");
+                    break;
+                case 'x':
+                    if (!isHex(source, i + 1, 2)) {
+                        return null;
+                    }
+                    java.append("\\x");
+                    break;
+                case 'u':
+                    if (!isHex(source, i + 1, 4)) {
+                        return null;
+                    }
+                    java.append("\\u");
+                    break;
+                case 'd':
+                case 'D':
+                case 'w':
+                case 'W':
+                case 't':
+                case 'n':
+                case 'r':
+                case 'f':
+                case 'c':
+                    java.append('\\').append(escaped);
+                    break;
+                default:
+                    if (Character.isLetter(escaped) || (inClass && Character.isDigit(escaped))) {
+                        return null;
+                    }
+                    java.append('\\').append(escaped);
+                    break;
+                }
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    java.append(c);
+                } else if (c == '[' || c == '&') {
+                    // nested classes and intersections are Java only
+                    java.append('\\').append(c);
+                } else {
+                    java.append(c);
+                }
+            } else if (c == '[') {
+                int next = i + 1;
+                if (next < source.length() && source.charAt(next) == '^') {
+                    next++;
+                }
+                if (next >= source.length() || source.charAt(next) == ']') {
+                    // [] and [^] have no Java equivalent
+                    return null;
+                }
+                inClass = true;
+                java.append(source, i, next);
+                i = next - 1;
+            } else if (c == '(' && i + 1 < source.length() && source.charAt(i + 1) == '?') {
+                if (i + 2 >= source.length() || ":=!".indexOf(source.charAt(i + 2)) == -1) {
+                    return null;
+                }
+                java.append(c);
+            } else if (c == '+' && quantified) {
+                // a possessive quantifier in Java
+                return null;
+            } else {
+                java.append(c);
+            }
+            quantified = !inClass && "*+?}".indexOf(c) != -1 && !(c == '?' && quantified);
+        }
+        if (inClass) {
+            return null;
+        }
+        try {
+            return new JsRegExp(Pattern.compile(java.toString(), javaFlags), asciiOnly);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static boolean isHex(String source, int start, int count) {
+        if (start + count > source.length()) {
+            return false;
+        }
+        for (int i = start; i < start + count; i++) {
+            if (Character.digit(source.charAt(i), 16) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether the expression matches a part of the value, as {@code RegExp.test} does.
+     *
+     * @param value the value to test
+     * @return whether the expression matches
+     * @throws ScriptRequiredException if the engines may disagree on the value
+     */
+    boolean test(String value) throws ScriptRequiredException {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (LINE_TERMINATORS.indexOf(c) != -1 || (asciiOnly && c > 0x7F)) {
+                throw new ScriptRequiredException("Value not matched alike by the JavaScript expression");
+            }
+        }
+        return pattern.matcher(value).find();
+    }
+}
@@ -0,0 +1,570 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.policy;
+
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.openidm.policy.PolicyEvaluation.UNDEFINED;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.services.context.Context;
+
+/**
+ * Evaluates the {@code validateObject} and {@code validateProperty} policy actions natively, with the results of the
+ * policy script.
+ * <p>
+ * The policies of a resource are merged from the configured resources and the managed object schema as the script
+ * does, and compiled once to a plan, which is cached until {@link #invalidate()} is called. A resource whose policies
+ * include a custom or conditional policy, or a value the built-in policies do not support natively, is evaluated by
+ * the script, which the evaluation signals with a {@link ScriptRequiredException}.
+ */
+final class PolicyEngine {
+
+    static final String ACTION_VALIDATE_OBJECT = "validateObject";
+    static final String ACTION_VALIDATE_PROPERTY = "validateProperty";
+
+    private static final String MANAGED = "managed";
+
+    /** Bounds the plans cached for the resource paths of the requests. */
+    private static final int MAX_PLANS = 1000;
+
+    private static final Pattern INTEGER = Pattern.compile("\\s*([+-]?\\d{1,15})");
+
+    private static final Pattern HEXADECIMAL = Pattern.compile("\\s*[+-]?0[xX]");
+
+    /** A policy of a property, with its precomputed parameters. */
+    private static final class PolicyCall {
+        private final BuiltInPolicy policy;
+        private final JsonValue params;
+        private final Object compiled;
+
+        private PolicyCall(BuiltInPolicy policy, JsonValue params) throws ScriptRequiredException {
+            this.policy = policy;
+            this.params = params;
+            this.compiled = policy.compile(params);
+        }
+    }
+
+    /** The policies of a property. */
+    private static final class PropertyPlan {
+        private final String name;
+        private final String[] path;
+        private final boolean arrayElements;
+        private final List<PolicyCall> calls;
+
+        private PropertyPlan(String name, List<PolicyCall> calls) {
+            this.name = name;
+            this.path = name.split("/", -1);
+            for (int i = 0; i < path.length; i++) {
+                if (path[i].endsWith("[*]")) {
+                    path[i] = path[i].substring(0, path[i].length() - 3);
+                }
+            }
+            this.arrayElements = name.endsWith("[*]");
+            this.calls = calls;
+        }
+
+        private Object getValue(Object object) throws ScriptRequiredException {
+            if (object == null) {
+                return null;
+            }
+            for (String property : path) {
+                object = PolicyEvaluation.getProperty(object, property);
+                if (object == UNDEFINED || object == null) {
+                    return object;
+                }
+            }
+            return object;
+        }
+    }
+
+    /** The policies of a resource, or why the script must evaluate them. */
+    private static final class ResourcePlan {
+        private final List<PropertyPlan> properties;
+        private final String scriptReason;
+
+        private ResourcePlan(List<PropertyPlan> properties, String scriptReason) {
+            this.properties = properties;
+            this.scriptReason = scriptReason;
+        }
+
+        private PropertyPlan getProperty(String name) {
+            for (PropertyPlan property : properties) {
+                if (property.name.equals(name)) {
+                    return property;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final JsonValue resources;
+    private final List<String[]> resourcePaths = new ArrayList<>();
+    private final String configurationError;
+
+    private final ConcurrentMap<String, ResourcePlan> plans = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates the engine of the configured resources.
+     *
+     * @param resources the resources of the policy configuration
+     */
+    PolicyEngine(JsonValue resources) {
+        this.resources = resources.copy();
+        String error = null;
+        if (!resources.isList()) {
+            error = "Resources are not an array";
+        } else {
+            for (JsonValue resource : resources) {
+                if (!resource.get("resource").isString()) {
+                    error = "Resource path is not a string";
+                    break;
+                }
+                resourcePaths.add(resource.get("resource").asString().split("/", -1));
+            }
+        }
+        configurationError = error;
+    }
+
+    /**
+     * Clears the cached plans, whose managed object schema has changed.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        plans.clear();
+    }
+
+    /**
+     * Evaluates a policy action.
+     *
+     * @param context the context of the request
+     * @param request the validateObject or validateProperty request
+     * @param connectionFactory the connection factory to read and query resources with
+     * @return the result and failed policy requirements
+     * @throws ResourceException if a resource could not be read or queried
+     * @throws ScriptRequiredException if the request must be evaluated by the script
+     */
+    JsonValue validate(Context context, ActionRequest request, ConnectionFactory connectionFactory)
+            throws ResourceException, ScriptRequiredException {
+        final String action = request.getAction();
+        if (!ACTION_VALIDATE_OBJECT.equals(action) && !ACTION_VALIDATE_PROPERTY.equals(action)) {
+            throw new ScriptRequiredException("Unsupported action " + action);
+        }
+        final ResourcePlan plan = getPlan(context, request.getResourcePath(), connectionFactory);
+        if (plan.scriptReason != null) {
+            throw new ScriptRequiredException(plan.scriptReason);
+        }
+
+        final PolicyEvaluation evaluation = new PolicyEvaluation(context, request, connectionFactory);
+        final List<Object> failedPolicyRequirements = new ArrayList<>();
+        if (ACTION_VALIDATE_OBJECT.equals(action)) {
+            for (PropertyPlan property : plan.properties) {
+                validate(evaluation, property, property.getValue(evaluation.getFullObject()),
+                        failedPolicyRequirements);
+            }
+        } else {
+            final Object content = request.getContent() != null ? request.getContent().getObject() : null;
+            if (content != null && !(content instanceof Map)) {
+                throw new ScriptRequiredException("Properties are not an object");
+            }
+            final Map<?, ?> properties = content != null ? (Map<?, ?>) content : Collections.emptyMap();
+            for (Map.Entry<?, ?> entry : new ArrayList<>(properties.entrySet())) {
+                final PropertyPlan property = plan.getProperty(String.valueOf(entry.getKey()));
+                if (property != null) {
+                    validate(evaluation, property, entry.getValue(), failedPolicyRequirements);
+                }
+            }
+        }
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("result", failedPolicyRequirements.isEmpty());
+        result.put("failedPolicyRequirements", failedPolicyRequirements);
+        return json(result);
+    }
+
+    /**
+     * Validates a property as the {@code validate} function of the script does.
+     */
+    private void validate(PolicyEvaluation evaluation, PropertyPlan property, Object value,
+            List<Object> failedPolicyRequirements) throws ResourceException, ScriptRequiredException {
+        final List<Map<String, Object>> failed = new ArrayList<>();
+        for (PolicyCall call : property.calls) {
+            if (call.policy.isValidateOnlyIfPresent() && value == UNDEFINED) {
+                continue;
+            }
+            final List<?> values;
+            if (!property.arrayElements) {
+                values = Collections.singletonList(value);
+            } else if (value == UNDEFINED || value == null) {
+                continue;
+            } else if (value instanceof List) {
+                values = (List<?>) value;
+            } else {
+                throw new ScriptRequiredException("Array property " + property.name + " is not an array");
+            }
+            for (int j = 0; j < values.size(); j++) {
+                if (PolicyEvaluation.isEncrypted(values.get(j))) {
+                    throw new ScriptRequiredException("Encrypted value of " + property.name);
+                }
+                final List<Map<String, Object>> requirements =
+                        call.policy.validate(evaluation, values.get(j), call.params, call.compiled, property.name,
+                                failed);
+                if (!requirements.isEmpty()) {
+                    final Map<String, Object> failure = new LinkedHashMap<>();
+                    failure.put("policyRequirements", new ArrayList<>(requirements));
+                    failure.put("property", property.arrayElements
+                            ? property.name.substring(0, property.name.length() - 3) + "[" + j + "]"
+                            : property.name);
+                    failed.addAll(requirements);
+                    failedPolicyRequirements.add(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cached plan of a resource, or builds it.
+     */
+    private ResourcePlan getPlan(Context context, String resourcePath, ConnectionFactory connectionFactory)
+            throws ResourceException {
+        if (configurationError != null) {
+            return new ResourcePlan(null, configurationError);
+        }
+        final String[] parts = resourcePath.split("/", -1);
+        final int resourceIndex = getResourceIndex(parts);
+        final boolean managed = MANAGED.equals(parts[0]) && parts.length <= 3;
+        final String key = resourceIndex + (managed ? "|" + (parts.length > 1 ? "/" + parts[1] : "") : "");
+
+        ResourcePlan plan = plans.get(key);
+        if (plan == null) {
+            final long planGeneration = generation.get();
+            plan = buildPlan(context, resourceIndex, managed ? parts : null, connectionFactory);
+            if (planGeneration == generation.get() && plans.size() < MAX_PLANS) {
+                plans.putIfAbsent(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    private int getResourceIndex(String[] parts) {
+        for (int i = 0; i < resourcePaths.size(); i++) {
+            final String[] resourcePath = resourcePaths.get(i);
+            if (resourcePath.length != parts.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int j = 0; j < parts.length && matches; j++) {
+                matches = resourcePath[j].equals(parts[j]) || "*".equals(resourcePath[j]) || "*".equals(parts[j]);
+            }
+            if (matches) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ResourcePlan buildPlan(Context context, int resourceIndex, String[] managedParts,
+            ConnectionFactory connectionFactory) throws ResourceException {
+        try {
+            final List<Object> properties = new ArrayList<>();
+            if (resourceIndex >= 0) {
+                final JsonValue configured = resources.get(resourceIndex).get("properties");
+                if (!configured.isList()) {
+                    throw new ScriptRequiredException("Resource properties are not an array");
+                }
+                for (JsonValue property : configured.copy()) {
+                    properties.add(property.getObject());
+                }
+            }
+            if (managedParts != null) {
+                final String objectName = managedParts.length > 1 ? managedParts[1] : null;
+                updateResourceConfig(properties, getAdditionalPolicies(context, objectName, connectionFactory));
+            }
+
+            final List<PropertyPlan> propertyPlans = new ArrayList<>();
+            for (Object property : properties) {
+                propertyPlans.add(compile(json(property)));
+            }
+            return new ResourcePlan(propertyPlans, null);
+        } catch (ScriptRequiredException e) {
+            return new ResourcePlan(null, e.getMessage());
+        }
+    }
+
+    private static PropertyPlan compile(JsonValue property) throws ScriptRequiredException {
+        if (!property.isMap() || !property.get("name").isString() || !property.get("policies").isList()) {
+            throw new ScriptRequiredException("Property configuration not supported");
+        }
+        final JsonValue conditionalPolicies = property.get("conditionalPolicies");
+        if (!conditionalPolicies.isNull() && !(conditionalPolicies.isList() && conditionalPolicies.size() == 0)) {
+            throw new ScriptRequiredException("Conditional policies of " + property.get("name").asString());
+        }
+        final JsonValue fallbackPolicies = property.get("fallbackPolicies");
+        if (!fallbackPolicies.isNull() && !fallbackPolicies.isList()) {
+            throw new ScriptRequiredException("Fallback policies are not an array");
+        }
+
+        final List<PolicyCall> calls = new ArrayList<>();
+        final List<JsonValue> policies = new ArrayList<>();
+        for (JsonValue policy : property.get("policies")) {
+            policies.add(policy);
+        }
+        // no conditional policy applies, so the fallback policies do
+        for (JsonValue policy : fallbackPolicies.defaultTo(Collections.emptyList())) {
+            policies.add(policy);
+        }
+        for (JsonValue policy : policies) {
+            if (!policy.isMap() || !policy.get("policyId").isString()) {
+                throw new ScriptRequiredException("Policy configuration not supported");
+            }
+            final BuiltInPolicy builtIn = BuiltInPolicy.forId(policy.get("policyId").asString());
+            if (builtIn == null) {
+                throw new ScriptRequiredException("Custom policy " + policy.get("policyId").getObject());
+            }
+            calls.add(new PolicyCall(builtIn, policy.get("params")));
+        }
+        return new PropertyPlan(property.get("name").asString(), calls);
+    }
+
+    /**
+     * Gets the policies of the properties of a managed object schema, as the {@code getAdditionalPolicies} function of
+     * the script does.
+     */
+    private static List<Map<String, Object>> getAdditionalPolicies(Context context, String objectName,
+            ConnectionFactory connectionFactory) throws ResourceException, ScriptRequiredException {
+        final JsonValue managedConfig;
+        try {
+            managedConfig = connectionFactory.getConnection().read(context, newReadRequest("config/managed"))
+                    .getContent();
+        } catch (NotFoundException e) {
+            throw new ScriptRequiredException("No managed object configuration");
+        }
+        final JsonValue objects = managedConfig.get("objects");
+        if (!objects.isNull() && !objects.isList()) {
+            throw new ScriptRequiredException("Managed objects are not an array");
+        }
+        JsonValue schema = null;
+        for (JsonValue object : objects.defaultTo(Collections.emptyList())) {
+            if (object.isMap() && objectName != null && objectName.equals(object.get("name").getObject())) {
+                schema = object.get("schema");
+                break;
+            }
+        }
+        final List<Map<String, Object>> additionalPolicies = new ArrayList<>();
+        if (schema == null || !schema.isMap() || !schema.get("properties").isMap()) {
+            return additionalPolicies;
+        }
+        final JsonValue required = schema.get("required");
+        if (!required.isNull() && !required.isList()) {
+            throw new ScriptRequiredException("Required properties are not an array");
+        }
+
+        for (String name : schema.get("properties").keys()) {
+            final JsonValue property = schema.get("properties").get(name);
+            if (!property.isMap()) {
+                throw new ScriptRequiredException("Schema of " + name + " is not an object");
+            }
+            final JsonValue type = property.get("type");
+            final JsonValue minLength = property.get("minLength");
+            final List<Object> standardPolicies = new ArrayList<>();
+
+            if (required.isList() && required.asList().contains(name)) {
+                standardPolicies.add(policy("required"));
+            }
+            if ((type.isList() && !type.asList().contains("null"))
+                    || (minLength.isNumber() && minLength.asDouble() > 0)) {
+                standardPolicies.add(policy("not-empty"));
+            }
+            if ((type.isList() && type.asList().contains("string")) || "string".equals(type.getObject())) {
+                final Number parsedMinLength = parseInt(minLength.getObject());
+                if (parsedMinLength != null) {
+                    standardPolicies.add(policy("minimum-length", "minLength", parsedMinLength));
+                }
+                if (property.get("pattern").isString()) {
+                    standardPolicies.add(policy("regexpMatches", "regexp", property.get("pattern").asString()));
+                }
+            }
+
+            final List<Object> types = new ArrayList<>();
+            if (type.isString()) {
+                types.add(type.asString());
+            } else if (type.isList()) {
+                types.addAll(type.asList());
+            } else if (type.isMap()) {
+                throw new ScriptRequiredException("Type of " + name + " is an object");
+            }
+            for (int i = 0; i < types.size(); i++) {
+                // treat a relationship type as an object
+                if ("relationship".equals(types.get(i))) {
+                    types.set(i, "object");
+                }
+            }
+            standardPolicies.add(policy("valid-type", "types", types));
+
+            final JsonValue customPolicies = property.get("policies");
+            if (customPolicies.isList()) {
+                standardPolicies.addAll(customPolicies.asList());
+            } else if (!customPolicies.isNull()) {
+                throw new ScriptRequiredException("Policies of " + name + " are not an array");
+            }
+
+            final Map<String, Object> additional = new LinkedHashMap<>();
+            additional.put("name", name);
+            additional.put("policies", standardPolicies);
+            additional.put("conditionalPolicies", property.get("conditionalPolicies").getObject());
+            additional.put("fallbackPolicies", property.get("fallbackPolicies").getObject());
+            additionalPolicies.add(additional);
+        }
+        return additionalPolicies;
+    }
+
+    private static Map<String, Object> policy(String policyId, String param, Object value) {
+        final Map<String, Object> params = new LinkedHashMap<>();
+        params.put(param, value);
+        final Map<String, Object> policy = policy(policyId);
+        policy.put("params", params);
+        return policy;
+    }
+
+    private static Map<String, Object> policy(String policyId) {
+        final Map<String, Object> policy = new LinkedHashMap<>();
+        policy.put("policyId", policyId);
+        return policy;
+    }
+
+    /**
+     * Parses an integer as the JavaScript {@code parseInt} does.
+     *
+     * @param value a value
+     * @return the integer, or null if the value is not a number or a string starting with a decimal integer
+     * @throws ScriptRequiredException if the value is not parsed alike
+     */
+    private static Number parseInt(Object value) throws ScriptRequiredException {
+        if (value instanceof Number) {
+            final double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return null;
+            } else if (Math.abs(number) >= 1e15) {
+                throw new ScriptRequiredException("Minimum length not parsed alike");
+            }
+            return (long) number;
+        } else if (value instanceof String) {
+            final Matcher matcher = INTEGER.matcher((String) value);
+            if (HEXADECIMAL.matcher((String) value).lookingAt()) {
+                throw new ScriptRequiredException("Hexadecimal minimum length");
+            } else if (!matcher.lookingAt()) {
+                return null;
+            }
+            return Long.parseLong(matcher.group(1));
+        }
+        return null;
+    }
+
+    /**
+     * Merges the managed object schema policies into the configured properties, as the
+     * {@code updateResourceConfig} function of the script does.
+     */
+    @SuppressWarnings("unchecked")
+    private static void updateResourceConfig(List<Object> properties, List<Map<String, Object>> newProperties)
+            throws ScriptRequiredException {
+        for (Map<String, Object> newProperty : newProperties) {
+            boolean found = false;
+            for (Object property : properties) {
+                if (!(property instanceof Map)) {
+                    throw new ScriptRequiredException("Property configuration is not an object");
+                }
+                final Map<String, Object> prop = (Map<String, Object>) property;
+                if (!newProperty.get("name").equals(prop.get("name"))) {
+                    continue;
+                }
+                found = true;
+                final Object policies = prop.get("policies");
+                if (policies instanceof List && !((List<?>) policies).isEmpty()) {
+                    prop.put("policies", mergePolicies((List<Object>) policies,
+                            (List<Object>) newProperty.get("policies")));
+                } else if (policies == null || policies instanceof List) {
+                    prop.put("policies", newProperty.get("policies"));
+                } else {
+                    throw new ScriptRequiredException("Policies are not an array");
+                }
+                final Object conditionalPolicies = prop.get("conditionalPolicies");
+                final Object newConditionalPolicies = newProperty.get("conditionalPolicies");
+                if (conditionalPolicies instanceof List && !((List<?>) conditionalPolicies).isEmpty()) {
+                    if (newConditionalPolicies instanceof List && !((List<?>) newConditionalPolicies).isEmpty()) {
+                        final List<Object> merged = new ArrayList<>((List<?>) conditionalPolicies);
+                        merged.addAll((List<?>) newConditionalPolicies);
+                        prop.put("conditionalPolicies", merged);
+                    }
+                } else {
+                    prop.put("conditionalPolicies", newConditionalPolicies);
+                }
+            }
+            if (!found) {
+                properties.add(newProperty);
+            }
+        }
+    }
+
+    /**
+     * Merges policies as the {@code mergePolicies} function of the script does.
+     */
+    private static List<Object> mergePolicies(List<Object> oldPolicies, List<Object> newPolicies)
+            throws ScriptRequiredException {
+        final List<Object> policies = new ArrayList<>(oldPolicies);
+        for (Object newPolicy : newPolicies) {
+            final JsonValue policy = json(newPolicy);
+            boolean found = false;
+            for (int j = 0; j < policies.size(); j++) {
+                if (!(policies.get(j) instanceof Map)) {
+                    throw new ScriptRequiredException("Policy configuration is not an object");
+                }
+                if (policy.get("policyId").getObject() != null
+                        && policy.get("policyId").getObject().equals(((Map<?, ?>) policies.get(j)).get("policyId"))) {
+                    // update old policy with new config
+                    policies.set(j, newPolicy);
+                    found = true;
+                }
+            }
+            if (!found) {
+                final Map<String, Object> params = new LinkedHashMap<>();
+                if (policy.get("params").isMap()) {
+                    params.putAll(policy.get("params").asMap());
+                }
+                final Map<String, Object> added = new LinkedHashMap<>();
+                added.put("policyId", policy.get("policyId").getObject());
+                added.put("params", params);
+                policies.add(added);
+            }
+        }
+        return policies;
+    }
+}
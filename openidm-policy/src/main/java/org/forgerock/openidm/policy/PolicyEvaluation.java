@@ -0,0 +1,285 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.policy;
+
+import static org.forgerock.json.resource.Requests.newReadRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+
+/**
+ * The state of the native evaluation of a policy request, and the JavaScript value semantics the built-in policies
+ * are evaluated with.
+ */
+class PolicyEvaluation {
+
+    /** The JavaScript {@code undefined} value, of a property missing from an object. */
+    static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "undefined";
+        }
+    };
+
+    /** The dates and times of the ISO format JavaScript parses, with the time zone required for a time. */
+    private static final Pattern ISO_DATE_TIME =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}(T\\d{2}:\\d{2}(:\\d{2}(\\.\\d{3})?)?(Z|[+-]\\d{2}:\\d{2}))?");
+
+    private static final Pattern ISO_LOCAL_DATE_TIME =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}(:\\d{2}(\\.\\d{3})?)?");
+
+    private final Context context;
+    private final ActionRequest request;
+    private final ConnectionFactory connectionFactory;
+    private final Object fullObject;
+
+    private Object serverObject;
+    private Object syncConfig;
+
+    /**
+     * Creates the evaluation of a request.
+     *
+     * @param context the context of the request
+     * @param request the policy request
+     * @param connectionFactory the connection factory to read and query resources with
+     */
+    PolicyEvaluation(Context context, ActionRequest request, ConnectionFactory connectionFactory) {
+        this.context = context;
+        this.request = request;
+        this.connectionFactory = connectionFactory;
+        final Object content = request.getContent() != null ? request.getContent().getObject() : null;
+        // policies may add the properties of the stored object to the validated object, as the script does
+        this.fullObject = content instanceof Map ? new LinkedHashMap<>((Map<?, ?>) content) : content;
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    ActionRequest getRequest() {
+        return request;
+    }
+
+    ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * @return the validated object, a copy of the request content
+     */
+    Object getFullObject() {
+        return fullObject;
+    }
+
+    /**
+     * Reads the stored object of the request resource once per request. The object is empty if the resource is a
+     * collection or does not exist.
+     *
+     * @return the stored object
+     * @throws ResourceException if the object could not be read
+     */
+    Object getServerObject() throws ResourceException {
+        if (serverObject == null) {
+            final String resourcePath = request.getResourcePath();
+            Object object = null;
+            if (!resourcePath.isEmpty() && !resourcePath.endsWith("/*")) {
+                object = readOrNull(resourcePath);
+            }
+            serverObject = object != null ? object : new LinkedHashMap<String, Object>();
+        }
+        return serverObject;
+    }
+
+    /**
+     * Reads the synchronization configuration once per request.
+     *
+     * @return the synchronization configuration, or null if there is none
+     * @throws ResourceException if the configuration could not be read
+     */
+    Object getSyncConfig() throws ResourceException {
+        if (syncConfig == null) {
+            final Object config = readOrNull("config/sync");
+            syncConfig = config != null ? config : UNDEFINED;
+        }
+        return syncConfig != UNDEFINED ? syncConfig : null;
+    }
+
+    private Object readOrNull(String resourcePath) throws ResourceException {
+        try {
+            final ResourceResponse response =
+                    connectionFactory.getConnection().read(context, newReadRequest(resourcePath));
+            return response.getContent().getObject();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets a property of an object as JavaScript does.
+     *
+     * @param object an object, or array
+     * @param name the property name
+     * @return the property value, {@link #UNDEFINED} if the object has no such property
+     * @throws ScriptRequiredException if the object is neither an object nor an array
+     */
+    static Object getProperty(Object object, String name) throws ScriptRequiredException {
+        if (object instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) object;
+            final Object value = map.get(name);
+            return value != null || map.containsKey(name) ? value : UNDEFINED;
+        } else if (object instanceof List && isIndex(name)) {
+            final List<?> list = (List<?>) object;
+            final long index = Long.parseLong(name);
+            return index < list.size() ? list.get((int) index) : UNDEFINED;
+        }
+        throw new ScriptRequiredException("Property " + name + " of a primitive value");
+    }
+
+    private static boolean isIndex(String name) {
+        if (name.isEmpty() || name.length() > 9 || (name.charAt(0) == '0' && name.length() > 1)) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param value a value
+     * @return the JavaScript {@code typeof} of the value, with "null" and "array" as the policies name them
+     */
+    static String typeOf(Object value) {
+        if (value == UNDEFINED) {
+            return "undefined";
+        } else if (value == null) {
+            return "null";
+        } else if (value instanceof List) {
+            return "array";
+        } else if (value instanceof String) {
+            return "string";
+        } else if (value instanceof Number) {
+            return "number";
+        } else if (value instanceof Boolean) {
+            return "boolean";
+        }
+        return "object";
+    }
+
+    /**
+     * @param value a value
+     * @return whether the value is a string of at least one character
+     */
+    static boolean isNonEmptyString(Object value) {
+        return value instanceof String && !((String) value).isEmpty();
+    }
+
+    /**
+     * @param value a value
+     * @return whether the value is an encrypted value, which the script decrypts before validating it
+     */
+    static boolean isEncrypted(Object value) {
+        return value instanceof Map && ((Map<?, ?>) value).containsKey("$crypto");
+    }
+
+    /**
+     * @param failed the requirements failed so far by the property
+     * @return whether the property failed the {@code REQUIRED} requirement
+     */
+    static boolean isRequired(List<Map<String, Object>> failed) {
+        for (Map<String, Object> requirement : failed) {
+            if ("REQUIRED".equals(requirement.get("policyRequirement"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests whether JavaScript parses a date. Only the ISO format is recognized, the other formats require the
+     * script.
+     *
+     * @param value a non empty string
+     * @return true if the value is a valid date
+     * @throws ScriptRequiredException if the value is not a valid date in the ISO format
+     */
+    static boolean isValidDate(String value) throws ScriptRequiredException {
+        try {
+            if (ISO_LOCAL_DATE_TIME.matcher(value).matches()) {
+                LocalDateTime.parse(value);
+                return true;
+            }
+            parseIsoDate(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            throw new ScriptRequiredException("Date not in the ISO format");
+        }
+    }
+
+    /**
+     * Parses an ISO date, or date and time with its time zone, as JavaScript does.
+     *
+     * @param value the value
+     * @return the milliseconds since the epoch
+     * @throws ScriptRequiredException if the value is not in one of these formats
+     */
+    static long parseIsoDate(String value) throws ScriptRequiredException {
+        if (!ISO_DATE_TIME.matcher(value).matches()) {
+            throw new ScriptRequiredException("Date not in the ISO format");
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).toEpochDay() * 86400000L;
+            }
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new ScriptRequiredException("Date not in the ISO format");
+        }
+    }
+
+    /**
+     * Converts a number to a string as JavaScript does.
+     *
+     * @param number a number
+     * @return the string
+     * @throws ScriptRequiredException if the number is not an integer JavaScript writes in the decimal notation
+     */
+    static String numberToString(Number number) throws ScriptRequiredException {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            return number.toString();
+        }
+        final double value = number.doubleValue();
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        throw new ScriptRequiredException("Number not written alike by JavaScript");
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
- * Portions Copyright 2020-2023 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.policy;
 
@@ -25,17 +25,33 @@ import javax.script.Bindings;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.RequestType;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Responses;
+import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.script.AbstractScriptedService;
+import org.forgerock.openidm.script.ScriptedRequestHandler;
 import org.forgerock.openidm.util.FileUtil;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
 import org.osgi.framework.BundleContext;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.ConfigurationListener;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -43,6 +59,7 @@ import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.component.propertytypes.ServiceDescription;
 import org.osgi.service.component.propertytypes.ServiceVendor;
@@ -51,7 +68,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A Policy Service for policy validation.
- *
+ * <p>
+ * The built-in policies of the {@code validateObject} and {@code validateProperty} actions are evaluated natively by a
+ * {@link PolicyEngine}, unless the {@code nativePolicies} configuration is false. The script evaluates the other
+ * requests, and the resources with custom or conditional policies.
  */
 @Component(
         name = PolicyService.PID,
@@ -63,10 +83,13 @@ import org.slf4j.LoggerFactory;
         })
 @ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
 @ServiceDescription("OpenIDM Policy Service")
-public class PolicyService extends AbstractScriptedService {
+public class PolicyService extends AbstractScriptedService implements ConfigurationListener {
 
     public static final String PID = "org.forgerock.openidm.policy";
 
+    /** The PID of the managed objects, whose schema policies the native plans are built from. */
+    private static final String MANAGED_PID = "org.forgerock.openidm.managed";
+
     /**
      * Setup logging for the {@link PolicyService}.
      */
@@ -80,10 +103,17 @@ public class PolicyService extends AbstractScriptedService {
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile ScriptRegistry scriptRegistry;
 
+    /** The connection factory the native policies read and query resources with. */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    private volatile IDMConnectionFactory connectionFactory;
+
     private ComponentContext context;
 
     private JsonValue configuration;
 
+    /** The native policy engine, null if disabled. */
+    private volatile PolicyEngine policyEngine;
+
     public PolicyService() {
         super(EnumSet.of(RequestType.ACTION, RequestType.READ));
     }
@@ -98,6 +128,7 @@ public class PolicyService extends AbstractScriptedService {
         this.context = context;
         setProperties(context);
         configuration = getConfiguration(context);
+        policyEngine = newPolicyEngine(configuration);
         registerService(context.getBundleContext(), configuration);
         logger.info("Wren:IDM Policy Service component is activated.");
     }
@@ -109,6 +140,7 @@ public class PolicyService extends AbstractScriptedService {
     @Modified
     void modified(ComponentContext context) throws Exception {
         configuration = getConfiguration(context);
+        policyEngine = newPolicyEngine(configuration);
         updateScriptHandler(configuration);
         logger.info("Wren:IDM Policy Service component is updateScriptHandler.");
     }
@@ -116,6 +148,7 @@ public class PolicyService extends AbstractScriptedService {
     @Deactivate
     protected void deactivate(ComponentContext context) {
         unregisterService();
+        policyEngine = null;
         this.context = null;
         logger.info("Wren:IDM Policy Service component is deactivated.");
     }
@@ -130,6 +163,25 @@ public class PolicyService extends AbstractScriptedService {
         return context.getBundleContext();
     }
 
+    @Override
+    public void configurationEvent(ConfigurationEvent event) {
+        final PolicyEngine engine = policyEngine;
+        if (engine != null && MANAGED_PID.equals(event.getPid())) {
+            engine.invalidate();
+        }
+    }
+
+    @Override
+    protected RequestHandler getRequestHandler(ScriptedRequestHandler scriptedHandler) {
+        return new NativePolicyRequestHandler(scriptedHandler);
+    }
+
+    private static PolicyEngine newPolicyEngine(JsonValue configuration) {
+        return configuration.get("nativePolicies").defaultTo(true).asBoolean()
+                ? new PolicyEngine(configuration.get("resources"))
+                : null;
+    }
+
     private JsonValue getConfiguration(ComponentContext context) {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
         init(configuration);
@@ -177,4 +229,65 @@ public class PolicyService extends AbstractScriptedService {
         handler.put("request", request);
         handler.put("resources", configuration.get("resources").copy().getObject());
     }
+
+    /**
+     * Evaluates the validation actions with the native policy engine, and delegates the requests it does not support
+     * to the script.
+     */
+    private final class NativePolicyRequestHandler implements RequestHandler {
+
+        private final RequestHandler scriptedHandler;
+
+        NativePolicyRequestHandler(RequestHandler scriptedHandler) {
+            this.scriptedHandler = scriptedHandler;
+        }
+
+        @Override
+        public Promise<ActionResponse, ResourceException> handleAction(Context context, ActionRequest request) {
+            final PolicyEngine engine = policyEngine;
+            final IDMConnectionFactory factory = connectionFactory;
+            if (engine != null && factory != null) {
+                try {
+                    return Responses.newActionResponse(engine.validate(context, request, factory)).asPromise();
+                } catch (ScriptRequiredException e) {
+                    logger.debug("Policy request on {} evaluated by the script: {}", request.getResourcePath(),
+                            e.getMessage());
+                } catch (ResourceException e) {
+                    return e.asPromise();
+                }
+            }
+            return scriptedHandler.handleAction(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
+            return scriptedHandler.handleCreate(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
+            return scriptedHandler.handleDelete(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
+            return scriptedHandler.handlePatch(context, request);
+        }
+
+        @Override
+        public Promise<QueryResponse, ResourceException> handleQuery(Context context, QueryRequest request,
+                QueryResourceHandler handler) {
+            return scriptedHandler.handleQuery(context, request, handler);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
+            return scriptedHandler.handleRead(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
+            return scriptedHandler.handleUpdate(context, request);
+        }
+    }
 }
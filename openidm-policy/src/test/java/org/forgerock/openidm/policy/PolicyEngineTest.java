@@ -0,0 +1,224 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PolicyEngineTest {
+
+    private Context context;
+    private Connection connection;
+    private ConnectionFactory connectionFactory;
+    private List<QueryRequest> queries;
+    private JsonValue managedConfig;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        context = new RootContext();
+        queries = new ArrayList<>();
+        managedConfig = json(object(field("objects", array(object(
+                field("name", "user"),
+                field("schema", object(
+                        field("required", array("userName")),
+                        field("properties", object(
+                                field("userName", object(
+                                        field("type", "string"),
+                                        field("policies", array(object(field("policyId", "unique")))))),
+                                field("mail", object(
+                                        field("type", "string"),
+                                        field("policies", array(
+                                                object(field("policyId", "valid-email-address-format")))))),
+                                field("telephoneNumber", object(
+                                        field("type", "string"),
+                                        field("pattern", "^\\+?([0-9\\- \\(\\)])*$"))))))))))));
+
+        connection = mock(Connection.class);
+        when(connection.read(any(Context.class), any(ReadRequest.class))).then(invocation -> {
+            ReadRequest request = invocation.getArgument(1);
+            return newResourceResponse(request.getResourcePath(), null, managedConfig.copy());
+        });
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .then(invocation -> {
+                    QueryRequest request = invocation.getArgument(1);
+                    queries.add(request);
+                    if (request.getQueryFilter().toString().contains("taken")) {
+                        QueryResourceHandler handler = invocation.getArgument(2);
+                        handler.handleResource(newResourceResponse("other", null, json(object())));
+                    }
+                    return newQueryResponse();
+                });
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+    }
+
+    private static PolicyEngine newEngine() {
+        return new PolicyEngine(json(array(object(
+                field("resource", "managed/user/*"),
+                field("properties", array(object(
+                        field("name", "password"),
+                        field("policies", array(
+                                object(field("policyId", "not-empty")),
+                                object(field("policyId", "minimum-length"), field("params",
+                                        object(field("minLength", 8)))),
+                                object(field("policyId", "at-least-X-capitals"), field("params",
+                                        object(field("numCaps", 1)))))))))))));
+    }
+
+    private JsonValue validate(PolicyEngine engine, String action, String resourcePath, JsonValue content)
+            throws Exception {
+        return engine.validate(context, newActionRequest(resourcePath, action).setContent(content),
+                connectionFactory);
+    }
+
+    @Test
+    public void testValidObjectPasses() throws Exception {
+        JsonValue result = validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/bjensen",
+                json(object(field("userName", "bjensen"), field("password", "Passw0rdLong"),
+                        field("mail", "bjensen@example.com"), field("telephoneNumber", "+1 (555) 0100"))));
+
+        assertThat(result.get("result").asBoolean()).isTrue();
+        assertThat(result.get("failedPolicyRequirements").size()).isEqualTo(0);
+        assertThat(queries).hasSize(1);
+        assertThat(queries.get(0).getResourcePath()).isEqualTo("managed/user");
+    }
+
+    @Test
+    public void testReportsFailedRequirementsByProperty() throws Exception {
+        JsonValue result = validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/*",
+                json(object(field("userName", "taken"), field("password", "short"), field("mail", "bjensen"),
+                        field("telephoneNumber", "555-CALL"))));
+
+        assertThat(result.get("result").asBoolean()).isFalse();
+        JsonValue failed = result.get("failedPolicyRequirements");
+        assertThat(failed.size()).isEqualTo(5);
+        assertThat(failed.get(0).get("property").asString()).isEqualTo("password");
+        assertThat(failed.get(0).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("MIN_LENGTH");
+        assertThat(failed.get(0).get("policyRequirements").get(0).get("params").get("minLength").asInteger())
+                .isEqualTo(8);
+        assertThat(failed.get(1).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("AT_LEAST_X_CAPITAL_LETTERS");
+        assertThat(failed.get(2).get("property").asString()).isEqualTo("userName");
+        assertThat(failed.get(2).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("UNIQUE");
+        assertThat(failed.get(3).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("VALID_EMAIL_ADDRESS_FORMAT");
+        assertThat(failed.get(4).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("MATCH_REGEXP");
+    }
+
+    @Test
+    public void testRequiredAndValidType() throws Exception {
+        JsonValue result = validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/*",
+                json(object(field("mail", 42))));
+
+        JsonValue failed = result.get("failedPolicyRequirements");
+        assertThat(failed.size()).isEqualTo(2);
+        assertThat(failed.get(0).get("property").asString()).isEqualTo("userName");
+        assertThat(failed.get(0).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("REQUIRED");
+        assertThat(failed.get(1).get("property").asString()).isEqualTo("mail");
+        assertThat(failed.get(1).get("policyRequirements").get(0).get("params").get("invalidType").asString())
+                .isEqualTo("number");
+    }
+
+    @Test
+    public void testValidatesOnlyGivenProperties() throws Exception {
+        JsonValue result = validate(newEngine(), PolicyEngine.ACTION_VALIDATE_PROPERTY, "managed/user/bjensen",
+                json(object(field("password", "nocapitals1"))));
+
+        JsonValue failed = result.get("failedPolicyRequirements");
+        assertThat(failed.size()).isEqualTo(1);
+        assertThat(failed.get(0).get("policyRequirements").get(0).get("policyRequirement").asString())
+                .isEqualTo("AT_LEAST_X_CAPITAL_LETTERS");
+    }
+
+    @Test
+    public void testRepoEnforcedUniqueSkipsQuery() throws Exception {
+        managedConfig.get("objects").get(0).get("schema").get("properties").get("userName").get("policies").get(0)
+                .put("params", object(field("repoEnforced", true)));
+
+        JsonValue result = validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/*",
+                json(object(field("userName", "taken"))));
+
+        assertThat(result.get("result").asBoolean()).isTrue();
+        assertThat(queries).isEmpty();
+    }
+
+    @Test
+    public void testCachesPlanUntilInvalidated() throws Exception {
+        PolicyEngine engine = newEngine();
+        JsonValue content = json(object(field("userName", "bjensen")));
+
+        validate(engine, PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/a", content);
+        validate(engine, PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/b", content);
+        verify(connection, times(1)).read(any(Context.class), any(ReadRequest.class));
+
+        engine.invalidate();
+        validate(engine, PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/a", content);
+        verify(connection, times(2)).read(any(Context.class), any(ReadRequest.class));
+    }
+
+    @Test(expectedExceptions = ScriptRequiredException.class)
+    public void testCustomPolicyRequiresScript() throws Exception {
+        managedConfig.get("objects").get(0).get("schema").get("properties").get("mail").get("policies")
+                .add(object(field("policyId", "custom-policy")));
+
+        validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/*", json(object()));
+    }
+
+    @Test(expectedExceptions = ScriptRequiredException.class)
+    public void testEncryptedValueRequiresScript() throws Exception {
+        validate(newEngine(), PolicyEngine.ACTION_VALIDATE_OBJECT, "managed/user/*",
+                json(object(field("userName", "bjensen"), field("password", object(field("$crypto", object()))))));
+    }
+
+    @Test
+    public void testTranslatesJavaScriptRegExp() throws Exception {
+        assertThat(JsRegExp.compile("^[a-z]+\\s\\d$", null).test("abc 1")).isTrue();
+        assertThat(JsRegExp.compile("[[]", null).test("[")).isTrue();
+        assertThat(JsRegExp.compile("ABC", "gi").test("xabcx")).isTrue();
+        assertThat(JsRegExp.compile("a++", null)).isNull();
+        assertThat(JsRegExp.compile("(?<name>a)", null)).isNull();
+        assertThat(JsRegExp.compile("a", "y")).isNull();
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance
+ * with the License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for
+ * the specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file
+ * and include the License file at legal/CDDLv1.0.txt. If applicable, add the following
+ * below the CDDL Header, with the fields enclosed by brackets [] replaced by your
+ * own identifying information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.PatchOperation;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.ServiceUnavailableException;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.provisioner.openicf.commons.ConnectorUtil;
+import org.forgerock.openidm.provisioner.openicf.commons.ObjectClassInfoHelper;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.identityconnectors.framework.api.ConnectorFacade;
+import org.identityconnectors.framework.api.operations.APIOperation;
+import org.identityconnectors.framework.api.operations.CreateApiOp;
+import org.identityconnectors.framework.api.operations.DeleteApiOp;
+import org.identityconnectors.framework.api.operations.ScriptOnConnectorApiOp;
+import org.identityconnectors.framework.api.operations.ScriptOnResourceApiOp;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.ScriptContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles the {@code bulk} action on /system/[systemName]/[objectClass], executing an array of create, update, patch
+ * and delete operations in a single request:
+ *
+ * <pre>
+ *     [
+ *         { "operation" : "create", "content" : { ... } },
+ *         { "operation" : "update", "_id" : "...", "_rev" : "...", "content" : { ... } },
+ *         { "operation" : "patch", "_id" : "...", "content" : [ { "operation" : "replace", ... } ] },
+ *         { "operation" : "delete", "_id" : "..." }
+ *     ]
+ * </pre>
+ *
+ * The response holds, in the order of the operations, either the {@code _id} and {@code _rev} of the changed object
+ * or the error of the operation, which does not prevent the other operations from being executed.
+ * <p>
+ * The connector is configured in provisioner.openicf-*.json as:
+ *
+ * <pre>
+ *     <code>
+ * "batch" : {
+ *     "scriptId" : "batch",
+ *     "scriptExecuteMode" : "resource",
+ *     "batchSize" : 100,
+ *     "parallelism" : 4
+ * }
+ *     </code>
+ * </pre>
+ *
+ * When {@code scriptId} names one of the {@code systemActions} of the connector, the create and delete operations
+ * are sent to that script in batches of {@code batchSize}, so that a connector able to apply them at once, such as a
+ * scripted SQL connector using JDBC batches, makes one call per batch. The system action must have a single
+ * {@code systemType} matching the connector. The script receives the {@code objectClass} and the
+ * {@code operations}, each with its {@code operation} ({@code CREATE} or {@code DELETE}), {@code uid},
+ * {@code revision}, OpenICF {@code attributes} and the configured {@code options} of the operation. It returns a list
+ * with, for each operation, either the {@code uid} of the object, optionally with its {@code revision}, or an
+ * {@code error}.
+ * <p>
+ * The other operations, or all of them if the connector has no batch script, are executed one by one through the
+ * object class handler, at most {@code parallelism} at once for the whole system. The updates and patches are never
+ * batched, as they may be run as the user re-authenticating and are logged with the object read before the change.
+ */
+class ObjectClassBatchHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectClassBatchHandler.class);
+
+    /** Config key of the system action executing the batches. */
+    static final String CONFIG_SCRIPT_ID = "scriptId";
+    /** Config key of where the batch script runs, {@code connector} by default or {@code resource}. */
+    static final String CONFIG_SCRIPT_EXECUTE_MODE = "scriptExecuteMode";
+    /** Config key of the maximum number of operations sent to the batch script at once. */
+    static final String CONFIG_BATCH_SIZE = "batchSize";
+    /** Config key of the maximum number of operations, or batches, executed at once. */
+    static final String CONFIG_PARALLELISM = "parallelism";
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+    static final int DEFAULT_PARALLELISM = 4;
+
+    /** Script argument of the OpenICF object class of the operations. */
+    static final String ARG_OBJECT_CLASS = "objectClass";
+    /** Script argument of the list of operations. */
+    static final String ARG_OPERATIONS = "operations";
+
+    private static final String FIELD_OPERATION = "operation";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_UID = "uid";
+    private static final String FIELD_REVISION = "revision";
+    private static final String FIELD_ATTRIBUTES = "attributes";
+    private static final String FIELD_OPTIONS = "options";
+    private static final String FIELD_ERROR = "error";
+
+    /**
+     * An operation of the bulk request.
+     */
+    private static final class Operation {
+        private final int index;
+        private final Request request;
+
+        private Operation(int index, Request request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
+
+    private final ObjectClassResourceProvider resourceProvider;
+    private final ObjectClassInfoHelper objectClassInfoHelper;
+    private final OpenICFProvisionerService provisionerService;
+    private final String objectClass;
+
+    ObjectClassBatchHandler(ObjectClassResourceProvider resourceProvider, ObjectClassInfoHelper objectClassInfoHelper,
+            OpenICFProvisionerService provisionerService, String objectClass) {
+        this.resourceProvider = resourceProvider;
+        this.objectClassInfoHelper = objectClassInfoHelper;
+        this.provisionerService = provisionerService;
+        this.objectClass = objectClass;
+    }
+
+    /**
+     * Executes the operations of a bulk action request.
+     *
+     * @param context the request context
+     * @param request the bulk action request
+     * @return the results of the operations, in order
+     */
+    Promise<ActionResponse, ResourceException> handleBulk(final Context context, final ActionRequest request) {
+        try {
+            final JsonValue operations = request.getContent().expect(List.class);
+            if (operations.isNull()) {
+                throw new BadRequestException("The bulk action requires an array of operations");
+            }
+            final ExecutorService executor = provisionerService.getBatchExecutor();
+            if (executor == null) {
+                throw new ServiceUnavailableException();
+            }
+            final JsonValue config = provisionerService.getBatchConfiguration();
+            final boolean hasScript = provisionerService.getBatchScriptContextBuilder() != null;
+            final boolean onConnector = !"resource".equalsIgnoreCase(
+                    config.get(CONFIG_SCRIPT_EXECUTE_MODE).asString());
+
+            final Object[] results = new Object[operations.size()];
+            final List<Operation> batched = new ArrayList<>();
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < operations.size(); i++) {
+                final Operation operation;
+                try {
+                    operation = new Operation(i, toRequest(operations.get(i)));
+                } catch (ResourceException e) {
+                    results[i] = e.toJsonValue().getObject();
+                    continue;
+                } catch (JsonValueException | IllegalArgumentException e) {
+                    results[i] = new BadRequestException(e.getMessage(), e).toJsonValue().getObject();
+                    continue;
+                }
+                if (hasScript && (operation.request instanceof CreateRequest
+                        || operation.request instanceof DeleteRequest)) {
+                    batched.add(operation);
+                } else {
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            results[operation.index] = execute(context, operation.request);
+                            return null;
+                        }
+                    }));
+                }
+            }
+
+            final int batchSize = Math.max(1, config.get(CONFIG_BATCH_SIZE).defaultTo(DEFAULT_BATCH_SIZE).asInteger());
+            for (int from = 0; from < batched.size(); from += batchSize) {
+                final List<Operation> batch = batched.subList(from, Math.min(from + batchSize, batched.size()));
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        executeBatch(context, request, batch, onConnector, results);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            final List<Object> resultList = new ArrayList<>(results.length);
+            for (Object result : results) {
+                resultList.add(result);
+            }
+            return newActionResponse(json(resultList)).asPromise();
+        } catch (ResourceException e) {
+            return e.asPromise();
+        } catch (JsonValueException e) {
+            return new BadRequestException(e.getMessage(), e).asPromise();
+        } catch (RejectedExecutionException e) {
+            return new ServiceUnavailableException(e.getMessage(), e).asPromise();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ServiceUnavailableException(e.getMessage(), e).asPromise();
+        } catch (ExecutionException e) {
+            return new InternalServerErrorException(e.getCause().getMessage(), e.getCause()).asPromise();
+        } catch (Exception e) {
+            return new InternalServerErrorException(e.getMessage(), e).asPromise();
+        }
+    }
+
+    /**
+     * Converts an operation of the bulk request to the request of the object class handler.
+     */
+    private Request toRequest(JsonValue operation) throws ResourceException {
+        final String type = operation.get(FIELD_OPERATION).required().asString();
+        final JsonValue content = operation.get(FIELD_CONTENT);
+        final String revision = operation.get(ResourceResponse.FIELD_CONTENT_REVISION).asString();
+        if ("create".equalsIgnoreCase(type)) {
+            return Requests.newCreateRequest("", content.required().expect(Map.class));
+        }
+        final ResourcePath id =
+                new ResourcePath(operation.get(ResourceResponse.FIELD_CONTENT_ID).required().asString());
+        if ("update".equalsIgnoreCase(type)) {
+            return Requests.newUpdateRequest(id, content.required().expect(Map.class)).setRevision(revision);
+        } else if ("patch".equalsIgnoreCase(type)) {
+            final List<PatchOperation> patch = new ArrayList<>();
+            for (JsonValue patchOperation : content.required().expect(List.class)) {
+                patch.add(PatchOperation.valueOf(patchOperation));
+            }
+            return Requests.newPatchRequest(id, patch.toArray(new PatchOperation[0])).setRevision(revision);
+        } else if ("delete".equalsIgnoreCase(type)) {
+            return Requests.newDeleteRequest(id).setRevision(revision);
+        }
+        throw new BadRequestException("Unsupported bulk operation: " + type);
+    }
+
+    /**
+     * Executes an operation through the object class handler.
+     *
+     * @return the identifier and revision of the changed object, or the error
+     */
+    private Object execute(Context context, Request request) {
+        final RequestHandler handler = resourceProvider;
+        try {
+            final ResourceResponse response;
+            if (request instanceof CreateRequest) {
+                response = handler.handleCreate(context, (CreateRequest) request).getOrThrow();
+            } else if (request instanceof UpdateRequest) {
+                response = handler.handleUpdate(context, (UpdateRequest) request).getOrThrow();
+            } else if (request instanceof PatchRequest) {
+                response = handler.handlePatch(context, (PatchRequest) request).getOrThrow();
+            } else {
+                response = handler.handleDelete(context, (DeleteRequest) request).getOrThrow();
+            }
+            return result(response.getId(), response.getRevision());
+        } catch (ResourceException e) {
+            return e.toJsonValue().getObject();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ServiceUnavailableException(e.getMessage(), e).toJsonValue().getObject();
+        }
+    }
+
+    /**
+     * Executes a batch of create and delete operations with the batch script.
+     */
+    private void executeBatch(Context context, ActionRequest bulkRequest, List<Operation> batch,
+            boolean onConnector, Object[] results) {
+        final List<Object> operations = new ArrayList<>(batch.size());
+        final List<Operation> sent = new ArrayList<>(batch.size());
+        for (Operation operation : batch) {
+            try {
+                operations.add(toScriptOperation(operation.request));
+                sent.add(operation);
+            } catch (ResourceException e) {
+                results[operation.index] = e.toJsonValue().getObject();
+            } catch (JsonValueException e) {
+                results[operation.index] = new BadRequestException(e.getMessage(), e).toJsonValue().getObject();
+            } catch (Exception e) {
+                results[operation.index] = new InternalServerErrorException(e.getMessage(), e).toJsonValue()
+                        .getObject();
+            }
+        }
+        if (sent.isEmpty()) {
+            return;
+        }
+
+        try {
+            final Class<? extends APIOperation> scriptOperation =
+                    onConnector ? ScriptOnConnectorApiOp.class : ScriptOnResourceApiOp.class;
+            final ConnectorFacade facade = resourceProvider.getConnectorFacade0(scriptOperation);
+            // a new builder for each batch, as the batches run concurrently
+            final ScriptContextBuilder script = provisionerService.getBatchScriptContextBuilder();
+            script.addScriptArgument(ARG_OBJECT_CLASS, objectClassInfoHelper.getObjectClass().getObjectClassValue());
+            script.addScriptArgument(ARG_OPERATIONS, operations);
+            final OperationOptions options =
+                    resourceProvider.getOperationOptionsBuilder(null, null, scriptOperation).build();
+            final Object scriptResult = onConnector
+                    ? facade.runScriptOnConnector(script.build(), options)
+                    : facade.runScriptOnResource(script.build(), options);
+            final JsonValue scriptResults = json(ConnectorUtil.coercedTypeCasting(scriptResult, Object.class));
+            if (!scriptResults.isList() || scriptResults.size() != sent.size()) {
+                throw new InternalServerErrorException("The batch script returned "
+                        + (scriptResults.isList() ? scriptResults.size() : 0) + " results for "
+                        + sent.size() + " operations");
+            }
+            for (int i = 0; i < sent.size(); i++) {
+                results[sent.get(i).index] = toResult(context, sent.get(i).request, scriptResults.get(i));
+            }
+        } catch (ResourceException e) {
+            fail(sent, e, results);
+        } catch (ConnectorException e) {
+            fail(sent, ExceptionHelper.adaptConnectorException(context, bulkRequest, e,
+                    provisionerService.getSource(objectClass), null, null, null,
+                    provisionerService.getActivityLogger()), results);
+        } catch (Exception e) {
+            logger.error("Batch script execution error.", e);
+            fail(sent, new InternalServerErrorException(e.getMessage(), e), results);
+        }
+    }
+
+    /**
+     * Converts a request to the operation passed to the batch script, applying the permissions, conversions and
+     * configured options of the single operations.
+     */
+    private Map<String, Object> toScriptOperation(Request request) throws Exception {
+        final Map<String, Object> operation = new HashMap<>();
+        final Class<? extends APIOperation> apiOperation;
+        final Set<Attribute> attributes;
+        if (request instanceof CreateRequest) {
+            apiOperation = CreateApiOp.class;
+            operation.put(FIELD_OPERATION, "CREATE");
+            attributes = AttributeUtil.filterUid(objectClassInfoHelper.getCreateAttributes(
+                    (CreateRequest) request, provisionerService.getCryptoService()));
+        } else {
+            apiOperation = DeleteApiOp.class;
+            operation.put(FIELD_OPERATION, "DELETE");
+            attributes = null;
+        }
+        resourceProvider.getConnectorFacade0(apiOperation);
+        final OperationOptions options = resourceProvider.getOperationOptionsBuilder(null, null, apiOperation).build();
+        operation.put(FIELD_OPTIONS, new HashMap<>(options.getOptions()));
+        if (request instanceof DeleteRequest) {
+            final String revision = ((DeleteRequest) request).getRevision();
+            operation.put(FIELD_UID, objectClassInfoHelper.getFullResourceId(request));
+            if (revision != null) {
+                operation.put(FIELD_REVISION, revision);
+            }
+        }
+        if (attributes != null) {
+            final Map<String, Object> values = new HashMap<>();
+            for (Attribute attribute : attributes) {
+                values.put(attribute.getName(),
+                        attribute.getValue() != null ? new ArrayList<>(attribute.getValue()) : null);
+            }
+            operation.put(FIELD_ATTRIBUTES, values);
+        }
+        return operation;
+    }
+
+    /**
+     * Converts the result of an operation returned by the batch script, logging the changes.
+     */
+    private Object toResult(Context context, Request request, JsonValue scriptResult) {
+        if (scriptResult.isString()) {
+            scriptResult = json(object(field(FIELD_UID, scriptResult.asString())));
+        }
+        final String error = scriptResult.get(FIELD_ERROR).asString();
+        String uid = scriptResult.get(FIELD_UID).asString();
+        if (uid == null && !(request instanceof CreateRequest)) {
+            uid = objectClassInfoHelper.getFullResourceId(request);
+        }
+        if (error != null || uid == null) {
+            return new InternalServerErrorException(error != null ? error : "The batch script returned no uid")
+                    .toJsonValue().getObject();
+        }
+        final JsonValue content = request instanceof CreateRequest ? ((CreateRequest) request).getContent() : null;
+        try {
+            provisionerService.getActivityLogger().log(context, request, "message",
+                    provisionerService.getSource(objectClass, uid), null, content, Status.SUCCESS);
+        } catch (ResourceException e) {
+            logger.warn("Failed to log bulk operation on {}", uid, e);
+        }
+        return result(uid, scriptResult.get(FIELD_REVISION).asString());
+    }
+
+    private static Object result(String id, String revision) {
+        final Map<String, Object> result = new HashMap<>(2);
+        result.put(ResourceResponse.FIELD_CONTENT_ID, id);
+        if (revision != null) {
+            result.put(ResourceResponse.FIELD_CONTENT_REVISION, revision);
+        }
+        return result;
+    }
+
+    private static void fail(List<Operation> operations, ResourceException e, Object[] results) {
+        for (Operation operation : operations) {
+            results[operation.index] = e.toJsonValue().getObject();
+        }
+    }
+}
@@ -12,6 +12,7 @@
  * own identifying information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.provisioner.openicf.impl;
@@ -146,7 +147,7 @@ class ObjectClassResourceProvider implements RequestHandler {
      *             if {@code denied} is true and the {@code onDeny} equals
      *             {@link org.forgerock.openidm.provisioner.openicf.commons.OperationOptionInfoHelper.OnActionPolicy#THROW_EXCEPTION}
      */
-    private ConnectorFacade getConnectorFacade0(Class<? extends APIOperation> operation) throws ResourceException {
+    ConnectorFacade getConnectorFacade0(Class<? extends APIOperation> operation) throws ResourceException {
         final ConnectorFacade facade = provisionerService.getConnectorFacade();
         if (null == facade) {
             throw new ServiceUnavailableException();
@@ -220,7 +221,7 @@ class ObjectClassResourceProvider implements RequestHandler {
      * ActionRequest actions we support on /system/[systemName]/[objectClass/{id}
      */
     private enum ObjectClassAction {
-        authenticate, resolveUsername, liveSync
+        authenticate, resolveUsername, liveSync, bulk
     }
 
     public Promise<ActionResponse, ResourceException> handleAction(
@@ -231,6 +232,9 @@ class ObjectClassResourceProvider implements RequestHandler {
                     return handleAuthenticate(context, request);
                 case liveSync:
                     return handleLiveSync(context, request);
+                case bulk:
+                    return new ObjectClassBatchHandler(this, objectClassInfoHelper, provisionerService, objectClass)
+                            .handleBulk(context, request);
                 default:
                     throw new BadRequestException("Unsupported action: " + request.getAction());
             }
@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2018-2020 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.provisioner.openicf.impl;
 
@@ -23,6 +23,7 @@ import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Responses.newActionResponse;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -30,6 +31,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.StringUtils;
@@ -130,6 +137,9 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
     // Public Constants
     public static final String PID = "org.forgerock.openidm.provisioner.openicf";
 
+    /** Config key of the settings of the bulk action of the object types. */
+    public static final String CONFIG_BATCH = "batch";
+
     private static final Logger logger = LoggerFactory.getLogger(OpenICFProvisionerService.class);
 
     private SimpleSystemIdentifier systemIdentifier = null;
@@ -149,6 +159,16 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
      */
     private final ConcurrentMap<String, SystemAction> localSystemActionCache = new ConcurrentHashMap<>();
 
+    /**
+     * The settings of the bulk action of the object types.
+     */
+    private JsonValue batchConfiguration = json(object());
+
+    /**
+     * The executor of the operations of the bulk action, bounding how many run at once on this system.
+     */
+    private ThreadPoolExecutor batchExecutor = null;
+
     private final ConcurrentMap<String, RequestHandler> objectClassHandlers = new ConcurrentHashMap<>();
 
     /* Internal routing objects to register and remove the routes. */
@@ -233,8 +253,19 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
             loadLocalSystemActions(jsonConfiguration);
 
+            batchConfiguration = jsonConfiguration.get(CONFIG_BATCH).defaultTo(object());
+            batchExecutor = newBatchExecutor(systemIdentifier.getName(),
+                    batchConfiguration.get(ObjectClassBatchHandler.CONFIG_PARALLELISM)
+                            .defaultTo(ObjectClassBatchHandler.DEFAULT_PARALLELISM).asInteger());
+
             connectorReference = ConnectorUtil.getConnectorReference(jsonConfiguration);
 
+            // a batch is sent once to the batch script, which may not be split among several system types
+            if (getBatchScriptContextBuilders().size() > 1) {
+                throw new JsonValueException(batchConfiguration.get(ObjectClassBatchHandler.CONFIG_SCRIPT_ID),
+                        "The batch script matches more than one systemType of the connector");
+            }
+
             syncFailureHandler = syncFailureHandlerFactory.create(jsonConfiguration.get("syncFailureHandler"));
 
             final OpenICFProvisionerService provisionerService = this;
@@ -338,6 +369,10 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
             ((LocalConnectorFacadeImpl) connectorFacade.get()).dispose();
         }
         connectorFacade.set(null);
+        if (null != batchExecutor) {
+            batchExecutor.shutdown();
+            batchExecutor = null;
+        }
         logger.info("OpenICF Provisioner Service component {} is deactivated.", systemIdentifier.getName());
         systemIdentifier = null;
     }
@@ -357,6 +392,57 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
         return connectorFacade.get();
     }
 
+    /**
+     * Creates the executor of the operations of the bulk action, whose threads are only started when used.
+     *
+     * @param systemName the name of the system
+     * @param parallelism the maximum number of operations executed at once
+     * @return the executor
+     */
+    private static ThreadPoolExecutor newBatchExecutor(final String systemName, int parallelism) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread =
+                                new Thread(runnable, "openicf-batch-" + systemName + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    ExecutorService getBatchExecutor() {
+        return batchExecutor;
+    }
+
+    JsonValue getBatchConfiguration() {
+        return batchConfiguration;
+    }
+
+    /**
+     * Gets a new ScriptContextBuilder of the system action executing the batches of the bulk action.
+     *
+     * @return the ScriptContextBuilder or null if no batch script is configured for this system type
+     */
+    ScriptContextBuilder getBatchScriptContextBuilder() {
+        final List<ScriptContextBuilder> builders = getBatchScriptContextBuilders();
+        return builders.isEmpty() ? null : builders.get(0);
+    }
+
+    private List<ScriptContextBuilder> getBatchScriptContextBuilders() {
+        final String scriptId = batchConfiguration.get(ObjectClassBatchHandler.CONFIG_SCRIPT_ID).asString();
+        final SystemAction action = scriptId != null ? localSystemActionCache.get(scriptId) : null;
+        if (null == action || null == connectorReference) {
+            return Collections.emptyList();
+        }
+        return action.getScriptContextBuilders(connectorReference.getConnectorKey().getConnectorName());
+    }
+
     private enum ConnectorAction {
         script, test, livesync
     }
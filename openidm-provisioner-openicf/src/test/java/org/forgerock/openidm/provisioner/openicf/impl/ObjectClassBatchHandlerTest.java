@@ -0,0 +1,176 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance
+ * with the License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for
+ * the specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file
+ * and include the License file at legal/CDDLv1.0.txt. If applicable, add the following
+ * below the CDDL Header, with the fields enclosed by brackets [] replaced by your
+ * own identifying information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.ActivityLogger;
+import org.forgerock.openidm.provisioner.openicf.commons.ObjectClassInfoHelper;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.identityconnectors.framework.api.ConnectorFacade;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.ScriptContext;
+import org.identityconnectors.framework.common.objects.ScriptContextBuilder;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ObjectClassBatchHandlerTest {
+
+    private ExecutorService executor;
+    private ObjectClassResourceProvider resourceProvider;
+    private ObjectClassInfoHelper objectClassInfoHelper;
+    private OpenICFProvisionerService provisionerService;
+    private ConnectorFacade facade;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+        facade = mock(ConnectorFacade.class);
+
+        resourceProvider = mock(ObjectClassResourceProvider.class);
+        when(resourceProvider.getConnectorFacade0(any(Class.class))).thenReturn(facade);
+        when(resourceProvider.handleCreate(any(Context.class), any(CreateRequest.class)))
+                .thenReturn(newResourceResponse("new", "1", json(object())).asPromise());
+        when(resourceProvider.handleDelete(any(Context.class), any(DeleteRequest.class)))
+                .thenReturn(newResourceResponse("old", null, json(object())).asPromise());
+        when(resourceProvider.handlePatch(any(Context.class), any(PatchRequest.class)))
+                .thenReturn(newResourceResponse("patched", "2", json(object())).asPromise());
+        when(resourceProvider.handleUpdate(any(Context.class), any(UpdateRequest.class)))
+                .thenReturn(newResourceResponse("updated", "3", json(object())).asPromise());
+        when(resourceProvider.getOperationOptionsBuilder(any(), any(), any()))
+                .thenAnswer(invocation -> new OperationOptionsBuilder().setOption("option", "value"));
+
+        objectClassInfoHelper = mock(ObjectClassInfoHelper.class);
+        when(objectClassInfoHelper.getObjectClass()).thenReturn(ObjectClass.ACCOUNT);
+        when(objectClassInfoHelper.getCreateAttributes(any(CreateRequest.class), any()))
+                .thenAnswer(invocation -> Collections.<Attribute>singleton(new Name(
+                        ((CreateRequest) invocation.getArgument(0)).getContent().get("name").asString())));
+        when(objectClassInfoHelper.getFullResourceId(any(Request.class)))
+                .thenAnswer(invocation -> ((Request) invocation.getArgument(0)).getResourcePath());
+
+        provisionerService = mock(OpenICFProvisionerService.class);
+        when(provisionerService.getBatchExecutor()).thenReturn(executor);
+        when(provisionerService.getBatchConfiguration())
+                .thenReturn(json(object(field(ObjectClassBatchHandler.CONFIG_BATCH_SIZE, 2))));
+        when(provisionerService.getBatchScriptContextBuilder()).thenReturn(null);
+        when(provisionerService.getActivityLogger()).thenReturn(mock(ActivityLogger.class));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private JsonValue bulk(Object... operations) throws Exception {
+        return new ObjectClassBatchHandler(resourceProvider, objectClassInfoHelper, provisionerService, "account")
+                .handleBulk(new RootContext(),
+                        Requests.newActionRequest("", "bulk").setContent(json(array(operations))))
+                .getOrThrow().getJsonContent();
+    }
+
+    @Test
+    public void testExecutesOperationsThroughHandler() throws Exception {
+        final JsonValue results = bulk(
+                object(field("operation", "create"), field("content", object(field("name", "a")))),
+                object(field("operation", "delete"), field("_id", "old")),
+                object(field("operation", "rename"), field("_id", "old")));
+
+        assertThat(results.size()).isEqualTo(3);
+        assertThat(results.get(0).get("_id").asString()).isEqualTo("new");
+        assertThat(results.get(0).get("_rev").asString()).isEqualTo("1");
+        assertThat(results.get(1).get("_id").asString()).isEqualTo("old");
+        assertThat(results.get(2).get("code").asInteger()).isEqualTo(ResourceException.BAD_REQUEST);
+        verify(facade, never()).runScriptOnConnector(any(ScriptContext.class), any(OperationOptions.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendsBatchesToScript() throws Exception {
+        when(provisionerService.getBatchScriptContextBuilder()).thenAnswer(invocation ->
+                new ScriptContextBuilder("Groovy", "batch"));
+        when(facade.runScriptOnConnector(any(ScriptContext.class), any(OperationOptions.class)))
+                .thenAnswer(invocation -> {
+                    final ScriptContext script = invocation.getArgument(0);
+                    final List<Object> results = new ArrayList<>();
+                    for (Object operation : (List<Object>) script.getScriptArguments().get("operations")) {
+                        final Map<String, Object> result = new HashMap<>();
+                        final Map<String, Object> attributes =
+                                (Map<String, Object>) ((Map<String, Object>) operation).get("attributes");
+                        final Map<String, Object> options =
+                                (Map<String, Object>) ((Map<String, Object>) operation).get("options");
+                        result.put("uid", ((List<Object>) attributes.get(Name.NAME)).get(0) + "-"
+                                + options.get("option"));
+                        results.add(result);
+                    }
+                    return results;
+                });
+
+        final JsonValue results = bulk(
+                object(field("operation", "create"), field("content", object(field("name", "a")))),
+                object(field("operation", "patch"), field("_id", "patched"), field("content",
+                        array(object(field("operation", "replace"), field("field", "x"), field("value", "y"))))),
+                object(field("operation", "create"), field("content", object(field("name", "b")))),
+                object(field("operation", "update"), field("_id", "updated"), field("content",
+                        object(field("name", "u")))),
+                object(field("operation", "create"), field("content", object(field("name", "c")))));
+
+        assertThat(results.get(0).get("_id").asString()).isEqualTo("a-value");
+        assertThat(results.get(1).get("_rev").asString()).isEqualTo("2");
+        assertThat(results.get(2).get("_id").asString()).isEqualTo("b-value");
+        assertThat(results.get(3).get("_rev").asString()).isEqualTo("3");
+        assertThat(results.get(4).get("_id").asString()).isEqualTo("c-value");
+        // three creates in batches of two, each batch run once with the configured options
+        verify(facade, times(2)).runScriptOnConnector(any(ScriptContext.class), any(OperationOptions.class));
+        verify(resourceProvider, never()).handleCreate(any(Context.class), any(CreateRequest.class));
+        // the update keeps the re-authentication and logging of the single operation
+        verify(resourceProvider).handleUpdate(any(Context.class), any(UpdateRequest.class));
+    }
+}
@@ -2,7 +2,7 @@
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright 2012-2015 ForgeRock AS. All Rights Reserved
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -34,10 +34,14 @@ import org.quartz.JobPersistenceException;
 
 /**
  * A wrapper that contains all necessary information about a Job.
+ * <p>
+ * The JobDetail is stored either as JSON in the "job" field or, for jobs written by earlier versions or not supported
+ * by {@link QuartzJsonCodec}, as Java serialization in the "serialized" field.
  */
 public class JobWrapper {
     
     private String serialized;
+    private JsonValue job;
     private String key;
     private String revision;
     private boolean paused = false;
@@ -51,7 +55,11 @@ public class JobWrapper {
      */
     public JobWrapper(JobDetail jobDetail, boolean paused) throws JobPersistenceException {
         this.key = jobDetail.getKey().toString();
-        this.serialized = RepoJobStoreUtils.serialize(jobDetail);
+        if (RepoJobStoreUtils.isJsonEncoding() && QuartzJsonCodec.isSupported(jobDetail)) {
+            this.job = QuartzJsonCodec.toJson(jobDetail);
+        } else {
+            this.serialized = RepoJobStoreUtils.serialize(jobDetail);
+        }
         this.paused = paused;
     }
     
@@ -62,6 +70,7 @@ public class JobWrapper {
      */
     public JobWrapper(Map<String, Object> map) {
         serialized = (String)map.get("serialized");
+        job = map.get("job") != null ? new JsonValue(map.get("job")) : null;
         key = (String)map.get("key");
         paused = (Boolean)map.get("paused");
         revision = (String)map.get("_rev");
@@ -75,6 +84,7 @@ public class JobWrapper {
     public JsonValue getValue() {
         Map<String, Object> map = new HashMap<String, Object>();
         map.put("serialized", serialized);
+        map.put("job", job != null ? job.getObject() : null);
         map.put("key", key);
         map.put("paused", paused);
         return new JsonValue(map);
@@ -83,7 +93,7 @@ public class JobWrapper {
     /**
      * Returns the serialized JobDetail object
      * 
-     * @return  the serialized JobDetail object
+     * @return  the serialized JobDetail object, or null if the JobDetail is stored as JSON
      */
     public String getSerialized() {
         return serialized;
@@ -105,8 +115,24 @@ public class JobWrapper {
      * @throws Exception
      */
     public JobDetail getJobDetail() throws Exception {
+        if (job != null) {
+            return QuartzJsonCodec.toJobDetail(job);
+        }
         return (JobDetail)RepoJobStoreUtils.deserialize(serialized);
     }
+
+    /**
+     * Returns true if the Job is durable, without decoding the whole JobDetail when it is stored as JSON.
+     *
+     * @return true if the Job is durable, false otherwise
+     * @throws Exception
+     */
+    public boolean isDurable() throws Exception {
+        if (job != null) {
+            return job.get(QuartzJsonCodec.DURABLE).defaultTo(false).asBoolean();
+        }
+        return getJobDetail().isDurable();
+    }
     
     /**
      * Returns true if the JobWrapper is in the "paused" state, false otherwise.
@@ -0,0 +1,281 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.forgerock.json.JsonValue;
+import org.quartz.CronTrigger;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+
+/**
+ * Converts Quartz {@link Trigger triggers} and {@link JobDetail jobs} to and from plain JSON.
+ * <p>
+ * Only the {@link SimpleTrigger} and {@link CronTrigger} classes and job data maps holding JSON compatible values
+ * are supported, which covers the schedules created by OpenIDM. Anything else is reported as unsupported and left
+ * to Java serialization by the callers.
+ */
+final class QuartzJsonCodec {
+
+    static final String TYPE = "type";
+    static final String TYPE_SIMPLE = "simple";
+    static final String TYPE_CRON = "cron";
+
+    static final String NAME = "name";
+    static final String GROUP = "group";
+    static final String DESCRIPTION = "description";
+    static final String JOB_NAME = "jobName";
+    static final String JOB_GROUP = "jobGroup";
+    static final String CALENDAR_NAME = "calendarName";
+    static final String PRIORITY = "priority";
+    static final String VOLATILE = "volatile";
+    static final String MISFIRE_INSTRUCTION = "misfireInstruction";
+    static final String FIRE_INSTANCE_ID = "fireInstanceId";
+    static final String LISTENERS = "listeners";
+    static final String START_TIME = "startTime";
+    static final String END_TIME = "endTime";
+    static final String NEXT_FIRE_TIME = "nextFireTime";
+    static final String PREVIOUS_FIRE_TIME = "previousFireTime";
+    static final String REPEAT_COUNT = "repeatCount";
+    static final String REPEAT_INTERVAL = "repeatInterval";
+    static final String TIMES_TRIGGERED = "timesTriggered";
+    static final String CRON_EXPRESSION = "cronExpression";
+    static final String TIME_ZONE = "timeZone";
+    static final String JOB_DATA = "jobData";
+    static final String JOB_CLASS = "jobClass";
+    static final String DURABLE = "durable";
+    static final String REQUESTS_RECOVERY = "requestsRecovery";
+
+    private QuartzJsonCodec() {
+    }
+
+    /**
+     * Returns whether the trigger can be represented as JSON.
+     *
+     * @param trigger the trigger
+     * @return true if {@link #toJson(Trigger)} supports the trigger
+     */
+    static boolean isSupported(Trigger trigger) {
+        return (trigger.getClass() == SimpleTrigger.class || trigger.getClass() == CronTrigger.class)
+                && isJsonCompatible(trigger.getJobDataMap().getWrappedMap());
+    }
+
+    /**
+     * Returns whether the job can be represented as JSON.
+     *
+     * @param jobDetail the job
+     * @return true if {@link #toJson(JobDetail)} supports the job
+     */
+    static boolean isSupported(JobDetail jobDetail) {
+        return jobDetail.getClass() == JobDetail.class
+                && isJsonCompatible(jobDetail.getJobDataMap().getWrappedMap());
+    }
+
+    private static boolean isJsonCompatible(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long || value instanceof Double) {
+            return true;
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isJsonCompatible(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (!isJsonCompatible(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private static Date toDate(JsonValue millis) {
+        return millis.isNull() ? null : new Date(millis.asLong());
+    }
+
+    /**
+     * Converts a {@link #isSupported(Trigger) supported} trigger to JSON.
+     *
+     * @param trigger the trigger
+     * @return the JSON representation of the trigger
+     */
+    static JsonValue toJson(Trigger trigger) {
+        final JsonValue value = json(object(
+                field(NAME, trigger.getName()),
+                field(GROUP, trigger.getGroup()),
+                field(DESCRIPTION, trigger.getDescription()),
+                field(JOB_NAME, trigger.getJobName()),
+                field(JOB_GROUP, trigger.getJobGroup()),
+                field(CALENDAR_NAME, trigger.getCalendarName()),
+                field(PRIORITY, trigger.getPriority()),
+                field(VOLATILE, trigger.isVolatile()),
+                field(MISFIRE_INSTRUCTION, trigger.getMisfireInstruction()),
+                field(FIRE_INSTANCE_ID, trigger.getFireInstanceId()),
+                field(LISTENERS, new ArrayList<>(Arrays.asList(trigger.getTriggerListenerNames()))),
+                field(START_TIME, toMillis(trigger.getStartTime())),
+                field(END_TIME, toMillis(trigger.getEndTime())),
+                field(NEXT_FIRE_TIME, toMillis(trigger.getNextFireTime())),
+                field(PREVIOUS_FIRE_TIME, toMillis(trigger.getPreviousFireTime())),
+                field(JOB_DATA, new LinkedHashMap<>(trigger.getJobDataMap().getWrappedMap()))));
+        if (trigger instanceof CronTrigger) {
+            final CronTrigger cronTrigger = (CronTrigger) trigger;
+            value.put(TYPE, TYPE_CRON);
+            value.put(CRON_EXPRESSION, cronTrigger.getCronExpression());
+            value.put(TIME_ZONE, cronTrigger.getTimeZone().getID());
+        } else {
+            final SimpleTrigger simpleTrigger = (SimpleTrigger) trigger;
+            value.put(TYPE, TYPE_SIMPLE);
+            value.put(REPEAT_COUNT, simpleTrigger.getRepeatCount());
+            value.put(REPEAT_INTERVAL, simpleTrigger.getRepeatInterval());
+            value.put(TIMES_TRIGGERED, simpleTrigger.getTimesTriggered());
+        }
+        return value;
+    }
+
+    /**
+     * Converts the JSON representation of a trigger back to a trigger.
+     *
+     * @param value the JSON representation returned by {@link #toJson(Trigger)}
+     * @return the trigger
+     * @throws JobPersistenceException if the JSON does not represent a valid trigger
+     */
+    static Trigger toTrigger(JsonValue value) throws JobPersistenceException {
+        try {
+            final Trigger trigger;
+            final String type = value.get(TYPE).required().asString();
+            if (TYPE_CRON.equals(type)) {
+                final CronTrigger cronTrigger = new CronTrigger();
+                cronTrigger.setCronExpression(value.get(CRON_EXPRESSION).required().asString());
+                cronTrigger.setTimeZone(TimeZone.getTimeZone(value.get(TIME_ZONE).required().asString()));
+                cronTrigger.setStartTime(toDate(value.get(START_TIME)));
+                cronTrigger.setEndTime(toDate(value.get(END_TIME)));
+                cronTrigger.setNextFireTime(toDate(value.get(NEXT_FIRE_TIME)));
+                cronTrigger.setPreviousFireTime(toDate(value.get(PREVIOUS_FIRE_TIME)));
+                trigger = cronTrigger;
+            } else if (TYPE_SIMPLE.equals(type)) {
+                final SimpleTrigger simpleTrigger = new SimpleTrigger();
+                simpleTrigger.setRepeatCount(value.get(REPEAT_COUNT).defaultTo(0).asInteger());
+                simpleTrigger.setRepeatInterval(value.get(REPEAT_INTERVAL).defaultTo(0L).asLong());
+                simpleTrigger.setTimesTriggered(value.get(TIMES_TRIGGERED).defaultTo(0).asInteger());
+                simpleTrigger.setStartTime(toDate(value.get(START_TIME)));
+                simpleTrigger.setEndTime(toDate(value.get(END_TIME)));
+                simpleTrigger.setNextFireTime(toDate(value.get(NEXT_FIRE_TIME)));
+                simpleTrigger.setPreviousFireTime(toDate(value.get(PREVIOUS_FIRE_TIME)));
+                trigger = simpleTrigger;
+            } else {
+                throw new JobPersistenceException("Unsupported trigger type " + type);
+            }
+            trigger.setName(value.get(NAME).required().asString());
+            trigger.setGroup(value.get(GROUP).asString());
+            trigger.setDescription(value.get(DESCRIPTION).asString());
+            trigger.setJobName(value.get(JOB_NAME).asString());
+            trigger.setJobGroup(value.get(JOB_GROUP).asString());
+            trigger.setCalendarName(value.get(CALENDAR_NAME).asString());
+            trigger.setPriority(value.get(PRIORITY).defaultTo(Trigger.DEFAULT_PRIORITY).asInteger());
+            trigger.setVolatility(value.get(VOLATILE).defaultTo(false).asBoolean());
+            trigger.setMisfireInstruction(
+                    value.get(MISFIRE_INSTRUCTION).defaultTo(Trigger.MISFIRE_INSTRUCTION_SMART_POLICY).asInteger());
+            trigger.setFireInstanceId(value.get(FIRE_INSTANCE_ID).asString());
+            for (String listener : value.get(LISTENERS).defaultTo(new ArrayList<>()).asList(String.class)) {
+                trigger.addTriggerListener(listener);
+            }
+            trigger.setJobDataMap(toJobDataMap(value.get(JOB_DATA)));
+            return trigger;
+        } catch (JobPersistenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JobPersistenceException("Invalid trigger " + value.get(NAME).asString(), e);
+        }
+    }
+
+    /**
+     * Converts a {@link #isSupported(JobDetail) supported} job to JSON.
+     *
+     * @param jobDetail the job
+     * @return the JSON representation of the job
+     */
+    static JsonValue toJson(JobDetail jobDetail) {
+        return json(object(
+                field(NAME, jobDetail.getName()),
+                field(GROUP, jobDetail.getGroup()),
+                field(DESCRIPTION, jobDetail.getDescription()),
+                field(JOB_CLASS, jobDetail.getJobClass() != null ? jobDetail.getJobClass().getName() : null),
+                field(VOLATILE, jobDetail.isVolatile()),
+                field(DURABLE, jobDetail.isDurable()),
+                field(REQUESTS_RECOVERY, jobDetail.requestsRecovery()),
+                field(LISTENERS, new ArrayList<>(Arrays.asList(jobDetail.getJobListenerNames()))),
+                field(JOB_DATA, new LinkedHashMap<>(jobDetail.getJobDataMap().getWrappedMap()))));
+    }
+
+    /**
+     * Converts the JSON representation of a job back to a job.
+     *
+     * @param value the JSON representation returned by {@link #toJson(JobDetail)}
+     * @return the job
+     * @throws JobPersistenceException if the JSON does not represent a valid job
+     */
+    static JobDetail toJobDetail(JsonValue value) throws JobPersistenceException {
+        try {
+            final JobDetail jobDetail = new JobDetail();
+            jobDetail.setName(value.get(NAME).required().asString());
+            jobDetail.setGroup(value.get(GROUP).asString());
+            jobDetail.setDescription(value.get(DESCRIPTION).asString());
+            if (value.get(JOB_CLASS).isNotNull()) {
+                jobDetail.setJobClass(Class.forName(value.get(JOB_CLASS).asString(), true,
+                        QuartzJsonCodec.class.getClassLoader()).asSubclass(Job.class));
+            }
+            jobDetail.setVolatility(value.get(VOLATILE).defaultTo(false).asBoolean());
+            jobDetail.setDurability(value.get(DURABLE).defaultTo(false).asBoolean());
+            jobDetail.setRequestsRecovery(value.get(REQUESTS_RECOVERY).defaultTo(false).asBoolean());
+            for (String listener : value.get(LISTENERS).defaultTo(new ArrayList<>()).asList(String.class)) {
+                jobDetail.addJobListener(listener);
+            }
+            jobDetail.setJobDataMap(toJobDataMap(value.get(JOB_DATA)));
+            return jobDetail;
+        } catch (Exception e) {
+            throw new JobPersistenceException("Invalid job " + value.get(NAME).asString(), e);
+        }
+    }
+
+    private static JobDataMap toJobDataMap(JsonValue value) {
+        final JobDataMap jobDataMap = value.isNull() ? new JobDataMap() : new JobDataMap(value.asMap());
+        jobDataMap.clearDirtyFlag();
+        return jobDataMap;
+    }
+}
@@ -12,21 +12,19 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.quartz.impl;
 
 import static org.forgerock.json.JsonValue.*;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.json.JsonValue;
@@ -38,13 +36,16 @@ import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.cluster.ClusterEvent;
 import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
 import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
@@ -85,7 +86,9 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     private static final String JOB_GROUP_NAMES_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "jobGroupNames";
     private static final String JOB_PAUSED_GROUP_NAMES_RESOURCE_PATH =
             SCHEDULER_RESOURCE_PATH + "jobPausedGroupNames";
+    /** The former single document listing the waiting trigger ids, migrated by {@link #cleanUpInstance()}. */
     private static final String WAITING_TRIGGERS_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "waitingTriggers";
+    private static final String WAITING_TRIGGER_INDEX_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "waitingTriggerIndex";
     private static final String ACQUIRED_TRIGGERS_RESOURCE_PATH =
             SCHEDULER_RESOURCE_PATH + "acquiredTriggers";
 
@@ -154,6 +157,12 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private volatile boolean shutdown = false;
 
+    /**
+     * The waiting triggers ordered by next fire time
+     */
+    private WaitingTriggerIndex waitingTriggerIndex = new WaitingTriggerIndex(WAITING_TRIGGER_INDEX_RESOURCE_PATH,
+            100, 5000);
+
     private volatile RepositoryService repositoryService;
     
     /**
@@ -162,6 +171,16 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     public RepoJobStore() {
     }
 
+    /**
+     * Creates a new <code>RepoJobStore</code> on the given repository rather than the one registered in OSGi.
+     *
+     * @param repositoryService the repository service
+     */
+    @VisibleForTesting
+    RepoJobStore(RepositoryService repositoryService) {
+        this.repositoryService = repositoryService;
+    }
+
     /**
      * <p>
      * Called by the QuartzScheduler before the <code>JobStore</code> is
@@ -175,6 +194,15 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         this.loadHelper = loadHelper;
         // Set the number of retries for failed writes to the repository
         this.writeRetries = Integer.parseInt(IdentityServer.getInstance().getProperty("openidm.scheduler.repo.retry", "-1"));
+        // Set the number of waiting triggers cached and how long they are trusted
+        this.waitingTriggerIndex = new WaitingTriggerIndex(WAITING_TRIGGER_INDEX_RESOURCE_PATH,
+                Integer.parseInt(IdentityServer.getInstance().getProperty(
+                        "openidm.scheduler.waitingTriggers.batchSize", "100")),
+                Long.parseLong(IdentityServer.getInstance().getProperty(
+                        "openidm.scheduler.waitingTriggers.maxAge", "5000")));
+        // Set whether triggers and jobs are stored as JSON (default) or as Java serialization
+        RepoJobStoreUtils.setJsonEncoding(!"java".equalsIgnoreCase(IdentityServer.getInstance().getProperty(
+                "openidm.scheduler.repo.encoding", "json")));
     }
 
     public boolean setClusterService() {
@@ -482,6 +510,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
             }
             logger.debug("Adding waiting trigger {}", trigger.getName());
             addWaitingTrigger(trigger);
+            sendWaitingTriggersChanged();
         }
     }
 
@@ -491,47 +520,59 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         synchronized (lock) {
             logger.debug("Attempting to acquire the next trigger");
             Trigger trigger = null;
-            WaitingTriggers waitingTriggers = null;
             while (trigger == null && !shutdown) {
+                WaitingTriggerIndex.Entry next;
                 try {
-                    waitingTriggers = getWaitingTriggers();
-                    trigger = waitingTriggers.getTriggers().first();
-                } catch (NoSuchElementException e1) {
-                    logger.debug("No waiting triggers to acquire");
-                    return null;
+                    next = waitingTriggerIndex.first(getRepositoryService());
+                } catch (ResourceException e) {
+                    logger.warn("Error reading waiting triggers", e);
+                    throw new JobPersistenceException("Error reading waiting triggers", e);
                 }
 
-                if (trigger == null) {
+                if (next == null) {
                     logger.debug("No waiting triggers to acquire");
                     return null;
                 }
 
-                Date nextFireTime = trigger.getNextFireTime();
-                if (nextFireTime == null) {
-                    logger.debug("Trigger next fire time = null, removing");
-                    removeWaitingTrigger(trigger);
-                    trigger = null;
-                    continue;
-                }
-
                 if (noLaterThan > 0) {
-                    if (nextFireTime.getTime() > noLaterThan) {
+                    if (next.getNextFireTime() > noLaterThan) {
                         logger.debug("Trigger fire time {} is later than {}, not acquiring",
-                                nextFireTime, new Date(noLaterThan));
+                                new Date(next.getNextFireTime()), new Date(noLaterThan));
                         return null;
                     }
                 }
 
-                if(!removeWaitingTrigger(trigger)) {
+                // Removing the waiting trigger acquires it, another instance may have been faster
+                String triggerId = next.getTriggerId();
+                if (!removeWaitingTrigger(triggerId)) {
+                    continue;
+                }
+
+                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(triggerId), getNameFromId(triggerId));
+                if (tw == null) {
+                    logger.warn("Waiting trigger {} not found in repo, ignoring", triggerId);
+                    continue;
+                }
+                trigger = tw.getTrigger();
+
+                if (trigger.getNextFireTime() == null) {
+                    logger.debug("Trigger next fire time = null, removing");
                     trigger = null;
                     continue;
                 }
 
-                TriggerWrapper tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
+                if (noLaterThan > 0 && trigger.getNextFireTime().getTime() > noLaterThan) {
+                    // The cached fire time was outdated, put the trigger back
+                    logger.debug("Trigger fire time {} is later than {}, not acquiring",
+                            trigger.getNextFireTime(), new Date(noLaterThan));
+                    addWaitingTrigger(trigger);
+                    return null;
+                }
 
                 if (hasTriggerMisfired(trigger)) {
                     logger.debug("Attempting to process misfired trigger");
                     processTriggerMisfired(tw);
+                    trigger = tw.getTrigger();
                     if (trigger.getNextFireTime() != null) {
                         addWaitingTrigger(trigger);
                     }
@@ -1006,10 +1047,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                     r.setRevision(rev);
                     getRepositoryService().delete(r);
 
-                    String jobName = tw.getTrigger().getJobName();
+                    String jobName = tw.getJobName();
                     JobWrapper jw = getJobWrapper(groupName, jobName);
                     if (jw != null) {
-                        if (!jw.getJobDetail().isDurable()) {
+                        if (!jw.isDurable()) {
                             String jobId = getJobsRepoId(groupName, jobName);
                             // Get job group
                             JobGroupWrapper jgw = getOrCreateJobGroupWrapper(groupName);
@@ -1148,6 +1189,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
             updateTriggerInRepo(triggerGroup, triggerName, tw, tw.getRevision());
             // Add trigger to waitingTriggers
             addWaitingTrigger(trigger);
+            sendWaitingTriggersChanged();
         }
     }
 
@@ -1435,7 +1477,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
             if (tw != null) {
                 if (triggerInstCode == Trigger.INSTRUCTION_DELETE_TRIGGER) {
                     if (trigger.getNextFireTime() == null) {
-                        if (tw.getTrigger().getNextFireTime() == null) {
+                        if (tw.getNextFireTime() == null) {
                             removeTrigger(context, trigger.getName(), trigger.getGroup());
                         }
                     } else {
@@ -1582,7 +1624,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     /**
-     * Adds a Trigger to the list of waiting triggers.
+     * Adds a Trigger to the waiting triggers, or updates its next fire time if it is already waiting.
      *
      * @param trigger   the Trigger to add
      * @throws JobPersistenceException
@@ -1595,8 +1637,8 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
                     try {
                         // update repo
-                        addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        waitingTriggerIndex.add(getRepositoryService(),
+                                getTriggerId(trigger.getGroup(), trigger.getName()), trigger);
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Adding waiting trigger failed {}, retrying", e);
@@ -1610,21 +1652,31 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     /**
-     * Removes a Trigger from the list of waiting triggers.
+     * Removes a Trigger from the waiting triggers.
      *
      * @param trigger   the Trigger to remove
+     * @return true if the trigger was waiting, false otherwise
      * @throws JobPersistenceException
-     * @throws ResourceException
      */
     private boolean removeWaitingTrigger(Trigger trigger) throws JobPersistenceException {
+        return removeWaitingTrigger(getTriggerId(trigger.getGroup(), trigger.getName()));
+    }
+
+    /**
+     * Removes a Trigger from the waiting triggers.
+     *
+     * @param triggerId the ID of the Trigger to remove
+     * @return true if the trigger was waiting, false otherwise
+     * @throws JobPersistenceException
+     */
+    private boolean removeWaitingTrigger(String triggerId) throws JobPersistenceException {
         synchronized (lock) {
             try {
                 boolean result = false;
                 int retries = 0;
                 while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
                     try {
-                        result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        result = waitingTriggerIndex.remove(getRepositoryService(), triggerId);
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Removing waiting trigger failed {}, retrying", e);
@@ -1638,6 +1690,17 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
+    /**
+     * Notifies the other instances that a trigger has been scheduled, so that they reload their cached waiting
+     * triggers rather than wait for the cache to expire.
+     */
+    private void sendWaitingTriggersChanged() {
+        if (isClustered() && clusterManager != null && clusterManager.isEnabled()) {
+            clusterManager.sendEvent(new ClusterEvent(ClusterEventType.CUSTOM, instanceId, listenerId,
+                    json(object())));
+        }
+    }
+
     /**
      * Adds a Trigger to the list of acquired triggers.
      *
@@ -1751,60 +1814,6 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
-    /**
-     * Returns the a WaitingTriggers object which wraps the Tree of all triggers in the "waiting" state
-     *
-     * @return  the WaitingTriggers object
-     * @throws JobPersistenceException
-     */
-    private WaitingTriggers getWaitingTriggers() throws JobPersistenceException {
-        TreeSet<Trigger> waitingTriggers = new TreeSet<>(new TriggerComparator());
-        List<String> waitingTriggersRepoList = null;
-        final String repoId = WAITING_TRIGGERS_RESOURCE_PATH;
-        String revision = null;
-        JsonValue map;
-        try {
-            try {
-                map = getRepositoryService().read(Requests.newReadRequest(repoId)).getContent();
-            } catch (NotFoundException e) {
-                logger.debug("repo list {} not found, lets create it", "names");
-                map = null;
-            }
-            if (map == null || map.isNull()) {
-                map = json(object());
-                waitingTriggersRepoList = new ArrayList<>();
-                map.put("names", waitingTriggersRepoList);
-                // create in repo
-                map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
-                revision = map.get("_rev").asString();
-            } else {
-                // else check if list exists in map
-                waitingTriggersRepoList = map.get("names").asList(String.class);
-                revision = map.get("_rev").asString();
-                if (waitingTriggersRepoList == null) {
-                    waitingTriggersRepoList = new ArrayList<>();
-                    map.put("names", waitingTriggersRepoList);
-                    JsonValue updatedValue = getRepositoryService().update(Requests.newUpdateRequest(repoId, map)
-                                    .setRevision(revision)).getContent();
-                    revision = updatedValue.get("_rev").asString();
-                }
-            }
-            for (String id : waitingTriggersRepoList) {
-                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
-                if (tw == null) {
-                    logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
-                } else {
-                    logger.debug("Found waiting trigger {} in group {}", tw.getName(),tw.getGroup());
-                    waitingTriggers.add(tw.getTrigger());
-                }
-            }
-            return new WaitingTriggers(waitingTriggers, revision);
-        } catch (ResourceException e) {
-            logger.warn("Error initializing waiting triggers", e);
-            throw new JobPersistenceException("Error initializing waiting triggers", e);
-        }
-    }
-
     /**
      * Adds a Trigger group name to the list of Trigger group names
      *
@@ -2081,11 +2090,25 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                     }
                 }
 
-                // Ignore triggers which are already present in the waiting list.
-                WaitingTriggers wt = getWaitingTriggers();
-                TreeSet<Trigger> waitingTriggers = wt.getTriggers();
-                for (Trigger t : waitingTriggers) {
-                    storedTriggers.remove(t);
+                // Rewrite Java serialized triggers and jobs as JSON
+                migrateToJsonEncoding();
+
+                // Move triggers from the former waiting list document to the waiting trigger index
+                migrateWaitingTriggers();
+
+                // Ignore triggers which are already waiting.
+                Set<String> waitingTriggerIds;
+                try {
+                    waitingTriggerIds = new HashSet<>(waitingTriggerIndex.getTriggerIds(getRepositoryService()));
+                } catch (ResourceException e) {
+                    throw new JobPersistenceException("Error reading waiting triggers", e);
+                }
+                Iterator<Trigger> iterator = storedTriggers.iterator();
+                while (iterator.hasNext()) {
+                    Trigger t = iterator.next();
+                    if (waitingTriggerIds.contains(getTriggerId(t.getGroup(), t.getName()))) {
+                        iterator.remove();
+                    }
                 }
                 
                 // Process and release any triggers which are acquired
@@ -2116,60 +2139,94 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     /**
-     * A Comparator used to compare two Triggers
+     * Rewrites the triggers and jobs stored as Java serialization by earlier versions as JSON, when JSON encoding is
+     * enabled. Records updated concurrently by another instance are skipped, they are rewritten on their next update.
+     *
+     * @throws JobPersistenceException
      */
-    protected class TriggerComparator implements Comparator<Trigger> {
-
-        public int compare(Trigger t1, Trigger t2) {
-            // First compare by nextFireTime()
-            int result = t1.compareTo(t2);
-            if (result == 0) {
-                // If that didn't work, compare by priority
-                result = t2.getPriority() - t1.getPriority();
-                if (result == 0) {
-                    // If that didn't work, compare by name and group
-                    result = t1.getFullName().compareTo(t2.getFullName());
+    private void migrateToJsonEncoding() throws JobPersistenceException {
+        if (!RepoJobStoreUtils.isJsonEncoding()) {
+            return;
+        }
+        int migrated = 0;
+        try {
+            for (String groupName : getTriggerGroupNames(null)) {
+                for (String triggerName : getTriggerNames(null, groupName)) {
+                    TriggerWrapper tw = getTriggerWrapper(groupName, triggerName);
+                    if (tw == null || tw.getSerialized() == null) {
+                        continue;
+                    }
+                    tw.updateTrigger(tw.getTrigger());
+                    if (tw.getSerialized() == null) {
+                        try {
+                            getRepositoryService().update(Requests.newUpdateRequest(
+                                    getTriggersRepoId(groupName, triggerName), tw.getValue())
+                                    .setRevision(tw.getRevision()));
+                            migrated++;
+                        } catch (PreconditionFailedException e) {
+                            logger.debug("Trigger {} updated concurrently, not migrated", triggerName);
+                        }
+                    }
                 }
             }
-            return result;
+            for (String groupName : getJobGroupNames(null)) {
+                for (String jobName : getJobNames(null, groupName)) {
+                    JobWrapper jw = getJobWrapper(groupName, jobName);
+                    if (jw == null || jw.getSerialized() == null) {
+                        continue;
+                    }
+                    JobWrapper migratedJw = new JobWrapper(jw.getJobDetail(), jw.isPaused());
+                    if (migratedJw.getSerialized() == null) {
+                        try {
+                            getRepositoryService().update(Requests.newUpdateRequest(
+                                    getJobsRepoId(groupName, jobName), migratedJw.getValue())
+                                    .setRevision(jw.getRevision()));
+                            migrated++;
+                        } catch (PreconditionFailedException e) {
+                            logger.debug("Job {} updated concurrently, not migrated", jobName);
+                        }
+                    }
+                }
+            }
+        } catch (JobPersistenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new JobPersistenceException("Error migrating triggers and jobs to JSON", e);
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} triggers and jobs to JSON", migrated);
         }
     }
 
     /**
-     * A wrapper for the tree of waiting triggers
+     * Moves the triggers listed in the former single waiting triggers document to the waiting trigger index and
+     * deletes the document.
+     *
+     * @throws JobPersistenceException
      */
-    protected class WaitingTriggers {
-
-        private TreeSet<Trigger> triggers;
-        private String revision;
-
-        public WaitingTriggers(TreeSet<Trigger> triggers, String rev) {
-            this.triggers = triggers;
-            revision = rev;
-        }
-
-        public TreeSet<Trigger> getTriggers() {
-            return triggers;
-        }
-
-        public String getRevision() {
-            return revision;
-        }
-
-        public void setRevision(String rev) {
-            revision = rev;
-        }
-
-        public List<String> getTriggerNamesList() {
-            List<String> names = new ArrayList<String>();
-            Iterator<Trigger> iterator = triggers.iterator();
-            while (iterator.hasNext()) {
-                Trigger t = iterator.next();
-                names.add(getTriggerId(t.getGroup(), t.getName()));
+    private void migrateWaitingTriggers() throws JobPersistenceException {
+        try {
+            ResourceResponse legacy;
+            try {
+                legacy = getRepositoryService().read(Requests.newReadRequest(WAITING_TRIGGERS_RESOURCE_PATH));
+            } catch (NotFoundException e) {
+                return;
             }
-            return names;
+            List<String> names = legacy.getContent().get("names").defaultTo(new ArrayList<>()).asList(String.class);
+            logger.info("Migrating {} waiting triggers to {}", names.size(), WAITING_TRIGGER_INDEX_RESOURCE_PATH);
+            for (String id : names) {
+                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
+                if (tw == null) {
+                    logger.warn("Could not migrate waiting trigger {}. Trigger not found in repo", id);
+                } else {
+                    addWaitingTrigger(tw.getTrigger());
+                }
+            }
+            getRepositoryService().delete(Requests.newDeleteRequest(WAITING_TRIGGERS_RESOURCE_PATH)
+                    .setRevision(legacy.getRevision()));
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error migrating waiting triggers", e);
         }
-
     }
 
     /**
@@ -2260,6 +2317,11 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
             break;
         case INSTANCE_RUNNING:
             break;
+        case CUSTOM:
+            // A trigger has been scheduled by another instance
+            waitingTriggerIndex.invalidate();
+            schedulerSignaler.signalSchedulingChange(0L);
+            break;
         }
         return true;
     }
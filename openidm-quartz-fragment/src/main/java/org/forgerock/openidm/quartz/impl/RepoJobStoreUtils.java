@@ -2,7 +2,7 @@
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright (c) 2012 ForgeRock AS. All Rights Reserved
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -34,6 +34,31 @@ import org.forgerock.util.encode.Base64;
 import org.quartz.JobPersistenceException;
 
 public class RepoJobStoreUtils {
+
+    /**
+     * Whether triggers and jobs are stored as JSON rather than as Java serialization.
+     */
+    private static volatile boolean jsonEncoding = true;
+
+    /**
+     * Returns whether simple and cron triggers and their jobs are stored as JSON. Records written in
+     * either encoding are always readable.
+     *
+     * @return true if triggers and jobs are stored as JSON, false if they are stored as Java serialization
+     */
+    public static boolean isJsonEncoding() {
+        return jsonEncoding;
+    }
+
+    /**
+     * Sets whether simple and cron triggers and their jobs are stored as JSON.
+     *
+     * @param jsonEncoding true to store JSON, false to store Java serialization
+     */
+    public static void setJsonEncoding(boolean jsonEncoding) {
+        RepoJobStoreUtils.jsonEncoding = jsonEncoding;
+    }
+
     /**
      * Converts a serializable object into a String.
      * 
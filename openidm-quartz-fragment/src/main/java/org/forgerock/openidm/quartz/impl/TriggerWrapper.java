@@ -2,6 +2,7 @@
 * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 *
 * Copyright (c) 2012 ForgeRock AS. All Rights Reserved
+* Portions Copyright 2026 Wren Security.
 *
 * The contents of this file are subject to the terms
 * of the Common Development and Distribution License
@@ -29,16 +30,23 @@ import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 
+import java.util.Date;
+
 import org.forgerock.json.JsonValue;
 import org.quartz.JobPersistenceException;
 import org.quartz.Trigger;
 
 /**
  * A wrapper that contains all necessary information for a Trigger.
+ * <p>
+ * The Trigger is stored either as JSON in the "trigger" field or, for Triggers written by earlier versions or not
+ * supported by {@link QuartzJsonCodec}, as Java serialization in the "serialized" field. The JSON is only decoded
+ * into a Trigger object when {@link #getTrigger()} is called.
  */
 public class TriggerWrapper {
     
     private String serialized;
+    private JsonValue trigger;
     private String name;
     private String group;
     private String revision;
@@ -55,7 +63,8 @@ public class TriggerWrapper {
      * @throws JobPersistenceException if unable to serialize trigger
      */
     public TriggerWrapper(final Trigger trigger, final boolean paused) throws JobPersistenceException {
-        this(trigger.getName(), trigger.getGroup(), RepoJobStoreUtils.serialize(trigger), paused);
+        this(trigger.getName(), trigger.getGroup(), null, paused);
+        updateTrigger(trigger);
     }
 
     /**
@@ -68,7 +77,8 @@ public class TriggerWrapper {
      */
     public TriggerWrapper(final Trigger trigger, final boolean paused, final boolean acquired)
             throws JobPersistenceException {
-        this(trigger.getName(), trigger.getGroup(), RepoJobStoreUtils.serialize(trigger), paused, acquired, null);
+        this(trigger.getName(), trigger.getGroup(), null, paused, acquired, null);
+        updateTrigger(trigger);
     }
 
     /**
@@ -83,7 +93,8 @@ public class TriggerWrapper {
      */
     public TriggerWrapper(final Trigger trigger, final boolean paused, final boolean acquired, final String nodeId)
             throws JobPersistenceException {
-        this(trigger.getName(), trigger.getGroup(), RepoJobStoreUtils.serialize(trigger), paused, acquired, nodeId);
+        this(trigger.getName(), trigger.getGroup(), null, paused, acquired, nodeId);
+        updateTrigger(trigger);
     }
     
     /**
@@ -129,6 +140,7 @@ public class TriggerWrapper {
     public TriggerWrapper(final JsonValue value, final boolean paused) {
         //this(value.asMap(), paused);
         serialized = value.get("serialized").asString();
+        trigger = value.get("trigger").isNull() ? null : value.get("trigger");
         name = value.get("name").asString();
         group = value.get("group").asString();
         previous_state = value.get("previous_state").asInteger();
@@ -149,6 +161,7 @@ public class TriggerWrapper {
      */
     public TriggerWrapper(final JsonValue map) {
         serialized = map.get("serialized").asString();
+        trigger = map.get("trigger").isNull() ? null : map.get("trigger");
         name = map.get("name").asString();
         group = map.get("group").asString();
         state = map.get("state").asInteger();
@@ -232,7 +245,13 @@ public class TriggerWrapper {
      * @throws JobPersistenceException
      */
     public void updateTrigger(Trigger trigger) throws JobPersistenceException {
-        serialized = RepoJobStoreUtils.serialize(trigger);
+        if (RepoJobStoreUtils.isJsonEncoding() && QuartzJsonCodec.isSupported(trigger)) {
+            this.trigger = QuartzJsonCodec.toJson(trigger);
+            this.serialized = null;
+        } else {
+            this.trigger = null;
+            this.serialized = RepoJobStoreUtils.serialize(trigger);
+        }
     }
     
     /**
@@ -242,13 +261,43 @@ public class TriggerWrapper {
      * @throws JobPersistenceException
      */
     public Trigger getTrigger() throws JobPersistenceException {
+        if (trigger != null) {
+            return QuartzJsonCodec.toTrigger(trigger);
+        }
         return (Trigger) RepoJobStoreUtils.deserialize(serialized);
     }
+
+    /**
+     * Returns the next fire time of the Trigger, without decoding the whole Trigger when it is stored as JSON.
+     *
+     * @return  the next fire time or null if the Trigger will not fire again
+     * @throws JobPersistenceException
+     */
+    public Date getNextFireTime() throws JobPersistenceException {
+        if (trigger != null) {
+            final JsonValue nextFireTime = trigger.get(QuartzJsonCodec.NEXT_FIRE_TIME);
+            return nextFireTime.isNull() ? null : new Date(nextFireTime.asLong());
+        }
+        return getTrigger().getNextFireTime();
+    }
+
+    /**
+     * Returns the name of the Job fired by the Trigger, without decoding the whole Trigger when it is stored as JSON.
+     *
+     * @return  the Job name
+     * @throws JobPersistenceException
+     */
+    public String getJobName() throws JobPersistenceException {
+        if (trigger != null) {
+            return trigger.get(QuartzJsonCodec.JOB_NAME).asString();
+        }
+        return getTrigger().getJobName();
+    }
     
     /**
      * Gets the seriailized Trigger object.
      * 
-     * @return  the serialized Trigger object
+     * @return  the serialized Trigger object, or null if the Trigger is stored as JSON
      */
     public String getSerialized() {
         return serialized;
@@ -261,6 +310,7 @@ public class TriggerWrapper {
      */
     public void setSerialized(String serialized) {
         this.serialized = serialized;
+        this.trigger = null;
     }
 
     /**
@@ -289,6 +339,7 @@ public class TriggerWrapper {
     public JsonValue getValue() {
         return json(object(
                 field("serialized", serialized),
+                field("trigger", trigger != null ? trigger.getObject() : null),
                 field("name", name),
                 field("group", group),
                 field("previous_state", previous_state),
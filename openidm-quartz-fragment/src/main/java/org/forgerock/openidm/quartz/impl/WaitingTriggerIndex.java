@@ -0,0 +1,282 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.RepositoryService;
+import org.quartz.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The triggers in the "waiting" state, stored as one repository record per trigger holding the next fire time, and
+ * a local ordered cache of the earliest of them.
+ * <p>
+ * The next fire time is stored as a zero padded string so that the generic repository tables, which index property
+ * values as strings, order the records chronologically. The cache holds at most {@code batchSize} records and is
+ * reloaded once exhausted, once older than {@code maxAgeMillis} or once {@link #invalidate() invalidated}. A stale
+ * cache never causes a trigger to be acquired twice: the record is deleted to acquire the trigger and only one
+ * instance succeeds, the others drop the entry and move on.
+ * <p>
+ * This class is not thread safe, callers synchronize on the job store lock; only {@link #invalidate()} may be called
+ * concurrently.
+ */
+class WaitingTriggerIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitingTriggerIndex.class);
+
+    static final String TRIGGER_ID = "triggerId";
+    static final String NEXT_FIRE_TIME = "nextFireTime";
+    static final String PRIORITY = "priority";
+
+    private static final String FIRE_TIME_FORMAT = "%019d";
+
+    /**
+     * A cached waiting trigger record.
+     */
+    static final class Entry {
+        private final String triggerId;
+        private final long nextFireTime;
+        private final int priority;
+        private final String revision;
+
+        Entry(String triggerId, long nextFireTime, int priority, String revision) {
+            this.triggerId = triggerId;
+            this.nextFireTime = nextFireTime;
+            this.priority = priority;
+            this.revision = revision;
+        }
+
+        String getTriggerId() {
+            return triggerId;
+        }
+
+        long getNextFireTime() {
+            return nextFireTime;
+        }
+    }
+
+    /** Orders by fire time, then by descending priority, then by id. */
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int result = Long.compare(e1.nextFireTime, e2.nextFireTime);
+            if (result == 0) {
+                result = e2.priority - e1.priority;
+                if (result == 0) {
+                    result = e1.triggerId.compareTo(e2.triggerId);
+                }
+            }
+            return result;
+        }
+    };
+
+    private final String container;
+    private final int batchSize;
+    private final long maxAgeMillis;
+
+    private final TreeSet<Entry> cache = new TreeSet<>(ORDER);
+    private final Map<String, Entry> cacheById = new HashMap<>();
+
+    /** True when the cache holds every waiting trigger, not only the earliest batch. */
+    private boolean complete;
+    private long loadedAt;
+    private volatile boolean stale = true;
+
+    /**
+     * Creates the index.
+     *
+     * @param container the repository container of the waiting trigger records
+     * @param batchSize the maximum number of records cached at a time
+     * @param maxAgeMillis how long the cache is trusted before it is reloaded
+     */
+    WaitingTriggerIndex(String container, int batchSize, long maxAgeMillis) {
+        this.container = container;
+        this.batchSize = batchSize;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    static long getNextFireTime(Trigger trigger) {
+        return trigger.getNextFireTime() != null ? trigger.getNextFireTime().getTime() : Long.MAX_VALUE;
+    }
+
+    private static Entry toEntry(ResourceResponse resource) {
+        final JsonValue content = resource.getContent();
+        return new Entry(
+                content.get(TRIGGER_ID).asString(),
+                Long.parseLong(content.get(NEXT_FIRE_TIME).asString()),
+                content.get(PRIORITY).defaultTo(Trigger.DEFAULT_PRIORITY).asInteger(),
+                resource.getRevision());
+    }
+
+    private String getRepoId(String triggerId) {
+        return container + "/" + triggerId;
+    }
+
+    /**
+     * Marks the cache as outdated, e.g. because another instance scheduled a trigger.
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    private void cache(Entry entry) {
+        uncache(entry.triggerId);
+        cache.add(entry);
+        cacheById.put(entry.triggerId, entry);
+    }
+
+    private void uncache(String triggerId) {
+        final Entry old = cacheById.remove(triggerId);
+        if (old != null) {
+            cache.remove(old);
+        }
+    }
+
+    /**
+     * Adds the trigger to the waiting triggers or updates its next fire time.
+     *
+     * @param repo the repository service
+     * @param triggerId the trigger id
+     * @param trigger the trigger
+     * @throws ResourceException if the record could not be stored
+     */
+    void add(RepositoryService repo, String triggerId, Trigger trigger) throws ResourceException {
+        final JsonValue value = json(object(
+                field(TRIGGER_ID, triggerId),
+                field(NEXT_FIRE_TIME, String.format(FIRE_TIME_FORMAT, getNextFireTime(trigger))),
+                field(PRIORITY, trigger.getPriority())));
+        ResourceResponse stored;
+        try {
+            stored = repo.create(Requests.newCreateRequest(container, triggerId, value));
+        } catch (PreconditionFailedException e) {
+            // already waiting, update the fire time
+            final ResourceResponse existing = repo.read(Requests.newReadRequest(getRepoId(triggerId)));
+            stored = repo.update(Requests.newUpdateRequest(getRepoId(triggerId), value)
+                    .setRevision(existing.getRevision()));
+        }
+        final Entry entry = new Entry(triggerId, getNextFireTime(trigger), trigger.getPriority(),
+                stored.getRevision());
+        if (complete || (!cache.isEmpty() && ORDER.compare(entry, cache.last()) < 0)) {
+            cache(entry);
+        } else {
+            // beyond the cached window, picked up by the next load
+            uncache(triggerId);
+        }
+    }
+
+    /**
+     * Removes the trigger from the waiting triggers. Used to acquire a trigger, only one caller succeeds.
+     *
+     * @param repo the repository service
+     * @param triggerId the trigger id
+     * @return true if the trigger was waiting and has been removed, false otherwise
+     * @throws ResourceException if the record could not be removed
+     */
+    boolean remove(RepositoryService repo, String triggerId) throws ResourceException {
+        final Entry cached = cacheById.get(triggerId);
+        uncache(triggerId);
+        String revision = cached != null ? cached.revision : null;
+        while (true) {
+            try {
+                if (revision == null) {
+                    revision = repo.read(Requests.newReadRequest(getRepoId(triggerId))).getRevision();
+                }
+                repo.delete(Requests.newDeleteRequest(getRepoId(triggerId)).setRevision(revision));
+                return true;
+            } catch (NotFoundException e) {
+                logger.trace("Waiting trigger {} already removed", triggerId);
+                return false;
+            } catch (PreconditionFailedException e) {
+                if (cached == null) {
+                    throw e;
+                }
+                // the cached revision is outdated, retry with the current one
+                revision = null;
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the waiting trigger with the earliest fire time, reloading the cache when needed.
+     *
+     * @param repo the repository service
+     * @return the earliest waiting trigger or {@code null} if no trigger is waiting
+     * @throws ResourceException if the records could not be queried
+     */
+    Entry first(RepositoryService repo) throws ResourceException {
+        if (stale || System.currentTimeMillis() - loadedAt > maxAgeMillis || (cache.isEmpty() && !complete)) {
+            load(repo);
+        }
+        return cache.isEmpty() ? null : cache.first();
+    }
+
+    private void load(RepositoryService repo) throws ResourceException {
+        stale = false;
+        final QueryRequest request = Requests.newQueryRequest(container)
+                .setQueryFilter(QueryFilters.parse("true"))
+                .addSortKey(SortKey.ascendingOrder(new JsonPointer(NEXT_FIRE_TIME)))
+                .setPageSize(batchSize);
+        final List<ResourceResponse> results = repo.query(request);
+        cache.clear();
+        cacheById.clear();
+        for (ResourceResponse resource : results) {
+            cache(toEntry(resource));
+        }
+        complete = results.size() < batchSize;
+        loadedAt = System.currentTimeMillis();
+        logger.debug("Loaded {} waiting triggers", results.size());
+    }
+
+    /**
+     * Returns the ids of all waiting triggers.
+     *
+     * @param repo the repository service
+     * @return the trigger ids
+     * @throws ResourceException if the records could not be queried
+     */
+    List<String> getTriggerIds(RepositoryService repo) throws ResourceException {
+        final QueryRequest request = Requests.newQueryRequest(container)
+                .setQueryFilter(QueryFilters.parse("true"))
+                .addField(TRIGGER_ID);
+        final List<String> ids = new ArrayList<>();
+        for (ResourceResponse resource : repo.query(request)) {
+            ids.add(resource.getContent().get(TRIGGER_ID).asString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.forgerock.json.JsonValue;
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class QuartzJsonCodecTest {
+
+    @AfterMethod
+    public void tearDown() {
+        RepoJobStoreUtils.setJsonEncoding(true);
+    }
+
+    private static CronTrigger newCronTrigger() throws Exception {
+        CronTrigger trigger = new CronTrigger("trigger1", "group1", "job1", "group1", "0 0/5 * * * ?");
+        trigger.setTimeZone(TimeZone.getTimeZone("Europe/Prague"));
+        trigger.setMisfireInstruction(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING);
+        trigger.getJobDataMap().put("config", "{\"enabled\":true}");
+        trigger.getJobDataMap().put("invokeContext", Collections.singletonMap("action", "reconcile"));
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    @Test
+    public void testCronTriggerRoundTrip() throws Exception {
+        CronTrigger trigger = newCronTrigger();
+
+        CronTrigger decoded = (CronTrigger) QuartzJsonCodec.toTrigger(QuartzJsonCodec.toJson(trigger));
+
+        assertThat(decoded.getFullName()).isEqualTo(trigger.getFullName());
+        assertThat(decoded.getFullJobName()).isEqualTo(trigger.getFullJobName());
+        assertThat(decoded.getCronExpression()).isEqualTo(trigger.getCronExpression());
+        assertThat(decoded.getTimeZone()).isEqualTo(trigger.getTimeZone());
+        assertThat(decoded.getMisfireInstruction()).isEqualTo(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING);
+        assertThat(decoded.getNextFireTime()).isEqualTo(trigger.getNextFireTime());
+        assertThat(decoded.getJobDataMap().getWrappedMap()).isEqualTo(trigger.getJobDataMap().getWrappedMap());
+        assertThat(decoded.getFireTimeAfter(trigger.getNextFireTime()))
+                .isEqualTo(trigger.getFireTimeAfter(trigger.getNextFireTime()));
+    }
+
+    @Test
+    public void testSimpleTriggerRoundTrip() throws Exception {
+        SimpleTrigger trigger = new SimpleTrigger("trigger1", "group1", "job1", "group1",
+                new Date(1000000L), null, 3, 60000L);
+        trigger.computeFirstFireTime(null);
+        trigger.triggered(null);
+
+        SimpleTrigger decoded = (SimpleTrigger) QuartzJsonCodec.toTrigger(QuartzJsonCodec.toJson(trigger));
+
+        assertThat(decoded.getRepeatCount()).isEqualTo(3);
+        assertThat(decoded.getRepeatInterval()).isEqualTo(60000L);
+        assertThat(decoded.getTimesTriggered()).isEqualTo(1);
+        assertThat(decoded.getStartTime()).isEqualTo(trigger.getStartTime());
+        assertThat(decoded.getPreviousFireTime()).isEqualTo(trigger.getPreviousFireTime());
+        assertThat(decoded.getNextFireTime()).isEqualTo(trigger.getNextFireTime());
+    }
+
+    @Test
+    public void testJobDetailRoundTrip() throws Exception {
+        JobDetail job = new JobDetail("job1", "group1", SchedulerServiceJob.class);
+        job.setDurability(true);
+        job.getJobDataMap().put("config", "{}");
+
+        JobDetail decoded = QuartzJsonCodec.toJobDetail(QuartzJsonCodec.toJson(job));
+
+        assertThat(decoded.getFullName()).isEqualTo(job.getFullName());
+        assertThat(decoded.getJobClass()).isEqualTo(SchedulerServiceJob.class);
+        assertThat(decoded.isDurable()).isTrue();
+        assertThat(decoded.getJobDataMap().getString("config")).isEqualTo("{}");
+    }
+
+    @Test
+    public void testTriggerWrapperStoresJson() throws Exception {
+        CronTrigger trigger = newCronTrigger();
+
+        JsonValue value = new TriggerWrapper(trigger, false).getValue();
+
+        assertThat(value.get("serialized").isNull()).isTrue();
+        assertThat(value.get("trigger").get(QuartzJsonCodec.CRON_EXPRESSION).asString()).isEqualTo("0 0/5 * * * ?");
+        TriggerWrapper read = new TriggerWrapper(value);
+        assertThat(read.getNextFireTime()).isEqualTo(trigger.getNextFireTime());
+        assertThat(read.getTrigger().getFullName()).isEqualTo(trigger.getFullName());
+    }
+
+    @Test
+    public void testTriggerWrapperReadsJavaSerialization() throws Exception {
+        CronTrigger trigger = newCronTrigger();
+        RepoJobStoreUtils.setJsonEncoding(false);
+        JsonValue legacy = new TriggerWrapper(trigger, false).getValue();
+        RepoJobStoreUtils.setJsonEncoding(true);
+
+        TriggerWrapper read = new TriggerWrapper(legacy);
+        assertThat(read.getSerialized()).isNotNull();
+        Trigger decoded = read.getTrigger();
+        assertThat(decoded.getNextFireTime()).isEqualTo(trigger.getNextFireTime());
+
+        // rewritten as JSON on the next update
+        read.updateTrigger(decoded);
+        assertThat(read.getSerialized()).isNull();
+        assertThat(read.getValue().get("trigger").isNotNull()).isTrue();
+    }
+
+    @Test
+    public void testUnsupportedJobDataFallsBackToJavaSerialization() throws Exception {
+        CronTrigger trigger = newCronTrigger();
+        trigger.getJobDataMap().put("date", new Date());
+
+        assertThat(QuartzJsonCodec.isSupported(trigger)).isFalse();
+        JsonValue value = new TriggerWrapper(trigger, false).getValue();
+        assertThat(value.get("serialized").isString()).isTrue();
+        assertThat(value.get("trigger").isNull()).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.quartz.CronTrigger;
+import org.quartz.Trigger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the acquire and fire throughput of the trigger records stored as Java serialization and as JSON.
+ * <p>
+ * Each cycle does what {@link RepoJobStore} does with a trigger record on acquire and on fire: read the record,
+ * decode the trigger, update it, encode it and write the record. The repository round trip is simulated by writing
+ * the record to a JSON string and parsing it back. Run the {@link #main(String[])} method from the test classpath,
+ * optionally passing the number of cycles.
+ */
+public final class TriggerEncodingBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TriggerEncodingBenchmark() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonValue roundTrip(JsonValue value) throws Exception {
+        return new JsonValue(MAPPER.readValue(MAPPER.writeValueAsString(value.getObject()), LinkedHashMap.class));
+    }
+
+    private static JsonValue cycle(JsonValue record, int i) throws Exception {
+        // acquire
+        TriggerWrapper tw = new TriggerWrapper(roundTrip(record));
+        Trigger trigger = tw.getTrigger();
+        trigger.setFireInstanceId(String.valueOf(i));
+        tw.setAcquired(true);
+        tw.updateTrigger(trigger);
+        // fire
+        tw = new TriggerWrapper(roundTrip(tw.getValue()));
+        trigger = tw.getTrigger();
+        trigger.triggered(null);
+        tw.setAcquired(false);
+        tw.updateTrigger(trigger);
+        return tw.getValue();
+    }
+
+    private static void run(String label, boolean json, int cycles) throws Exception {
+        RepoJobStoreUtils.setJsonEncoding(json);
+        CronTrigger trigger = new CronTrigger("trigger-reconcile", "scheduler", "reconcile", "scheduler",
+                "0 0/5 * * * ?");
+        Map<String, Object> invokeContext = new LinkedHashMap<>();
+        invokeContext.put("action", "reconcile");
+        invokeContext.put("mapping", "systemLdapAccounts_managedUser");
+        trigger.getJobDataMap().put("schedule.config.name", "scheduler-reconcile");
+        trigger.getJobDataMap().put("scheduler.invokeService", "org.forgerock.openidm.sync");
+        trigger.getJobDataMap().put("scheduler.invokeContext", invokeContext);
+        trigger.computeFirstFireTime(null);
+
+        JsonValue record = new TriggerWrapper(trigger, false).getValue();
+        for (int i = 0; i < cycles / 10; i++) {
+            record = cycle(record, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            record = cycle(record, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        int size = MAPPER.writeValueAsString(record.getObject()).length();
+        System.out.printf("%-6s %10.0f acquire+fire cycles/s %8d bytes per record%n",
+                label, cycles / (elapsed / 1e9), size);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally the number of measured cycles, 20000 by default
+     * @throws Exception if a cycle fails
+     */
+    public static void main(String[] args) throws Exception {
+        int cycles = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        run("java", false, cycles);
+        run("json", true, cycles);
+        RepoJobStoreUtils.setJsonEncoding(true);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Responses;
+import org.forgerock.openidm.repo.RepositoryService;
+import org.mockito.ArgumentCaptor;
+import org.quartz.SimpleTrigger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WaitingTriggerIndexTest {
+
+    private static final String CONTAINER = "/scheduler/waitingTriggerIndex";
+
+    private RepositoryService repo;
+    private WaitingTriggerIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        repo = mock(RepositoryService.class);
+        index = new WaitingTriggerIndex(CONTAINER, 2, 60000);
+    }
+
+    private static ResourceResponse record(String id, long nextFireTime, String revision) {
+        return Responses.newResourceResponse(id, revision, json(object(
+                field(WaitingTriggerIndex.TRIGGER_ID, id),
+                field(WaitingTriggerIndex.NEXT_FIRE_TIME, String.format("%019d", nextFireTime)),
+                field(WaitingTriggerIndex.PRIORITY, 5))));
+    }
+
+    @Test
+    public void testAddStoresSortableFireTime() throws Exception {
+        SimpleTrigger trigger = new SimpleTrigger("trigger1", "group1", new Date(1234L));
+        trigger.computeFirstFireTime(null);
+        when(repo.create(any(CreateRequest.class))).thenReturn(record("group1_trigger1", 1234L, "0"));
+
+        index.add(repo, "group1_trigger1", trigger);
+
+        ArgumentCaptor<CreateRequest> request = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(repo).create(request.capture());
+        assertThat(request.getValue().getNewResourceId()).isEqualTo("group1_trigger1");
+        assertThat(request.getValue().getContent().get(WaitingTriggerIndex.NEXT_FIRE_TIME).asString())
+                .isEqualTo("0000000000000001234");
+    }
+
+    @Test
+    public void testFirstLoadsOncePerBatch() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenReturn(
+                Arrays.asList(record("a", 100L, "0"), record("b", 200L, "0")),
+                Arrays.asList(record("c", 300L, "0")));
+
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("a");
+        assertThat(index.remove(repo, "a")).isTrue();
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("b");
+        verify(repo, times(1)).query(any(QueryRequest.class));
+
+        assertThat(index.remove(repo, "b")).isTrue();
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("c");
+        verify(repo, times(2)).query(any(QueryRequest.class));
+    }
+
+    @Test
+    public void testRemoveAlreadyAcquired() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenReturn(Arrays.asList(record("a", 100L, "0")));
+        when(repo.delete(any(DeleteRequest.class))).thenThrow(new NotFoundException());
+
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("a");
+        assertThat(index.remove(repo, "a")).isFalse();
+    }
+
+    @Test
+    public void testInvalidateReloads() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenReturn(
+                Arrays.asList(record("b", 200L, "0")),
+                Arrays.asList(record("a", 100L, "0"), record("b", 200L, "0")));
+
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("b");
+        index.invalidate();
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("a");
+    }
+}
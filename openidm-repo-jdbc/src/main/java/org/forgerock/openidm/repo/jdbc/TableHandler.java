@@ -2,7 +2,7 @@
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright © 2011-2015 ForgeRock AS. All rights reserved.
- * Portions Copyright 2023 Wren Security.
+ * Portions Copyright 2023-2026 Wren Security.
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -29,6 +29,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.NotFoundException;
@@ -229,4 +230,22 @@ public interface TableHandler {
      */
     boolean isRetryable(SQLException exception, Connection connection);
 
+    /**
+     * Get the unique index of the database which enforces the uniqueness of an object property.
+     *
+     * <p>
+     * An explicitly mapped table qualifies an index on the column storing that property alone. The generic tables,
+     * whose properties table is shared by all the properties and possibly all the types, only qualify an index
+     * declared in their mapping.
+     *
+     * @param type the type of the object
+     * @param property the object property
+     * @param connection database connection to read the database metadata with
+     * @return the name of the unique index or {@code null} if the property is not unique in the database
+     * @throws SQLException if a DB failure is reported
+     */
+    default String getUniqueIndex(String type, JsonPointer property, Connection connection) throws SQLException {
+        return null;
+    }
+
 }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020-2024 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -36,13 +36,21 @@ import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
@@ -64,6 +72,10 @@ import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.config.enhanced.InvalidException;
 import org.forgerock.openidm.core.ServerConstants;
@@ -89,6 +101,7 @@ import org.forgerock.openidm.repo.jdbc.impl.vendor.MySQLMappedTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.OracleGenericTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.OracleMappedTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.PostgreSQLGenericTableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.vendor.PostgreSQLJsonbGenericTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.PostgreSQLMappedTableHandler;
 import org.forgerock.openidm.smartevent.EventEntry;
 import org.forgerock.openidm.smartevent.Name;
@@ -124,18 +137,35 @@ import org.slf4j.LoggerFactory;
         service = { RequestHandler.class, RepositoryService.class })
 @ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
 @ServiceDescription("Repository Service using JDBC")
-public class JDBCRepoService implements RequestHandler, RepoBootService, RepositoryService {
+public class JDBCRepoService implements RequestHandler, RepoBootService, RepositoryService, ClusterEventListener {
 
     final static Logger logger = LoggerFactory.getLogger(JDBCRepoService.class);
 
     public static final String PID = "org.forgerock.openidm.repo.jdbc";
     private static final String ACTION_COMMAND = "command";
+    private static final String ACTION_CACHE_STATISTICS = "cacheStatistics";
+    private static final String ACTION_UNIQUE_INDEXES = "uniqueIndexes";
+
+    /** SQLState class of the connection exceptions. */
+    private static final String SQL_STATE_CONNECTION_EXCEPTION = "08";
+
+    /** Identifier of the cluster event listener invalidating the cached objects. */
+    static final String CACHE_LISTENER_ID = "repo.cache";
+    private static final String EVENT_INVALIDATIONS = "invalidations";
+    private static final String EVENT_TYPE = "type";
+    private static final String EVENT_ID = "id";
+
+    /** Interval of sending the batched cache invalidations to the other cluster nodes in milliseconds. */
+    private static final long INVALIDATION_FLUSH_INTERVAL = 1000L;
 
     // Keys in the JSON configuration
     public static final String CONFIG_USE_DATASOURCE = "useDataSource";
     public static final String CONFIG_DB_TYPE = "dbType";
     public static final String CONFIG_MAX_TX_RETRY = "maxTxRetry";
     public static final String CONFIG_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String CONFIG_JSONB = "jsonb";
+    public static final String CONFIG_RESOURCE_CACHE = "resourceCache";
+    public static final String CONFIG_READ_REPLICA = "readReplica";
 
     private Map<String, TableHandler> tableHandlers;
     private TableHandler defaultTableHandler;
@@ -145,6 +175,37 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     private JsonValue config;
     private int maxTxRetry = 5;
 
+    private volatile ResourceCache resourceCache = new ResourceCache(null);
+
+    /** Names of the unique indexes enforcing object properties, by type, as looked up with the uniqueIndexes action. */
+    private volatile Map<String, Set<String>> uniqueIndexes = new ConcurrentHashMap<>();
+
+    private volatile ReadReplica readReplica;
+
+    /** Cache invalidations waiting to be sent to the other cluster nodes. */
+    private final Queue<Map<String, Object>> pendingInvalidations = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService invalidationExecutor;
+
+    private volatile ClusterManagementService clusterManager;
+
+    @Reference(
+            service = ClusterManagementService.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            unbind = "unbindClusterManagementService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected void bindClusterManagementService(ClusterManagementService service) {
+        clusterManager = service;
+        service.register(CACHE_LISTENER_ID, this);
+    }
+
+    protected void unbindClusterManagementService(ClusterManagementService service) {
+        service.unregister(CACHE_LISTENER_ID);
+        if (clusterManager == service) {
+            clusterManager = null;
+        }
+    }
+
     /**
      * Enhanced configuration service.
      */
@@ -221,6 +282,11 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Deactivate
     void deactivate(ComponentContext compContext) {
         logger.debug("Deactivating Service {}", compContext);
+        if (invalidationExecutor != null) {
+            invalidationExecutor.shutdown();
+            invalidationExecutor = null;
+            flushInvalidations();
+        }
         logger.info("Repository stopped.");
     }
 
@@ -270,29 +336,68 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         final String type = request.getResourcePathObject().parent().toString();
         final String localId = request.getResourcePathObject().leaf();
 
-        Connection connection = null;
+        final ResourceCache cache = resourceCache;
+        ResourceResponse cached = cache.get(type, localId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp(type);
+        ResourceResponse result = read(request.getResourcePath(), type, localId, false);
+        cache.put(type, localId, result, stamp);
+        return result;
+    }
+
+    /**
+     * Reads the object from the database, bypassing the cache.
+     *
+     * @param fullId the full identifier of the object
+     * @param type the resource type
+     * @param localId the local identifier of the object
+     * @param primary true to read from the primary database even if a read replica is configured
+     * @return the object read
+     * @throws ResourceException if the object does not exist or the read failed
+     */
+    private ResourceResponse read(String fullId, String type, String localId, boolean primary)
+            throws ResourceException {
+        DataSourceService source = primary ? dataSourceService : getReadDataSource(type);
         try {
-            connection = getConnection();
-            connection.setAutoCommit(true); // Ensure this does not get
-                                            // transaction isolation handling
-            TableHandler handler = getTableHandler(type);
-            if (handler == null) {
-                throw newResourceException(ResourceException.INTERNAL_ERROR,
-                        "No handler configured for resource type " + type);
+            try {
+                return read(fullId, type, localId, source);
+            } catch (SQLException ex) {
+                if (source == dataSourceService || !isConnectionFailure(ex)) {
+                    throw ex;
+                }
+                readReplicaFailed(ex);
+                return read(fullId, type, localId, dataSourceService);
             }
-            return handler.read(request.getResourcePath(), type, localId, connection);
         } catch (SQLException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("SQL Exception in read of {} with error code {}, sql state {}",
-                        request.getResourcePath(), ex.getErrorCode(), ex.getSQLState(), ex);
+                        fullId, ex.getErrorCode(), ex.getSQLState(), ex);
             }
             throw new InternalServerErrorException("Reading object failed " + ex.getMessage(), ex);
         } catch (ResourceException ex) {
-            logger.debug("ResourceException in read of {}", request.getResourcePath(), ex);
+            logger.debug("ResourceException in read of {}", fullId, ex);
             throw ex;
         } catch (IOException ex) {
-            logger.debug("IO Exception in read of {}", request.getResourcePath(), ex);
+            logger.debug("IO Exception in read of {}", fullId, ex);
             throw new InternalServerErrorException("Conversion of read object failed", ex);
+        }
+    }
+
+    private ResourceResponse read(String fullId, String type, String localId, DataSourceService source)
+            throws SQLException, ResourceException, IOException {
+        Connection connection = null;
+        try {
+            connection = getConnection(source);
+            connection.setAutoCommit(true); // Ensure this does not get
+                                            // transaction isolation handling
+            TableHandler handler = getTableHandler(type);
+            if (handler == null) {
+                throw newResourceException(ResourceException.INTERNAL_ERROR,
+                        "No handler configured for resource type " + type);
+            }
+            return handler.read(fullId, type, localId, connection);
         } finally {
             CleanupHelper.loggedClose(connection);
         }
@@ -343,6 +448,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Committed created object for id: {}", fullId);
+                written(type);
+                resourceCache.invalidate(type, localId);
 
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
@@ -351,6 +458,10 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 }
                 rollback(connection);
                 boolean alreadyExisted = handler.isErrorType(ex, ErrorType.DUPLICATE_KEY);
+                if (alreadyExisted && isUniqueIndexViolation(type, ex)) {
+                    throw new ConflictException("Create rejected as a unique value of the object already exists. "
+                            + "(" + ex.getErrorCode() + "-" + ex.getSQLState() + ")" + ex.getMessage(), ex);
+                }
                 if (alreadyExisted) {
                     throw new PreconditionFailedException(
                             "Create rejected as Object with same ID already exists and was detected. "
@@ -414,7 +525,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         Map<String, Object> obj = request.getContent().asMap();
         String rev = request.getRevision() != null && !"".equals(request.getRevision())
                 ? request.getRevision()
-                : read(Requests.newReadRequest(request.getResourcePath())).getRevision();
+                : read(request.getResourcePath(), type, localId, true).getRevision();
 
         Connection connection = null;
         Integer previousIsolationLevel = null;
@@ -438,12 +549,17 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Commited updated object for id: {}", request.getResourcePath());
+                invalidate(type, localId);
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("SQL Exception in update of {} with error code {}, sql state {}",
                             request.getResourcePath(), ex.getErrorCode(), ex.getSQLState(), ex);
                 }
                 rollback(connection);
+                if (handler.isErrorType(ex, ErrorType.DUPLICATE_KEY) && isUniqueIndexViolation(type, ex)) {
+                    throw new ConflictException("Update rejected as a unique value of the object already exists. "
+                            + "(" + ex.getErrorCode() + "-" + ex.getSQLState() + ")" + ex.getMessage(), ex);
+                }
                 if (handler.isRetryable(ex, connection)) {
                     if (tryCount <= maxTxRetry) {
                         retry = true;
@@ -535,6 +651,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Commited deleted object for id: {}", request.getResourcePath());
+                invalidate(type, localId);
             } catch (ResourceException ex) {
                 logger.debug("ResourceException in delete of {}", request.getResourcePath(), ex);
                 rollback(connection);
@@ -597,7 +714,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
             Integer totalCount = null;
             if (request.getTotalPagedResultsPolicy() != CountPolicy.NONE) {
-               try (var connection = getConnection()) {
+               try (var connection = getConnection(getReadDataSource(type))) {
                    totalCount = tableHandler.queryCount(type, params, connection);
                }
             }
@@ -663,6 +780,31 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         logger.trace("Full id: {} Extracted type: {}", fullId, type);
         var params = createQueryParams(request);
 
+        DataSourceService source = getReadDataSource(type);
+        try {
+            try {
+                return query(type, params, source);
+            } catch (SQLException ex) {
+                if (source == dataSourceService || !isConnectionFailure(ex)) {
+                    throw ex;
+                }
+                readReplicaFailed(ex);
+                return query(type, params, dataSourceService);
+            }
+        } catch (SQLException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
+                        fullId, ex.getErrorCode(), ex.getSQLState(), ex);
+            }
+            throw new InternalServerErrorException("Querying failed: " + ex.getMessage(), ex);
+        } catch (ResourceException ex) {
+            logger.debug("ResourceException in query of {}", fullId, ex);
+            throw ex;
+        }
+    }
+
+    private List<ResourceResponse> query(String type, Map<String, Object> params, DataSourceService source)
+            throws SQLException, ResourceException {
         Connection connection = null;
         try {
             TableHandler tableHandler = getTableHandler(type);
@@ -670,7 +812,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 throw newResourceException(ResourceException.INTERNAL_ERROR,
                         "No handler configured for resource type " + type);
             }
-            connection = getConnection();
+            connection = getConnection(source);
             connection.setAutoCommit(true); // Ensure we do not implicitly
                                             // start transaction isolation
 
@@ -684,15 +826,6 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 results.add(resultResource);
             }
             return results;
-        } catch (SQLException ex) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
-                        fullId, ex.getErrorCode(), ex.getSQLState(), ex);
-            }
-            throw new InternalServerErrorException("Querying failed: " + ex.getMessage(), ex);
-        } catch (ResourceException ex) {
-            logger.debug("ResourceException in query of {}", fullId, ex);
-            throw ex;
         } finally {
             CleanupHelper.loggedClose(connection);
         }
@@ -703,6 +836,10 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         try {
             if (ACTION_COMMAND.equalsIgnoreCase(request.getAction())) {
                 return command(request).asPromise();
+            } else if (ACTION_CACHE_STATISTICS.equalsIgnoreCase(request.getAction())) {
+                return newActionResponse(resourceCache.getStatistics()).asPromise();
+            } else if (ACTION_UNIQUE_INDEXES.equalsIgnoreCase(request.getAction())) {
+                return uniqueIndexes(request).asPromise();
             } else {
                 throw new NotSupportedException("Action operations are not supported");
             }
@@ -713,6 +850,63 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Looks up the unique indexes of the database enforcing the uniqueness of object properties. The found indexes
+     * are remembered to tell their violations from the other duplicated keys on update.
+     *
+     * @param request the request listing the {@code properties} of the objects of the type at its resource path
+     * @return the name of the unique index of each property, {@code null} for a property without one
+     * @throws ResourceException on failure to read the database metadata
+     */
+    private ActionResponse uniqueIndexes(ActionRequest request) throws ResourceException {
+        final String type = request.getResourcePath();
+        final TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        final JsonValue result = json(object());
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            for (String property : request.getContent().get("properties").required().asList(String.class)) {
+                final String index = handler.getUniqueIndex(type, new JsonPointer(property), connection);
+                if (index != null) {
+                    uniqueIndexes.computeIfAbsent(type, key -> ConcurrentHashMap.newKeySet()).add(index);
+                }
+                result.put(property, index);
+            }
+        } catch (SQLException ex) {
+            throw new InternalServerErrorException("Reading the unique indexes of " + type + " failed: "
+                    + ex.getMessage(), ex);
+        } finally {
+            CleanupHelper.loggedClose(connection);
+        }
+        return newActionResponse(result);
+    }
+
+    /**
+     * Tests whether a duplicated key reported by the database is the key of a unique index enforcing an object
+     * property, which the databases name in the message.
+     *
+     * @param type the type of the written object
+     * @param ex the exception reporting the duplicated key
+     * @return true if the duplicated key is the key of a known unique index
+     */
+    private boolean isUniqueIndexViolation(String type, SQLException ex) {
+        final Set<String> indexes = uniqueIndexes.get(type);
+        if (indexes == null || ex.getMessage() == null) {
+            return false;
+        }
+        final String message = ex.getMessage().toLowerCase();
+        for (String index : indexes) {
+            if (message.contains(index.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Performs the repo command defined by the {@code request).
      *
@@ -743,6 +937,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 result = new JsonValue(handler.command(type, new HashMap<String, Object>(request.getAdditionalParameters()), connection));
 
                 connection.commit();
+                invalidate(type, null);
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("SQL Exception in command on {} with error code {}, sql state {}",
@@ -775,6 +970,72 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         return newActionResponse(result);
     }
 
+    /**
+     * Removes the changed objects from the cache of this node and queues the invalidation for the other nodes.
+     *
+     * @param type the resource type
+     * @param localId the local identifier of the changed object, {@code null} to invalidate the whole type
+     */
+    private void invalidate(String type, String localId) {
+        written(type);
+        if (!resourceCache.isCached(type)) {
+            return;
+        }
+        Map<String, Object> invalidation = new HashMap<>();
+        invalidation.put(EVENT_TYPE, type);
+        if (localId != null) {
+            resourceCache.invalidate(type, localId);
+            invalidation.put(EVENT_ID, localId);
+        } else {
+            resourceCache.invalidateType(type);
+        }
+        if (clusterManager != null) {
+            pendingInvalidations.add(invalidation);
+        }
+    }
+
+    /**
+     * Sends the queued cache invalidations to the other cluster nodes as a single event.
+     */
+    private void flushInvalidations() {
+        ClusterManagementService cluster = clusterManager;
+        if (pendingInvalidations.isEmpty() || cluster == null) {
+            pendingInvalidations.clear();
+            return;
+        }
+        List<Object> invalidations = new ArrayList<>();
+        Map<String, Object> invalidation;
+        while ((invalidation = pendingInvalidations.poll()) != null) {
+            invalidations.add(invalidation);
+        }
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        try {
+            cluster.sendEvent(new ClusterEvent(ClusterEventType.CUSTOM, cluster.getInstanceId(), CACHE_LISTENER_ID,
+                    json(object(field(EVENT_INVALIDATIONS, invalidations)))));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send {} cache invalidations to the cluster", invalidations.size(), e);
+        }
+    }
+
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        if (event.getType() == ClusterEventType.CUSTOM && event.getDetails() != null) {
+            for (JsonValue invalidation : event.getDetails().get(EVENT_INVALIDATIONS)) {
+                String type = invalidation.get(EVENT_TYPE).asString();
+                String localId = invalidation.get(EVENT_ID).asString();
+                written(type);
+                if (localId != null) {
+                    resourceCache.invalidate(type, localId);
+                } else {
+                    resourceCache.invalidateType(type);
+                }
+            }
+        }
+        return true;
+    }
+
     // Utility method to cleanly roll back including logging
     private void rollback(Connection connection) {
         if (connection != null) {
@@ -795,14 +1056,81 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     }
 
     Connection getConnection() throws SQLException {
+        return getConnection(dataSourceService);
+    }
+
+    private Connection getConnection(DataSourceService source) throws SQLException {
         EventEntry measure = Publisher.start(Name.get("openidm/internal/JDBCRepoService/getConnection"), null, null);
         try {
-            return dataSourceService.getDataSource().getConnection();
+            return source.getDataSource().getConnection();
         } finally {
             measure.end();
         }
     }
 
+    /**
+     * Get the datasource to read the resource type from, the read replica if it is configured, available and not
+     * lagging behind a recent write of the type.
+     *
+     * @param type the resource type
+     * @return the datasource to read from
+     */
+    DataSourceService getReadDataSource(String type) {
+        ReadReplica replica = readReplica;
+        if (replica != null && replica.isReadable(type)) {
+            DataSourceService replicaService = dataSourceServices.get(replica.getDataSourceName());
+            if (replicaService != null) {
+                return replicaService;
+            }
+        }
+        return dataSourceService;
+    }
+
+    /**
+     * Tests whether the failure is a failure to reach the database rather than of the statement, which the primary
+     * database would fail the same way.
+     *
+     * @param ex the exception
+     * @return true if the connection to the database failed
+     */
+    static boolean isConnectionFailure(SQLException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (sqlState != null && sqlState.startsWith(SQL_STATE_CONNECTION_EXCEPTION)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void readReplicaFailed(SQLException ex) {
+        ReadReplica replica = readReplica;
+        if (replica != null) {
+            logger.warn("Read replica {} failed, reading from the primary database: {}",
+                    replica.getDataSourceName(), ex.getMessage());
+            logger.debug("Read replica failure", ex);
+            replica.failed();
+        }
+    }
+
+    /**
+     * Records the write of the resource type, routing its reads to the primary database until the read replica
+     * catches up.
+     *
+     * @param type the resource type
+     */
+    private void written(String type) {
+        ReadReplica replica = readReplica;
+        if (replica != null) {
+            replica.written(type);
+        }
+    }
+
     TableHandler getTableHandler(String type) {
         TableHandler handler = tableHandlers.get(type);
         if (handler != null) {
@@ -861,6 +1189,16 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                     .defaultTo(DatabaseType.ANSI_SQL99.name())
                     .as(enumConstant(DatabaseType.class));
             maxTxRetry = config.get(CONFIG_MAX_TX_RETRY).defaultTo(5).asInteger();
+            resourceCache = new ResourceCache(config.get(CONFIG_RESOURCE_CACHE));
+            uniqueIndexes = new ConcurrentHashMap<>();
+            readReplica = config.get(CONFIG_READ_REPLICA).isNull()
+                    ? null
+                    : new ReadReplica(config.get(CONFIG_READ_REPLICA));
+            if (resourceCache.isEnabled() && invalidationExecutor == null) {
+                invalidationExecutor = Executors.newSingleThreadScheduledExecutor();
+                invalidationExecutor.scheduleWithFixedDelay(this::flushInvalidations,
+                        INVALIDATION_FLUSH_INTERVAL, INVALIDATION_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+            }
             int maxBatchSize = config.get(CONFIG_MAX_BATCH_SIZE).defaultTo(100).asInteger();
 
             JsonValue defaultMapping = config.get("resourceMapping").get("default");
@@ -980,6 +1318,12 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                         commands.isNotNull() ? commands.asMap(String.class) : Collections.emptyMap(),
                         maxBatchSize, new DefaultSQLExceptionHandler());
             case POSTGRESQL:
+                if (tableConfig.get(CONFIG_JSONB).defaultTo(Boolean.FALSE).asBoolean()) {
+                    return new PostgreSQLJsonbGenericTableHandler(schemaName, tableConfig,
+                            queries.isNotNull() ? queries.asMap(String.class) : Collections.emptyMap(),
+                            commands.isNotNull() ? commands.asMap(String.class) : Collections.emptyMap(),
+                            maxBatchSize, new DefaultSQLExceptionHandler());
+                }
                 return new PostgreSQLGenericTableHandler(schemaName, tableConfig,
                         queries.isNotNull() ? queries.asMap(String.class) : Collections.emptyMap(),
                         commands.isNotNull() ? commands.asMap(String.class) : Collections.emptyMap(),
@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonValue;
+
+/**
+ * Routing policy of the reads and queries sent to a read-only replica of the repository database.
+ *
+ * <p>
+ * Configured in the repository configuration as:
+ *
+ * <pre><code>
+ * "readReplica" : {
+ *     "useDataSource" : "replica",
+ *     "primaryAfterWrite" : 5000,
+ *     "retryInterval" : 30000,
+ *     "primaryResources" : [ "cluster/", "scheduler/" ]
+ * }
+ * </code></pre>
+ *
+ * <p>
+ * The replica lags behind the primary, so a resource type written through this node is read from the primary for
+ * {@code primaryAfterWrite} milliseconds after the write, which should exceed the replication lag. Resource types
+ * starting with one of the {@code primaryResources} prefixes, used to coordinate the cluster nodes, are always read
+ * from the primary. When the replica fails, the reads fall back to the primary for {@code retryInterval}
+ * milliseconds.
+ */
+class ReadReplica {
+
+    static final String CONFIG_USE_DATASOURCE = "useDataSource";
+    static final String CONFIG_PRIMARY_AFTER_WRITE = "primaryAfterWrite";
+    static final String CONFIG_RETRY_INTERVAL = "retryInterval";
+    static final String CONFIG_PRIMARY_RESOURCES = "primaryResources";
+
+    static final long DEFAULT_PRIMARY_AFTER_WRITE = 5000L;
+    static final long DEFAULT_RETRY_INTERVAL = 30000L;
+    static final List<Object> DEFAULT_PRIMARY_RESOURCES = Arrays.<Object>asList("cluster/", "scheduler/");
+
+    private final String dataSourceName;
+    private final long primaryAfterWrite;
+    private final long retryInterval;
+    private final List<String> primaryResources;
+
+    /** Time of the last write per resource type. */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private volatile long unavailableUntil;
+
+    /**
+     * Create the routing policy from its configuration.
+     *
+     * @param config the read replica configuration
+     */
+    ReadReplica(JsonValue config) {
+        this.dataSourceName = config.get(CONFIG_USE_DATASOURCE).required().asString();
+        this.primaryAfterWrite = config.get(CONFIG_PRIMARY_AFTER_WRITE)
+                .defaultTo(DEFAULT_PRIMARY_AFTER_WRITE).asLong();
+        this.retryInterval = config.get(CONFIG_RETRY_INTERVAL).defaultTo(DEFAULT_RETRY_INTERVAL).asLong();
+        this.primaryResources = config.get(CONFIG_PRIMARY_RESOURCES)
+                .defaultTo(DEFAULT_PRIMARY_RESOURCES).asList(String.class);
+    }
+
+    /**
+     * Get the name of the replica datasource.
+     *
+     * @return the datasource name
+     */
+    String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    /**
+     * Check whether the resource type may be read from the replica.
+     *
+     * @param type the resource type
+     * @return true to read from the replica, false to read from the primary
+     */
+    boolean isReadable(String type) {
+        long now = System.currentTimeMillis();
+        if (now < unavailableUntil) {
+            return false;
+        }
+        for (String prefix : primaryResources) {
+            if (type.startsWith(prefix)) {
+                return false;
+            }
+        }
+        Long lastWrite = lastWrites.get(type);
+        if (lastWrite != null) {
+            if (now - lastWrite < primaryAfterWrite) {
+                return false;
+            }
+            lastWrites.remove(type, lastWrite);
+        }
+        return true;
+    }
+
+    /**
+     * Record a write of the resource type.
+     *
+     * @param type the resource type
+     */
+    void written(String type) {
+        lastWrites.put(type, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a failure of the replica, falling back to the primary for the retry interval.
+     */
+    void failed() {
+        unavailableUntil = System.currentTimeMillis() + retryInterval;
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+
+/**
+ * Bounded cache of the objects read from the repository, configured per resource type.
+ *
+ * <p>
+ * The configuration maps resource types to cache regions, with the same pattern matching as the table handler
+ * mapping:
+ *
+ * <pre><code>
+ * "resourceCache" : {
+ *     "managed/role" : { "maxSize" : 1000, "ttl" : 60000 },
+ *     "internal/*" : { "maxSize" : 100 }
+ * }
+ * </code></pre>
+ *
+ * <p>
+ * Each region holds at most {@code maxSize} objects (least recently used are evicted first) for at most
+ * {@code ttl} milliseconds. Objects are copied in and out of the cache, callers are free to modify them.
+ *
+ * <p>
+ * A read caches its result only if the region has not been invalidated since the read started, and never replaces
+ * a cached object with an older revision of it. This keeps a read that raced with a write from caching the state
+ * the write replaced.
+ */
+class ResourceCache {
+
+    /** Default maximum number of objects in a region. */
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    /** Default time to live of cached objects in milliseconds. */
+    static final long DEFAULT_TTL = 60000L;
+
+    /** Cluster objects carry the invalidation events and are never cached. */
+    private static final String EXCLUDED_TYPE_PREFIX = "cluster/";
+
+    /**
+     * Cached object with its expiration time.
+     */
+    private static final class Entry {
+        private final ResourceResponse resource;
+        private final long expires;
+
+        private Entry(ResourceResponse resource, long expires) {
+            this.resource = resource;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Cache region shared by the resource types matching one configuration pattern.
+     */
+    private static final class Region {
+        private final String pattern;
+        private final int maxSize;
+        private final long ttl;
+        private final Map<String, Entry> entries;
+        private long generation;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong expirations = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        private Region(String pattern, int maxSize, long ttl) {
+            this.pattern = pattern;
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+            this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > Region.this.maxSize) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /** Marks the resource types that are not cached. */
+    private static final Region NO_REGION = new Region("", 0, 0);
+
+    /** Regions by configured pattern, wildcard patterns stored without the trailing {@code *}. */
+    private final Map<String, Region> regions = new LinkedHashMap<>();
+
+    /** Regions resolved per resource type, {@link #NO_REGION} when the type is not cached. */
+    private final Map<String, Region> regionsByType = new ConcurrentHashMap<>();
+
+    /**
+     * Create the cache from its configuration.
+     *
+     * @param config the cache configuration, may be null or empty
+     */
+    ResourceCache(JsonValue config) {
+        if (config == null || config.isNull()) {
+            return;
+        }
+        for (String key : config.keys()) {
+            JsonValue regionConfig = config.get(key);
+            String pattern = key.endsWith("/*") ? key.substring(0, key.length() - 1) : key;
+            regions.put(pattern, new Region(key,
+                    regionConfig.get("maxSize").defaultTo(DEFAULT_MAX_SIZE).asInteger(),
+                    regionConfig.get("ttl").defaultTo(DEFAULT_TTL).asLong()));
+        }
+    }
+
+    /**
+     * Check whether any resource type is cached.
+     *
+     * @return true if at least one region is configured
+     */
+    boolean isEnabled() {
+        return !regions.isEmpty();
+    }
+
+    private Region getRegion(String type) {
+        Region region = regionsByType.get(type);
+        if (region == null) {
+            region = regions.get(type);
+            if (region == null) {
+                region = NO_REGION;
+                if (!type.startsWith(EXCLUDED_TYPE_PREFIX)) {
+                    for (Map.Entry<String, Region> entry : regions.entrySet()) {
+                        if (type.startsWith(entry.getKey())) {
+                            region = entry.getValue();
+                        }
+                    }
+                }
+            }
+            regionsByType.put(type, region);
+        }
+        return region != NO_REGION ? region : null;
+    }
+
+    private static String key(String type, String id) {
+        return type + "/" + id;
+    }
+
+    private static ResourceResponse copy(ResourceResponse resource) {
+        return newResourceResponse(resource.getId(), resource.getRevision(), resource.getContent().copy());
+    }
+
+    /**
+     * Get the cached object.
+     *
+     * @param type the resource type
+     * @param id the local object identifier
+     * @return copy of the cached object or {@code null} if the object is not cached
+     */
+    ResourceResponse get(String type, String id) {
+        Region region = getRegion(type);
+        if (region == null) {
+            return null;
+        }
+        Entry entry;
+        synchronized (region) {
+            entry = region.entries.get(key(type, id));
+            if (entry != null && entry.expires <= System.currentTimeMillis()) {
+                region.entries.remove(key(type, id));
+                region.expirations.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            region.misses.incrementAndGet();
+            return null;
+        }
+        region.hits.incrementAndGet();
+        return copy(entry.resource);
+    }
+
+    /**
+     * Get the stamp to pass to {@link #put(String, String, ResourceResponse, long)} for an object read from now on.
+     *
+     * @param type the resource type
+     * @return the stamp, {@code -1} if the type is not cached
+     */
+    long stamp(String type) {
+        Region region = getRegion(type);
+        if (region == null) {
+            return -1;
+        }
+        synchronized (region) {
+            return region.generation;
+        }
+    }
+
+    /**
+     * Cache the object read from the repository.
+     *
+     * @param type the resource type
+     * @param id the local object identifier
+     * @param resource the object read
+     * @param stamp the stamp taken before the object was read
+     */
+    void put(String type, String id, ResourceResponse resource, long stamp) {
+        Region region = getRegion(type);
+        if (region == null || stamp < 0) {
+            return;
+        }
+        ResourceResponse cached = copy(resource);
+        synchronized (region) {
+            if (region.generation != stamp) {
+                return; // invalidated while reading, the object may be outdated
+            }
+            Entry existing = region.entries.get(key(type, id));
+            if (existing != null && isOlder(cached.getRevision(), existing.resource.getRevision())) {
+                return;
+            }
+            region.entries.put(key(type, id), new Entry(cached, System.currentTimeMillis() + region.ttl));
+        }
+    }
+
+    private static boolean isOlder(String revision, String other) {
+        if (revision == null || other == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(revision) < Long.parseLong(other);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove the object from the cache.
+     *
+     * @param type the resource type
+     * @param id the local object identifier
+     */
+    void invalidate(String type, String id) {
+        Region region = getRegion(type);
+        if (region == null) {
+            return;
+        }
+        synchronized (region) {
+            region.generation++;
+            if (region.entries.remove(key(type, id)) != null) {
+                region.invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove all objects of the resource type from the cache.
+     *
+     * @param type the resource type
+     */
+    void invalidateType(String type) {
+        Region region = getRegion(type);
+        if (region == null) {
+            return;
+        }
+        String prefix = key(type, "");
+        synchronized (region) {
+            region.generation++;
+            Iterator<String> keys = region.entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(prefix)) {
+                    keys.remove();
+                    region.invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether the resource type is cached.
+     *
+     * @param type the resource type
+     * @return true if the type is cached
+     */
+    boolean isCached(String type) {
+        return getRegion(type) != null;
+    }
+
+    /**
+     * Get the statistics of the cache regions.
+     *
+     * @return the statistics per configured pattern
+     */
+    JsonValue getStatistics() {
+        JsonValue result = json(object());
+        for (Region region : regions.values()) {
+            int size;
+            synchronized (region) {
+                size = region.entries.size();
+            }
+            long hits = region.hits.get();
+            long misses = region.misses.get();
+            result.put(region.pattern, object(
+                    field("size", size),
+                    field("maxSize", region.maxSize),
+                    field("ttl", region.ttl),
+                    field("hits", hits),
+                    field("misses", misses),
+                    field("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0d),
+                    field("evictions", region.evictions.get()),
+                    field("expirations", region.expirations.get()),
+                    field("invalidations", region.invalidations.get())));
+        }
+        return result;
+    }
+
+}
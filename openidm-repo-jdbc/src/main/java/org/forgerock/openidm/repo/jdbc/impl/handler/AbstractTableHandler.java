@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions copyright [year] [name of copyright owner]".
  *
- * Copyright 2024 Wren Security
+ * Copyright 2024-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
@@ -20,11 +20,16 @@ import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -183,6 +188,48 @@ public abstract class AbstractTableHandler implements TableHandler {
         return columnNames;
     }
 
+    /**
+     * Read the unique indexes of a table from the database metadata.
+     *
+     * <p>
+     * The databases differ in the case of the stored identifiers and in using catalogs or schemas, so the table
+     * is looked up under each of them until found.
+     *
+     * @param schemaName schema of the table
+     * @param tableName name of the table
+     * @param connection database connection to read the metadata with
+     * @return the columns of each unique index by index name, empty if the table is not found
+     * @throws SQLException in case of SQL error
+     */
+    protected final Map<String, List<String>> getUniqueIndexes(String schemaName, String tableName,
+            Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<List<String>> names = new LinkedHashSet<>(List.of(
+                List.of(schemaName, tableName),
+                List.of(schemaName.toUpperCase(), tableName.toUpperCase()),
+                List.of(schemaName.toLowerCase(), tableName.toLowerCase())));
+        for (List<String> name : names) {
+            for (String[] scope : new String[][] { { null, name.get(0) }, { name.get(0), null } }) {
+                Map<String, List<String>> indexColumns = new LinkedHashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(scope[0], scope[1], name.get(1), true, true)) {
+                    while (rs.next()) {
+                        if (rs.getString("INDEX_NAME") != null) {
+                            List<String> columns =
+                                    indexColumns.computeIfAbsent(rs.getString("INDEX_NAME"), key -> new ArrayList<>());
+                            if (rs.getString("COLUMN_NAME") != null) {
+                                columns.add(rs.getString("COLUMN_NAME"));
+                            }
+                        }
+                    }
+                }
+                if (!indexColumns.isEmpty()) {
+                    return indexColumns;
+                }
+            }
+        }
+        return Map.of();
+    }
+
     @Override
     public final boolean isErrorType(SQLException exception, ErrorType errorType) {
         return exceptionHandler.isErrorType(exception, errorType);
@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions copyright [year] [name of copyright owner]".
  *
- * Copyright 2024 Wren Security
+ * Copyright 2024-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
@@ -44,7 +44,8 @@ class GenericTableConfig {
     public final String mainTableName;
 
     /**
-     * Helper properties table used for property querying when the DB does not support JSON values.
+     * Helper properties table used for property querying when the DB does not support JSON values
+     * (may be {@code null} when the table handler does not use it).
      */
     public final String propTableName;
 
@@ -64,6 +65,11 @@ class GenericTableConfig {
     // TODO this is a new undocumented feature (this should allow correct numeric ordering)
     public final Map<JsonPointer, ValueType> propertyTypes;
 
+    /**
+     * Names of the unique indexes which the deployment created to enforce the uniqueness of properties.
+     */
+    public final Map<JsonPointer, String> uniqueIndexes;
+
     /**
      * Flag indicating that the configuration defines at least one searchable property.
      */
@@ -73,12 +79,13 @@ class GenericTableConfig {
         tableConfig.required();
 
         mainTableName = tableConfig.get("mainTable").required().asString();
-        propTableName = tableConfig.get("propertiesTable").required().asString();
+        propTableName = tableConfig.get("propertiesTable").asString();
         searchableDefault = tableConfig.get("searchableDefault").defaultTo(Boolean.TRUE).asBoolean();
 
         var propsConfig = tableConfig.get("properties");
         Map<JsonPointer, Boolean> explicitlySearchable = new HashMap<>();
         Map<JsonPointer, ValueType> propertyTypes = new HashMap<>();
+        Map<JsonPointer, String> uniqueIndexes = new HashMap<>();
         for (var propName : propsConfig.keys()) {
             var propConfig = propsConfig.get(propName);
             var jsonPointer = new JsonPointer(propName);
@@ -88,9 +95,13 @@ class GenericTableConfig {
             if (propConfig.isDefined("type")) {
                 propertyTypes.put(jsonPointer, ValueType.valueOf(propConfig.get("type").asString()));
             }
+            if (propConfig.isDefined("uniqueIndex")) {
+                uniqueIndexes.put(jsonPointer, propConfig.get("uniqueIndex").asString());
+            }
         }
         this.explicitlySearchable = Map.copyOf(explicitlySearchable);
         this.propertyTypes = Map.copyOf(propertyTypes);
+        this.uniqueIndexes = Map.copyOf(uniqueIndexes);
 
         containsSearchable = searchableDefault || explicitlySearchable.containsValue(Boolean.TRUE);
     }
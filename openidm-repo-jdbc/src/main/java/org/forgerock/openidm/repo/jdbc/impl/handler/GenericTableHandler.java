@@ -13,7 +13,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2024 Wren Security
+ * Portions Copyright 2024-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -80,8 +81,10 @@ public class GenericTableHandler extends AbstractTableHandler {
         CREATETYPE,
         READ,
         READFORUPDATE,
+        READID,
         CREATE,
         UPDATE,
+        OPTIMISTICUPDATE,
         DELETE,
         PROPCREATE,
         PROPDELETE,
@@ -125,6 +128,9 @@ public class GenericTableHandler extends AbstractTableHandler {
 
         this.schemaName = schemaName;
         this.tableConfig = GenericTableConfig.parse(tableConfig);
+        if (this.tableConfig.propTableName == null && isPropertiesTableUsed()) {
+            throw new IllegalArgumentException("Missing propertiesTable for " + this.tableConfig.mainTableName);
+        }
 
         var replacementTokens = resolveReplacementTokens();
 
@@ -162,11 +168,26 @@ public class GenericTableHandler extends AbstractTableHandler {
 
     @Override
     protected Map<String, String> resolveReplacementTokens() {
-        return Map.ofEntries(
-            Map.entry("_dbSchema", schemaName),
-            Map.entry("_mainTable", this.tableConfig.mainTableName),
-            Map.entry("_propTable", this.tableConfig.propTableName)
-        );
+        Map<String, String> result = new HashMap<>();
+        result.put("_dbSchema", schemaName);
+        result.put("_mainTable", this.tableConfig.mainTableName);
+        if (this.tableConfig.propTableName != null) {
+            result.put("_propTable", this.tableConfig.propTableName);
+        }
+        return result;
+    }
+
+    /**
+     * Determine whether searchable properties are stored in the properties table.
+     *
+     * <p>
+     * Handlers for databases that query JSON values directly return {@code false}, which makes the properties
+     * table optional in the table configuration.
+     *
+     * @return {@code true} if the properties table is used
+     */
+    protected boolean isPropertiesTableUsed() {
+        return true;
     }
 
     /**
@@ -203,6 +224,15 @@ public class GenericTableHandler extends AbstractTableHandler {
                     + ") AND "
                     + "obj.objectid = ? "
                 + "FOR UPDATE");
+        result.put(ImplicitSqlType.READID,
+                "SELECT obj.id, obj.rev "
+                + "FROM ${_dbSchema}.${_mainTable} obj "
+                + "WHERE "
+                    + "obj.objecttypes_id = ("
+                        + "SELECT id FROM ${_dbSchema}.objecttypes objtype "
+                        + "WHERE objtype.objecttype = ?"
+                    + ") AND "
+                    + "obj.objectid = ?");
         result.put(ImplicitSqlType.CREATE,
                 "INSERT INTO ${_dbSchema}.${_mainTable} ("
                     + "objecttypes_id, objectid, rev, fullobject"
@@ -216,6 +246,19 @@ public class GenericTableHandler extends AbstractTableHandler {
                     + "rev = ?, "
                     + "fullobject = ? "
                 + "WHERE id = ?");
+        result.put(ImplicitSqlType.OPTIMISTICUPDATE,
+                "UPDATE ${_dbSchema}.${_mainTable} "
+                + "SET "
+                    + "objectid = ?, "
+                    + "rev = ?, "
+                    + "fullobject = ? "
+                + "WHERE "
+                    + "objecttypes_id = ("
+                        + "SELECT id FROM ${_dbSchema}.objecttypes objtype "
+                        + "WHERE objtype.objecttype = ?"
+                    + ") AND "
+                    + "objectid = ? AND "
+                    + "rev = ?");
         result.put(ImplicitSqlType.DELETE,
                 "DELETE FROM ${_dbSchema}.${_mainTable} "
                 + "WHERE "
@@ -461,12 +504,116 @@ public class GenericTableHandler extends AbstractTableHandler {
         }
     }
 
+    /**
+     * Read the database identifier and the revision of an object without locking it.
+     *
+     * @param fullId qualified id of component type and id
+     * @param type the qualifier of the object to retrieve
+     * @param localId the identifier without the qualifier of the object to retrieve
+     * @param connection database connection to use
+     * @return the row with the {@code id} and {@code rev} columns or {@code null} if the object was not found
+     * @throws java.sql.SQLException for general DB issues
+     */
+    protected Map<String, Object> readId(String fullId, String type, String localId, Connection connection)
+            throws SQLException {
+        try (var readStatement = resolveImplicitStatement(ImplicitSqlType.READID, false, connection)) {
+            logger.trace("Populating prepared statement {} for {}", readStatement, fullId);
+            readStatement.setString(1, type);
+            readStatement.setString(2, localId);
+
+            logger.debug("Executing: {}", readStatement);
+            try (var resultSet = readStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new ColumnResultMapper(resultSet.getMetaData()).map(resultSet);
+            }
+        }
+    }
+
     @Override
     public void update(String fullId, String type, String localId, String rev, Map<String, Object> obj,
             Connection connection) throws NotFoundException, PreconditionFailedException, BadRequestException,
             InternalServerErrorException, IOException, SQLException {
         logger.debug("Update with fullid {}", fullId);
 
+        if (implicitSql.containsKey(ImplicitSqlType.OPTIMISTICUPDATE)) {
+            optimisticUpdate(fullId, type, localId, rev, obj, connection);
+        } else {
+            lockingUpdate(fullId, type, localId, rev, obj, connection);
+        }
+    }
+
+    /**
+     * Update an object with a single <i>UPDATE</i> statement conditioned on the expected revision.
+     *
+     * <p>
+     * The row lock is only taken by the update itself. When no row gets updated, the object is read again
+     * to tell a missing object from a revision mismatch.
+     *
+     * @see #update(String, String, String, String, Map, Connection)
+     */
+    protected void optimisticUpdate(String fullId, String type, String localId, String rev, Map<String, Object> obj,
+            Connection connection) throws NotFoundException, PreconditionFailedException,
+            InternalServerErrorException, IOException, SQLException {
+        String updatedId = prepareUpdatedObject(localId, rev, obj);
+        String updatedRev = (String) obj.get(Constants.OBJECT_REV);
+
+        // serialize full object state
+        String fullObject = objectMapper.writeValueAsString(obj);
+
+        try (var updateStatement = resolveImplicitStatement(ImplicitSqlType.OPTIMISTICUPDATE, false, connection)) {
+            logger.trace("Populating prepared statement {} with {} {} {} {} {}", updateStatement, fullId, updatedId,
+                    updatedRev, fullObject, rev);
+            updateStatement.setString(1, updatedId);
+            updateStatement.setString(2, updatedRev);
+            updateStatement.setString(3, fullObject);
+            updateStatement.setString(4, type);
+            updateStatement.setString(5, localId);
+            updateStatement.setString(6, rev);
+            logger.debug("Update statement: {}", updateStatement);
+
+            int updateCount = updateStatement.executeUpdate();
+            logger.trace("Updated rows: {} for {}", updateCount, fullId);
+            if (updateCount == 0) {
+                JsonValue existingObj = new JsonValue(readId(fullId, type, localId, connection));
+                if (existingObj.isNull()) {
+                    throw new NotFoundException("Object " + fullId + " not found in " + type);
+                }
+                throw new PreconditionFailedException("Update rejected as current Object revision "
+                        + existingObj.get(Constants.RAW_OBJECT_REV).asString() + " is different than expected by "
+                        + "caller (" + rev + "), the object has changed since retrieval.");
+            } else if (updateCount != 1) {
+                throw new InternalServerErrorException("Update execution did not result in updating 1 "
+                        + "row as expected. Updated rows: " + updateCount);
+            }
+        }
+
+        if (!isPropertiesTableUsed() || !tableConfig.containsSearchable) {
+            return; // no searchable properties, no need to re-index
+        }
+
+        // the row is locked by the update, no need to read it for update
+        JsonValue updatedObj = new JsonValue(readId(fullId, type, updatedId, connection));
+        if (updatedObj.isNull()) {
+            throw new InternalServerErrorException("Updated object " + fullId + " could not be read back");
+        }
+        long databaseId = updatedObj.get(Constants.RAW_ID).asLong();
+        clearValueProperties(fullId, databaseId, connection);
+        writeValueProperties(fullId, databaseId, new JsonValue(obj), connection);
+    }
+
+    /**
+     * Update an object after reading it with <i>FOR UPDATE</i> lock applied.
+     *
+     * <p>
+     * Used when the handler does not provide the {@link ImplicitSqlType#OPTIMISTICUPDATE} statement.
+     *
+     * @see #update(String, String, String, String, Map, Connection)
+     */
+    protected void lockingUpdate(String fullId, String type, String localId, String rev, Map<String, Object> obj,
+            Connection connection) throws NotFoundException, PreconditionFailedException,
+            InternalServerErrorException, IOException, SQLException {
         // read existing object state
         JsonValue existingObj = new JsonValue(readForUpdate(fullId, type, localId, connection));
         String existingRev = existingObj.get(Constants.RAW_OBJECT_REV).asString();
@@ -481,18 +628,8 @@ public class GenericTableHandler extends AbstractTableHandler {
                     + " is different than expected by caller (" + rev + "), the object has changed since retrieval.");
         }
 
-        // support changing object identifier
-        String updatedId = (String) obj.get(Constants.OBJECT_ID);
-        if (updatedId != null && !updatedId.equals(localId)) {
-            logger.debug("Object identifier is changing from " + localId + " to " + updatedId);
-        } else {
-            updatedId = localId; // if it hasn't changed, use the existing ID
-            obj.put(Constants.OBJECT_ID, updatedId); // ensure the ID is saved in the object
-        }
-
-        // handle revision update
-        String updatedRev = Integer.toString(Integer.parseInt(rev) + 1);
-        obj.put(Constants.OBJECT_REV, updatedRev);
+        String updatedId = prepareUpdatedObject(localId, rev, obj);
+        String updatedRev = (String) obj.get(Constants.OBJECT_REV);
 
         // serialize full object state
         String fullObject = objectMapper.writeValueAsString(obj);
@@ -518,6 +655,29 @@ public class GenericTableHandler extends AbstractTableHandler {
         writeValueProperties(fullId, databaseId, new JsonValue(obj), connection);
     }
 
+    /**
+     * Set the object identifier and the incremented revision to the updated object state.
+     *
+     * @param localId the current identifier of the object
+     * @param rev the revision expected by the caller
+     * @param obj the updated object state
+     * @return the identifier of the updated object
+     */
+    private String prepareUpdatedObject(String localId, String rev, Map<String, Object> obj) {
+        // support changing object identifier
+        String updatedId = (String) obj.get(Constants.OBJECT_ID);
+        if (updatedId != null && !updatedId.equals(localId)) {
+            logger.debug("Object identifier is changing from " + localId + " to " + updatedId);
+        } else {
+            updatedId = localId; // if it hasn't changed, use the existing ID
+            obj.put(Constants.OBJECT_ID, updatedId); // ensure the ID is saved in the object
+        }
+
+        // handle revision update
+        obj.put(Constants.OBJECT_REV, Integer.toString(Integer.parseInt(rev) + 1));
+        return updatedId;
+    }
+
     @Override
     public void delete(String fullId, String type, String localId, String rev, Connection connection)
             throws SQLException, ResourceException {
@@ -655,4 +815,34 @@ public class GenericTableHandler extends AbstractTableHandler {
         return queryHandler.command(type, params, connection);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The properties share the tables, so only a unique index declared with the {@code uniqueIndex} property of
+     * the mapping, e.g. a per-type partial or expression index created by the deployment, qualifies once found in
+     * the main or properties table.
+     */
+    @Override
+    public String getUniqueIndex(String type, JsonPointer property, Connection connection) throws SQLException {
+        String declared = tableConfig.uniqueIndexes.get(property);
+        if (declared == null) {
+            return null;
+        }
+        List<String> tables = new ArrayList<>(List.of(tableConfig.mainTableName));
+        if (tableConfig.propTableName != null) {
+            tables.add(tableConfig.propTableName);
+        }
+        for (String table : tables) {
+            for (String index : getUniqueIndexes(schemaName, table, connection).keySet()) {
+                if (index.equalsIgnoreCase(declared)) {
+                    return index;
+                }
+            }
+        }
+        logger.warn("The unique index {} declared for {} of {} is not a unique index of {}",
+                declared, property, type, tables);
+        return null;
+    }
+
 }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2018-2025 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
@@ -70,6 +70,7 @@ public class MappedTableHandler extends AbstractTableHandler {
         READFORUPDATE,
         CREATE,
         UPDATE,
+        OPTIMISTICUPDATE,
         DELETE
     }
 
@@ -165,6 +166,8 @@ public class MappedTableHandler extends AbstractTableHandler {
                     + columnMapping.values().stream().map(config -> config.columnName + " = ?")
                             .collect(Collectors.joining(", "))
                 + " WHERE objectid = ?");
+        result.put(ImplicitSqlType.OPTIMISTICUPDATE,
+                result.get(ImplicitSqlType.UPDATE) + " AND rev = ?");
         result.put(ImplicitSqlType.DELETE,
                 "DELETE FROM ${_dbSchema}.${_table} WHERE objectid = ? AND rev = ?");
         return result;
@@ -364,6 +367,74 @@ public class MappedTableHandler extends AbstractTableHandler {
             InternalServerErrorException, IOException, SQLException {
         logger.debug("Update with fullid {}", fullId);
 
+        if (implicitSql.containsKey(ImplicitSqlType.OPTIMISTICUPDATE) && isRevisionMapped()) {
+            optimisticUpdate(fullId, type, localId, rev, obj, connection);
+        } else {
+            lockingUpdate(fullId, type, localId, rev, obj, connection);
+        }
+    }
+
+    /**
+     * Check whether the object revision is stored in the table.
+     *
+     * @return true if the revision is mapped to a column
+     */
+    private boolean isRevisionMapped() {
+        var revPointer = new JsonPointer(Constants.OBJECT_REV);
+        return columnMapping.values().stream().anyMatch(config -> revPointer.equals(config.propertyName));
+    }
+
+    /**
+     * Update an object with a single <i>UPDATE</i> statement conditioned on the expected revision.
+     *
+     * <p>
+     * The row lock is only taken by the update itself. When no row gets updated, the object is read again
+     * to tell a missing object from a revision mismatch.
+     *
+     * @see #update(String, String, String, String, Map, Connection)
+     */
+    protected void optimisticUpdate(String fullId, String type, String localId, String rev, Map<String, Object> obj,
+            Connection connection) throws NotFoundException, PreconditionFailedException, BadRequestException,
+            InternalServerErrorException, IOException, SQLException {
+        String updatedId = prepareUpdatedObject(localId, rev, obj);
+        String updatedRev = (String) obj.get(Constants.OBJECT_REV);
+
+        var updateSql = implicitSql.get(ImplicitSqlType.OPTIMISTICUPDATE);
+        try (var updateStatement = connection.prepareStatement(updateSql)) {
+            logger.trace("Populating prepared statement {} with {} {} {} {}", updateStatement, fullId, updatedId,
+                    updatedRev, rev);
+            populatePreparedStatement(updateStatement, new JsonValue(obj));
+            updateStatement.setString(columnMapping.size() + 1, localId);
+            updateStatement.setString(columnMapping.size() + 2, rev);
+            logger.debug("Update statement: {}", updateStatement);
+
+            int updateCount = updateStatement.executeUpdate();
+            logger.trace("Updated rows: {} for {}", updateCount, fullId);
+            if (updateCount == 0) {
+                // throws NotFoundException if the object does not exist
+                String existingRev = read(fullId, type, localId, connection).getRevision();
+                throw new PreconditionFailedException("Update rejected as current Object revision " + existingRev
+                        + " is different than expected by caller (" + rev + "), the object has changed since "
+                        + "retrieval.");
+            } else if (updateCount != 1) {
+                throw new InternalServerErrorException("Update execution did not result in updating 1 "
+                        + "row as expected. Updated rows: " + updateCount);
+            }
+        }
+    }
+
+    /**
+     * Update an object after reading it with <i>FOR UPDATE</i> lock applied.
+     *
+     * <p>
+     * Used when the handler does not provide the {@link ImplicitSqlType#OPTIMISTICUPDATE} statement or the table
+     * does not store the object revision.
+     *
+     * @see #update(String, String, String, String, Map, Connection)
+     */
+    protected void lockingUpdate(String fullId, String type, String localId, String rev, Map<String, Object> obj,
+            Connection connection) throws NotFoundException, PreconditionFailedException, BadRequestException,
+            InternalServerErrorException, IOException, SQLException {
         // read existing object state
         JsonValue existingObj = new JsonValue(readForUpdate(fullId, type, localId, connection));
         String existingRev = existingObj.get(Constants.OBJECT_REV).asString();
@@ -375,18 +446,8 @@ public class MappedTableHandler extends AbstractTableHandler {
                     + " is different than expected by caller (" + rev + "), the object has changed since retrieval.");
         }
 
-        // support changing object identifier
-        String updatedId = (String) obj.get(Constants.OBJECT_ID);
-        if (updatedId != null && !updatedId.equals(localId)) {
-            logger.debug("Object identifier is changing from " + localId + " to " + updatedId);
-        } else {
-            updatedId = localId; // if it hasn't changed, use the existing ID
-            obj.put(Constants.OBJECT_ID, updatedId); // ensure the ID is saved in the object
-        }
-
-        // handle revision update
-        String updatedRev = Integer.toString(Integer.parseInt(rev) + 1);
-        obj.put(Constants.OBJECT_REV, updatedRev);
+        String updatedId = prepareUpdatedObject(localId, rev, obj);
+        String updatedRev = (String) obj.get(Constants.OBJECT_REV);
 
         var updateSql = implicitSql.get(ImplicitSqlType.UPDATE);
         try (var updateStatement = connection.prepareStatement(updateSql)) {
@@ -405,6 +466,29 @@ public class MappedTableHandler extends AbstractTableHandler {
         }
     }
 
+    /**
+     * Set the object identifier and the incremented revision to the updated object state.
+     *
+     * @param localId the current identifier of the object
+     * @param rev the revision expected by the caller
+     * @param obj the updated object state
+     * @return the identifier of the updated object
+     */
+    private String prepareUpdatedObject(String localId, String rev, Map<String, Object> obj) {
+        // support changing object identifier
+        String updatedId = (String) obj.get(Constants.OBJECT_ID);
+        if (updatedId != null && !updatedId.equals(localId)) {
+            logger.debug("Object identifier is changing from " + localId + " to " + updatedId);
+        } else {
+            updatedId = localId; // if it hasn't changed, use the existing ID
+            obj.put(Constants.OBJECT_ID, updatedId); // ensure the ID is saved in the object
+        }
+
+        // handle revision update
+        obj.put(Constants.OBJECT_REV, Integer.toString(Integer.parseInt(rev) + 1));
+        return updatedId;
+    }
+
     @Override
     public void delete(String fullId, String type, String localId, String rev, Connection connection)
             throws SQLException, ResourceException {
@@ -524,4 +608,23 @@ public class MappedTableHandler extends AbstractTableHandler {
         return queryHandler.command(type, params, connection);
     }
 
+    @Override
+    public String getUniqueIndex(String type, JsonPointer property, Connection connection) throws SQLException {
+        String column = null;
+        for (MappedColumnConfig config : columnMapping.values()) {
+            if (config.propertyName.equals(property)) {
+                column = config.columnName;
+            }
+        }
+        if (column == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> index : getUniqueIndexes(schemaName, tableName, connection).entrySet()) {
+            if (index.getValue().size() == 1 && index.getValue().get(0).equalsIgnoreCase(column)) {
+                return index.getKey();
+            }
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.forgerock.openidm.repo.jdbc.impl.H2TestRepository;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Job store on the JDBC repository with the shipped scheduler mapping.
+ */
+public class RepoJobStoreH2Test {
+
+    private H2TestRepository h2;
+    private RepoJobStore jobStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        h2 = new H2TestRepository();
+        jobStore = new RepoJobStore(h2.getRepositoryService());
+        jobStore.setInstanceId("node1");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        h2.close();
+    }
+
+    private static Trigger trigger(String name, long fireTime) {
+        SimpleTrigger trigger = new SimpleTrigger(name, "group1", "job1", "group1", new Date(fireTime), null, 0, 0L);
+        // as the scheduler does before storing it
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    @Test
+    public void testAcquireStoredTriggers() throws Exception {
+        long now = System.currentTimeMillis();
+        jobStore.storeTrigger(null, trigger("later", now + 2000L), false);
+        jobStore.storeTrigger(null, trigger("sooner", now + 1000L), false);
+
+        Trigger acquired = jobStore.acquireNextTrigger(null, now + 60000L);
+        assertThat(acquired).isNotNull();
+        assertThat(acquired.getName()).isEqualTo("sooner");
+        assertThat(acquired.getNextFireTime()).isEqualTo(new Date(now + 1000L));
+
+        acquired = jobStore.acquireNextTrigger(null, now + 60000L);
+        assertThat(acquired).isNotNull();
+        assertThat(acquired.getName()).isEqualTo("later");
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 60000L)).isNull();
+    }
+
+    @Test
+    public void testReleasedTriggerIsAcquiredAgain() throws Exception {
+        long now = System.currentTimeMillis();
+        jobStore.storeTrigger(null, trigger("trigger1", now + 1000L), false);
+
+        Trigger acquired = jobStore.acquireNextTrigger(null, now + 60000L);
+        assertThat(acquired.getName()).isEqualTo("trigger1");
+        jobStore.releaseAcquiredTrigger(null, acquired);
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 60000L).getName()).isEqualTo("trigger1");
+    }
+
+    @Test
+    public void testTriggerFiringLaterIsNotAcquired() throws Exception {
+        long now = System.currentTimeMillis();
+        jobStore.storeTrigger(null, trigger("trigger1", now + 120000L), false);
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 60000L)).isNull();
+        assertThat(jobStore.acquireNextTrigger(null, now + 180000L).getName()).isEqualTo("trigger1");
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.forgerock.openidm.repo.RepositoryService;
+import org.forgerock.openidm.repo.jdbc.impl.H2TestRepository;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Waiting trigger index on the JDBC repository with the shipped scheduler mapping, which has to make the
+ * next fire time searchable for the index to sort on it.
+ */
+public class WaitingTriggerIndexH2Test {
+
+    private static final String CONTAINER = "/scheduler/waitingTriggerIndex";
+
+    private H2TestRepository h2;
+    private RepositoryService repo;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        h2 = new H2TestRepository();
+        repo = h2.getRepositoryService();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        h2.close();
+    }
+
+    private static Trigger trigger(String name, long fireTime) {
+        SimpleTrigger trigger = new SimpleTrigger(name, "group1", new Date(fireTime));
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    @Test
+    public void testLoadOrdersByNextFireTime() throws Exception {
+        WaitingTriggerIndex writer = new WaitingTriggerIndex(CONTAINER, 2, 60000);
+        writer.add(repo, "group1_late", trigger("late", 30000L));
+        writer.add(repo, "group1_early", trigger("early", 1000L));
+        writer.add(repo, "group1_middle", trigger("middle", 2000L));
+
+        WaitingTriggerIndex index = new WaitingTriggerIndex(CONTAINER, 2, 60000);
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("group1_early");
+        assertThat(index.remove(repo, "group1_early")).isTrue();
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("group1_middle");
+        assertThat(index.remove(repo, "group1_middle")).isTrue();
+
+        // the first batch is exhausted, the next load picks up the rest
+        WaitingTriggerIndex.Entry last = index.first(repo);
+        assertThat(last.getTriggerId()).isEqualTo("group1_late");
+        assertThat(last.getNextFireTime()).isEqualTo(30000L);
+        assertThat(index.remove(repo, "group1_late")).isTrue();
+        assertThat(index.first(repo)).isNull();
+    }
+
+    @Test
+    public void testRemoveAcquiresOnlyOnce() throws Exception {
+        WaitingTriggerIndex index = new WaitingTriggerIndex(CONTAINER, 2, 60000);
+        WaitingTriggerIndex other = new WaitingTriggerIndex(CONTAINER, 2, 60000);
+        index.add(repo, "group1_trigger1", trigger("trigger1", 1000L));
+
+        assertThat(index.first(repo).getTriggerId()).isEqualTo("group1_trigger1");
+        assertThat(other.first(repo).getTriggerId()).isEqualTo("group1_trigger1");
+        assertThat(index.remove(repo, "group1_trigger1")).isTrue();
+        assertThat(other.remove(repo, "group1_trigger1")).isFalse();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.forgerock.openidm.datasource.DataSourceService;
+import org.forgerock.openidm.repo.RepositoryService;
+import org.forgerock.openidm.util.JsonUtil;
+import org.h2.jdbcx.JdbcDataSource;
+
+/**
+ * JDBC repository on a private in-memory H2 database, created from the H2 schema script and repository
+ * configuration shipped in the distribution so that tests catch mappings the shipped configuration lacks.
+ */
+public final class H2TestRepository implements AutoCloseable {
+
+    private static final Path H2_RESOURCES = Paths.get("..", "openidm-zip", "src", "main", "resources", "db", "h2");
+
+    private final JdbcDataSource dataSource;
+    private final RepositoryService repositoryService;
+
+    public H2TestRepository() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("openidm");
+        dataSource.setPassword("openidm");
+        String script = H2_RESOURCES.resolve(Paths.get("scripts", "openidm.sql")).toAbsolutePath().toString();
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM '" + script.replace("\\", "/").replace("'", "''") + "'");
+        }
+
+        DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDatabaseName()).thenReturn("openidm");
+        when(dataSourceService.getDataSource()).thenReturn(dataSource);
+        repositoryService = (RepositoryService) JDBCRepoService.getRepoBootService(null, dataSourceService,
+                JsonUtil.parseURL(H2_RESOURCES.resolve(Paths.get("conf", "repo.jdbc.json")).toUri().toURL()));
+    }
+
+    /**
+     * Get the repository service backed by the database.
+     */
+    public RepositoryService getRepositoryService() {
+        return repositoryService;
+    }
+
+    /**
+     * Drop the database.
+     */
+    @Override
+    public void close() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+}
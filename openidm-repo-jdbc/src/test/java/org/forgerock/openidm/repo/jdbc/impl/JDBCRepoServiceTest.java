@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConflictException;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.datasource.DataSourceService;
+import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JDBCRepoServiceTest {
+
+    private static final String TYPE = "managed/user";
+    private static final String INDEX = "idx_managed_user_userName";
+
+    private Connection connection;
+    private TableHandler handler;
+    private JDBCRepoService repoService;
+    private SQLException duplicate;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        final DataSourceService dataSourceService = mock(DataSourceService.class);
+        when(dataSourceService.getDataSource()).thenReturn(dataSource);
+        when(dataSourceService.getDatabaseName()).thenReturn("openidm");
+
+        repoService = spy((JDBCRepoService) JDBCRepoService.getRepoBootService(null, dataSourceService,
+                json(object())));
+        handler = mock(TableHandler.class);
+        doReturn(handler).when(repoService).getTableHandler(TYPE);
+
+        duplicate = new SQLException("Duplicate entry 'bjensen' for key '" + INDEX + "'", "23000", 1062);
+        when(handler.isErrorType(duplicate, ErrorType.DUPLICATE_KEY)).thenReturn(true);
+    }
+
+    private JsonValue lookUpUniqueIndexes() throws Exception {
+        when(handler.getUniqueIndex(TYPE, new JsonPointer("/userName"), connection)).thenReturn(INDEX);
+        return repoService.handleAction(new RootContext(),
+                newActionRequest(TYPE, "uniqueIndexes").setContent(json(object(
+                        field("properties", array("/userName", "/mail"))))))
+                .getOrThrow().getJsonContent();
+    }
+
+    @Test
+    public void testCreateWithTakenUniqueValueIsConflict() throws Exception {
+        doThrow(duplicate).when(handler).create(anyString(), eq(TYPE), eq("1"), anyMap(), any(Connection.class));
+        lookUpUniqueIndexes();
+
+        assertThat(catchThrowable(() -> repoService.create(newCreateRequest(TYPE, "1", json(object())))))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    public void testCreateWithTakenIdIsPreconditionFailed() throws Exception {
+        final SQLException duplicateId = new SQLException(
+                "Duplicate entry '1-1' for key 'idx_genericobjects_object'", "23000", 1062);
+        when(handler.isErrorType(duplicateId, ErrorType.DUPLICATE_KEY)).thenReturn(true);
+        doThrow(duplicateId).when(handler).create(anyString(), eq(TYPE), eq("1"), anyMap(), any(Connection.class));
+        lookUpUniqueIndexes();
+
+        assertThat(catchThrowable(() -> repoService.create(newCreateRequest(TYPE, "1", json(object())))))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    public void testCreateWithUnindexedDuplicateIsPreconditionFailed() throws Exception {
+        // the unique indexes were not looked up, the duplicated key is not known to enforce a property
+        doThrow(duplicate).when(handler).create(anyString(), eq(TYPE), eq("1"), anyMap(), any(Connection.class));
+
+        assertThat(catchThrowable(() -> repoService.create(newCreateRequest(TYPE, "1", json(object())))))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    public void testUpdateIsConflictOnlyForKnownUniqueIndex() throws Exception {
+        doThrow(duplicate).when(handler).update(anyString(), eq(TYPE), eq("1"), eq("0"), anyMap(),
+                any(Connection.class));
+        final UpdateRequest updateRequest = newUpdateRequest(TYPE + "/1", json(object())).setRevision("0");
+
+        // not a known unique index, the other duplicated keys are left to the retry handling
+        assertThat(catchThrowable(() -> repoService.update(updateRequest)))
+                .isInstanceOf(InternalServerErrorException.class);
+
+        final JsonValue indexes = lookUpUniqueIndexes();
+        assertThat(indexes.get("/userName").asString()).isEqualTo(INDEX);
+        assertThat(indexes.get("/mail").isNull()).isTrue();
+
+        assertThat(catchThrowable(() -> repoService.update(updateRequest)))
+                .isInstanceOf(ConflictException.class);
+    }
+}
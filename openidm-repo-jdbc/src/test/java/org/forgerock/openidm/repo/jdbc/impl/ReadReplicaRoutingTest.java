@@ -0,0 +1,170 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.datasource.DataSourceService;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.testng.annotations.Test;
+
+/**
+ * Routing of the repository operations between the primary database and its read replica.
+ */
+public class ReadReplicaRoutingTest {
+
+    private static final String TYPE = "managed/user";
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private TableHandler handler;
+
+    private JDBCRepoService createRepoService(JsonValue readReplica) throws Exception {
+        primaryConnection = mock(Connection.class);
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        final DataSourceService primaryService = mock(DataSourceService.class);
+        when(primaryService.getDataSource()).thenReturn(primary);
+        when(primaryService.getDatabaseName()).thenReturn("openidm");
+
+        replicaConnection = mock(Connection.class);
+        replica = mock(DataSource.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        final DataSourceService replicaService = mock(DataSourceService.class);
+        when(replicaService.getDataSource()).thenReturn(replica);
+        when(replicaService.getDatabaseName()).thenReturn("openidm");
+
+        final JDBCRepoService repoService = spy((JDBCRepoService) JDBCRepoService.getRepoBootService(null,
+                primaryService, json(object(field("readReplica", readReplica.getObject())))));
+        repoService.bindDataSourceService(replicaService,
+                Map.<String, Object>of(ServerConstants.CONFIG_FACTORY_PID, "replica"));
+        handler = mock(TableHandler.class);
+        doReturn(handler).when(repoService).getTableHandler(TYPE);
+        return repoService;
+    }
+
+    private JDBCRepoService createRepoService() throws Exception {
+        return createRepoService(json(object(field("useDataSource", "replica"))));
+    }
+
+    @Test
+    public void testReadsGoToReplica() throws Exception {
+        final JDBCRepoService repoService = createRepoService();
+        when(handler.read(anyString(), eq(TYPE), eq("1"), eq(replicaConnection)))
+                .thenReturn(newResourceResponse("1", "0", json(object())));
+        when(handler.query(eq(TYPE), anyMap(), eq(replicaConnection)))
+                .thenReturn(List.of(Map.<String, Object>of("_id", "1", "_rev", "0")));
+
+        assertThat(repoService.read(newReadRequest(TYPE + "/1")).getId()).isEqualTo("1");
+        assertThat(repoService.query(newQueryRequest(TYPE))).hasSize(1);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testWritesGoToPrimary() throws Exception {
+        final JDBCRepoService repoService = createRepoService();
+        when(handler.read(anyString(), eq(TYPE), eq("1"), eq(primaryConnection)))
+                .thenReturn(newResourceResponse("1", "0", json(object())));
+
+        repoService.create(newCreateRequest(TYPE, "1", json(object())));
+        verify(handler).create(anyString(), eq(TYPE), eq("1"), anyMap(), eq(primaryConnection));
+
+        // the replica may lag behind the write, the written type is read from the primary
+        assertThat(repoService.read(newReadRequest(TYPE + "/1")).getId()).isEqualTo("1");
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    public void testReadFallsBackWhenReplicaIsDown() throws Exception {
+        final JDBCRepoService repoService = createRepoService();
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused", "08001"));
+        when(handler.read(anyString(), eq(TYPE), eq("1"), eq(primaryConnection)))
+                .thenReturn(newResourceResponse("1", "0", json(object())));
+        when(handler.query(eq(TYPE), anyMap(), eq(primaryConnection)))
+                .thenReturn(List.of(Map.<String, Object>of("_id", "1", "_rev", "0")));
+
+        assertThat(repoService.read(newReadRequest(TYPE + "/1")).getId()).isEqualTo("1");
+        // the failed replica is left alone for the retry interval
+        assertThat(repoService.query(newQueryRequest(TYPE))).hasSize(1);
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    public void testQueryFallsBackOnceWithoutRetryInterval() throws Exception {
+        final JDBCRepoService repoService = createRepoService(json(object(
+                field("useDataSource", "replica"),
+                field("retryInterval", 0))));
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("Pool exhausted"));
+        when(primary.getConnection()).thenThrow(new SQLTransientConnectionException("Pool exhausted"));
+
+        assertThat(catchThrowable(() -> repoService.query(newQueryRequest(TYPE))))
+                .isInstanceOf(InternalServerErrorException.class);
+        verify(replica, times(1)).getConnection();
+        verify(primary, times(1)).getConnection();
+    }
+
+    @Test
+    public void testStatementFailureDoesNotFallBack() throws Exception {
+        final JDBCRepoService repoService = createRepoService();
+        when(handler.read(anyString(), eq(TYPE), eq("1"), any(Connection.class)))
+                .thenThrow(new SQLException("Syntax error", "42000"));
+
+        assertThat(catchThrowable(() -> repoService.read(newReadRequest(TYPE + "/1"))))
+                .isInstanceOf(InternalServerErrorException.class);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testConnectionFailure() {
+        assertThat(JDBCRepoService.isConnectionFailure(new SQLException("Connection refused", "08001"))).isTrue();
+        assertThat(JDBCRepoService.isConnectionFailure(new SQLTransientConnectionException("Timeout"))).isTrue();
+        assertThat(JDBCRepoService.isConnectionFailure(
+                new SQLException("Wrapped", null, new SQLException("Link failure", "08S01")))).isTrue();
+        assertThat(JDBCRepoService.isConnectionFailure(new SQLException("Syntax error", "42000"))).isFalse();
+        assertThat(JDBCRepoService.isConnectionFailure(new SQLException("Unknown"))).isFalse();
+    }
+}
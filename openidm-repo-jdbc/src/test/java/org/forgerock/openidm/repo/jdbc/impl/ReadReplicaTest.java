@@ -0,0 +1,71 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import org.forgerock.json.JsonValueException;
+import org.testng.annotations.Test;
+
+public class ReadReplicaTest {
+
+    @Test
+    public void testDefaults() {
+        ReadReplica replica = new ReadReplica(json(object(field("useDataSource", "replica"))));
+
+        assertThat(replica.getDataSourceName()).isEqualTo("replica");
+        assertThat(replica.isReadable("managed/user")).isTrue();
+        assertThat(replica.isReadable("cluster/states")).isFalse();
+        assertThat(replica.isReadable("scheduler/triggers")).isFalse();
+    }
+
+    @Test(expectedExceptions = JsonValueException.class)
+    public void testDataSourceRequired() {
+        new ReadReplica(json(object()));
+    }
+
+    @Test
+    public void testPrimaryAfterWrite() throws Exception {
+        ReadReplica replica = new ReadReplica(json(object(
+                field("useDataSource", "replica"),
+                field("primaryAfterWrite", 50),
+                field("primaryResources", array()))));
+
+        replica.written("managed/user");
+        assertThat(replica.isReadable("managed/user")).isFalse();
+        assertThat(replica.isReadable("managed/role")).isTrue();
+
+        Thread.sleep(100);
+        assertThat(replica.isReadable("managed/user")).isTrue();
+    }
+
+    @Test
+    public void testFallbackAfterFailure() throws Exception {
+        ReadReplica replica = new ReadReplica(json(object(
+                field("useDataSource", "replica"),
+                field("retryInterval", 50))));
+
+        replica.failed();
+        assertThat(replica.isReadable("managed/user")).isFalse();
+
+        Thread.sleep(100);
+        assertThat(replica.isReadable("managed/user")).isTrue();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResourceCacheTest {
+
+    private ResourceCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new ResourceCache(json(object(
+                field("managed/role", object(field("maxSize", 2))),
+                field("internal/*", object()))));
+    }
+
+    private static ResourceResponse resource(String id, String revision) {
+        return newResourceResponse(id, revision, json(object(field("_id", id), field("_rev", revision))));
+    }
+
+    @Test
+    public void testReadThrough() {
+        assertThat(cache.get("managed/role", "a")).isNull();
+        cache.put("managed/role", "a", resource("a", "0"), cache.stamp("managed/role"));
+
+        ResourceResponse cached = cache.get("managed/role", "a");
+        assertThat(cached.getRevision()).isEqualTo("0");
+        cached.getContent().put("name", "changed");
+        assertThat(cache.get("managed/role", "a").getContent().isDefined("name")).isFalse();
+
+        JsonValue statistics = cache.getStatistics().get("managed/role");
+        assertThat(statistics.get("hits").asLong()).isEqualTo(2L);
+        assertThat(statistics.get("misses").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testTypeMatching() {
+        assertThat(cache.isCached("managed/role")).isTrue();
+        assertThat(cache.isCached("internal/user")).isTrue();
+        assertThat(cache.isCached("managed/user")).isFalse();
+        assertThat(cache.stamp("managed/user")).isEqualTo(-1L);
+    }
+
+    @Test
+    public void testReadRacingWithWriteIsNotCached() {
+        long stamp = cache.stamp("managed/role");
+        cache.invalidate("managed/role", "a");
+        cache.put("managed/role", "a", resource("a", "0"), stamp);
+
+        assertThat(cache.get("managed/role", "a")).isNull();
+    }
+
+    @Test
+    public void testOlderRevisionDoesNotReplaceCached() {
+        cache.put("managed/role", "a", resource("a", "2"), cache.stamp("managed/role"));
+        cache.put("managed/role", "a", resource("a", "1"), cache.stamp("managed/role"));
+
+        assertThat(cache.get("managed/role", "a").getRevision()).isEqualTo("2");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        cache.put("managed/role", "a", resource("a", "0"), cache.stamp("managed/role"));
+        cache.put("managed/role", "b", resource("b", "0"), cache.stamp("managed/role"));
+        cache.get("managed/role", "a");
+        cache.put("managed/role", "c", resource("c", "0"), cache.stamp("managed/role"));
+
+        assertThat(cache.get("managed/role", "a")).isNotNull();
+        assertThat(cache.get("managed/role", "b")).isNull();
+        assertThat(cache.getStatistics().get("managed/role").get("evictions").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testInvalidateType() {
+        cache.put("internal/user", "a", resource("a", "0"), cache.stamp("internal/user"));
+        cache.put("internal/role", "a", resource("a", "0"), cache.stamp("internal/role"));
+
+        cache.invalidateType("internal/user");
+
+        assertThat(cache.get("internal/user", "a")).isNull();
+        assertThat(cache.get("internal/role", "a")).isNotNull();
+    }
+}
@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions copyright [year] [name of copyright owner]".
  *
- * Copyright 2024 Wren Security
+ * Copyright 2024-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
@@ -424,6 +424,41 @@ public abstract class AbstractTableHandlerTest {
         assertEquals(updated.getContent().get("name").asString(), "BONJOUR");
     }
 
+    @Test
+    public void testUpdateReindex() throws Exception {
+        createResource(RESOURCE_ID, Map.of("name", "HELLO"));
+
+        tableHandler.update(
+            resourcePath(OBJECT_TYPE).child(RESOURCE_ID).toString(),
+            OBJECT_TYPE,
+            RESOURCE_ID,
+            "0",
+            new LinkedHashMap<>(Map.of("name", "BONJOUR")),
+            connection
+        );
+
+        assertEquals(tableHandler.queryCount(OBJECT_TYPE, Map.of(
+            QUERY_FILTER, QueryFilters.parse("name eq 'HELLO'"),
+            PAGE_SIZE, 0
+        ), connection), 0);
+        assertEquals(tableHandler.queryCount(OBJECT_TYPE, Map.of(
+            QUERY_FILTER, QueryFilters.parse("name eq 'BONJOUR'"),
+            PAGE_SIZE, 0
+        ), connection), 1);
+    }
+
+    @Test(expectedExceptions = NotFoundException.class)
+    public void testUpdateNotFound() throws Exception {
+        tableHandler.update(
+            resourcePath(OBJECT_TYPE).child("non-existing").toString(),
+            OBJECT_TYPE,
+            "non-existing",
+            "0",
+            new LinkedHashMap<>(Map.of("name", "AHOY")),
+            connection
+        );
+    }
+
     @Test(expectedExceptions = PreconditionFailedException.class)
     public void testUpdateLock() throws Exception {
         createResource(RESOURCE_ID, Map.of("name", "HELLO"));
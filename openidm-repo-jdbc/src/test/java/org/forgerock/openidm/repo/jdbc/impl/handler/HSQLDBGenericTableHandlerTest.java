@@ -11,11 +11,18 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions copyright [year] [name of copyright owner]".
  *
- * Copyright 2024 Wren Security
+ * Copyright 2024-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl.handler;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.object;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
 import java.sql.Connection;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.testng.annotations.Test;
 
@@ -38,4 +45,32 @@ public class HSQLDBGenericTableHandlerTest extends AbstractGenericTableHandlerTe
             getExceptionHandler()
         );
     }
+
+    @Test
+    public void testUniqueIndex() throws Exception {
+        JsonValue tableConfig = getTableConfig();
+        tableConfig.put("properties", object(
+            field("/name", object(field("uniqueIndex", "idx_genericobjects_unique"))),
+            field("/tags", object(field("uniqueIndex", "idx_genericobjects_missing")))
+        ));
+        TableHandler handler = new GenericTableHandler(getSchemaName(), tableConfig, getQueryConfig(),
+                getCommandConfig(), getBatchSize(), getExceptionHandler());
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX idx_genericobjects_unique "
+                    + "ON wrenidm.genericobjects (objecttypes_id, objectid, rev)");
+        }
+        try {
+            assertEquals(handler.getUniqueIndex(OBJECT_TYPE, new JsonPointer("/name"), connection)
+                    .toLowerCase(), "idx_genericobjects_unique");
+            // declared but not created
+            assertNull(handler.getUniqueIndex(OBJECT_TYPE, new JsonPointer("/tags"), connection));
+            // not declared
+            assertNull(handler.getUniqueIndex(OBJECT_TYPE, new JsonPointer("/priority"), connection));
+        } finally {
+            try (var statement = connection.createStatement()) {
+                statement.execute("DROP INDEX wrenidm.idx_genericobjects_unique");
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.scheduler.impl;
@@ -201,6 +202,16 @@ public class TaskScannerContext {
         return numParams.asInteger();
     }
 
+    /**
+     * Returns the number of objects queried at a time, which is also the number of objects queued for the worker
+     * threads at most.
+     *
+     * @return the query page size
+     */
+    public int getPageSize() {
+        return Math.max(1, params.get("pageSize").defaultTo(1000).asInteger());
+    }
+
     public TaskScannerStatistic getStatistics() {
         return this.statistics;
     }
@@ -212,6 +223,7 @@ public class TaskScannerContext {
         progress.put("total", statistics.getNumberOfTasksToProcess());
         progress.put("successes", statistics.getNumberOfTasksSucceeded());
         progress.put("failures", statistics.getNumberOfTasksFailed());
+        progress.put("throughput", statistics.getThroughput());
         return progress;
     }
 
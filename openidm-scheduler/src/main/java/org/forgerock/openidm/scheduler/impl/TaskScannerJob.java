@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.scheduler.impl;
@@ -20,10 +21,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.ScriptException;
 
@@ -38,6 +44,7 @@ import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.quartz.impl.ExecutionException;
@@ -46,6 +53,8 @@ import org.forgerock.openidm.util.DateUtil;
 import org.forgerock.openidm.util.RequestUtil;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
+import org.forgerock.util.annotations.VisibleForTesting;
+import org.forgerock.util.query.QueryFilter;
 import org.joda.time.DateTime;
 import org.joda.time.ReadablePeriod;
 import org.slf4j.Logger;
@@ -54,9 +63,17 @@ import org.slf4j.LoggerFactory;
 public class TaskScannerJob {
     private final static Logger logger = LoggerFactory.getLogger(TaskScannerJob.class);
     private final static DateUtil DATE_UTIL = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
+    private final static JsonPointer ID_POINTER = new JsonPointer("_id");
+    private final static String PARAM_SORT_KEYS = "_sortKeys";
+
+    /** Number of objects a worker thread takes from the queue at once. */
+    private final static int WORKER_BATCH_SIZE = 10;
+    private final static long QUEUE_POLL_MILLIS = 100;
+    private final static long PROGRESS_LOG_INTERVAL_MILLIS = 10000;
 
     private ConnectionFactory connectionFactory;
     private TaskScannerContext taskScannerContext;
+    private final AtomicLong lastProgressLog = new AtomicLong(System.currentTimeMillis());
 
     public TaskScannerJob(ConnectionFactory connectionFactory, TaskScannerContext context)
             throws ExecutionException {
@@ -105,7 +122,9 @@ public class TaskScannerJob {
 
     /**
      * Performs the task associated with the task scanner event.
-     * Runs the query and executes the script across each resulting object.
+     * Streams the query results into a queue shared by the worker threads, which claim each object and execute the
+     * script on it. A slow object only holds up the thread processing it, the other threads keep taking objects from
+     * the queue.
      *
      * @param executor ExecutorService in which to invoke this task.
      * @throws ExecutionException
@@ -116,48 +135,54 @@ public class TaskScannerJob {
         logger.info("Task {} started from {} with script {}",
                 new Object[] { taskScannerContext.getTaskScanID(), taskScannerContext.getInvokerName(), taskScannerContext.getScriptName() });
 
-        JsonValue results;
-        taskScannerContext.startQuery();
-        try {
-            results = fetchAllObjects();
-        } catch (ResourceException e1) {
-            throw new ExecutionException("Error during query", e1);
-        }
-        taskScannerContext.endQuery();
-        Integer maxRecords = taskScannerContext.getMaxRecords();
-        if (maxRecords == null) {
-            taskScannerContext.setNumberOfTasksToProcess(results.size());
-        } else {
-            taskScannerContext.setNumberOfTasksToProcess(Math.min(results.size(), maxRecords));
-        }
-        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(), results.size());
-        // TODO jump out early if it's empty?
-
-        // Split and prune the result set according to our max and if we're synchronous or not
-        List<JsonValue> resultSets = splitResultsOverThreads(results, taskScannerContext.getNumberOfThreads(), maxRecords);
-        logger.debug("Split result set into {} units", resultSets.size());
+        final BlockingQueue<JsonValue> queue = new LinkedBlockingQueue<>(taskScannerContext.getPageSize());
+        final AtomicBoolean queryComplete = new AtomicBoolean(false);
 
-        List<Callable<Object>> todo = new ArrayList<Callable<Object>>();
-        for (final JsonValue result : resultSets) {
-            Runnable command = new Runnable() {
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < taskScannerContext.getNumberOfThreads(); i++) {
+            workers.add(executor.submit(new Runnable() {
                 @Override
                 public void run() {
                     try {
-                        performTaskOverSet(result);
+                        processQueue(queue, queryComplete);
                     } catch (Exception ex) {
                         logger.warn("Taskscanner failed with unexpected exception", ex);
                     }
                 }
-            };
-            todo.add(Executors.callable(command));
+            }));
+        }
+
+        ResourceException queryError = null;
+        taskScannerContext.startQuery();
+        try {
+            fetchObjects(queue);
+        } catch (ResourceException e) {
+            queryError = e;
+            queue.clear();
+        } catch (InterruptedException e) {
+            taskScannerContext.interrupted();
+            logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+        } finally {
+            queryComplete.set(true);
+            taskScannerContext.endQuery();
         }
+        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(),
+                taskScannerContext.getStatistics().getNumberOfTasksToProcess());
 
         try {
-            executor.invokeAll(todo);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
         } catch (InterruptedException e) {
             // Mark it interrupted
             taskScannerContext.interrupted();
             logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+        } catch (java.util.concurrent.ExecutionException e) {
+            logger.warn("Taskscanner failed with unexpected exception", e.getCause());
+        }
+        if (queryError != null) {
+            taskScannerContext.interrupted();
+            throw new ExecutionException("Error during query", queryError);
         }
         // Don't mark the job as completed if its been deactivated
         if (!taskScannerContext.isInactive()) {
@@ -172,95 +197,177 @@ public class TaskScannerJob {
         });
     }
 
-    private List<JsonValue> splitResultsOverThreads(JsonValue results, int numberOfThreads, Integer max) {
-        List<List<Object>> resultSets = new ArrayList<List<Object>>();
-        for (int i = 0; i < numberOfThreads; i++) {
-            resultSets.add(new ArrayList<Object>());
-        }
-
-        int i = 0;
-        for (JsonValue obj : results) {
-            if (max != null && i >= max) {
-                break;
+    /**
+     * Takes objects from the queue, a few at a time, and claims and processes them until the query has completed
+     * and the queue is drained, or the task is cancelled.
+     *
+     * @param queue the queue filled by the query
+     * @param queryComplete set once the query has returned all objects
+     */
+    private void processQueue(BlockingQueue<JsonValue> queue, AtomicBoolean queryComplete) {
+        List<JsonValue> batch = new ArrayList<>(WORKER_BATCH_SIZE);
+        while (!taskScannerContext.isCanceled()) {
+            if (queue.drainTo(batch, WORKER_BATCH_SIZE) == 0) {
+                // Check the flag before polling, so that no object queued meanwhile is missed
+                boolean lastPoll = queryComplete.get();
+                JsonValue next;
+                try {
+                    next = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next == null) {
+                    if (lastPoll) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(next);
             }
-            resultSets.get(i % numberOfThreads).add(obj.getObject());
-            i++;
+            for (JsonValue input : batch) {
+                if (taskScannerContext.isCanceled()) {
+                    logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
+                    break; // Jump out quick since we've cancelled the job
+                }
+                try {
+                    performTaskOverObject(input);
+                } catch (ExecutionException | ResourceException | RuntimeException e) {
+                    logger.warn("Task '{}' failed to process {}", taskScannerContext.getTaskScanID(),
+                            input.get("_id").asString(), e);
+                }
+                logProgress();
+            }
+            batch.clear();
         }
+    }
 
-        List<JsonValue> jsonSets = new ArrayList<JsonValue>();
-        for (List<Object> set : resultSets) {
-            jsonSets.add(new JsonValue(set));
+    /**
+     * Logs the progress of the task scan, at most once per {@link #PROGRESS_LOG_INTERVAL_MILLIS}.
+     */
+    private void logProgress() {
+        long last = lastProgressLog.get();
+        long now = System.currentTimeMillis();
+        if (now - last >= PROGRESS_LOG_INTERVAL_MILLIS && lastProgressLog.compareAndSet(last, now)) {
+            logger.info("Task '{}' progress: {}", taskScannerContext.getTaskScanID(), taskScannerContext.getProgress());
         }
-
-        return jsonSets;
     }
 
-    private void performTaskOverSet(JsonValue results)
-                    throws ExecutionException {
-        for (JsonValue input : results) {
-            if (taskScannerContext.isCanceled()) {
-                logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
-                break; // Jump out quick since we've cancelled the job
-            }
-            // Check if this object has a STARTED time already
-            JsonValue startTime = input.get(taskScannerContext.getStartField());
-            String startTimeString = null;
-            if (startTime != null && !startTime.isNull()) {
-                startTimeString = startTime.asString();
-                DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
-
-                // Skip if the startTime + interval has not been passed
-                ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
-                DateTime expirationDate = startedTime.plus(period);
-                if (expirationDate.isAfterNow()) {
-                    logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
-                            new Object[] {
-                            DATE_UTIL.formatDateTime(startedTime),
-                            period,
-                            DATE_UTIL.formatDateTime(expirationDate)});
-                    continue;
-                }
-            }
-
-            try {
-                claimAndExecScript(input, startTimeString);
-            } catch (ResourceException e) {
-                throw new ExecutionException("Error during claim and execution phase", e);
+    private void performTaskOverObject(JsonValue input)
+                    throws ExecutionException, ResourceException {
+        // Check if this object has a STARTED time already
+        JsonValue startTime = input.get(taskScannerContext.getStartField());
+        String startTimeString = null;
+        if (startTime != null && !startTime.isNull()) {
+            startTimeString = startTime.asString();
+            DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
+
+            // Skip if the startTime + interval has not been passed
+            ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
+            DateTime expirationDate = startedTime.plus(period);
+            if (expirationDate.isAfterNow()) {
+                logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
+                        new Object[] {
+                        DATE_UTIL.formatDateTime(startedTime),
+                        period,
+                        DATE_UTIL.formatDateTime(expirationDate)});
+                return;
             }
         }
+
+        claimAndExecScript(input, startTimeString);
     }
 
     /**
-     * Flatten a list of parameters and perform a query to fetch all objects from storage.
+     * Flatten a list of parameters and query the objects to process page by page, putting them into the queue.
+     * Stops once {@code maxRecords} objects have been queued or the task is cancelled.
+     * <p>
+     * A {@code _queryFilter} scan is paged by object id, every page asking for the objects with an id greater than
+     * the last one seen. This keeps the paging stable while the objects already processed drop out of the result
+     * set. A scan with its own {@code _sortKeys} does not return the objects in id order, and offset paging would
+     * skip the objects following the ones dropping out, so it is run once like the other queries, their results
+     * still streamed into the queue.
      *
-     * @return JsonValue containing a list of all the retrieved objects
+     * @param queue the queue to fill
      * @throws ResourceException
+     * @throws InterruptedException
      */
-    private JsonValue fetchAllObjects() throws ResourceException {
+    @VisibleForTesting
+    void fetchObjects(final BlockingQueue<JsonValue> queue) throws ResourceException, InterruptedException {
         JsonValue flatParams = flattenJson(taskScannerContext.getScanValue());
         ConfigMacroUtil.expand(flatParams);
-        return performQuery(taskScannerContext.getObjectID(), flatParams);
+        final String resourceID = taskScannerContext.getObjectID();
+        final String sortKeys = flatParams.get(PARAM_SORT_KEYS).asString();
+        flatParams.remove(PARAM_SORT_KEYS);
+        final QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, flatParams.asMap());
+        if (sortKeys != null) {
+            request.addSortKey(sortKeys.split(","));
+        }
+        final Integer maxRecords = taskScannerContext.getMaxRecords();
+        // only a scan in id order is paged by id
+        final QueryFilter<JsonPointer> filter = request.getSortKeys().isEmpty() ? request.getQueryFilter() : null;
+        if (filter != null) {
+            request.addSortKey(SortKey.ascendingOrder(ID_POINTER));
+            request.setPageSize(taskScannerContext.getPageSize());
+        }
+
+        final AtomicInteger queued = new AtomicInteger();
+        final String[] lastId = new String[1];
+        final InterruptedException[] interrupted = new InterruptedException[1];
+        int pageResults;
+        do {
+            if (filter != null && lastId[0] != null) {
+                request.setQueryFilter(QueryFilter.and(filter, QueryFilter.greaterThan(ID_POINTER, lastId[0])));
+            }
+            final AtomicInteger pageCount = new AtomicInteger();
+            connectionFactory.getConnection().query(taskScannerContext.getContext(), request,
+                    new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            if (taskScannerContext.isCanceled()
+                                    || (maxRecords != null && queued.get() >= maxRecords)) {
+                                return false;
+                            }
+                            pageCount.incrementAndGet();
+                            lastId[0] = resource.getId();
+                            try {
+                                if (!enqueue(queue, resource.getContent())) {
+                                    return false;
+                                }
+                            } catch (InterruptedException e) {
+                                interrupted[0] = e;
+                                return false;
+                            }
+                            queued.incrementAndGet();
+                            taskScannerContext.getStatistics().taskQueued();
+                            return true;
+                        }
+                    });
+            if (interrupted[0] != null) {
+                throw interrupted[0];
+            }
+            pageResults = pageCount.get();
+        } while (filter != null
+                && pageResults >= taskScannerContext.getPageSize()
+                && !taskScannerContext.isCanceled()
+                && (maxRecords == null || queued.get() < maxRecords));
     }
 
     /**
-     * Performs a query on a resource and returns the result set
-     * @param resourceID the identifier of the resource to query
-     * @param params parameters to supply to the query
-     * @return the set of results from the performed query
-     * @throws ResourceException
+     * Puts the object into the queue, waiting while the queue is full unless the task gets cancelled.
+     *
+     * @param queue the queue
+     * @param object the object to queue
+     * @return true if the object was queued, false if the task got cancelled
+     * @throws InterruptedException if interrupted while waiting
      */
-    private JsonValue performQuery(String resourceID, JsonValue params) throws ResourceException {
-        final JsonValue queryResults = new JsonValue(new ArrayList<Map<String, Object>>());;
-
-        QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, params.asMap());
-        connectionFactory.getConnection().query(taskScannerContext.getContext(), request, new QueryResourceHandler() {
-            @Override
-            public boolean handleResource(ResourceResponse resource) {
-                queryResults.add(resource.getContent().getObject());
-                return true;
+    private boolean enqueue(BlockingQueue<JsonValue> queue, JsonValue object) throws InterruptedException {
+        while (!queue.offer(object, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (taskScannerContext.isCanceled()) {
+                return false;
             }
-        });
-        return queryResults;
+        }
+        return true;
     }
 
     /**
@@ -291,6 +398,25 @@ public class TaskScannerJob {
         return performUpdate(resourceID, value);
     }
 
+    /**
+     * Claims an object by setting its started field and clearing its completed field in a single update, which
+     * only succeeds if the object has not been changed since it was read.
+     * @param resourceID the resource identifier that the claimed value belongs to
+     * @param value the object to claim, including its revision
+     * @return the claimed object
+     * @throws ResourceException
+     * @throws PreconditionFailedException if the object has been changed since it was read
+     */
+    private JsonValue claimObject(String resourceID, JsonValue value) throws ResourceException {
+        JsonPointer startField = taskScannerContext.getStartField();
+        JsonPointer completedField = taskScannerContext.getCompletedField();
+        ensureJsonPointerExists(startField, value);
+        value.put(startField, DATE_UTIL.now());
+        ensureJsonPointerExists(completedField, value);
+        value.put(completedField, null);
+        return performUpdate(resourceID, value);
+    }
+
     /**
      * Performs an update on a given resource with a supplied JsonValue
      * @param resourceID the resource identifier to perform the update on
@@ -305,8 +431,15 @@ public class TaskScannerJob {
         UpdateRequest updateRequest = Requests.newUpdateRequest(fullID, value);
         updateRequest.setRevision(rev);
 
-        connectionFactory.getConnection().update(taskScannerContext.getContext(), updateRequest);
-        return retrieveObject(resourceID, id);
+        ResourceResponse response =
+                connectionFactory.getConnection().update(taskScannerContext.getContext(), updateRequest);
+        // Use the updated object returned by the update rather than reading it again
+        JsonValue updated = response.getContent().copy();
+        updated.put("_id", response.getId() != null ? response.getId() : id);
+        if (response.getRevision() != null) {
+            updated.put("_rev", response.getRevision());
+        }
+        return updated;
     }
 
     /**
@@ -367,8 +500,7 @@ public class TaskScannerJob {
         do {
             try {
                 retryClaimTask = false;
-                _input = updateValueWithObject(resourceID, _input, startField, DATE_UTIL.now());
-                _input = updateValueWithObject(resourceID, _input, completedField, null);
+                _input = claimObject(resourceID, _input);
                 logger.debug("Claimed task and updated StartField: {}", _input);
                 claimedTask = true;
             } catch (PreconditionFailedException ex) {
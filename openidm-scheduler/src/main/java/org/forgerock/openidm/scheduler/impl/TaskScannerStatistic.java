@@ -2,6 +2,7 @@
 * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
 *
 * Copyright (c) 2012 ForgeRock AS. All Rights Reserved
+* Portions Copyright 2026 Wren Security.
 *
 * The contents of this file are subject to the terms
 * of the Common Development and Distribution License
@@ -31,13 +32,14 @@ public class TaskScannerStatistic {
     private long jobEndTime;
     private long queryStartTime;
     private long queryEndTime;
-    private int numberToProcess = 0;
 
     // Note: These should be the only ones used during the thread executions
+    private AtomicInteger numberToProcess;
     private AtomicInteger numSuccessful;
     private AtomicInteger numFailed;
 
     public TaskScannerStatistic() {
+        numberToProcess = new AtomicInteger(0);
         numSuccessful = new AtomicInteger(0);
         numFailed = new AtomicInteger(0);
     }
@@ -94,15 +96,33 @@ public class TaskScannerStatistic {
         return numFailed.get();
     }
 
+    /**
+     * Counts an object queued for processing. The number of tasks to process grows as the query results are read.
+     */
+    public void taskQueued() {
+        numberToProcess.incrementAndGet();
+    }
+
     public int getNumberOfTasksToProcess() {
-        return numberToProcess;
+        return numberToProcess.get();
     }
 
     public int getNumberOfTasksRemaining() {
-        return numberToProcess - getNumberOfTasksProcessed();
+        return numberToProcess.get() - getNumberOfTasksProcessed();
     }
 
     public void setNumberOfTasksToProcess(int numberToProcess) {
-        this.numberToProcess = numberToProcess;
+        this.numberToProcess.set(numberToProcess);
+    }
+
+    /**
+     * Returns the number of tasks processed per second since the job started, until it ended.
+     *
+     * @return the number of tasks processed per second
+     */
+    public double getThroughput() {
+        long end = jobEndTime >= jobStartTime ? jobEndTime : System.currentTimeMillis();
+        long duration = end - jobStartTime;
+        return duration > 0 ? getNumberOfTasksProcessed() * 1000d / duration : 0d;
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.scheduler.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskScannerJobTest {
+
+    private final List<QueryRequest> requests = new ArrayList<>();
+    private ConnectionFactory connectionFactory;
+    private TaskScannerContext taskScannerContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        requests.clear();
+        final Connection connection = mock(Connection.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        // answers a paged query with "a" and "b", its next page with "c", and an unpaged query with "b", "a", "c"
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    final QueryRequest request = invocation.getArgument(1);
+                    final QueryResourceHandler handler = invocation.getArgument(2);
+                    requests.add(Requests.copyOfQueryRequest(request));
+                    final String[] ids;
+                    if (request.getQueryFilter().toString().contains("_id gt")) {
+                        ids = new String[] { "c" };
+                    } else if (request.getPageSize() > 0) {
+                        ids = new String[] { "a", "b" };
+                    } else {
+                        ids = new String[] { "b", "a", "c" };
+                    }
+                    for (String id : ids) {
+                        handler.handleResource(newResourceResponse(id, null, json(object(field("_id", id)))));
+                    }
+                    return newQueryResponse();
+                });
+
+        taskScannerContext = mock(TaskScannerContext.class);
+        when(taskScannerContext.getObjectID()).thenReturn("managed/user");
+        when(taskScannerContext.getPageSize()).thenReturn(2);
+        when(taskScannerContext.getContext()).thenReturn(new RootContext());
+        when(taskScannerContext.getStatistics()).thenReturn(new TaskScannerStatistic());
+    }
+
+    private List<String> scan(JsonValue scanValue) throws Exception {
+        when(taskScannerContext.getScanValue()).thenReturn(scanValue);
+        final LinkedBlockingQueue<JsonValue> queue = new LinkedBlockingQueue<>();
+        new TaskScannerJob(connectionFactory, taskScannerContext).fetchObjects(queue);
+        final List<String> ids = new ArrayList<>();
+        for (JsonValue object : queue) {
+            ids.add(object.get("_id").asString());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testPagesFilterScanById() throws Exception {
+        final List<String> ids = scan(json(object(
+                field("object", "managed/user"),
+                field("_queryFilter", "true"))));
+
+        assertThat(ids).containsExactly("a", "b", "c");
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0).getSortKeys()).hasSize(1);
+        assertThat(requests.get(0).getSortKeys().get(0).getField()).isEqualTo(new JsonPointer("_id"));
+        assertThat(requests.get(1).getQueryFilter().toString()).contains("_id gt \"b\"");
+    }
+
+    @Test
+    public void testQueriesSortedScanOnce() throws Exception {
+        final List<String> ids = scan(json(object(
+                field("object", "managed/user"),
+                field("_queryFilter", "true"),
+                field("_sortKeys", "-sn"))));
+
+        assertThat(ids).containsExactly("b", "a", "c");
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).getSortKeys()).hasSize(1);
+        assertThat(requests.get(0).getSortKeys().get(0).getField()).isEqualTo(new JsonPointer("sn"));
+        assertThat(requests.get(0).getSortKeys().get(0).isAscendingOrder()).isFalse();
+        assertThat(requests.get(0).getPageSize()).isEqualTo(0);
+        assertThat(requests.get(0).getQueryFilter().toString()).isEqualTo("true");
+    }
+}
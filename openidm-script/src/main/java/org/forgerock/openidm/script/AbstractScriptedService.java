@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2020-2023 Wren Security.
+ * Portions Copyright 2020-2026 Wren Security.
  */
 package org.forgerock.openidm.script;
 
@@ -92,6 +92,17 @@ public abstract class AbstractScriptedService implements ScriptCustomizer, Scrip
         return this;
     }
 
+    /**
+     * Returns the request handler registered for the service. Subclasses may handle some requests themselves and
+     * delegate the others to the script.
+     *
+     * @param scriptedHandler the handler running the script of the service
+     * @return the handler to register, the scripted handler by default
+     */
+    protected RequestHandler getRequestHandler(ScriptedRequestHandler scriptedHandler) {
+        return scriptedHandler;
+    }
+
     protected Dictionary<String, Object> getProperties() {
         return properties;
     }
@@ -112,7 +123,8 @@ public abstract class AbstractScriptedService implements ScriptCustomizer, Scrip
             scriptEntry.addScriptListener(this);
             scriptName = scriptEntry.getName();
             embeddedHandler = new ScriptedRequestHandler(scriptEntry, getScriptCustomizer());
-            selfRegistration = context.registerService(RequestHandler.class, embeddedHandler, getProperties());
+            selfRegistration = context.registerService(RequestHandler.class, getRequestHandler(embeddedHandler),
+                    getProperties());
         } catch (ScriptException e) {
             final String factoryPid = configuration.get(ServerConstants.CONFIG_FACTORY_PID).defaultTo("").asString();
             throw new ComponentException("Failed to take script: " + factoryPid, e);
@@ -165,8 +177,8 @@ public abstract class AbstractScriptedService implements ScriptCustomizer, Scrip
                         selfRegistration =
                                 getBundleContext().registerService(
                                         RequestHandler.class,
-                                        new ScriptedRequestHandler(scriptEntry,
-                                                getScriptCustomizer()), getProperties());
+                                        getRequestHandler(new ScriptedRequestHandler(scriptEntry,
+                                                getScriptCustomizer())), getProperties());
                     }
                 }
             }
@@ -0,0 +1,265 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.script;
+
+import static org.forgerock.util.query.QueryFilter.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * Bounded LRU caches of the parsed query parameters used by the script query
+ * functions. Scripts tend to issue the same handful of query filters, field
+ * lists and sort keys over and over again, so the parsed (immutable) forms are
+ * kept keyed by their string representation.
+ * <p>
+ * The size of each cache is controlled by the
+ * {@value #CACHE_SIZE_PROPERTY} system property.
+ */
+final class QueryCache {
+
+    /** System property holding the maximum number of entries of each cache. */
+    static final String CACHE_SIZE_PROPERTY = "openidm.script.query.cache.size";
+
+    private static final int CACHE_SIZE = Integer.getInteger(CACHE_SIZE_PROPERTY, 256);
+
+    private static final String TOKEN_PREFIX = "${";
+    private static final String TOKEN_SUFFIX = "}";
+
+    private static final Lru<QueryFilter<JsonPointer>> filters = new Lru<>(CACHE_SIZE);
+    private static final Lru<JsonPointer[]> fields = new Lru<>(CACHE_SIZE);
+    private static final Lru<SortKey[]> sortKeys = new Lru<>(CACHE_SIZE);
+
+    private QueryCache() {
+    }
+
+    /**
+     * Access ordered map which drops the least recently used entry once full.
+     */
+    private static final class Lru<V> extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Lru(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static <V> V get(Lru<V> cache, String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private static <V> V put(Lru<V> cache, String key, V value) {
+        if (CACHE_SIZE > 0) {
+            synchronized (cache) {
+                cache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Parse the query filter string.
+     *
+     * @param filter query filter string
+     * @return the parsed filter
+     * @throws IllegalArgumentException if the filter could not be parsed
+     */
+    static QueryFilter<JsonPointer> parseFilter(String filter) {
+        QueryFilter<JsonPointer> parsed = get(filters, filter);
+        return null != parsed ? parsed : put(filters, filter, QueryFilters.parse(filter));
+    }
+
+    /**
+     * Split the comma separated list of field pointers.
+     *
+     * @param list comma separated list of JSON pointers
+     * @return the parsed pointers, the array must not be modified
+     * @throws IllegalArgumentException if a pointer could not be parsed
+     */
+    static JsonPointer[] parseFields(String list) {
+        JsonPointer[] parsed = get(fields, list);
+        if (null == parsed) {
+            String[] split = list.split(",");
+            parsed = new JsonPointer[split.length];
+            for (int i = 0; i < split.length; i++) {
+                parsed[i] = new JsonPointer(split[i]);
+            }
+            put(fields, list, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Split the comma separated list of sort keys.
+     *
+     * @param list comma separated list of sort keys
+     * @return the parsed sort keys, the array must not be modified
+     * @throws IllegalArgumentException if a sort key could not be parsed
+     */
+    static SortKey[] parseSortKeys(String list) {
+        SortKey[] parsed = get(sortKeys, list);
+        if (null == parsed) {
+            String[] split = list.split(",");
+            parsed = new SortKey[split.length];
+            for (int i = 0; i < split.length; i++) {
+                parsed[i] = SortKey.valueOf(split[i]);
+            }
+            put(sortKeys, list, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parse the query filter template and substitute the {@code "${name}"}
+     * assertion values with the given values. The template itself is parsed
+     * only once.
+     *
+     * @param template query filter with quoted {@code ${name}} placeholders
+     *            in place of the assertion values
+     * @param values the values to bind to the placeholders
+     * @return the bound filter
+     * @throws IllegalArgumentException if the template could not be parsed or
+     *             a placeholder has no value
+     */
+    static QueryFilter<JsonPointer> bindFilter(String template, Map<String, Object> values) {
+        return parseFilter(template).accept(BINDER, values);
+    }
+
+    private static Object bind(Object assertion, Map<String, Object> values) {
+        if (assertion instanceof String) {
+            String value = (String) assertion;
+            if (value.startsWith(TOKEN_PREFIX) && value.endsWith(TOKEN_SUFFIX)) {
+                String name = value.substring(TOKEN_PREFIX.length(), value.length() - TOKEN_SUFFIX.length());
+                if (!values.containsKey(name) || null == values.get(name)) {
+                    throw new IllegalArgumentException("No value bound to the query filter parameter '"
+                            + name + "'");
+                }
+                return values.get(name);
+            }
+        }
+        return assertion;
+    }
+
+    /**
+     * Rebuilds the filter replacing the placeholder assertion values.
+     */
+    private static final QueryFilterVisitor<QueryFilter<JsonPointer>, Map<String, Object>, JsonPointer> BINDER =
+            new QueryFilterVisitor<QueryFilter<JsonPointer>, Map<String, Object>, JsonPointer>() {
+
+        private List<QueryFilter<JsonPointer>> bindAll(Map<String, Object> values,
+                List<QueryFilter<JsonPointer>> subFilters) {
+            List<QueryFilter<JsonPointer>> bound = new ArrayList<>(subFilters.size());
+            for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                bound.add(subFilter.accept(this, values));
+            }
+            return bound;
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitAndFilter(Map<String, Object> values,
+                List<QueryFilter<JsonPointer>> subFilters) {
+            return and(bindAll(values, subFilters));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitBooleanLiteralFilter(Map<String, Object> values, boolean value) {
+            return value ? QueryFilter.<JsonPointer>alwaysTrue() : QueryFilter.<JsonPointer>alwaysFalse();
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitContainsFilter(Map<String, Object> values, JsonPointer field,
+                Object valueAssertion) {
+            return contains(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitEqualsFilter(Map<String, Object> values, JsonPointer field,
+                Object valueAssertion) {
+            return equalTo(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitExtendedMatchFilter(Map<String, Object> values, JsonPointer field,
+                String operator, Object valueAssertion) {
+            return extendedMatch(field, operator, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitGreaterThanFilter(Map<String, Object> values, JsonPointer field,
+                Object valueAssertion) {
+            return greaterThan(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitGreaterThanOrEqualToFilter(Map<String, Object> values,
+                JsonPointer field, Object valueAssertion) {
+            return greaterThanOrEqualTo(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitLessThanFilter(Map<String, Object> values, JsonPointer field,
+                Object valueAssertion) {
+            return lessThan(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitLessThanOrEqualToFilter(Map<String, Object> values,
+                JsonPointer field, Object valueAssertion) {
+            return lessThanOrEqualTo(field, bind(valueAssertion, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitNotFilter(Map<String, Object> values,
+                QueryFilter<JsonPointer> subFilter) {
+            return not(subFilter.accept(this, values));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitOrFilter(Map<String, Object> values,
+                List<QueryFilter<JsonPointer>> subFilters) {
+            return or(bindAll(values, subFilters));
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitPresentFilter(Map<String, Object> values, JsonPointer field) {
+            return present(field);
+        }
+
+        @Override
+        public QueryFilter<JsonPointer> visitStartsWithFilter(Map<String, Object> values, JsonPointer field,
+                Object valueAssertion) {
+            return startsWith(field, bind(valueAssertion, values));
+        }
+    };
+}
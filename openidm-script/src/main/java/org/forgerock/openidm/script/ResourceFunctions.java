@@ -24,13 +24,18 @@
 
 package org.forgerock.openidm.script;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
@@ -42,7 +47,6 @@ import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PatchOperation;
 import org.forgerock.json.resource.PatchRequest;
-import org.forgerock.json.resource.QueryFilters;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.QueryResponse;
@@ -66,6 +70,9 @@ import org.forgerock.util.LazyMap;
  */
 public final class ResourceFunctions {
 
+    /** Number of results fetched at once by the query iterator if no page size is requested. */
+    public static final int DEFAULT_ITERATOR_PAGE_SIZE = 1000;
+
     private ResourceFunctions() {
     }
 
@@ -78,7 +85,7 @@ public final class ResourceFunctions {
      * create(String resourceContainer, String newResourceId, Map content[, Map params][, List fieldFilter][, Map context])
      * </pre>
      */
-    private static final class CreateFunction extends AbstractFunction {
+    private static final class CreateFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -195,7 +202,7 @@ public final class ResourceFunctions {
      * read(String resourceName[, Map params][, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class ReadFunction extends AbstractFunction {
+    private static final class ReadFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -295,7 +302,7 @@ public final class ResourceFunctions {
      * update(String resourceName, String revision, Map content [, Map params][, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class UpdateFunction extends AbstractFunction {
+    private static final class UpdateFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -414,7 +421,7 @@ public final class ResourceFunctions {
      * patch(String resourceName, String revision, Map patch[, Map params][, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class PatchFunction extends AbstractFunction {
+    private static final class PatchFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -534,7 +541,7 @@ public final class ResourceFunctions {
      * query(String resourceContainer, Map params [, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class QueryFunction extends AbstractFunction {
+    private static final class QueryFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -602,126 +609,322 @@ public final class ResourceFunctions {
                 }
             }
 
+            if (!(params.isDefined("_queryId") ^ params.isDefined("_queryExpression")
+                    ^ params.isDefined("_queryFilter"))) {
+                throw new BadRequestException(
+                        "Only one of [_queryId, _queryExpression, _queryFilter] is supported; multiple detected");
+            }
+
             // warning: if you dont use poll or peek and only iterator()
             // (+.remove()) it will leak memory.
             LinkedList<Object> results =
                     null != callback ? null : new LinkedList<Object>();
 
             QueryResponse queryResponse =
-                    query(scope, resourceContainer, params, fieldFilter, context, results, callback);
+                    query(scope, newQueryRequest(resourceContainer, params, fieldFilter), context,
+                            results, callback);
 
-            JsonValue result = new JsonValue(new LinkedHashMap<String, Object>(3));
-            if (null != queryResponse) {
-                result.put("pagedResultsCookie", queryResponse.getPagedResultsCookie());
-                result.put("totalPagedResults", queryResponse.getTotalPagedResults());
-                result.put("totalPagedResultsPolicy", queryResponse.getTotalPagedResultsPolicy().name());
+            return queryResult(queryResponse, results);
+        }
+    }
+
+    public static Function<JsonValue> newQueryTemplateFunction(ConnectionFactory connectionFactory) {
+        return new QueryTemplateFunction(connectionFactory);
+    }
+
+    /**
+     * <pre>
+     * queryTemplate(String resourceContainer, String filterTemplate, Map values [, Map params][, List fieldFilter][,Map context])
+     * </pre>
+     * The filter template is a query filter with quoted {@code "${name}"}
+     * placeholders in place of the assertion values, for example
+     * {@code userName eq "${userName}"}. The template is parsed once and only
+     * the values are bound per call.
+     */
+    private static final class QueryTemplateFunction extends AbstractFunction<JsonValue> {
+
+        /** Serializable class a version number. */
+        static final long serialVersionUID = 1L;
+
+        private QueryTemplateFunction(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "fallthrough"})
+        public JsonValue call(Parameter scope, final Function<?> callback, Object... arguments)
+                throws ResourceException, NoSuchMethodException {
+
+            String resourceContainer = null;
+            String template = null;
+            JsonValue values = null;
+            JsonValue params = new JsonValue(null);
+            List<Object> fieldFilter = null;
+            Context context = null;
+
+            if (arguments.length < 3) {
+                throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage("queryTemplate",
+                        arguments));
             }
-            if (null != results) {
-                result.put("result", results);
+
+            for (int i = 0; i < arguments.length; i++) {
+                Object value = arguments[i];
+                switch (i) {
+                case 0:
+                    if (value instanceof String) {
+                        resourceContainer = (String) value;
+                    } else {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                    break;
+                case 1:
+                    if (value instanceof String) {
+                        template = (String) value;
+                    } else {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                    break;
+                case 2:
+                    if (value instanceof Map) {
+                        values = new JsonValue(value);
+                    } else if (value instanceof JsonValue && ((JsonValue) value).isMap()) {
+                        values = (JsonValue) value;
+                    } else {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                    break;
+                case 3:
+                    if (value instanceof Map) {
+                        params = new JsonValue(value);
+                    } else if (value instanceof JsonValue && ((JsonValue) value).isMap()) {
+                        params = (JsonValue) value;
+                    } else if (null != value && arguments.length > 4) {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                    break;
+                case 4:
+                    if (value instanceof List) {
+                        fieldFilter = (List<Object>) value;
+                        break;
+                    } else if (value instanceof JsonValue && ((JsonValue) value).isList()) {
+                        fieldFilter = ((JsonValue) value).asList();
+                        break;
+                    } else if (null != value && arguments.length > 5) {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                case 5:
+                    if (value instanceof Context) {
+                        context = (Context) value;
+                    } else if (null != value) {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryTemplate", arguments));
+                    }
+                    break;
+                default: // TODO log unused arguments
+                }
             }
-            return result;
+
+            if (params.isDefined("_queryId") || params.isDefined("_queryExpression")
+                    || params.isDefined("_queryFilter")) {
+                throw new BadRequestException(
+                        "[_queryId, _queryExpression, _queryFilter] are not supported with a filter template");
+            }
+
+            QueryRequest qr = newQueryRequest(resourceContainer, params, fieldFilter);
+            try {
+                qr.setQueryFilter(QueryCache.bindFilter(template, values.asMap()));
+            } catch (final IllegalArgumentException e) {
+                // FIXME: i18n.
+                throw new BadRequestException("The filter template '" + template
+                        + "' could not be bound: " + e.getMessage());
+            }
+
+            LinkedList<Object> results =
+                    null != callback ? null : new LinkedList<Object>();
+
+            return queryResult(query(scope, qr, context, results, callback), results);
         }
+    }
 
-        private final QueryResponse query(final Parameter scope, String resourceContainer,
-                JsonValue params, List<Object> fieldFilter, Context context,
-                final Collection<Object> results, final Function<?> callback)
-                throws ResourceException {
-            if (params.isDefined("_queryId") ^ params.isDefined("_queryExpression")
-                    ^ params.isDefined("_queryFilter")) {
-
-                QueryRequest qr = Requests.newQueryRequest(resourceContainer);
-                // add fieldFilter
-                qr.addField(fetchFields(fieldFilter));
-                for (String name : params.keys()) {
-                    if (name.equalsIgnoreCase("_fields")
-                            && (null == fieldFilter || fieldFilter.isEmpty())) {
-                        JsonValue fields = params.get(name);
-                        if (fields.isString()) {
-                            try {
-                                qr.addField(fields.asString().split(","));
-                            } catch (final IllegalArgumentException e) {
-                                // FIXME: i18n.
-                                throw new BadRequestException(
-                                        "The value '"
-                                                + fields
-                                                + "' for parameter '"
-                                                + name
-                                                + "' could not be parsed as a comma separated list of JSON pointers");
-                            }
-                        } else if (fields.isList()) {
-                            qr.addField(fields.asList().toArray(new String[fields.size()]));
-                        }
-                    } else if (name.equalsIgnoreCase("_sortKeys")) {
-                        JsonValue sortKey = params.get(name);
-                        if (sortKey.isString()) {
-                            try {
-                                qr.addSortKey(sortKey.asString().split(","));
-                            } catch (final IllegalArgumentException e) {
-                                // FIXME: i18n.
-                                throw new BadRequestException("The value '" + sortKey
-                                        + "' for parameter '" + name
-                                        + "' could not be parsed as a comma "
-                                        + "separated list of sort keys");
-                            }
-                        } else if (sortKey.isList()) {
-                            qr.addSortKey(sortKey.asList().toArray(new String[sortKey.size()]));
-                        }
-                    } else if (name.equalsIgnoreCase("_queryId")) {
-                        qr.setQueryId(params.get(name).required().asString());
-                    } else if (name.equalsIgnoreCase("_queryExpression")) {
-                        qr.setQueryExpression(params.get(name).required().asString());
-                    } else if (name.equalsIgnoreCase("_pagedResultsCookie")) {
-                        qr.setPagedResultsCookie(params.get(name).required().asString());
-                    } else if (name.equalsIgnoreCase("_pagedResultsOffset")) {
-                        qr.setPagedResultsOffset(params.get(name).required().asInteger());
-                    } else if (name.equalsIgnoreCase("_pageSize")) {
-                        qr.setPageSize(params.get(name).required().asInteger());
-                    } else if (name.equalsIgnoreCase("_totalPagedResultsPolicy")) {
-                        final String s = params.get(name).required().asString();
-                        try {
-                            qr.setTotalPagedResultsPolicy(CountPolicy.valueOf(s));
-                        } catch (IllegalArgumentException e) {
-                            // FIXME: i18n.
-                            throw new BadRequestException("The value '" + s + "' for parameter '"
-                                    + name + "' could not be parsed as a valid count policy");
-                        }
-                    } else if (name.equalsIgnoreCase("_queryFilter")) {
-                        final String s = params.get(name).required().asString();
-                        try {
-                            qr.setQueryFilter(QueryFilters.parse(s));
-                        } catch (final IllegalArgumentException e) {
-                            // FIXME: i18n.
-                            throw new BadRequestException("The value '" + s + "' for parameter '"
-                                    + name + "' could not be parsed as a valid query filter");
-                        }
+    public static Function<Iterator<Object>> newQueryIteratorFunction(ConnectionFactory connectionFactory) {
+        return new QueryIteratorFunction(connectionFactory);
+    }
+
+    /**
+     * <pre>
+     * queryIterator(String resourceContainer, Map params [, List fieldFilter][,Map context])
+     * </pre>
+     * Returns an iterator over the query results which fetches the results one
+     * page of {@code _pageSize} (default {@value ResourceFunctions#DEFAULT_ITERATOR_PAGE_SIZE})
+     * at a time. A page is released as soon as the script moves past it, so
+     * large collections can be scanned without holding them in the script heap.
+     */
+    private static final class QueryIteratorFunction extends AbstractFunction<Iterator<Object>> {
+
+        /** Serializable class a version number. */
+        static final long serialVersionUID = 1L;
+
+        private QueryIteratorFunction(ConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "fallthrough"})
+        public Iterator<Object> call(Parameter scope, final Function<?> callback, Object... arguments)
+                throws ResourceException, NoSuchMethodException {
+
+            String resourceContainer = null;
+            JsonValue params = new JsonValue(null);
+            List<Object> fieldFilter = null;
+            Context context = null;
+
+            if (arguments.length < 2) {
+                throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage("queryIterator",
+                        arguments));
+            }
+
+            for (int i = 0; i < arguments.length; i++) {
+                Object value = arguments[i];
+                switch (i) {
+                case 0:
+                    if (value instanceof String) {
+                        resourceContainer = (String) value;
+                    } else {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryIterator", arguments));
+                    }
+                    break;
+                case 1:
+                    if (value instanceof Map) {
+                        params = new JsonValue(value);
+                    } else if (value instanceof JsonValue && ((JsonValue) value).isMap()) {
+                        params = (JsonValue) value;
                     } else {
-                        setAdditionalParameter(qr, name, params.get(name));
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryIterator", arguments));
+                    }
+                    break;
+                case 2:
+                    if (value instanceof List) {
+                        fieldFilter = (List<Object>) value;
+                        break;
+                    } else if (value instanceof JsonValue && ((JsonValue) value).isList()) {
+                        fieldFilter = ((JsonValue) value).asList();
+                        break;
+                    } else if (null != value && arguments.length > 3) {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryIterator", arguments));
+                    }
+                case 3:
+                    if (value instanceof Context) {
+                        context = (Context) value;
+                    } else if (null != value) {
+                        throw new NoSuchMethodException(FunctionFactory.getNoSuchMethodMessage(
+                                "queryIterator", arguments));
                     }
+                    break;
+                default: // TODO log unused arguments
                 }
+            }
+
+            if (!(params.isDefined("_queryId") ^ params.isDefined("_queryExpression")
+                    ^ params.isDefined("_queryFilter"))) {
+                throw new BadRequestException(
+                        "Only one of [_queryId, _queryExpression, _queryFilter] is supported; multiple detected");
+            }
+
+            QueryRequest qr = newQueryRequest(resourceContainer, params, fieldFilter);
+            if (qr.getPageSize() <= 0) {
+                qr.setPageSize(DEFAULT_ITERATOR_PAGE_SIZE);
+            }
+            // counting the results would defeat the purpose of paging
+            qr.setTotalPagedResultsPolicy(CountPolicy.NONE);
+            return new PagedQueryIterator(qr, scope.getContext(context));
+        }
+
+        /**
+         * Iterator which runs the query one page at a time. The next page is
+         * requested with the paged results cookie returned by the previous
+         * page or, for the resources which do not return cookies, with the
+         * offset of the next page. The iteration stops at the first page
+         * which makes no progress, as a resource ignoring the paging
+         * parameters returns the same page again.
+         */
+        private final class PagedQueryIterator implements Iterator<Object> {
+
+            private final QueryRequest request;
+            private final Context context;
+            private final Deque<Object> page = new ArrayDeque<>();
+            private boolean exhausted = false;
+            private Object previousFirst = null;
+
+            private PagedQueryIterator(QueryRequest request, Context context) {
+                this.request = request;
+                this.context = context;
+            }
 
-                return connectionFactory.getConnection().query(scope.getContext(context), qr,
+            private void fetchPage() throws ResourceException {
+                final int pageSize = request.getPageSize();
+                final List<ResourceResponse> resources = new ArrayList<>();
+                QueryResponse response = connectionFactory.getConnection().query(context, request,
                         new QueryResourceHandler() {
                             @Override
                             public boolean handleResource(ResourceResponse resource) {
-                                if (null != callback) {
-                                    try {
-                                        callback.call(scope, null, resource.getContent());
-                                    } catch (ResourceException e) {
-                                        // TODO log
-                                        return false;
-                                    } catch (NoSuchMethodException e) {
-                                        // TODO log
-                                        return false;
-                                    }
-                                } else {
-                                    results.add(resource.getContent().getObject());
-                                }
+                                resources.add(resource);
                                 return true;
                             }
                         });
-            } else {
-                throw new BadRequestException(
-                        "Only one of [_queryId, _queryExpression, _queryFilter] is supported; multiple detected");
+                if (resources.isEmpty()) {
+                    exhausted = true;
+                    return;
+                }
+                // the id, or the content of the resources without one, identifies the page
+                final Object first = null != resources.get(0).getId()
+                        ? resources.get(0).getId()
+                        : resources.get(0).getContent().getObject();
+                if (null != previousFirst && previousFirst.equals(first)) {
+                    exhausted = true;
+                    return;
+                }
+                previousFirst = first;
+                for (ResourceResponse resource : resources) {
+                    page.add(resource.getContent().getObject());
+                }
+
+                String cookie = null != response ? response.getPagedResultsCookie() : null;
+                if (null != cookie && !cookie.equals(request.getPagedResultsCookie())) {
+                    request.setPagedResultsCookie(cookie);
+                } else if (null == cookie && resources.size() >= pageSize
+                        && (null == response || 0 != response.getRemainingPagedResults())) {
+                    request.setPagedResultsOffset(request.getPagedResultsOffset() + resources.size());
+                } else {
+                    exhausted = true;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (page.isEmpty() && !exhausted) {
+                    try {
+                        fetchPage();
+                    } catch (ResourceException e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.poll();
             }
         }
     }
@@ -735,7 +938,7 @@ public final class ResourceFunctions {
      * delete(String resourceName, String revision [, Map params][, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class DeleteFunction extends AbstractFunction {
+    private static final class DeleteFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -841,7 +1044,7 @@ public final class ResourceFunctions {
      * action(String resourceName, [String actionId,] Map content, Map params [, List fieldFilter][,Map context])
      * </pre>
      */
-    private static final class ActionFunction extends AbstractFunction {
+    private static final class ActionFunction extends AbstractFunction<JsonValue> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -960,7 +1163,7 @@ public final class ResourceFunctions {
         }
     }
 
-    private static abstract class AbstractFunction implements Function<JsonValue> {
+    private static abstract class AbstractFunction<R> implements Function<R> {
 
         /** Serializable class a version number. */
         static final long serialVersionUID = 2L;
@@ -985,6 +1188,122 @@ public final class ResourceFunctions {
             return new String[0];
         }
 
+        /**
+         * Build the query request from the script parameters. The filter,
+         * field and sort key strings are parsed through the {@link QueryCache}.
+         */
+        protected QueryRequest newQueryRequest(String resourceContainer, JsonValue params,
+                List<Object> fieldFilter) throws ResourceException {
+            QueryRequest qr = Requests.newQueryRequest(resourceContainer);
+            // add fieldFilter
+            qr.addField(fetchFields(fieldFilter));
+            for (String name : params.keys()) {
+                if (name.equalsIgnoreCase("_fields")
+                        && (null == fieldFilter || fieldFilter.isEmpty())) {
+                    JsonValue fields = params.get(name);
+                    if (fields.isString()) {
+                        try {
+                            qr.addField(QueryCache.parseFields(fields.asString()));
+                        } catch (final IllegalArgumentException e) {
+                            // FIXME: i18n.
+                            throw new BadRequestException(
+                                    "The value '"
+                                            + fields
+                                            + "' for parameter '"
+                                            + name
+                                            + "' could not be parsed as a comma separated list of JSON pointers");
+                        }
+                    } else if (fields.isList()) {
+                        qr.addField(fields.asList().toArray(new String[fields.size()]));
+                    }
+                } else if (name.equalsIgnoreCase("_sortKeys")) {
+                    JsonValue sortKey = params.get(name);
+                    if (sortKey.isString()) {
+                        try {
+                            qr.addSortKey(QueryCache.parseSortKeys(sortKey.asString()));
+                        } catch (final IllegalArgumentException e) {
+                            // FIXME: i18n.
+                            throw new BadRequestException("The value '" + sortKey
+                                    + "' for parameter '" + name
+                                    + "' could not be parsed as a comma "
+                                    + "separated list of sort keys");
+                        }
+                    } else if (sortKey.isList()) {
+                        qr.addSortKey(sortKey.asList().toArray(new String[sortKey.size()]));
+                    }
+                } else if (name.equalsIgnoreCase("_queryId")) {
+                    qr.setQueryId(params.get(name).required().asString());
+                } else if (name.equalsIgnoreCase("_queryExpression")) {
+                    qr.setQueryExpression(params.get(name).required().asString());
+                } else if (name.equalsIgnoreCase("_pagedResultsCookie")) {
+                    qr.setPagedResultsCookie(params.get(name).required().asString());
+                } else if (name.equalsIgnoreCase("_pagedResultsOffset")) {
+                    qr.setPagedResultsOffset(params.get(name).required().asInteger());
+                } else if (name.equalsIgnoreCase("_pageSize")) {
+                    qr.setPageSize(params.get(name).required().asInteger());
+                } else if (name.equalsIgnoreCase("_totalPagedResultsPolicy")) {
+                    final String s = params.get(name).required().asString();
+                    try {
+                        qr.setTotalPagedResultsPolicy(CountPolicy.valueOf(s));
+                    } catch (IllegalArgumentException e) {
+                        // FIXME: i18n.
+                        throw new BadRequestException("The value '" + s + "' for parameter '"
+                                + name + "' could not be parsed as a valid count policy");
+                    }
+                } else if (name.equalsIgnoreCase("_queryFilter")) {
+                    final String s = params.get(name).required().asString();
+                    try {
+                        qr.setQueryFilter(QueryCache.parseFilter(s));
+                    } catch (final IllegalArgumentException e) {
+                        // FIXME: i18n.
+                        throw new BadRequestException("The value '" + s + "' for parameter '"
+                                + name + "' could not be parsed as a valid query filter");
+                    }
+                } else {
+                    setAdditionalParameter(qr, name, params.get(name));
+                }
+            }
+            return qr;
+        }
+
+        protected final QueryResponse query(final Parameter scope, QueryRequest qr, Context context,
+                final Collection<Object> results, final Function<?> callback)
+                throws ResourceException {
+            return connectionFactory.getConnection().query(scope.getContext(context), qr,
+                    new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            if (null != callback) {
+                                try {
+                                    callback.call(scope, null, resource.getContent());
+                                } catch (ResourceException e) {
+                                    // TODO log
+                                    return false;
+                                } catch (NoSuchMethodException e) {
+                                    // TODO log
+                                    return false;
+                                }
+                            } else {
+                                results.add(resource.getContent().getObject());
+                            }
+                            return true;
+                        }
+                    });
+        }
+
+        protected JsonValue queryResult(QueryResponse queryResponse, Collection<Object> results) {
+            JsonValue result = new JsonValue(new LinkedHashMap<String, Object>(3));
+            if (null != queryResponse) {
+                result.put("pagedResultsCookie", queryResponse.getPagedResultsCookie());
+                result.put("totalPagedResults", queryResponse.getTotalPagedResults());
+                result.put("totalPagedResultsPolicy", queryResponse.getTotalPagedResultsPolicy().name());
+            }
+            if (null != results) {
+                result.put("result", results);
+            }
+            return result;
+        }
+
         protected void setAdditionalParameter(Request request, String name, JsonValue value) throws BadRequestException {
             if (value.isNull()) {
                 // ignore null values
@@ -1019,6 +1338,12 @@ public final class ResourceFunctions {
      * query(String endPoint[, Map params][, String filter][, List
      * fieldFilter][,Map context])
      *
+     * queryTemplate(String endPoint, String filterTemplate, Map values[, Map
+     * params][, List fieldFilter][,Map context])
+     *
+     * queryIterator(String endPoint, Map params[, List fieldFilter][,Map
+     * context])
+     *
      * read(String endPoint[, String id][, List fieldFilter][,Map context])
      *
      * update(String endPoint[, String id], Map content [, String rev][, List
@@ -1026,18 +1351,20 @@ public final class ResourceFunctions {
      *
      * @return
      */
-    public static Map<String, Function<JsonValue>> resourceFunctions(final ConnectionFactory connectionFactory) {
+    public static Map<String, Function<?>> resourceFunctions(final ConnectionFactory connectionFactory) {
         return new LazyMap<>(
-                new Factory<Map<String, Function<JsonValue>>>() {
+                new Factory<Map<String, Function<?>>>() {
                     @Override
-                    public Map<String, Function<JsonValue>> newInstance() {
-                        Map<String, Function<JsonValue>> functions = new HashMap<String, Function<JsonValue>>(7);
+                    public Map<String, Function<?>> newInstance() {
+                        Map<String, Function<?>> functions = new HashMap<String, Function<?>>(9);
 
                         functions.put("create", ResourceFunctions.newCreateFunction(connectionFactory));
                         functions.put("read", ResourceFunctions.newReadFunction(connectionFactory));
                         functions.put("update", ResourceFunctions.newUpdateFunction(connectionFactory));
                         functions.put("patch", ResourceFunctions.newPatchFunction(connectionFactory));
                         functions.put("query", ResourceFunctions.newQueryFunction(connectionFactory));
+                        functions.put("queryTemplate", ResourceFunctions.newQueryTemplateFunction(connectionFactory));
+                        functions.put("queryIterator", ResourceFunctions.newQueryIteratorFunction(connectionFactory));
                         functions.put("delete", ResourceFunctions.newDeleteFunction(connectionFactory));
                         functions.put("action", ResourceFunctions.newActionFunction(connectionFactory));
 
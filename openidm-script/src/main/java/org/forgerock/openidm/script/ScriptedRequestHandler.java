@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.script;
 
@@ -50,9 +50,8 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.core.IdentityServer;
-import org.forgerock.openidm.smartevent.EventEntry;
-import org.forgerock.openidm.smartevent.Name;
-import org.forgerock.openidm.smartevent.Publisher;
+import org.forgerock.openidm.util.BindingsPool;
+import org.forgerock.openidm.util.ScriptMetrics;
 import org.forgerock.script.Scope;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
@@ -81,6 +80,9 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
 
     private final boolean includeJavascriptDebugState;
 
+    /** Request bindings reused by the executions on the same thread. */
+    private final BindingsPool bindingsPool = new BindingsPool();
+
     public ScriptedRequestHandler(final ScriptEntry scriptEntry, final ScriptCustomizer customizer) {
         if (null == scriptEntry) {
             throw new NullPointerException();
@@ -149,14 +151,16 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     // ----- Implementation of RequestHandler interface
 
     public Promise<ActionResponse, ResourceException> handleAction(final Context context, final ActionRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/action"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "action");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleAction(context, request, script.getBindings());
             Object result = script.eval();
             if (null == result) {
@@ -171,78 +175,108 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
                 return newActionResponse(new JsonValue(result)).asPromise();
             }
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
 
     public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/create"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "create");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleCreate(context, request, script.getBindings());
             return evaluate(request, script);
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
 
     public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/delete"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "delete");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleDelete(context, request, script.getBindings());
             return evaluate(request, script);
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
 
     public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/patch"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "patch");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handlePatch(context, request, script.getBindings());
             return evaluate(request, script);
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
@@ -254,14 +288,16 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
      */
     public Promise<QueryResponse, ResourceException> handleQuery(final Context context, final QueryRequest request,
             final QueryResourceHandler handler) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/query"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "query");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleQuery(context, request, script.getBindings());
 
             final Function<Void> queryCallback = new Function<Void>() {
@@ -348,12 +384,18 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
             }
             return queryResponse.asPromise();
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
@@ -379,45 +421,61 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     
 
     public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/read"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "read");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleRead(context, request, script.getBindings());
             return evaluate(request, script);
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
 
     public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/update"), null, null);
+        final ScriptEntry _scriptEntry = getScriptEntry();
+        final ScriptMetrics.Measure measure = ScriptMetrics.start(_scriptEntry, "update");
+        Bindings bindings = null;
         try {
-            final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
                 throw new ServiceUnavailableException("Inactive script: " + _scriptEntry.getName());
             }
             final Script script = _scriptEntry.getScript(context);
-            script.setBindings(script.createBindings());
+            bindings = bindingsPool.acquire(_scriptEntry, script);
+            script.setBindings(bindings);
             customizer.handleUpdate(context, request, script.getBindings());
             return evaluate(request, script);
         } catch (ScriptException e) {
+            measure.failed();
             return convertScriptException(e).asPromise();
         } catch (ResourceException e) {
+            measure.failed();
             return e.asPromise();
         } catch (Exception e) {
+            measure.failed();
             return new InternalServerErrorException(e.getMessage(), e).asPromise();
         } finally {
+            if (bindings != null) {
+                bindingsPool.release(_scriptEntry, bindings);
+            }
             measure.end();
         }
     }
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
- * Portions Copyright 2020-2023 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 package org.forgerock.openidm.script.impl;
@@ -128,6 +128,8 @@ public class ScriptRegistryService extends ScriptRegistryImpl implements Request
         _reservedNames.add("update");
         _reservedNames.add("patch");
         _reservedNames.add("query");
+        _reservedNames.add("queryTemplate");
+        _reservedNames.add("queryIterator");
         _reservedNames.add("delete");
         _reservedNames.add("action");
         _reservedNames.add("encrypt");
@@ -332,6 +334,8 @@ public class ScriptRegistryService extends ScriptRegistryImpl implements Request
         openidm.put("update", ResourceFunctions.newUpdateFunction(connectionFactory));
         openidm.put("patch", ResourceFunctions.newPatchFunction(connectionFactory));
         openidm.put("query", ResourceFunctions.newQueryFunction(connectionFactory));
+        openidm.put("queryTemplate", ResourceFunctions.newQueryTemplateFunction(connectionFactory));
+        openidm.put("queryIterator", ResourceFunctions.newQueryIteratorFunction(connectionFactory));
         openidm.put("delete", ResourceFunctions.newDeleteFunction(connectionFactory));
         openidm.put("action", ResourceFunctions.newActionFunction(connectionFactory));
         this.connectionFactory = connectionFactory;
@@ -360,6 +364,8 @@ public class ScriptRegistryService extends ScriptRegistryImpl implements Request
         openidm.remove("update");
         openidm.remove("patch");
         openidm.remove("query");
+        openidm.remove("queryTemplate");
+        openidm.remove("queryIterator");
         openidm.remove("delete");
         openidm.remove("action");
         this.connectionFactory = null;
@@ -0,0 +1,62 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.Test;
+
+public class QueryCacheTest {
+
+    @Test
+    public void testParsedFilterIsReused() {
+        QueryFilter<JsonPointer> first = QueryCache.parseFilter("userName eq \"bjensen\"");
+        QueryFilter<JsonPointer> second = QueryCache.parseFilter("userName eq \"bjensen\"");
+        assertThat(second).isSameAs(first);
+        assertThat(first.toString()).isEqualTo(QueryFilters.parse("userName eq \"bjensen\"").toString());
+    }
+
+    @Test
+    public void testFieldsAndSortKeys() {
+        assertThat(QueryCache.parseFields("_id,userName"))
+                .containsExactly(new JsonPointer("_id"), new JsonPointer("userName"));
+        assertThat(QueryCache.parseFields("_id,userName")).isSameAs(QueryCache.parseFields("_id,userName"));
+        assertThat(QueryCache.parseSortKeys("-sn,givenName")).hasSize(2);
+        assertThat(QueryCache.parseSortKeys("-sn,givenName")[0].isAscendingOrder()).isFalse();
+    }
+
+    @Test
+    public void testBindFilter() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "bjensen");
+        values.put("age", 42);
+        QueryFilter<JsonPointer> bound =
+                QueryCache.bindFilter("userName eq \"${name}\" and (age gt \"${age}\" or active eq true)", values);
+        assertThat(bound.toString()).isEqualTo(
+                QueryFilters.parse("userName eq \"bjensen\" and (age gt 42 or active eq true)").toString());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBindFilterMissingValue() {
+        QueryCache.bindFilter("userName eq \"${name}\"", Collections.<String, Object>emptyMap());
+    }
+}
@@ -15,6 +15,8 @@ import org.forgerock.json.resource.MemoryBackend;
 import org.forgerock.json.resource.PatchOperation;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.Requests;
@@ -45,6 +47,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Router.uriTemplate;
@@ -78,12 +81,14 @@ public abstract class ResourceFunctionsTest {
         scriptRegistry = getScriptRegistry(configuration);
 
         RequestHandler resource = mock(RequestHandler.class);
+        RequestHandler unpaged = mock(RequestHandler.class);
         SingletonResourceProvider singletonProvider = mock(SingletonResourceProvider.class);
 
         final Router router = new Router();
         router.addRoute(uriTemplate("/Users"), new MemoryBackend());
         router.addRoute(uriTemplate("/Groups"), new MemoryBackend());
         router.addRoute(uriTemplate("mock/{id}"), singletonProvider);
+        router.addRoute(uriTemplate("/Unpaged"), unpaged);
 
         connectionFactory = Resources.newInternalConnectionFactory(router);
 
@@ -95,6 +100,16 @@ public abstract class ResourceFunctionsTest {
             }
         }).when(resource).handleRead(any(Context.class), any(ReadRequest.class));
 
+        // returns the same two resources whatever the requested page
+        doAnswer(new Answer<Promise<QueryResponse, ResourceException>>() {
+            public Promise<QueryResponse, ResourceException> answer(InvocationOnMock invocation) throws Throwable {
+                QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+                handler.handleResource(Responses.newResourceResponse("1", null, json(object(field("_id", "1")))));
+                handler.handleResource(Responses.newResourceResponse("2", null, json(object(field("_id", "2")))));
+                return Responses.newQueryResponse().asPromise();
+            }
+        }).when(unpaged).handleQuery(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class));
+
         scriptRegistry.put("router", resourceFunctions(connectionFactory));
 
         URL container = getScriptContainer("/container/");
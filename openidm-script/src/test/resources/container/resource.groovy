@@ -115,6 +115,32 @@ def printResult = { resource, error ->
 }
 def userQ4 = router.query("Users", queryParams2, printResult)
 
+/**
+ * <pre>
+ * queryTemplate(String resourceContainer, String filterTemplate, Map values [, Map params][, List fieldFilter][,Map context])
+ * </pre>
+ */
+def userT1 = router.queryTemplate("Users", 'nickName eq "${nick}"', [nick: "Babs"])
+assert userT1.result.size() > 0
+
+def userT2 = router.queryTemplate("Users", 'nickName eq "${nick}"', [nick: "Nobody"])
+assert userT2.result.size() == 0
+
+/**
+ * <pre>
+ * queryIterator(String resourceContainer, Map params [, List fieldFilter][,Map context])
+ * </pre>
+ */
+def iterated = 0
+for (user in router.queryIterator("Users", [_queryFilter: "true", _pageSize: 1])) {
+    assert user.nickName == "Babs"
+    iterated++
+}
+assert iterated == router.query("Users", [_queryFilter: "true"]).result.size()
+
+// a resource ignoring the paging parameters is read once
+assert router.queryIterator("Unpaged", [_queryFilter: "true", _pageSize: 2]).toList().size() == 2
+
 /**
  * <pre>
  * delete(String resourceName, String revision [, List fieldFilter][,Map context])
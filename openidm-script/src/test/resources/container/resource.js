@@ -161,6 +161,55 @@ try {
     }
 }
 
+/**
+ * <pre>
+ * queryTemplate(String resourceContainer, String filterTemplate, Map values [, Map params][, List fieldFilter][,Map context])
+ * </pre>
+ */
+var userT1 = router.queryTemplate("Users", "nickName eq \"${nick}\"", { "nick": "Babs" })
+if (userT1.result.length == 0) {
+    throw { "message": "Expected bound query template to match" };
+}
+var userT2 = router.queryTemplate("Users", "nickName eq \"${nick}\"", { "nick": "Nobody" })
+if (userT2.result.length != 0) {
+    throw { "message": "Expected bound query template not to match" };
+}
+
+/**
+ * <pre>
+ * queryIterator(String resourceContainer, Map params [, List fieldFilter][,Map context])
+ * </pre>
+ */
+var userI1 = router.queryIterator("Users", { "_queryFilter": "true", "_pageSize": 1 })
+var iterated = 0
+while (userI1.hasNext()) {
+    userI1.next()
+    iterated++
+}
+if (iterated != router.query("Users", { "_queryFilter": "true" }).result.length) {
+    throw { "message": "Query iterator did not return all the results" };
+}
+
+// a resource ignoring the paging parameters is read once
+var userI2 = router.queryIterator("Unpaged", { "_queryFilter": "true", "_pageSize": 2 })
+iterated = 0
+while (userI2.hasNext()) {
+    userI2.next()
+    iterated++
+}
+if (iterated != 2) {
+    throw { "message": "Query iterator did not stop on a resource ignoring the paging" };
+}
+
+try {
+    var userT3 = router.queryTemplate("Users", "nickName eq \"${nick}\"", {})
+    throw { "error" : "Assertion failed: router.queryTemplate should have rejected unbound parameter" } ;
+} catch (e) {
+    if (e.error) {
+        throw e;
+    }
+}
+
 /**
  * <pre>
  * delete(String resourceName, String revision [, params][, List fieldFilter][,Map context])
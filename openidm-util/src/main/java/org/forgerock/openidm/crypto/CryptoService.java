@@ -12,9 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
+import java.util.List;
+
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.crypto.JsonCryptoException;
 import org.forgerock.json.crypto.JsonEncryptor;
@@ -67,6 +70,25 @@ public interface CryptoService {
      */
     JsonValue encrypt(JsonValue value, String cipher, String alias) throws JsonCryptoException,
             JsonException;
+
+    /**
+     * Encrypts a list of JSON values with the same cipher and key, which is looked up once for all the values.
+     *
+     * @param values
+     *            the JSON values to be encrypted, null elements are returned as null.
+     * @param cipher
+     *            the cipher with which to encrypt the values.
+     * @param alias
+     *            the key alias in the key store with which to encrypt the
+     *            values.
+     * @return copies of the values, encrypted with the specified cipher and key, in the order of the values.
+     * @throws JsonCryptoException
+     *             if and invalid cipher and/or alias is provided.
+     * @throws JsonException
+     *             if an exception occurred encrypting a value.
+     */
+    List<JsonValue> encryptAll(List<JsonValue> values, String cipher, String alias) throws JsonCryptoException,
+            JsonException;
     
     /**
      * Hashes a JSON value. Generates a new salt value.
@@ -104,6 +126,17 @@ public interface CryptoService {
      */
     JsonValue decrypt(String value);
 
+    /**
+     * Decrypts a list of JSON values and all of their children.
+     *
+     * @param values
+     *            the JSON values to be decrypted, null elements are returned as null.
+     * @return deep copies of the values, with all values decrypted, in the order of the values.
+     * @throws JsonException
+     *             if an exception occurred decrypting a value.
+     */
+    List<JsonValue> decryptAll(List<JsonValue> values);
+
     /**
      * Decrypts a JSON value and all of its children if necessary. If not,
      * returns the original object.
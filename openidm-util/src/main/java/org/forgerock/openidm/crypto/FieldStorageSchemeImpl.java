@@ -23,10 +23,12 @@
  *
  *      Copyright 2006-2008 Sun Microsystems, Inc.
  *      Portions Copyright 2010-2015 ForgeRock AS.
+ *      Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -40,6 +42,8 @@ import org.slf4j.LoggerFactory;
  * value.  The values that it generates are also salted, which protects against dictionary attacks. It 
  * does this by generating a random salt which is appended to the  clear-text value.  A hash is then 
  * generated based on this, the salt is appended to the hash, and  then the entire value is base64-encoded.
+ * <p>
+ * Instances are thread safe and meant to be shared, each thread hashes with its own message digest.
  */
 public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
@@ -54,24 +58,19 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
     private static final int NUM_SALT_BYTES = 16;
 
     /**
-     * The message digest that will actually be used to generate the hashes.
+     * The message digests, one per thread, that will actually be used to generate the hashes.
      */
-    private MessageDigest messageDigest;
+    private final ThreadLocal<MessageDigest> messageDigest;
 
     /** 
-     * The lock used to provide thread safe access to the message digest. 
+     * The secure random number generator to use to generate the salt values, safe for concurrent use.
      */
-    private Object digestLock;
-
-    /** 
-     * The secure random number generator to use to generate the salt values. 
-     */
-    private SecureRandom random;
+    private final SecureRandom random;
 
     /** 
      * Size of the digest in bytes.
      */
-    private int digestSize;
+    private final int digestSize;
 
     /**
      * Creates a new instance of this field storage scheme.
@@ -80,9 +79,16 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
      * @param algorithm the algorithm to use.
      * @throws Exception
      */
-    public FieldStorageSchemeImpl(int digestSize, String algorithm) throws Exception {
-        this.messageDigest = MessageDigest.getInstance(algorithm);
-        this.digestLock = new Object();
+    public FieldStorageSchemeImpl(int digestSize, final String algorithm) throws Exception {
+        // fail early on an unsupported algorithm
+        MessageDigest.getInstance(algorithm);
+        this.messageDigest = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
         this.random     = new SecureRandom();
         this.digestSize = digestSize;
     }
@@ -96,20 +102,18 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
         System.arraycopy(plaintext.getBytes(),0, plainPlusSalt, 0, plainBytesLength);
         byte[] digestBytes;
 
-        synchronized (digestLock) {
-            try {
-                // Generate the salt and put in the plain+salt array.
-                random.nextBytes(saltBytes);
-                System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
-
-                // Create the hash from the concatenated value.
-                digestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field: " + e.getMessage(), e);
-                throw e;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            // Generate the salt and put in the plain+salt array.
+            random.nextBytes(saltBytes);
+            System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
+
+            // Create the hash from the concatenated value.
+            digestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field: " + e.getMessage(), e);
+            throw e;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         // Append the salt to the hashed value and base64-the whole thing.
@@ -154,18 +158,16 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
         byte[] userDigestBytes;
 
-        synchronized (digestLock) {
-            try {
-                userDigestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field", storedField, e);
-                return false;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            userDigestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field", storedField, e);
+            return false;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
-        return Arrays.equals(digestBytes, userDigestBytes);
+        return MessageDigest.isEqual(digestBytes, userDigestBytes);
     }
     
 }
@@ -0,0 +1,88 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.util;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.script.Bindings;
+
+import org.forgerock.script.Scope;
+import org.forgerock.script.ScriptEntry;
+
+/**
+ * Per-thread pool of request scoped script {@link Bindings}.
+ * <p>
+ * Every thread keeps one bindings instance per {@link ScriptEntry} which is
+ * cleared when released rather than reallocated for the next execution. A
+ * re-entrant execution of the same script on the same thread, e.g. an
+ * {@code onUpdate} hook updating another object of the same type, gets fresh
+ * bindings because the pooled instance is still in use.
+ */
+public class BindingsPool {
+
+    private static final class Slot {
+        private Bindings bindings;
+        private boolean inUse;
+    }
+
+    private final ThreadLocal<Map<ScriptEntry, Slot>> slots = new ThreadLocal<Map<ScriptEntry, Slot>>() {
+        @Override
+        protected Map<ScriptEntry, Slot> initialValue() {
+            return new WeakHashMap<>();
+        }
+    };
+
+    /**
+     * Returns empty bindings for an execution of the script entry on the
+     * current thread. The bindings must be {@link #release(ScriptEntry, Bindings)
+     * released} by the same thread once the execution completed.
+     *
+     * @param scriptEntry the script about to be executed
+     * @param scope the scope used to create new bindings
+     * @return empty bindings
+     */
+    public Bindings acquire(ScriptEntry scriptEntry, Scope scope) {
+        final Map<ScriptEntry, Slot> threadSlots = slots.get();
+        Slot slot = threadSlots.get(scriptEntry);
+        if (slot == null) {
+            slot = new Slot();
+            threadSlots.put(scriptEntry, slot);
+        } else if (slot.inUse) {
+            return scope.createBindings();
+        }
+        if (slot.bindings == null) {
+            slot.bindings = scope.createBindings();
+        }
+        slot.inUse = true;
+        return slot.bindings;
+    }
+
+    /**
+     * Clears the bindings and returns them to the pool. Bindings that were not
+     * pooled are left to the garbage collector.
+     *
+     * @param scriptEntry the executed script
+     * @param bindings the bindings returned by {@link #acquire(ScriptEntry, Scope)}
+     */
+    public void release(ScriptEntry scriptEntry, Bindings bindings) {
+        final Slot slot = slots.get().get(scriptEntry);
+        if (slot != null && slot.inUse && slot.bindings == bindings) {
+            bindings.clear();
+            slot.inUse = false;
+        }
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 
 package org.forgerock.openidm.util;
@@ -29,18 +29,27 @@ import org.forgerock.services.context.Context;
  * This class wraps a {@link ScriptEntry} object representing a script stored in the
  * {@link org.forgerock.script.ScriptRegistry} and provides a method for executing the script with
  * a given {@link Context} and scope variables.
+ * <p>
+ * Executions are recorded in {@link ScriptMetrics} under the hook the script is configured for
+ * and reuse the per-thread pooled bindings.
  */
 public class Script {
 
+    private static final BindingsPool bindingsPool = new BindingsPool();
+
     private final ScriptEntry entry;
 
+    private final String hook;
+
     /**
      * A constructor.
      * 
      * @param entry a {@link ScriptEntry} object.
+     * @param hook the name of the hook the script is configured for, e.g. {@code transform}.
      */
-    Script(ScriptEntry entry) {
+    Script(ScriptEntry entry, String hook) {
         this.entry = entry;
+        this.hook = hook;
     }
 
     /**
@@ -52,10 +61,19 @@ public class Script {
      * @throws ScriptException
      */
     public Object exec(Map<String, Object> scope, Context context) throws ScriptException {
+        ScriptMetrics.Measure measure = ScriptMetrics.start(entry, hook);
         org.forgerock.script.Script s = entry.getScript(context);
-        Bindings b = s.createBindings();
-        b.putAll(scope);
-        return s.eval(b);
+        Bindings b = bindingsPool.acquire(entry, s);
+        try {
+            b.putAll(scope);
+            return s.eval(b);
+        } catch (ScriptException | RuntimeException e) {
+            measure.failed();
+            throw e;
+        } finally {
+            bindingsPool.release(entry, b);
+            measure.end();
+        }
     };
 
 }
@@ -0,0 +1,211 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.util;
+
+import static org.forgerock.openidm.util.DurationStatistics.nanoToMillis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
+import org.forgerock.script.ScriptEntry;
+import org.forgerock.script.ScriptName;
+
+/**
+ * Per script, per hook execution statistics.
+ * <p>
+ * Every execution is published as a smartevent named
+ * {@code openidm/internal/script/<script>/<hook>} and is also recorded in an
+ * always-on in-memory table holding the invocation count, the latency
+ * distribution, the failures and the number of bytes allocated by the
+ * executing thread. Allocations are inclusive: a script calling into another
+ * script is charged for the allocations of the nested script as well.
+ * <p>
+ * The statistics are exposed through {@link #getStatistics()}, which backs the
+ * {@code health/scripts} endpoint.
+ */
+public final class ScriptMetrics {
+
+    /** Prefix of the smartevent names published for script executions. */
+    public static final String EVENT_PREFIX = "openidm/internal/script/";
+
+    private static final ConcurrentMap<String, HookStatistics> statistics = new ConcurrentHashMap<>();
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} looked up
+     * reflectively to keep the bundle free of a {@code com.sun.management} import.
+     */
+    private static final Method allocatedBytes = allocatedBytesMethod();
+
+    private ScriptMetrics() {
+    }
+
+    private static Method allocatedBytesMethod() {
+        for (Class<?> type : threadBean.getClass().getInterfaces()) {
+            try {
+                return type.getMethod("getThreadAllocatedBytes", long.class);
+            } catch (NoSuchMethodException | SecurityException e) {
+                // try the next interface
+            }
+        }
+        return null;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (allocatedBytes != null) {
+            try {
+                return (Long) allocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+            } catch (Exception e) {
+                // not supported by this VM
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Statistics of a single script hook.
+     */
+    private static final class HookStatistics {
+        private final String script;
+        private final String hook;
+        private final DurationStatistics durations = new DurationStatistics();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+
+        private HookStatistics(String script, String hook) {
+            this.script = script;
+            this.hook = hook;
+        }
+
+        private Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("script", script);
+            map.put("hook", hook);
+            map.put("count", durations.count());
+            map.put("failures", failures.get());
+            map.put("totalMillis", nanoToMillis(durations.sum()));
+            map.put("meanMillis", nanoToMillis(durations.mean()));
+            map.put("maxMillis", nanoToMillis(durations.max()));
+            map.put("allocatedBytes", allocatedBytes.get());
+            return map;
+        }
+    }
+
+    /**
+     * A running script execution. Must be ended by the thread that started it.
+     */
+    public static final class Measure {
+        private final HookStatistics statistics;
+        private final EventEntry event;
+        private final long startNanoTime;
+        private final long startAllocatedBytes;
+        private boolean failed;
+
+        private Measure(HookStatistics statistics, EventEntry event) {
+            this.statistics = statistics;
+            this.event = event;
+            this.startAllocatedBytes = currentThreadAllocatedBytes();
+            this.startNanoTime = DurationStatistics.startNanoTime();
+        }
+
+        /**
+         * Marks the execution as failed.
+         */
+        public void failed() {
+            failed = true;
+        }
+
+        /**
+         * Ends the execution and records its statistics.
+         */
+        public void end() {
+            statistics.durations.stopNanoTime(startNanoTime);
+            if (startAllocatedBytes >= 0) {
+                final long allocated = currentThreadAllocatedBytes() - startAllocatedBytes;
+                if (allocated > 0) {
+                    statistics.allocatedBytes.addAndGet(allocated);
+                }
+            }
+            if (failed) {
+                statistics.failures.incrementAndGet();
+            }
+            event.end();
+        }
+    }
+
+    /**
+     * Starts measuring an execution of the given script hook.
+     *
+     * @param script the name of the script
+     * @param hook the hook the script is bound to, e.g. {@code onCreate} or {@code transform}
+     * @return the measure to {@link Measure#end() end} once the script returned
+     */
+    public static Measure start(String script, String hook) {
+        final String key = script + "/" + hook;
+        HookStatistics entry = statistics.get(key);
+        if (entry == null) {
+            entry = new HookStatistics(script, hook);
+            final HookStatistics existing = statistics.putIfAbsent(key, entry);
+            if (existing != null) {
+                entry = existing;
+            }
+        }
+        return new Measure(entry, Publisher.start(Name.get(EVENT_PREFIX + key), null, null));
+    }
+
+    /**
+     * Starts measuring an execution of the given script hook.
+     *
+     * @param scriptEntry the script being executed
+     * @param hook the hook the script is bound to, e.g. {@code onCreate} or {@code transform}
+     * @return the measure to {@link Measure#end() end} once the script returned
+     */
+    public static Measure start(ScriptEntry scriptEntry, String hook) {
+        final ScriptName name = scriptEntry.getName();
+        return start(name != null ? name.getName() : "anonymous", hook);
+    }
+
+    /**
+     * Returns a snapshot of the recorded statistics keyed by {@code <script>/<hook>}.
+     *
+     * @return the statistics of every script hook executed so far
+     */
+    public static Map<String, Object> getStatistics() {
+        final Map<String, Object> snapshot = new TreeMap<>();
+        for (Map.Entry<String, HookStatistics> entry : statistics.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discards the recorded statistics.
+     */
+    public static void reset() {
+        statistics.clear();
+    }
+}
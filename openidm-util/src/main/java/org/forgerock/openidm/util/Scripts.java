@@ -12,13 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 
 package org.forgerock.openidm.util;
 
 import javax.script.ScriptException;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.script.ScriptRegistry;
@@ -65,9 +66,26 @@ public class Scripts {
             return null;
         }
         try {
-            return new Script(instance.registry.takeScript(config));
+            return new Script(instance.registry.takeScript(config), hookName(config.getPointer()));
         } catch (ScriptException e) {
             throw new JsonValueException(config, e);
         }
     }
+
+    /**
+     * Returns the name of the configuration property holding the script, skipping list indexes
+     * so that e.g. {@code /correlationQuery/0} reports as {@code correlationQuery}.
+     *
+     * @param pointer location of the script configuration.
+     * @return the hook name, or {@code "script"} for a top-level configuration.
+     */
+    static String hookName(JsonPointer pointer) {
+        for (int i = pointer.size() - 1; i >= 0; i--) {
+            String token = pointer.get(i);
+            if (!token.isEmpty() && !Character.isDigit(token.charAt(0))) {
+                return token;
+            }
+        }
+        return "script";
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the {@link FieldStorageScheme#hashField(String)} and {@link FieldStorageScheme#fieldMatches(String, String)}
+ * throughput of a single shared scheme instance across thread counts, as the crypto service uses it. Run the
+ * {@link #main(String[])} method from the test classpath, optionally passing the number of operations per thread.
+ */
+public final class FieldStorageSchemeBenchmark {
+
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16 };
+
+    private FieldStorageSchemeBenchmark() {
+    }
+
+    private static long run(final FieldStorageScheme scheme, final boolean matches, int threads,
+            final int operations) throws Exception {
+        final String hashed = scheme.hashField("password");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < operations; i++) {
+                            if (matches) {
+                                scheme.fieldMatches("password", hashed);
+                            } else {
+                                scheme.hashField("password");
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally the number of operations per thread, 200000 by default
+     * @throws Exception if an operation fails
+     */
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        FieldStorageScheme scheme = new SaltedSHA256FieldStorageScheme();
+        // warm up
+        run(scheme, false, 4, operations / 10);
+        run(scheme, true, 4, operations / 10);
+        for (int threads : THREAD_COUNTS) {
+            long hash = run(scheme, false, threads, operations);
+            long matches = run(scheme, true, threads, operations);
+            System.out.printf("%2d threads %12.0f hash/s %12.0f matches/s%n", threads,
+                    threads * operations / (hash / 1e9), threads * operations / (matches / 1e9));
+        }
+    }
+}
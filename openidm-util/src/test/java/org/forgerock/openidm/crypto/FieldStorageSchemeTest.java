@@ -12,12 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -50,4 +58,32 @@ public class FieldStorageSchemeTest {
         assertThat(fieldStorageScheme.fieldMatches(testField, hashedField)).isTrue();
         assertThat(fieldStorageScheme.fieldMatches(testField + " ", hashedField)).isFalse();
     }
+
+    @Test(dataProvider = "testData")
+    public void testConcurrentUse(final FieldStorageScheme fieldStorageScheme, int hashedLength) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                final String testField = "valueToHash" + i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        boolean matches = true;
+                        for (int j = 0; j < 50; j++) {
+                            String hashedField = fieldStorageScheme.hashField(testField);
+                            matches &= fieldStorageScheme.fieldMatches(testField, hashedField)
+                                    && !fieldStorageScheme.fieldMatches(testField + " ", hashedField);
+                        }
+                        return matches;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
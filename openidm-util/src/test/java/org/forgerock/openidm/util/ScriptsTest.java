@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.util;
 
@@ -20,16 +21,22 @@ import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import javax.script.Bindings;
 import javax.script.ScriptException;
 
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
+import org.forgerock.script.ScriptName;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
@@ -58,6 +65,7 @@ public class ScriptsTest {
         when(mockScript.eval(any(Bindings.class))).thenReturn(true);
         when(mockScript.createBindings()).thenReturn(mockBindings);
         when(mockScriptEntry.getScript(context)).thenReturn(mockScript);
+        when(mockScriptEntry.getName()).thenReturn(new ScriptName("script/test.js", "javascript"));
         when(mockScriptRegistry.takeScript(any(JsonValue.class))).thenReturn(mockScriptEntry);
         Scripts.init(mockScriptRegistry);
     }
@@ -70,4 +78,41 @@ public class ScriptsTest {
         assertThat(Scripts.newScript(json(null))).isNull();
         assertThat(Scripts.newScript(null)).isNull();
     }
+
+    @Test
+    public void testHookName() {
+        assertThat(Scripts.hookName(new JsonPointer("/mappings/0/properties/2/transform"))).isEqualTo("transform");
+        assertThat(Scripts.hookName(new JsonPointer("/mappings/0/correlationQuery/1"))).isEqualTo("correlationQuery");
+        assertThat(Scripts.hookName(new JsonPointer(""))).isEqualTo("script");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScriptMetrics() throws ScriptException {
+        ScriptMetrics.reset();
+        Scripts.newScript(new JsonValue(testScriptConfig.getObject(), new JsonPointer("/onCreate"))).exec(null, context);
+
+        Map<String, Object> hook = (Map<String, Object>) ScriptMetrics.getStatistics().get("script/test.js/onCreate");
+        assertThat(hook).isNotNull();
+        assertThat(hook.get("count")).isEqualTo(1L);
+        assertThat(hook.get("failures")).isEqualTo(0L);
+        // the pooled bindings are cleared after the execution
+        verify(mockBindings, atLeastOnce()).clear();
+    }
+
+    @Test
+    public void testBindingsPool() {
+        BindingsPool pool = new BindingsPool();
+        ScriptEntry entry = mock(ScriptEntry.class);
+        when(entry.createBindings()).thenAnswer(invocation -> mock(Bindings.class));
+
+        Bindings first = pool.acquire(entry, entry);
+        // re-entrant execution gets its own bindings
+        Bindings nested = pool.acquire(entry, entry);
+        assertThat(nested).isNotSameAs(first);
+        pool.release(entry, nested);
+        pool.release(entry, first);
+
+        assertThat(pool.acquire(entry, entry)).isSameAs(first);
+    }
 }
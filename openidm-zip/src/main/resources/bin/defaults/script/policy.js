@@ -240,6 +240,10 @@ policyImpl = (function (){
 
     policyFunctions.unique = function(fullObject, value, params, property) {
         var queryParams,existing,requestId,requestBaseArray;
+        // a unique index of the repository, or the managed object set lacking one, rejects the taken values
+        if (params && params.repoEnforced) {
+            return [];
+        }
         if (value && value.length) {
             queryParams = {
                 "_queryFilter": property + ' eq "' + value.replace(/"/g, '\\"') + '"'
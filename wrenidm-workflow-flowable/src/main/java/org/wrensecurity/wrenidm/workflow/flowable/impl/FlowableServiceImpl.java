@@ -64,6 +64,7 @@ import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.datasource.DataSourceService;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.router.RouteService;
+import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.promise.Promise;
@@ -83,6 +84,8 @@ import org.osgi.service.component.propertytypes.ServiceVendor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wrensecurity.wrenidm.workflow.flowable.impl.identity.IdmEngineConfigurator;
+import org.wrensecurity.wrenidm.workflow.flowable.impl.identity.IdmMembershipCache;
+import org.wrensecurity.wrenidm.workflow.flowable.impl.identity.IdmMembershipCacheFilter;
 import org.wrensecurity.wrenidm.workflow.flowable.impl.scripting.IdmExpressionManager;
 import org.wrensecurity.wrenidm.workflow.flowable.impl.scripting.IdmScriptResolverFactory;
 import org.wrensecurity.wrenidm.workflow.flowable.impl.session.IdmSessionFactory;
@@ -124,6 +127,7 @@ public class FlowableServiceImpl implements RequestHandler {
     public static final String CONFIG_HISTORY = "history";
     public static final String CONFIG_USE_DATASOURCE = "useDataSource";
     public static final String CONFIG_WORKFLOWDIR = "workflowDirectory";
+    public static final String CONFIG_MEMBERSHIP_CACHE = "membershipCache";
     public static final String LOCALHOST = "localhost";
     public static final int DEFAULT_MAIL_PORT = 25;
 
@@ -178,6 +182,22 @@ public class FlowableServiceImpl implements RequestHandler {
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
 
+    /** The cache of the groups of the users resolved by the engine, null if not enabled. */
+    private volatile IdmMembershipCache membershipCache;
+
+    /** The router filter invalidating the cached groups. */
+    private final IdmMembershipCacheFilter membershipCacheFilter = new IdmMembershipCacheFilter(() -> membershipCache);
+
+    @Reference(policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.OPTIONAL,
+            unbind = "unbindRouterFilterRegistration")
+    void bindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.addFilter(membershipCacheFilter);
+    }
+
+    void unbindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.removeFilter(membershipCacheFilter);
+    }
+
     private final IdmExpressionManager expressionManager = new IdmExpressionManager();
     private final IdmSessionFactory sessionFactory = new IdmSessionFactory();
     private ProcessEngineFactory processEngineFactory;
@@ -253,7 +273,8 @@ public class FlowableServiceImpl implements RequestHandler {
                     configuration.setTablePrefixIsSchema(tablePrefixIsSchema);
 
                     // Configure custom IdM engine
-                    configuration.setIdmEngineConfigurator(new IdmEngineConfigurator(connectionFactory));
+                    configuration.setIdmEngineConfigurator(
+                            new IdmEngineConfigurator(connectionFactory, membershipCache));
 
                     // Register IdM session factory
                     configuration.addCustomSessionFactory(sessionFactory);
@@ -370,6 +391,7 @@ public class FlowableServiceImpl implements RequestHandler {
                 logger.error("Failed to destroy process engine factory.", e);
             }
         }
+        membershipCache = null;
         logger.debug("Workflow service has been successfully deactivated.");
     }
 
@@ -395,6 +417,7 @@ public class FlowableServiceImpl implements RequestHandler {
             tablePrefixIsSchema = config.get(CONFIG_TABLE_PREFIX_IS_SCHEMA).defaultTo(false).asBoolean();
             historyLevel = config.get(CONFIG_HISTORY).asString();
             workflowDir = config.get(CONFIG_WORKFLOWDIR).defaultTo("workflow").asString();
+            membershipCache = IdmMembershipCache.fromConfig(config.get(CONFIG_MEMBERSHIP_CACHE));
         }
     }
 
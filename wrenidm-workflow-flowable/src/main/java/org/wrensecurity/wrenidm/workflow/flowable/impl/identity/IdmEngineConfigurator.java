@@ -13,7 +13,7 @@
  * replaced by your own identifying information:
  * "Portions copyright [year] [name of copyright owner]".
  *
- * Copyright 2024 Wren Security.
+ * Copyright 2024-2026 Wren Security.
  */
 package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
 
@@ -26,8 +26,11 @@ public class IdmEngineConfigurator extends org.flowable.idm.engine.configurator.
 
     private ConnectionFactory connectionFactory;
 
-    public IdmEngineConfigurator(ConnectionFactory connectionFactory) {
+    private IdmMembershipCache membershipCache;
+
+    public IdmEngineConfigurator(ConnectionFactory connectionFactory, IdmMembershipCache membershipCache) {
         this.connectionFactory = connectionFactory;
+        this.membershipCache = membershipCache;
     }
 
     @Override
@@ -40,7 +43,7 @@ public class IdmEngineConfigurator extends org.flowable.idm.engine.configurator.
         super.configure(engineConfiguration);
 
         getIdmEngineConfiguration(engineConfiguration)
-            .setIdmIdentityService(new IdmIdentityService(connectionFactory, idmEngineConfiguration));
+            .setIdmIdentityService(new IdmIdentityService(connectionFactory, membershipCache, idmEngineConfiguration));
     }
 
     protected static IdmEngineConfiguration getIdmEngineConfiguration(AbstractEngineConfiguration engineConfiguration) {
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2015 ForgeRock AS.
- * Portions Copyright 2024 Wren Security.
+ * Portions Copyright 2024-2026 Wren Security.
  */
 package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
 
@@ -46,17 +46,33 @@ public class IdmGroupQuery extends GroupQueryImpl {
 
     private final Connection connection;
 
-    public IdmGroupQuery(Connection connection) {
+    private final IdmMembershipCache membershipCache;
+
+    /**
+     * Create the query.
+     *
+     * @param connection connection to perform the query with
+     * @param membershipCache cache of the groups of the users, or {@code null} if disabled
+     */
+    public IdmGroupQuery(Connection connection, IdmMembershipCache membershipCache) {
         this.connection = connection;
+        this.membershipCache = membershipCache;
     }
 
     @Override
     public List<Group> executeList(CommandContext commandContext) {
         // Search for roles of a specific user
         if (this.userId != null) {
-            List<Group> groups = new ArrayList<>();
-            for (JsonValue role : getUserRoles(this.userId)) {
-                groups.add(new IdmGroup(role));
+            List<Group> groups = membershipCache != null ? membershipCache.getGroups(this.userId) : null;
+            if (groups == null) {
+                groups = new ArrayList<>();
+                JsonValue user = getUser(this.userId);
+                for (JsonValue role : user.get(IdmIdentityService.ROLES_ATTR)) {
+                    groups.add(new IdmGroup(role));
+                }
+                if (membershipCache != null) {
+                    membershipCache.putGroups(this.userId, user.get(IdmIdentityService.ID_ATTR).asString(), groups);
+                }
             }
             return groups;
         }
@@ -78,7 +94,14 @@ public class IdmGroupQuery extends GroupQueryImpl {
 
     @Override
     public long executeCount(CommandContext commandContext) {
-        return executeList(commandContext).size();
+        if (this.userId != null) {
+            return executeList(commandContext).size();
+        }
+        QueryRequest request = Requests.newQueryRequest("managed/role");
+        applyQueryFilter(request);
+        request.addField(IdmIdentityService.ID_ATTR);
+        Integer count = IdmIdentityService.countResults(connection, request);
+        return count != null ? count : executeList(commandContext).size();
     }
 
     @Override
@@ -142,15 +165,16 @@ public class IdmGroupQuery extends GroupQueryImpl {
         throw new UnsupportedOperationException("Filtering by group members is not supported");
     }
 
-    private JsonValue getUserRoles(String userName) {
+    private JsonValue getUser(String userName) {
         QueryRequest request = Requests.newQueryRequest("managed/user");
         request.setQueryId("for-userName");
         try {
-            request.setAdditionalParameter("uid", this.userId);
+            request.setAdditionalParameter("uid", userName);
         } catch (BadRequestException e) {
             throw new RuntimeException(e);
         }
         request.addField(
+            new JsonPointer(IdmIdentityService.ID_ATTR),
             new JsonPointer(IdmIdentityService.ROLES_ATTR, "*", IdmIdentityService.ID_ATTR),
             new JsonPointer(IdmIdentityService.ROLES_ATTR, "*", IdmIdentityService.NAME_ATTR)
         );
@@ -160,9 +184,7 @@ public class IdmGroupQuery extends GroupQueryImpl {
         } catch (ResourceException e) {
             throw new RuntimeException("Unable to fetch user roles", e);
         }
-        return !users.isEmpty()
-                ? new IdmUser(users.get(0).getContent().get(IdmIdentityService.ROLES_ATTR))
-                : new JsonValue(null);
+        return !users.isEmpty() ? users.get(0).getContent() : new JsonValue(null);
     }
 
     private void applyQueryFilter(QueryRequest request) {
@@ -14,10 +14,12 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2015 ForgeRock AS.
- * Portions Copyright 2018-2024 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
 
+import static org.forgerock.openidm.util.ContextUtil.createInternalContext;
+
 import java.util.List;
 import org.flowable.common.engine.impl.identity.Authentication;
 import org.flowable.idm.api.Group;
@@ -37,6 +39,9 @@ import org.flowable.idm.engine.IdmEngineConfiguration;
 import org.flowable.idm.engine.impl.IdmIdentityServiceImpl;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceException;
 
 public class IdmIdentityService extends IdmIdentityServiceImpl {
@@ -52,9 +57,20 @@ public class IdmIdentityService extends IdmIdentityServiceImpl {
 
     private ConnectionFactory connectionFactory;
 
-    public IdmIdentityService(ConnectionFactory connectionFactory, IdmEngineConfiguration idmEngineConfiguration) {
+    private final IdmMembershipCache membershipCache;
+
+    /**
+     * Create the identity service.
+     *
+     * @param connectionFactory connection factory to perform IdM-related queries with
+     * @param membershipCache cache of the groups of the users, or {@code null} if disabled
+     * @param idmEngineConfiguration the IdM engine configuration
+     */
+    public IdmIdentityService(ConnectionFactory connectionFactory, IdmMembershipCache membershipCache,
+            IdmEngineConfiguration idmEngineConfiguration) {
         super(idmEngineConfiguration);
         this.connectionFactory = connectionFactory;
+        this.membershipCache = membershipCache;
     }
 
     public void setConnectionFactory(ConnectionFactory connectionFactory) {
@@ -63,7 +79,7 @@ public class IdmIdentityService extends IdmIdentityServiceImpl {
 
     @Override
     public GroupQuery createGroupQuery() {
-        return new IdmGroupQuery(getConnection());
+        return new IdmGroupQuery(getConnection(), membershipCache);
     }
 
     @Override
@@ -249,6 +265,24 @@ public class IdmIdentityService extends IdmIdentityServiceImpl {
         throw new UnsupportedOperationException("Creating native token query is not supported.");
     }
 
+    /**
+     * Count the results of a query with the count query of the repository, without listing them.
+     *
+     * @param connection connection to perform the query with
+     * @param request the query to count the results of
+     * @return the number of results, or {@code null} if the repository has no count for the query
+     */
+    static Integer countResults(Connection connection, QueryRequest request) {
+        request.setPageSize(1);
+        request.setTotalPagedResultsPolicy(CountPolicy.EXACT);
+        try {
+            QueryResponse response = connection.query(createInternalContext(), request, resource -> true);
+            return response.getTotalPagedResults() >= 0 ? response.getTotalPagedResults() : null;
+        } catch (ResourceException e) {
+            throw new RuntimeException("Unable to count query results", e);
+        }
+    }
+
     /**
      * Get connection to perform IdM-related queries.
      *
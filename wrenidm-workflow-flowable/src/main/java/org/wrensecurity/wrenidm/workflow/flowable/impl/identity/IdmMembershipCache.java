@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.flowable.idm.api.Group;
+import org.forgerock.json.JsonValue;
+
+/**
+ * Bounded, short lived cache of the groups (<i>managed roles</i>) of the users resolved by Flowable, keyed by the
+ * user name Flowable identifies the users with.
+ * <p>
+ * Configured in workflow.json as:
+ *
+ * <pre>
+ *     <code>
+ * "membershipCache" : {
+ *     "enabled" : true,
+ *     "maxSize" : 1000,
+ *     "ttl" : 5000
+ * }
+ *     </code>
+ * </pre>
+ *
+ * The cache is enabled with these defaults unless disabled. Entries are invalidated when the user, a role or a
+ * relationship changes on this node. Changes made through other nodes of a cluster are picked up once the entries
+ * expire, so the time to live should stay short.
+ */
+public class IdmMembershipCache {
+
+    /** Config key to enable the cache. */
+    public static final String CONFIG_ENABLED = "enabled";
+    /** Config key of the maximum number of cached users. */
+    public static final String CONFIG_MAX_SIZE = "maxSize";
+    /** Config key of the time to live of the cached groups in milliseconds. */
+    public static final String CONFIG_TTL = "ttl";
+
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final long DEFAULT_TTL = 5000L;
+
+    /**
+     * Cached groups of a user.
+     */
+    private static final class Entry {
+        private final String resourceId;
+        private final List<Group> groups;
+        private final long expires;
+
+        private Entry(String resourceId, List<Group> groups, long expires) {
+            this.resourceId = resourceId;
+            this.groups = groups;
+            this.expires = expires;
+        }
+    }
+
+    private final long ttl;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Create the cache with the given configuration.
+     *
+     * @param config the membershipCache configuration
+     * @return the cache or {@code null} if it is disabled
+     */
+    public static IdmMembershipCache fromConfig(JsonValue config) {
+        if (!config.get(CONFIG_ENABLED).defaultTo(true).asBoolean()) {
+            return null;
+        }
+        return new IdmMembershipCache(
+                config.get(CONFIG_MAX_SIZE).defaultTo(DEFAULT_MAX_SIZE).asInteger(),
+                config.get(CONFIG_TTL).defaultTo(DEFAULT_TTL).asLong());
+    }
+
+    IdmMembershipCache(final int maxSize, long ttl) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the cached groups of a user.
+     *
+     * @param userName the user name
+     * @return a copy of the cached groups, or {@code null} if they are not cached or have expired
+     */
+    public synchronized List<Group> getGroups(String userName) {
+        final Entry entry = entries.get(userName);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires <= System.currentTimeMillis()) {
+            entries.remove(userName);
+            return null;
+        }
+        return new ArrayList<>(entry.groups);
+    }
+
+    /**
+     * Cache the groups of a user.
+     *
+     * @param userName the user name
+     * @param resourceId the identifier of the managed user, or {@code null} if there is no such user
+     * @param groups the groups of the user
+     */
+    public synchronized void putGroups(String userName, String resourceId, List<Group> groups) {
+        entries.put(userName, new Entry(resourceId, new ArrayList<>(groups), System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Invalidate the cached groups of a managed user.
+     *
+     * @param resourceId the identifier of the managed user
+     */
+    public synchronized void invalidate(String resourceId) {
+        for (Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+            final Entry entry = i.next();
+            // a user cached as missing may have been created under this identifier
+            if (entry.resourceId == null || entry.resourceId.equals(resourceId)) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidate all cached groups.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+}
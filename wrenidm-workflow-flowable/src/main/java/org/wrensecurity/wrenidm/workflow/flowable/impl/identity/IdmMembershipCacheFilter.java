@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+
+/**
+ * Router filter invalidating the {@link IdmMembershipCache} when the resources the cached groups were resolved from
+ * change.
+ * <p>
+ * A change of a managed user, or of anything below it such as its role relationships, invalidates the groups of that
+ * user. A change of a role or of a relationship invalidates all cached groups, as any user may be a member.
+ */
+public class IdmMembershipCacheFilter implements Filter {
+
+    /** The repository prefix, stripped to match the writes of the managed objects to the repository. */
+    private static final String REPO_PREFIX = "repo/";
+
+    /** The collection of the users Flowable resolves the groups of. */
+    private static final String USER_COLLECTION = "managed/user";
+
+    /** Collections whose change may affect the groups of any user. */
+    private static final List<String> MEMBERSHIP_COLLECTIONS =
+            Arrays.asList("managed/role", "internal/role", "relationships");
+
+    private final Supplier<IdmMembershipCache> cacheSupplier;
+
+    /**
+     * Constructs the filter.
+     *
+     * @param cacheSupplier supplier of the current cache, which may return null if the cache is disabled
+     */
+    public IdmMembershipCacheFilter(Supplier<IdmMembershipCache> cacheSupplier) {
+        this.cacheSupplier = cacheSupplier;
+    }
+
+    /**
+     * Invalidates the groups affected by a change of the request resource.
+     *
+     * @param request the request changing the resource
+     */
+    void invalidate(Request request) {
+        final IdmMembershipCache cache = cacheSupplier.get();
+        if (cache == null) {
+            return;
+        }
+        String path = request.getResourcePath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.startsWith(REPO_PREFIX)) {
+            path = path.substring(REPO_PREFIX.length());
+        }
+        final String[] segments = path.split("/");
+        if (MEMBERSHIP_COLLECTIONS.contains(segments[0])
+                || (segments.length > 1 && MEMBERSHIP_COLLECTIONS.contains(segments[0] + "/" + segments[1]))) {
+            cache.invalidateAll();
+        } else if (segments.length > 2 && USER_COLLECTION.equals(segments[0] + "/" + segments[1])) {
+            cache.invalidate(segments[2]);
+        }
+    }
+
+    @Override
+    public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+            RequestHandler next) {
+        return next.handleAction(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterCreate(Context context, final CreateRequest request,
+            RequestHandler next) {
+        return next.handleCreate(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterDelete(Context context, final DeleteRequest request,
+            RequestHandler next) {
+        return next.handleDelete(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterPatch(Context context, final PatchRequest request,
+            RequestHandler next) {
+        return next.handlePatch(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+            QueryResourceHandler handler, RequestHandler next) {
+        return next.handleQuery(context, request, handler);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+            RequestHandler next) {
+        return next.handleRead(context, request);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, final UpdateRequest request,
+            RequestHandler next) {
+        return next.handleUpdate(context, request).thenOnResult(response -> invalidate(request));
+    }
+
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2015 ForgeRock AS.
- * Portions Copyright 2021-2024 Wren Security
+ * Portions Copyright 2021-2026 Wren Security
  */
 package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
 
@@ -37,6 +37,7 @@ import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.util.query.QueryFilter;
 
 /**
  * Component handling flowable user queries.
@@ -83,7 +84,18 @@ public class IdmUserQuery extends UserQueryImpl {
 
     @Override
     public long executeCount(CommandContext commandContext) {
-        return executeList(commandContext).size();
+        if (this.groupId != null || this.id != null) {
+            return executeList(commandContext).size();
+        }
+        QueryRequest request = Requests.newQueryRequest("managed/user");
+        try {
+            applyQueryRequestParams(request);
+        } catch (BadRequestException e) {
+            throw new RuntimeException(e);
+        }
+        request.addField(IdmIdentityService.ID_ATTR);
+        Integer count = IdmIdentityService.countResults(connection, request);
+        return count != null ? count : executeList(commandContext).size();
     }
 
     @Override
@@ -219,6 +231,8 @@ public class IdmUserQuery extends UserQueryImpl {
         if (this.id != null) {
             request.setQueryId("for-userName");
             request.setAdditionalParameter("uid", this.id);
+        } else {
+            request.setQueryFilter(QueryFilter.alwaysTrue());
         }
     }
 
@@ -0,0 +1,103 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.wrensecurity.wrenidm.workflow.flowable.impl.identity;
+
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import org.flowable.idm.api.Group;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class IdmGroupQueryTest {
+
+    private Connection connection;
+    private IdmMembershipCache cache;
+    private IdmMembershipCacheFilter filter;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), anyCollection())).then(invocation -> {
+            Collection<ResourceResponse> results = invocation.getArgument(2);
+            results.add(newResourceResponse("u1", null, json(object(
+                    field("_id", "u1"),
+                    field("authzRoles", array(object(field("_id", "r1"), field("name", "approver"))))))));
+            return newQueryResponse();
+        });
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenReturn(newQueryResponse(null, CountPolicy.EXACT, 42));
+        cache = new IdmMembershipCache(10, 60000L);
+        filter = new IdmMembershipCacheFilter(() -> cache);
+    }
+
+    private List<Group> listGroups(String userName) {
+        IdmGroupQuery query = new IdmGroupQuery(connection, cache);
+        query.groupMember(userName);
+        return query.executeList(null);
+    }
+
+    @Test
+    public void testCachesGroupsOfUser() throws Exception {
+        Assert.assertEquals(listGroups("bjensen").size(), 1);
+        Assert.assertEquals(listGroups("bjensen").get(0).getName(), "approver");
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class), anyCollection());
+    }
+
+    @Test
+    public void testInvalidatesGroupsOnChange() throws Exception {
+        listGroups("bjensen");
+
+        filter.invalidate(Requests.newUpdateRequest("repo/managed/user/u2", json(object())));
+        Assert.assertNotNull(cache.getGroups("bjensen"));
+
+        filter.invalidate(Requests.newCreateRequest("managed/user/u1/roles", json(object())));
+        Assert.assertNull(cache.getGroups("bjensen"));
+
+        listGroups("bjensen");
+        filter.invalidate(Requests.newDeleteRequest("repo/relationships/x"));
+        Assert.assertNull(cache.getGroups("bjensen"));
+    }
+
+    @Test
+    public void testCountsWithoutListing() throws Exception {
+        Assert.assertEquals(new IdmGroupQuery(connection, cache).executeCount(null), 42L);
+        verify(connection, never()).query(any(Context.class), any(QueryRequest.class), anyCollection());
+    }
+
+}